@@ -20,9 +20,9 @@ import com.google.api.ads.adwords.lib.utils.AdHocReportDownloadHelper;
 import com.google.api.ads.adwords.lib.utils.BatchJobHelperInterface;
 import com.google.api.ads.adwords.lib.utils.logging.AdWordsLoggingModule;
 import com.google.api.ads.common.lib.AdsModule;
+import com.google.api.ads.common.lib.utils.HttpTransportProvider;
 import com.google.api.ads.common.lib.utils.XmlFieldExtractor;
 import com.google.api.client.http.HttpTransport;
-import com.google.api.client.http.javanet.NetHttpTransport;
 
 /** Guice module for AdWords bindings. */
 public class AdWordsModule extends AdsModule {
@@ -34,7 +34,7 @@ public class AdWordsModule extends AdsModule {
     super.configure();
     configureLogging(AdWordsServiceClient.class.getName());
     install(new AdWordsConfigurationModule());
-    bind(HttpTransport.class).to(NetHttpTransport.class);
+    bind(HttpTransport.class).toProvider(HttpTransportProvider.class);
     bind(XmlFieldExtractor.class);
   }
 
@@ -96,6 +96,34 @@ public class ReportingConfiguration {
     return reportDownloadTimeout;
   }
 
+  /**
+   * Returns a new configuration whose options are those of {@code overrides} where they are
+   * non-null, and those of this configuration otherwise.
+   *
+   * @param overrides the options to override, or {@code null} to override none
+   */
+  public ReportingConfiguration withOverrides(@Nullable ReportingConfiguration overrides) {
+    if (overrides == null) {
+      return this;
+    }
+    return new Builder()
+        .skipReportHeader(firstNonNull(overrides.isSkipReportHeader, isSkipReportHeader))
+        .skipColumnHeader(firstNonNull(overrides.isSkipColumnHeader, isSkipColumnHeader))
+        .skipReportSummary(firstNonNull(overrides.isSkipReportSummary, isSkipReportSummary))
+        .includeZeroImpressions(
+            firstNonNull(overrides.isIncludeZeroImpressions, isIncludeZeroImpressions))
+        .useRawEnumValues(firstNonNull(overrides.isUseRawEnumValues, isUseRawEnumValues))
+        .reportDownloadTimeout(
+            firstNonNull(overrides.reportDownloadTimeout, reportDownloadTimeout))
+        .build();
+  }
+
+  /** Returns {@code first} if non-null, else {@code second}, which may be {@code null}. */
+  @Nullable
+  private static <T> T firstNonNull(@Nullable T first, @Nullable T second) {
+    return first != null ? first : second;
+  }
+
   /**
    * Validates this object for the specified version of the AdWords API.
    *
@@ -59,6 +59,71 @@ public class AdWordsLibConfiguration extends AdsLibConfiguration {
     return config.getBoolean(KEY_PREFIX + "." + USE_COMPRESSION_POSTFIX, false);
   }
   
+  @Override
+  public boolean isRequestStreamingEnabled() {
+    return config.getBoolean(KEY_PREFIX + "." + USE_REQUEST_STREAMING_POSTFIX, false);
+  }
+
+  @Override
+  public boolean isConcurrentInvocationEnabled() {
+    return config.getBoolean(KEY_PREFIX + "." + USE_CONCURRENT_INVOCATION_POSTFIX, false);
+  }
+
+  @Override
+  public int getMaxIdleConcurrentSoapClients() {
+    return config.getInt(KEY_PREFIX + "." + MAX_IDLE_CONCURRENT_SOAP_CLIENTS_POSTFIX,
+        DEFAULT_MAX_IDLE_CONCURRENT_SOAP_CLIENTS);
+  }
+
+  @Override
+  public int getSoapClientPoolSize() {
+    return config.getInt(KEY_PREFIX + "." + SOAP_CLIENT_POOL_SIZE_POSTFIX, 0);
+  }
+
+  @Override
+  public long getSoapClientPoolIdleTimeout() {
+    return config.getLong(KEY_PREFIX + "." + SOAP_CLIENT_POOL_IDLE_TIMEOUT_POSTFIX,
+        DEFAULT_SOAP_CLIENT_POOL_IDLE_TIMEOUT);
+  }
+
+  @Override
+  public int getAsyncThreadPoolSize() {
+    return config.getInt(KEY_PREFIX + "." + ASYNC_THREAD_POOL_SIZE_POSTFIX,
+        DEFAULT_ASYNC_THREAD_POOL_SIZE);
+  }
+
+  @Override
+  public boolean isStreamingPrettyPrinterEnabled() {
+    return config.getBoolean(KEY_PREFIX + "." + USE_STREAMING_PRETTY_PRINTER_POSTFIX, false);
+  }
+
+  @Override
+  public int getPrettyPrintMaxPayloadSize() {
+    return config.getInt(KEY_PREFIX + "." + PRETTY_PRINT_MAX_PAYLOAD_SIZE_POSTFIX, 0);
+  }
+
+  @Override
+  public String getHttpTransport() {
+    return config.getString(KEY_PREFIX + "." + HTTP_TRANSPORT_POSTFIX, DEFAULT_HTTP_TRANSPORT);
+  }
+
+  @Override
+  public int getHttpMaxConnections() {
+    return config.getInt(KEY_PREFIX + "." + HTTP_MAX_CONNECTIONS_POSTFIX,
+        DEFAULT_HTTP_MAX_CONNECTIONS);
+  }
+
+  @Override
+  public int getHttpMaxConnectionsPerRoute() {
+    return config.getInt(KEY_PREFIX + "." + HTTP_MAX_CONNECTIONS_PER_ROUTE_POSTFIX,
+        DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE);
+  }
+
+  @Override
+  public long getHttpKeepAlive() {
+    return config.getLong(KEY_PREFIX + "." + HTTP_KEEP_ALIVE_POSTFIX, DEFAULT_HTTP_KEEP_ALIVE);
+  }
+
   @Override
   public int getSoapRequestTimeout() {
     return config.getInt(
@@ -18,6 +18,7 @@ import com.google.api.ads.adwords.lib.client.AdWordsServiceClient;
 import com.google.api.ads.adwords.lib.client.AdWordsServiceDescriptor;
 import com.google.api.ads.adwords.lib.client.AdWordsSession;
 import com.google.api.ads.adwords.lib.utils.SessionUtility;
+import com.google.api.ads.common.lib.conf.AdsLibConfiguration;
 import com.google.api.ads.common.lib.factory.BaseServices;
 import com.google.common.base.Preconditions;
 import com.google.inject.Injector;
@@ -31,7 +32,8 @@ public abstract class BaseAdWordsServices
 
   /** @param injector an injector which binds all the necessary classes */
   protected BaseAdWordsServices(Injector injector) {
-    super(new AdWordsServiceClientFactory(injector));
+    super(new AdWordsServiceClientFactory(injector),
+        injector.getInstance(AdsLibConfiguration.class).getAsyncThreadPoolSize());
     this.injector = injector;
   }
 
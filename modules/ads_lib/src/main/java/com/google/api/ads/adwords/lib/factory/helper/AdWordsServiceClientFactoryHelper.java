@@ -22,6 +22,7 @@ import com.google.api.ads.common.lib.factory.FactoryModule.AdsServiceClientFacto
 import com.google.api.ads.common.lib.factory.FactoryModule.AdsServiceDescriptorFactoryInterface;
 import com.google.api.ads.common.lib.factory.helper.AdsServiceClientFactoryHelper;
 import com.google.api.ads.common.lib.factory.helper.BaseAdsServiceClientFactoryHelper;
+import com.google.api.ads.common.lib.factory.helper.SoapClientPool;
 import com.google.api.ads.common.lib.soap.SoapClientHandlerInterface;
 
 import java.util.regex.Matcher;
@@ -62,7 +63,9 @@ public class AdWordsServiceClientFactoryHelper extends
                                      * the raw type here. */
       SoapClientHandlerInterface soapClientHandler,
       AdsLibConfiguration adsLibConfiguration) {
-    super(adsServiceClientFactory, adsServiceDescriptorFactory, soapClientHandler);
+    super(adsServiceClientFactory, adsServiceDescriptorFactory, soapClientHandler,
+        new SoapClientPool<Object>(adsLibConfiguration.getSoapClientPoolSize(),
+            adsLibConfiguration.getSoapClientPoolIdleTimeout()));
     this.adsLibConfiguration = adsLibConfiguration;
   }
 
@@ -78,4 +81,21 @@ public class AdWordsServiceClientFactoryHelper extends
       return adsLibConfiguration.getDuckTypedVersion();
     }
   }
+
+  /**
+   * Returns if concurrent invocation is enabled in the lib configuration.
+   */
+  @Override
+  protected boolean isConcurrentInvocationEnabled() {
+    return adsLibConfiguration.isConcurrentInvocationEnabled();
+  }
+
+  /**
+   * Returns the maximum number of idle call-scoped SOAP clients in the lib
+   * configuration.
+   */
+  @Override
+  protected int getMaxIdleConcurrentSoapClients() {
+    return adsLibConfiguration.getMaxIdleConcurrentSoapClients();
+  }
 }
@@ -15,7 +15,11 @@
 package com.google.api.ads.adwords.lib.utils;
 
 import com.google.api.ads.adwords.lib.client.AdWordsSession;
+import com.google.api.ads.adwords.lib.client.reporting.ReportingConfiguration;
 import com.google.api.ads.adwords.lib.utils.DetailedReportDownloadResponseException.Builder;
+import com.google.api.ads.adwords.lib.utils.ReportRequest.RequestType;
+import com.google.api.ads.adwords.lib.utils.logging.ReportDownloadMetrics;
+import com.google.api.ads.adwords.lib.utils.logging.ReportServiceLogger;
 import com.google.api.ads.common.lib.exception.AuthenticationException;
 import com.google.api.ads.common.lib.utils.Streams;
 import com.google.api.ads.common.lib.utils.XmlFieldExtractor;
@@ -23,34 +27,51 @@ import com.google.api.client.http.GenericUrl;
 import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpRequestFactory;
 import com.google.api.client.http.HttpResponse;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.nio.charset.Charset;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 
 /**
  * Actual implementation of download functionality.
+ *
+ * <p>An instance created with a {@code null} session only supports the methods that take a
+ * session, which are thread-safe.
  */
 class AdHocReportDownloadHelperImpl implements AdHocReportDownloadHelperInterface {
-  private final AdWordsSession session;
+  @Nullable private final AdWordsSession session;
   private final ReportRequestFactoryHelper reportRequestFactoryHelper;
   private final ReportBodyProviderFactory reportBodyProviderFactory;
   private final XmlFieldExtractor xmlFieldExtractor;
+  private final ReportServiceLogger reportServiceLogger;
+
+  private static final Pattern XML_REPORT_TYPE_PATTERN =
+      Pattern.compile("<reportType>\\s*(\\w+)\\s*</reportType>");
+  private static final Pattern AWQL_REPORT_TYPE_PATTERN =
+      Pattern.compile("\\bFROM\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
 
   /** Constructor used by Guice. */
   @Inject
-  AdHocReportDownloadHelperImpl(AdWordsSession session,
+  AdHocReportDownloadHelperImpl(@Nullable AdWordsSession session,
       ReportRequestFactoryHelper reportRequestFactoryHelper,
       ReportBodyProviderFactory reportBodyProviderFactory,
-      XmlFieldExtractor xmlFieldExtractor) {
+      XmlFieldExtractor xmlFieldExtractor,
+      ReportServiceLogger reportServiceLogger) {
     this.session = session;
     this.reportRequestFactoryHelper = reportRequestFactoryHelper;
     this.reportBodyProviderFactory = reportBodyProviderFactory;
     this.xmlFieldExtractor = xmlFieldExtractor;
+    this.reportServiceLogger = reportServiceLogger;
   }
 
   @Override
@@ -63,17 +84,55 @@ class AdHocReportDownloadHelperImpl implements AdHocReportDownloadHelperInterfac
   @Override
   public RawReportDownloadResponse downloadReport(ReportRequest reportRequest)
       throws ReportException {
+    Preconditions.checkState(session != null, "Helper is not bound to a session");
+    String apiVersion = reportRequest.getApiVersion();
+    String downloadUrl = generateReportUrl(session, apiVersion);
+    try {
+      return downloadReport(session, reportRequest, 1, downloadUrl,
+          reportRequestFactoryHelper.getHttpRequestFactory(downloadUrl, apiVersion));
+    } catch (AuthenticationException e) {
+      throw new ReportException("Problem with OAuth authorization.", e);
+    }
+  }
+
+  /**
+   * Downloads a report on behalf of {@code session}, with the options of {@code overrides} taking
+   * precedence over the session's reporting configuration.
+   *
+   * @param session the session to download the report for
+   * @param reportRequest the report request
+   * @param overrides the per-request options, or {@code null} to use the session's options
+   * @param attempt the 1-based attempt to download the report, which determines the retry count
+   *     of the metrics of the download
+   * @return encapsulated http response body and status code.
+   * @throws ReportException if there is an exception while making the HTTP request to the server.
+   */
+  RawReportDownloadResponse downloadReport(AdWordsSession session, ReportRequest reportRequest,
+      @Nullable ReportingConfiguration overrides, int attempt) throws ReportException {
+    Preconditions.checkNotNull(session, "Null session");
+    String apiVersion = reportRequest.getApiVersion();
+    String downloadUrl = generateReportUrl(session, apiVersion);
+    try {
+      return downloadReport(session, reportRequest, attempt, downloadUrl,
+          reportRequestFactoryHelper.getHttpRequestFactory(
+              session, downloadUrl, apiVersion, overrides));
+    } catch (AuthenticationException e) {
+      throw new ReportException("Problem with OAuth authorization.", e);
+    }
+  }
+
+  private RawReportDownloadResponse downloadReport(AdWordsSession session,
+      ReportRequest reportRequest, int attempt, String downloadUrl,
+      HttpRequestFactory requestFactory) throws ReportException {
     try {
-      String apiVersion = reportRequest.getApiVersion();
-      String downloadUrl = generateReportUrl(apiVersion);
-      HttpRequestFactory requestFactory =
-          reportRequestFactoryHelper.getHttpRequestFactory(downloadUrl, apiVersion);
       ReportBodyProvider reportBodyProvider =
           reportBodyProviderFactory.getReportBodyProvider(reportRequest);
       HttpRequest httpRequest = requestFactory
           .buildPostRequest(new GenericUrl(downloadUrl), reportBodyProvider.getHttpContent());
+      long startNanos = System.nanoTime();
       HttpResponse response = httpRequest.execute();
-      
+      long timeToFirstByteNanos = System.nanoTime() - startNanos;
+
       Charset charSet = REPORT_CHARSET;
       // Unfortunately, HttpResponse.getContentCharset defaults to Charsets.ISO_8859_1 if the
       // underlying MediaType is null or doesn't have a Charset parameter. Since we want to
@@ -83,17 +142,45 @@ class AdHocReportDownloadHelperImpl implements AdHocReportDownloadHelperInterfac
         charSet = response.getMediaType().getCharsetParameter();
       }
 
-      return new RawReportDownloadResponse(response.getStatusCode(), response.getContent(), charSet,
+      InputStream content = response.getContent();
+      if (reportServiceLogger.isMetricsLoggable()) {
+        ReportDownloadMetrics.Builder metricsBuilder = new ReportDownloadMetrics.Builder()
+            .reportType(getReportType(reportRequest))
+            .downloadFormat(reportRequest.getDownloadFormat().name())
+            .httpStatus(response.getStatusCode())
+            .clientCustomerId(session.getClientCustomerId())
+            .retryCount(attempt - 1)
+            .timeToFirstByteMillis(TimeUnit.NANOSECONDS.toMillis(timeToFirstByteNanos));
+        content = new MeteredReportInputStream(
+            content == null ? new ByteArrayInputStream(new byte[0]) : content,
+            reportServiceLogger, metricsBuilder, startNanos);
+      }
+      return new RawReportDownloadResponse(response.getStatusCode(), content, charSet,
           reportRequest.getDownloadFormat().name());
     } catch (MalformedURLException e) {
       throw new ReportException("Created invalid report download URL.", e);
     } catch (IOException e) {
       throw new ReportException("Problem sending data to report download server.", e);
-    } catch (AuthenticationException e) {
-      throw new ReportException("Problem with OAuth authorization.", e);
     }
   }
 
+  /**
+   * Returns the report type of the request, or {@link ReportDownloadMetrics#UNKNOWN_REPORT_TYPE}
+   * if it cannot be determined.
+   */
+  @VisibleForTesting
+  static String getReportType(ReportRequest reportRequest) {
+    String requestString = reportRequest.getReportRequestString();
+    if (requestString != null) {
+      Matcher matcher = (reportRequest.getRequestType() == RequestType.XML
+          ? XML_REPORT_TYPE_PATTERN : AWQL_REPORT_TYPE_PATTERN).matcher(requestString);
+      if (matcher.find()) {
+        return matcher.group(1);
+      }
+    }
+    return ReportDownloadMetrics.UNKNOWN_REPORT_TYPE;
+  }
+
   @Override
   public ReportDownloadResponse handleResponse(
       RawReportDownloadResponse rawResponse, Builder exceptionBuilder)
@@ -128,10 +215,11 @@ class AdHocReportDownloadHelperImpl implements AdHocReportDownloadHelperInterfac
   /**
    * Creates the report download URL.
    *
+   * @param session the session whose endpoint to download from.
    * @param version to download from.
    * @return url to download a report from.
    */
-  private String generateReportUrl(String version) {
+  private static String generateReportUrl(AdWordsSession session, String version) {
     return session.getEndpoint() + ReportRequestFactoryHelper.DOWNLOAD_SERVER_URI + '/' + version;
   }
 
@@ -81,6 +81,13 @@ public class AdWordsInternals extends Internals {
     return INSTANCE.injector.getInstance(DependencyBootstrapper.class);
   }
 
+  /**
+   * Returns a {@link SharedReportDownloadHelper} that is not bound to any session.
+   */
+  public SharedReportDownloadHelper getSharedReportDownloadHelper() {
+    return injector.getInstance(SharedReportDownloadHelper.class);
+  }
+
   /**
    * Returns the AdWordsLibConfiguration.
    */
@@ -76,4 +76,39 @@ public interface BatchJobHelperInterface<OperationT,
    */
   @UsesAdsUtilities({AdsUtility.BATCH_JOB_HELPER})
   ResponseT downloadBatchJobMutateResponse(String downloadUrl) throws BatchJobException;
+
+  /**
+   * Downloads the results from the attempted operations for a completed batch job one at a time.
+   * Unlike {@link #downloadBatchJobMutateResponse(String)}, which holds all results in memory,
+   * each result is deserialized only when the returned iterator is advanced to it. The caller
+   * must close the iterator.
+   *
+   * @param downloadUrl the {@code BatchJob.getDownloadUrl()}
+   * @throws BatchJobException if unable to open the download
+   */
+  @UsesAdsUtilities({AdsUtility.BATCH_JOB_HELPER})
+  BatchJobMutateResultIterator<ResultT> downloadBatchJobMutateResults(String downloadUrl)
+      throws BatchJobException;
+
+  /**
+   * Creates an uploader that serializes operations directly into a reusable buffer and uploads
+   * them in aligned increments. Use this instead of
+   * {@link #uploadIncrementalBatchJobOperations(Iterable, boolean, BatchJobUploadStatus)} to upload
+   * an unbounded number of operations using a constant amount of memory.
+   *
+   * @param batchJobUploadStatus the current upload status. If no operations have been uploaded
+   * yet, set the {@link BatchJobUploadStatus#getResumableUploadUri()} to the {@code
+   * BatchJob#getUploadUrl()}.
+   */
+  @UsesAdsUtilities({AdsUtility.BATCH_JOB_HELPER})
+  StreamingBatchJobUploader<OperationT> createStreamingUploader(
+      BatchJobUploadStatus batchJobUploadStatus);
+
+  /**
+   * Creates a builder for a pipeline that uploads a lazily produced sequence of operations in a
+   * single call. The pipeline sizes each upload by serialized bytes, and serializes the next upload
+   * on another thread while the previous one is sent.
+   */
+  @UsesAdsUtilities({AdsUtility.BATCH_JOB_HELPER})
+  BatchJobUploadPipeline.Builder<OperationT> createUploadPipelineBuilder();
 }
@@ -0,0 +1,509 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import com.google.api.client.util.NanoClock;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Waits for many batch jobs to finish using a single scheduled executor.
+ *
+ * <p>Batch jobs are grouped by their {@link BatchJobStatusCheck}, which is typically bound to the
+ * {@code BatchJobService} of one customer. Each poll cycle of a group fetches all of its batch
+ * jobs that are due for a status check with a single request, instead of one request per batch
+ * job. The interval until the next status check of a batch job adapts to its progress: once
+ * {@code ProgressStats.estimatedPercentExecuted} increases, the next check is scheduled at about
+ * half of the estimated remaining time. Until then, the interval doubles after each check.
+ * Intervals are always between the minimum and maximum of the {@link Builder}.
+ *
+ * <p>A monitor is meant to be long-lived and shared by all batch jobs of an application.
+ *
+ * <pre>
+ * BatchJobMonitor monitor = new BatchJobMonitor.Builder().build();
+ * BatchJobServiceStatusCheck statusCheck = new BatchJobServiceStatusCheck(batchJobService);
+ * ListenableFuture&lt;BatchJob&gt; finishedJob = monitor.watch(statusCheck, batchJob.getId());
+ * </pre>
+ */
+@ThreadSafe
+public class BatchJobMonitor {
+
+  /** The minimum interval between status checks of a batch job by default. */
+  public static final long DEFAULT_MIN_POLL_INTERVAL_MILLIS = 5000;
+
+  /** The maximum interval between status checks of a batch job by default. */
+  public static final long DEFAULT_MAX_POLL_INTERVAL_MILLIS = 300000;
+
+  private final ScheduledExecutorService executor;
+  private final boolean isExecutorOwned;
+  private final long minPollIntervalNanos;
+  private final long maxPollIntervalNanos;
+  private final NanoClock nanoClock;
+  private final ConcurrentMap<BatchJobStatusCheck<?>, JobGroup<?>> groups =
+      Maps.newConcurrentMap();
+
+  private BatchJobMonitor(Builder builder) {
+    if (builder.executor != null) {
+      this.executor = builder.executor;
+      this.isExecutorOwned = false;
+    } else {
+      this.executor = Executors.newScheduledThreadPool(builder.maxConcurrentStatusChecks,
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("batch-job-monitor-%d")
+              .build());
+      this.isExecutorOwned = true;
+    }
+    this.minPollIntervalNanos = TimeUnit.MILLISECONDS.toNanos(builder.minPollIntervalMillis);
+    this.maxPollIntervalNanos = TimeUnit.MILLISECONDS.toNanos(builder.maxPollIntervalMillis);
+    this.nanoClock = builder.nanoClock;
+  }
+
+  /**
+   * Waits for a batch job to finish. Returns immediately.
+   *
+   * @param statusCheck fetches the batch jobs of the customer that owns the batch job
+   * @param batchJobId the ID of the batch job
+   * @return a future that is set to the batch job once its status is {@code DONE} or
+   *     {@code CANCELED}. The future fails with the exception of a status check if one fails, or
+   *     with an {@link IllegalStateException} if the batch job is not found. Concurrent calls for
+   *     the same batch job and status check share a single future, and cancelling it stops the
+   *     status checks of the batch job for all callers.
+   */
+  public <BatchJobT> ListenableFuture<BatchJobT> watch(
+      BatchJobStatusCheck<BatchJobT> statusCheck, long batchJobId) {
+    Preconditions.checkNotNull(statusCheck, "Null status check");
+    while (true) {
+      @SuppressWarnings("unchecked")
+      JobGroup<BatchJobT> group = (JobGroup<BatchJobT>) groups.get(statusCheck);
+      if (group == null) {
+        group = new JobGroup<BatchJobT>(statusCheck);
+        @SuppressWarnings("unchecked")
+        JobGroup<BatchJobT> existingGroup =
+            (JobGroup<BatchJobT>) groups.putIfAbsent(statusCheck, group);
+        if (existingGroup != null) {
+          group = existingGroup;
+        }
+      }
+      ListenableFuture<BatchJobT> future = group.add(batchJobId);
+      if (future != null) {
+        return future;
+      }
+      // The group was closed after its last batch job finished, so retry with a new group.
+    }
+  }
+
+  /**
+   * Returns the number of batch jobs that are still being waited for.
+   */
+  public int getPendingBatchJobCount() {
+    int count = 0;
+    for (JobGroup<?> group : groups.values()) {
+      count += group.size();
+    }
+    return count;
+  }
+
+  /**
+   * Stops waiting for all batch jobs and cancels their futures. The executor is shut down unless
+   * it was supplied to the {@link Builder}.
+   */
+  public void shutdown() {
+    if (isExecutorOwned) {
+      executor.shutdownNow();
+    }
+    for (JobGroup<?> group : groups.values()) {
+      group.cancelAll();
+    }
+  }
+
+  /**
+   * The status of a batch job, independent of the API version and SOAP toolkit.
+   */
+  public enum BatchJobState {
+    IN_PROGRESS,
+    DONE,
+    CANCELED
+  }
+
+  /**
+   * Fetches batch jobs for a {@link BatchJobMonitor}. Called concurrently for different poll
+   * cycles, so implementations must be thread-safe. Batch jobs are grouped only for status checks
+   * that are {@link Object#equals(Object) equal}, so the same instance should be used for all
+   * batch jobs of a customer.
+   *
+   * @param <BatchJobT> the batch job type for the API version and SOAP toolkit.
+   */
+  public interface BatchJobStatusCheck<BatchJobT> {
+
+    /**
+     * Returns the batch jobs with the IDs, fetched with a single request. Batch jobs that are not
+     * found are omitted.
+     */
+    List<BatchJobT> getBatchJobs(Collection<Long> batchJobIds) throws Exception;
+
+    /** Returns the ID of the batch job. */
+    long getId(BatchJobT batchJob);
+
+    /** Returns the state of the batch job. */
+    BatchJobState getState(BatchJobT batchJob);
+
+    /**
+     * Returns the estimated percentage of the operations of the batch job that have been executed,
+     * or {@code null} if unknown.
+     */
+    @Nullable
+    Integer getEstimatedPercentExecuted(BatchJobT batchJob);
+  }
+
+  /**
+   * The batch jobs of a single status check, which are polled together.
+   */
+  private class JobGroup<BatchJobT> implements Runnable {
+    private final BatchJobStatusCheck<BatchJobT> statusCheck;
+
+    @GuardedBy("this")
+    private final Map<Long, WatchedJob<BatchJobT>> jobs = Maps.newHashMap();
+
+    @GuardedBy("this")
+    private ScheduledFuture<?> scheduledCycle;
+
+    @GuardedBy("this")
+    private long scheduledCycleNanos;
+
+    @GuardedBy("this")
+    private boolean isRunning;
+
+    @GuardedBy("this")
+    private boolean isClosed;
+
+    private JobGroup(BatchJobStatusCheck<BatchJobT> statusCheck) {
+      this.statusCheck = statusCheck;
+    }
+
+    /**
+     * Adds the batch job and returns its future, or returns {@code null} if the group is closed.
+     */
+    @Nullable
+    private synchronized ListenableFuture<BatchJobT> add(final long batchJobId) {
+      if (isClosed) {
+        return null;
+      }
+      WatchedJob<BatchJobT> job = jobs.get(batchJobId);
+      if (job != null) {
+        return job.future;
+      }
+      final WatchedJob<BatchJobT> newJob =
+          new WatchedJob<BatchJobT>(batchJobId, new PollSchedule(
+              minPollIntervalNanos, maxPollIntervalNanos, nanoClock.nanoTime()));
+      jobs.put(batchJobId, newJob);
+      // Completed futures are removed by the poll cycle before they are set; this listener
+      // removes cancelled ones.
+      newJob.future.addListener(new Runnable() {
+        @Override
+        public void run() {
+          remove(newJob);
+        }
+      }, MoreExecutors.directExecutor());
+      scheduleCycle(newJob.schedule.getNextPollNanos());
+      return newJob.future;
+    }
+
+    private synchronized int size() {
+      return jobs.size();
+    }
+
+    private synchronized void remove(WatchedJob<BatchJobT> job) {
+      jobs.remove(job.batchJobId);
+    }
+
+    private void cancelAll() {
+      List<WatchedJob<BatchJobT>> cancelledJobs;
+      synchronized (this) {
+        cancelledJobs = ImmutableList.copyOf(jobs.values());
+      }
+      for (WatchedJob<BatchJobT> job : cancelledJobs) {
+        job.future.cancel(false);
+      }
+    }
+
+    /**
+     * Schedules the next poll cycle to run no later than {@code cycleNanos}.
+     */
+    @GuardedBy("this")
+    private void scheduleCycle(long cycleNanos) {
+      if (isRunning) {
+        // The running cycle schedules the next one when it ends.
+        return;
+      }
+      if (scheduledCycle != null) {
+        if (scheduledCycleNanos <= cycleNanos) {
+          return;
+        }
+        scheduledCycle.cancel(false);
+      }
+      try {
+        scheduledCycle = executor.schedule(
+            this, Math.max(0, cycleNanos - nanoClock.nanoTime()), TimeUnit.NANOSECONDS);
+        scheduledCycleNanos = cycleNanos;
+      } catch (RejectedExecutionException e) {
+        scheduledCycle = null;
+        // Failing a future removes its batch job, so iterate over a copy.
+        for (WatchedJob<BatchJobT> job : ImmutableList.copyOf(jobs.values())) {
+          job.future.setException(e);
+        }
+      }
+    }
+
+    /**
+     * Runs a poll cycle, which checks the status of all batch jobs that are due with a single
+     * request.
+     */
+    @Override
+    public void run() {
+      List<WatchedJob<BatchJobT>> dueJobs = Lists.newArrayList();
+      synchronized (this) {
+        if (isRunning) {
+          return;
+        }
+        isRunning = true;
+        scheduledCycle = null;
+        // Also check batch jobs that are due soon, so their checks share this request.
+        long dueNanos = nanoClock.nanoTime() + minPollIntervalNanos / 2;
+        for (WatchedJob<BatchJobT> job : jobs.values()) {
+          if (job.schedule.getNextPollNanos() <= dueNanos) {
+            dueJobs.add(job);
+          }
+        }
+      }
+      try {
+        if (!dueJobs.isEmpty()) {
+          poll(dueJobs);
+        }
+      } finally {
+        synchronized (this) {
+          isRunning = false;
+          if (jobs.isEmpty()) {
+            isClosed = true;
+            groups.remove(statusCheck, this);
+          } else {
+            long nextCycleNanos = Long.MAX_VALUE;
+            for (WatchedJob<BatchJobT> job : jobs.values()) {
+              nextCycleNanos = Math.min(nextCycleNanos, job.schedule.getNextPollNanos());
+            }
+            scheduleCycle(nextCycleNanos);
+          }
+        }
+      }
+    }
+
+    private void poll(List<WatchedJob<BatchJobT>> dueJobs) {
+      Map<Long, WatchedJob<BatchJobT>> dueJobsById = Maps.newLinkedHashMap();
+      for (WatchedJob<BatchJobT> job : dueJobs) {
+        dueJobsById.put(job.batchJobId, job);
+      }
+      List<BatchJobT> batchJobs;
+      try {
+        batchJobs = statusCheck.getBatchJobs(ImmutableList.copyOf(dueJobsById.keySet()));
+      } catch (Exception e) {
+        for (WatchedJob<BatchJobT> job : dueJobs) {
+          remove(job);
+          job.future.setException(e);
+        }
+        return;
+      }
+      long nowNanos = nanoClock.nanoTime();
+      try {
+        for (BatchJobT batchJob : batchJobs) {
+          WatchedJob<BatchJobT> job = dueJobsById.remove(statusCheck.getId(batchJob));
+          if (job == null) {
+            continue;
+          }
+          BatchJobState state = statusCheck.getState(batchJob);
+          if (state == BatchJobState.DONE || state == BatchJobState.CANCELED) {
+            // Remove the batch job before setting the future, so that the batch job is no longer
+            // pending by the time callers see the result.
+            remove(job);
+            job.future.set(batchJob);
+          } else {
+            synchronized (this) {
+              job.schedule.update(statusCheck.getEstimatedPercentExecuted(batchJob), nowNanos);
+            }
+          }
+        }
+      } catch (RuntimeException e) {
+        // Otherwise the batch jobs would be checked again every cycle, failing the same way.
+        for (WatchedJob<BatchJobT> job : dueJobs) {
+          if (!job.future.isDone()) {
+            remove(job);
+            job.future.setException(e);
+          }
+        }
+        return;
+      }
+      for (Iterator<WatchedJob<BatchJobT>> iter = dueJobsById.values().iterator();
+          iter.hasNext(); ) {
+        WatchedJob<BatchJobT> job = iter.next();
+        remove(job);
+        job.future.setException(
+            new IllegalStateException("Batch job " + job.batchJobId + " was not found"));
+      }
+    }
+  }
+
+  /** A batch job that is being waited for. */
+  private static class WatchedJob<BatchJobT> {
+    private final long batchJobId;
+    private final PollSchedule schedule;
+    private final SettableFuture<BatchJobT> future = SettableFuture.create();
+
+    private WatchedJob(long batchJobId, PollSchedule schedule) {
+      this.batchJobId = batchJobId;
+      this.schedule = schedule;
+    }
+  }
+
+  /**
+   * The time of the next status check of a batch job, based on the progress observed by previous
+   * status checks. Not thread-safe.
+   */
+  @VisibleForTesting
+  static class PollSchedule {
+    private final long minIntervalNanos;
+    private final long maxIntervalNanos;
+    private long intervalNanos;
+    private long nextPollNanos;
+    private Integer progressPercent;
+    private long progressNanos;
+
+    /**
+     * Creates a schedule whose first status check is due at {@code startNanos}.
+     */
+    PollSchedule(long minIntervalNanos, long maxIntervalNanos, long startNanos) {
+      this.minIntervalNanos = minIntervalNanos;
+      this.maxIntervalNanos = maxIntervalNanos;
+      this.nextPollNanos = startNanos;
+    }
+
+    long getNextPollNanos() {
+      return nextPollNanos;
+    }
+
+    /**
+     * Schedules the next status check after a status check at {@code nowNanos} found the batch
+     * job still in progress.
+     *
+     * @param percentExecuted the estimated percentage of operations executed, or {@code null} if
+     *     unknown
+     */
+    void update(@Nullable Integer percentExecuted, long nowNanos) {
+      if (percentExecuted != null && progressPercent != null
+          && percentExecuted > progressPercent && nowNanos > progressNanos) {
+        // Estimate the remaining time from the rate of progress since the last change, and check
+        // again halfway there.
+        double nanosPerPercent =
+            (double) (nowNanos - progressNanos) / (percentExecuted - progressPercent);
+        intervalNanos = (long) (nanosPerPercent * Math.max(0, 100 - percentExecuted) / 2);
+      } else {
+        intervalNanos = intervalNanos == 0 ? minIntervalNanos : intervalNanos * 2;
+      }
+      intervalNanos = Math.max(minIntervalNanos, Math.min(maxIntervalNanos, intervalNanos));
+      if (percentExecuted != null && !percentExecuted.equals(progressPercent)) {
+        progressPercent = percentExecuted;
+        progressNanos = nowNanos;
+      }
+      nextPollNanos = nowNanos + intervalNanos;
+    }
+  }
+
+  /**
+   * Builder for {@link BatchJobMonitor} objects.
+   */
+  public static class Builder {
+    private int maxConcurrentStatusChecks = 5;
+    private ScheduledExecutorService executor;
+    private long minPollIntervalMillis = DEFAULT_MIN_POLL_INTERVAL_MILLIS;
+    private long maxPollIntervalMillis = DEFAULT_MAX_POLL_INTERVAL_MILLIS;
+    private NanoClock nanoClock = NanoClock.SYSTEM;
+
+    /**
+     * Sets the maximum number of poll cycles run at the same time by the executor created for the
+     * monitor. Ignored if an executor is supplied. Defaults to 5.
+     */
+    public Builder maxConcurrentStatusChecks(int maxConcurrentStatusChecks) {
+      Preconditions.checkArgument(maxConcurrentStatusChecks > 0,
+          "Max concurrent status checks must be positive: %s", maxConcurrentStatusChecks);
+      this.maxConcurrentStatusChecks = maxConcurrentStatusChecks;
+      return this;
+    }
+
+    /**
+     * Sets the executor that runs the poll cycles. The monitor does not shut down a supplied
+     * executor. Defaults to a new executor with daemon threads.
+     */
+    public Builder executor(@Nullable ScheduledExecutorService executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Sets the minimum and maximum intervals between status checks of a batch job. Defaults to
+     * {@link #DEFAULT_MIN_POLL_INTERVAL_MILLIS} and {@link #DEFAULT_MAX_POLL_INTERVAL_MILLIS}.
+     */
+    public Builder pollIntervalMillis(long minPollIntervalMillis, long maxPollIntervalMillis) {
+      Preconditions.checkArgument(minPollIntervalMillis > 0,
+          "Min poll interval must be positive: %s", minPollIntervalMillis);
+      Preconditions.checkArgument(maxPollIntervalMillis >= minPollIntervalMillis,
+          "Max poll interval %s is less than min poll interval %s", maxPollIntervalMillis,
+          minPollIntervalMillis);
+      this.minPollIntervalMillis = minPollIntervalMillis;
+      this.maxPollIntervalMillis = maxPollIntervalMillis;
+      return this;
+    }
+
+    @VisibleForTesting
+    Builder nanoClock(NanoClock nanoClock) {
+      this.nanoClock = Preconditions.checkNotNull(nanoClock, "Null nano clock");
+      return this;
+    }
+
+    /**
+     * Builds a new {@link BatchJobMonitor}.
+     */
+    public BatchJobMonitor build() {
+      return new BatchJobMonitor(this);
+    }
+  }
+}
@@ -0,0 +1,203 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import com.google.api.ads.adwords.lib.utils.logging.BatchJobLogger;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableMap;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Iterates over the mutate results of a batch job as they are downloaded, so that the results of
+ * jobs of any size can be processed in constant memory. Each result element is deserialized only
+ * when the iterator is advanced to it.
+ *
+ * <p>Failures to download or deserialize a result are thrown from {@link #hasNext()} and
+ * {@link #next()} as an {@link IllegalStateException} whose cause is a {@link BatchJobException}.
+ * The download is logged once, with the number of results read, when the iterator is closed or
+ * fails. This class is <em>not</em> thread-safe.
+ *
+ * <pre>
+ * BatchJobMutateResultIterator&lt;MutateResult&gt; results =
+ *     batchJobHelper.downloadBatchJobMutateResults(batchJob.getDownloadUrl().getUrl());
+ * try {
+ *   while (results.hasNext()) {
+ *     MutateResult result = results.next();
+ *     ...
+ *   }
+ * } finally {
+ *   results.close();
+ * }
+ * </pre>
+ *
+ * @param <ResultT> the mutate result type for the API version and SOAP toolkit.
+ */
+public final class BatchJobMutateResultIterator<ResultT> extends AbstractIterator<ResultT>
+    implements Closeable {
+
+  private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+  private final String downloadUrl;
+  private final InputStream inputStream;
+  private final XMLStreamReader reader;
+  private final ResultDeserializer<ResultT> deserializer;
+  private final BatchJobLogger batchJobLogger;
+  private final Map<String, String> rootNamespaces;
+  private long resultsCount;
+  private boolean isLogged;
+
+  private BatchJobMutateResultIterator(String downloadUrl, InputStream inputStream,
+      XMLStreamReader reader, ResultDeserializer<ResultT> deserializer,
+      BatchJobLogger batchJobLogger) throws XMLStreamException {
+    this.downloadUrl = downloadUrl;
+    this.inputStream = inputStream;
+    this.reader = reader;
+    this.deserializer = deserializer;
+    this.batchJobLogger = batchJobLogger;
+    reader.nextTag();
+    ImmutableMap.Builder<String, String> namespaces = ImmutableMap.builder();
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      String prefix = reader.getNamespacePrefix(i);
+      namespaces.put(prefix == null ? "" : prefix, reader.getNamespaceURI(i));
+    }
+    this.rootNamespaces = namespaces.build();
+    // Moves past the root element, to the first result element or whatever precedes it.
+    reader.next();
+  }
+
+  /**
+   * Opens the download of the results of a batch job.
+   *
+   * @param downloadUrl the {@code BatchJob.getDownloadUrl()}
+   * @param deserializer deserializes each result element
+   * @param batchJobLogger the logger to log the download with
+   * @throws BatchJobException if unable to open the download
+   */
+  public static <ResultT> BatchJobMutateResultIterator<ResultT> open(String downloadUrl,
+      ResultDeserializer<ResultT> deserializer, BatchJobLogger batchJobLogger)
+      throws BatchJobException {
+    Preconditions.checkNotNull(downloadUrl, "Null download URL");
+    Preconditions.checkNotNull(deserializer, "Null deserializer");
+    Preconditions.checkNotNull(batchJobLogger, "Null batch job logger");
+    InputStream inputStream = null;
+    try {
+      inputStream = new URL(downloadUrl).openStream();
+      return new BatchJobMutateResultIterator<ResultT>(downloadUrl, inputStream,
+          INPUT_FACTORY.createXMLStreamReader(inputStream), deserializer, batchJobLogger);
+    } catch (IOException | XMLStreamException | RuntimeException e) {
+      closeQuietly(inputStream);
+      batchJobLogger.logDownload(downloadUrl, 0, e);
+      throw new BatchJobException(
+          "Failed to download batch job mutate response from URL: " + downloadUrl, e);
+    }
+  }
+
+  @Override
+  protected ResultT computeNext() {
+    try {
+      while (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+        if (reader.getEventType() == XMLStreamConstants.END_ELEMENT
+            || reader.getEventType() == XMLStreamConstants.END_DOCUMENT) {
+          // The end of the root element.
+          return endOfData();
+        }
+        reader.next();
+      }
+      ResultT result = deserializer.deserialize(reader, rootNamespaces);
+      resultsCount++;
+      return result;
+    } catch (Exception e) {
+      log(e);
+      throw new IllegalStateException(new BatchJobException(
+          "Failed to read batch job mutate result from URL: " + downloadUrl, e));
+    }
+  }
+
+  /**
+   * Returns the number of results read so far.
+   */
+  public long getResultsCount() {
+    return resultsCount;
+  }
+
+  /**
+   * Closes the download.
+   */
+  @Override
+  public void close() throws IOException {
+    log(null);
+    try {
+      reader.close();
+    } catch (XMLStreamException e) {
+      throw new IOException("Unable to close batch job mutate response", e);
+    } finally {
+      inputStream.close();
+    }
+  }
+
+  private void log(@Nullable Throwable throwable) {
+    if (!isLogged) {
+      isLogged = true;
+      batchJobLogger.logDownload(downloadUrl, resultsCount, throwable);
+    }
+  }
+
+  private static void closeQuietly(@Nullable InputStream inputStream) {
+    if (inputStream != null) {
+      try {
+        inputStream.close();
+      } catch (IOException e) {
+        // The download already failed.
+      }
+    }
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return inputFactory;
+  }
+
+  /**
+   * Deserializes a single result element of a batch job mutate response for a SOAP toolkit.
+   *
+   * @param <ResultT> the mutate result type for the API version and SOAP toolkit.
+   */
+  public interface ResultDeserializer<ResultT> {
+
+    /**
+     * Deserializes the result element that the reader is positioned at.
+     *
+     * @param reader the reader, positioned at the {@code START_ELEMENT} of the result. Must be
+     *     left positioned after the {@code END_ELEMENT} of the result.
+     * @param rootNamespaces the namespace declarations of the root element of the response, by
+     *     prefix, with the default namespace under the empty prefix
+     * @return the result
+     */
+    ResultT deserialize(XMLStreamReader reader, Map<String, String> rootNamespaces)
+        throws Exception;
+  }
+}
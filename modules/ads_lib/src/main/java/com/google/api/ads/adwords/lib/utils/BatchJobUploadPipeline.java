@@ -0,0 +1,241 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import com.google.api.ads.adwords.lib.utils.StreamingBatchJobUploader.RequestFactory;
+import com.google.api.client.http.ByteArrayContent;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
+
+/**
+ * Uploads a lazily produced sequence of operations to a {@code BatchJob} in a single call.
+ *
+ * <p>Operations are serialized on a separate thread into one of two reusable buffers. Whenever a
+ * buffer holds at least the configured chunk size, its largest prefix that satisfies the upload
+ * length requirements of Google Cloud Storage is handed to the calling thread for upload, and
+ * serialization continues into the other buffer. This keeps the connection busy while the next
+ * chunk is serialized, and uses a constant amount of memory regardless of the number of
+ * operations.
+ *
+ * <p>Typical usage:
+ * <pre>
+ * BatchJobUploadResponse response =
+ *     batchJobHelper.createUploadPipelineBuilder().build().upload(
+ *         operations, new BatchJobUploadStatus(0, URI.create(batchJob.getUploadUrl().getUrl())));
+ * </pre>
+ *
+ * <p>Instances are immutable and may be used for any number of jobs, including concurrently.
+ *
+ * @param <OperationT> the operation type for the API version and SOAP toolkit.
+ */
+public class BatchJobUploadPipeline<OperationT> {
+
+  /** The default number of bytes uploaded per request. */
+  public static final int DEFAULT_CHUNK_SIZE =
+      8 * BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT;
+
+  /** The default number of operations serialized per mutate request. */
+  public static final int DEFAULT_OPERATIONS_PER_REQUEST = 100;
+
+  private static final String CONTENT_TYPE = "application/xml";
+
+  private final BatchJobUploader uploader;
+  private final RequestFactory<OperationT> requestFactory;
+  private final int chunkSize;
+  private final int operationsPerRequest;
+
+  private BatchJobUploadPipeline(Builder<OperationT> builder) {
+    this.uploader = builder.uploader;
+    this.requestFactory = builder.requestFactory;
+    this.chunkSize = builder.chunkSize;
+    this.operationsPerRequest = builder.operationsPerRequest;
+  }
+
+  /**
+   * Uploads all operations to the batch job. After this method returns successfully, the job will
+   * transition to the {@code ACTIVE} state.
+   *
+   * @param operations the operations to upload. Iterated exactly once, on a separate thread, as
+   * the operations are needed, so it may produce the operations lazily.
+   * @param batchJobUploadStatus the current upload status. If no operations have been uploaded
+   * yet, set the {@link BatchJobUploadStatus#getResumableUploadUri()} to the {@code
+   * BatchJob#getUploadUrl()}.
+   * @return the response from the last upload, which includes the final upload status
+   * @throws BatchJobException if serializing or uploading the operations failed
+   * @throws InterruptedException if interrupted while waiting for operations to be serialized
+   */
+  public BatchJobUploadResponse upload(final Iterable<? extends OperationT> operations,
+      BatchJobUploadStatus batchJobUploadStatus) throws BatchJobException, InterruptedException {
+    Preconditions.checkNotNull(operations, "Null operations");
+    Preconditions.checkNotNull(batchJobUploadStatus, "Null batch job upload status");
+    Preconditions.checkNotNull(
+        batchJobUploadStatus.getResumableUploadUri(), "No resumable session URI");
+
+    final boolean isUploadInitiated = batchJobUploadStatus.getTotalContentLength() > 0;
+    final BlockingQueue<UploadContentBuffer> emptyBuffers =
+        new ArrayBlockingQueue<UploadContentBuffer>(2);
+    final BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<Chunk>(2);
+    for (int i = 0; i < 2; i++) {
+      emptyBuffers.add(
+          new UploadContentBuffer(chunkSize + BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT));
+    }
+
+    ExecutorService executor = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("batch-job-upload-pipeline-%d")
+            .build());
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            serialize(operations, isUploadInitiated, emptyBuffers, chunks);
+          } catch (InterruptedException e) {
+            // The upload failed or was interrupted, so nothing is waiting for more chunks.
+            Thread.currentThread().interrupt();
+          } catch (Throwable t) {
+            chunks.add(new Chunk(null, false, t));
+          }
+        }
+      });
+
+      BatchJobUploadStatus uploadStatus = batchJobUploadStatus;
+      if (!isUploadInitiated) {
+        uploadStatus = new BatchJobUploadStatus(
+            0, uploader.initiateResumableUpload(uploadStatus.getResumableUploadUri()));
+      }
+      while (true) {
+        Chunk chunk = chunks.take();
+        if (chunk.failure != null) {
+          Throwables.propagateIfPossible(chunk.failure, BatchJobException.class);
+          throw new BatchJobException("Failed to serialize batch job operations", chunk.failure);
+        }
+        BatchJobUploadResponse response = uploader.uploadChunk(
+            new ByteArrayContent(CONTENT_TYPE, chunk.buffer.array(), 0, chunk.buffer.size()),
+            chunk.isLast, uploadStatus);
+        if (chunk.isLast) {
+          return response;
+        }
+        uploadStatus = response.getBatchJobUploadStatus();
+        chunk.buffer.reset();
+        emptyBuffers.put(chunk.buffer);
+      }
+    } finally {
+      // Stops serialization if the upload failed.
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Serializes the operations into chunks, alternating between the two buffers.
+   */
+  private void serialize(Iterable<? extends OperationT> operations, boolean isStartElementWritten,
+      BlockingQueue<UploadContentBuffer> emptyBuffers, BlockingQueue<Chunk> chunks)
+      throws BatchJobException, InterruptedException {
+    MutateContentWriter<OperationT> contentWriter =
+        new MutateContentWriter<OperationT>(requestFactory, isStartElementWritten);
+    List<OperationT> batch = Lists.newArrayListWithCapacity(operationsPerRequest);
+    UploadContentBuffer buffer = emptyBuffers.take();
+    for (OperationT operation : operations) {
+      batch.add(operation);
+      if (batch.size() < operationsPerRequest) {
+        continue;
+      }
+      contentWriter.writeOperations(batch, buffer);
+      batch.clear();
+      if (buffer.size() >= chunkSize) {
+        // Move the unaligned remainder to the other buffer, which continues the content.
+        UploadContentBuffer nextBuffer = emptyBuffers.take();
+        int alignedLength =
+            buffer.size() - buffer.size() % BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT;
+        nextBuffer.write(buffer.array(), alignedLength, buffer.size() - alignedLength);
+        buffer.truncate(alignedLength);
+        chunks.put(new Chunk(buffer, false, null));
+        buffer = nextBuffer;
+      }
+    }
+    contentWriter.writeOperations(batch, buffer);
+    contentWriter.writeEndElement(buffer);
+    chunks.put(new Chunk(buffer, true, null));
+  }
+
+  /** Content ready for upload, or the failure that prevented it. */
+  private static class Chunk {
+    private final UploadContentBuffer buffer;
+    private final boolean isLast;
+    private final Throwable failure;
+
+    Chunk(@Nullable UploadContentBuffer buffer, boolean isLast, @Nullable Throwable failure) {
+      this.buffer = buffer;
+      this.isLast = isLast;
+      this.failure = failure;
+    }
+  }
+
+  /**
+   * Builder for {@link BatchJobUploadPipeline} objects.
+   *
+   * @param <OperationT> the operation type for the API version and SOAP toolkit.
+   */
+  public static class Builder<OperationT> {
+    private final BatchJobUploader uploader;
+    private final RequestFactory<OperationT> requestFactory;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int operationsPerRequest = DEFAULT_OPERATIONS_PER_REQUEST;
+
+    Builder(BatchJobUploader uploader, RequestFactory<OperationT> requestFactory) {
+      this.uploader = Preconditions.checkNotNull(uploader, "Null uploader");
+      this.requestFactory = Preconditions.checkNotNull(requestFactory, "Null request factory");
+    }
+
+    /**
+     * Sets the minimum number of bytes per upload request. Rounded up to the nearest length that
+     * Google Cloud Storage accepts for incremental uploads. The last request may be smaller.
+     * Two buffers of about this size are used by each upload.
+     */
+    public Builder<OperationT> withChunkSize(int chunkSize) {
+      Preconditions.checkArgument(chunkSize > 0, "Chunk size must be > 0: %s", chunkSize);
+      int remainder = chunkSize % BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT;
+      this.chunkSize = remainder == 0
+          ? chunkSize
+          : chunkSize + BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT - remainder;
+      return this;
+    }
+
+    /**
+     * Sets the number of operations serialized per mutate request. Larger values reduce
+     * serialization overhead, while smaller values bound the extra memory used by each buffer.
+     */
+    public Builder<OperationT> withOperationsPerRequest(int operationsPerRequest) {
+      Preconditions.checkArgument(
+          operationsPerRequest > 0, "Operations per request must be > 0: %s", operationsPerRequest);
+      this.operationsPerRequest = operationsPerRequest;
+      return this;
+    }
+
+    public BatchJobUploadPipeline<OperationT> build() {
+      return new BatchJobUploadPipeline<OperationT>(this);
+    }
+  }
+}
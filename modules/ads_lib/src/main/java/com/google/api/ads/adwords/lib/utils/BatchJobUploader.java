@@ -105,6 +105,57 @@ public class BatchJobUploader {
       throw new BatchJobException("Failed to post-process the request content", e);
     }
     
+    return uploadContent(content, isLastRequest, effectiveStatus, true);
+  }
+
+  /**
+   * Creates a {@link StreamingBatchJobUploader} that serializes operations directly into a reusable
+   * buffer and uploads it in increments of the required content length.
+   *
+   * @param requestFactory creates the mutate request for each set of operations
+   * @param batchJobUploadStatus the current upload status of the job. If no operations have been
+   * uploaded yet, set the {@link BatchJobUploadStatus#getResumableUploadUri()} to the {@code
+   * BatchJob#getUploadUrl()}.
+   */
+  public <OperationT> StreamingBatchJobUploader<OperationT> createStreamingUploader(
+      StreamingBatchJobUploader.RequestFactory<OperationT> requestFactory,
+      BatchJobUploadStatus batchJobUploadStatus) {
+    return new StreamingBatchJobUploader<OperationT>(this, requestFactory, batchJobUploadStatus);
+  }
+
+  /**
+   * Creates a builder for a {@link BatchJobUploadPipeline} that uploads a lazily produced sequence
+   * of operations in a single call.
+   *
+   * @param requestFactory creates the mutate request for each set of operations
+   */
+  public <OperationT> BatchJobUploadPipeline.Builder<OperationT> createUploadPipelineBuilder(
+      StreamingBatchJobUploader.RequestFactory<OperationT> requestFactory) {
+    return new BatchJobUploadPipeline.Builder<OperationT>(this, requestFactory);
+  }
+
+  /**
+   * Uploads a chunk produced by a {@link StreamingBatchJobUploader} or
+   * {@link BatchJobUploadPipeline}. The chunk is only read back
+   * for logging if the logger will actually log its contents.
+   */
+  BatchJobUploadResponse uploadChunk(ByteArrayContent content, boolean isLastRequest,
+      BatchJobUploadStatus effectiveStatus) throws BatchJobException {
+    return uploadContent(
+        content, isLastRequest, effectiveStatus, batchJobLogger.isUploadContentsLoggable());
+  }
+
+  /**
+   * Uploads the post-processed content for a job whose resumable upload has been initiated.
+   *
+   * @param content the content to upload
+   * @param isLastRequest if the content is the last content in the sequence of uploads for the job
+   * @param effectiveStatus the upload status of the job, with the resumable upload URI
+   * @param logContents if the content should be included in the upload log entry
+   */
+  private BatchJobUploadResponse uploadContent(ByteArrayContent content,
+      final boolean isLastRequest, final BatchJobUploadStatus effectiveStatus,
+      boolean logContents) throws BatchJobException {
     String requestXml = null;
     Throwable exception = null;
     BatchJobUploadResponse batchJobUploadResponse = null;
@@ -131,8 +182,9 @@ public class BatchJobUploader {
           requestFactory.buildPutRequest(
               new GenericUrl(effectiveStatus.getResumableUploadUri()), content);
 
-      requestXml = Streams.readAll(content.getInputStream(), UTF_8);
-      content.getInputStream().reset();
+      if (logContents) {
+        requestXml = Streams.readAll(content.getInputStream(), UTF_8);
+      }
 
       HttpResponse response = httpRequest.execute();
       batchJobUploadResponse = new BatchJobUploadResponse(
@@ -166,7 +218,7 @@ public class BatchJobUploader {
    * @param batchJobUploadUrl the {@code uploadUrl} of a {@code BatchJob}
    * @return the URI for the initiated resumable upload
    */
-  private URI initiateResumableUpload(URI batchJobUploadUrl) throws BatchJobException {
+  URI initiateResumableUpload(URI batchJobUploadUrl) throws BatchJobException {
     // This follows the Google Cloud Storage guidelines for initiating resumable uploads:
     // https://cloud.google.com/storage/docs/resumable-uploads-xml
     HttpRequestFactory requestFactory =
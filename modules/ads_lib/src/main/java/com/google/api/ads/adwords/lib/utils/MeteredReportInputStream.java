@@ -0,0 +1,136 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import com.google.api.ads.adwords.lib.utils.logging.ReportDownloadMetrics;
+import com.google.api.ads.adwords.lib.utils.logging.ReportServiceLogger;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report contents that measure the bytes read and log the metrics of the download when the
+ * contents are read to the end or closed, whichever comes first. If the contents are read by a
+ * {@link ReportRowReader}, the metrics are logged when the row reader is closed instead, so that
+ * they include the number of rows.
+ */
+final class MeteredReportInputStream extends FilterInputStream {
+
+  private final ReportServiceLogger reportServiceLogger;
+  private final ReportDownloadMetrics.Builder metricsBuilder;
+  private final long startNanos;
+  private long bytes;
+  private long rows = ReportDownloadMetrics.UNKNOWN_ROWS;
+  private boolean isComplete;
+  private long endNanos;
+  private boolean isLogged;
+
+  /**
+   * @param inputStream the report contents
+   * @param reportServiceLogger the logger to log the metrics to
+   * @param metricsBuilder the builder of the metrics, with all attributes set except those of the
+   *     contents
+   * @param startNanos the {@link System#nanoTime()} at which the request was sent
+   */
+  MeteredReportInputStream(InputStream inputStream, ReportServiceLogger reportServiceLogger,
+      ReportDownloadMetrics.Builder metricsBuilder, long startNanos) {
+    super(inputStream);
+    this.reportServiceLogger = reportServiceLogger;
+    this.metricsBuilder = metricsBuilder;
+    this.startNanos = startNanos;
+  }
+
+  /**
+   * Defers logging the metrics until the contents are closed, and counts the rows reported through
+   * {@link #addRows(long)}.
+   */
+  void countRows() {
+    if (rows == ReportDownloadMetrics.UNKNOWN_ROWS) {
+      rows = 0;
+    }
+  }
+
+  /**
+   * Adds to the number of rows decoded from the contents.
+   */
+  void addRows(long count) {
+    rows += count;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = super.read();
+    if (b >= 0) {
+      bytes++;
+    } else {
+      onEndOfStream();
+    }
+    return b;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    int count = super.read(buffer, offset, length);
+    if (count > 0) {
+      bytes += count;
+    } else if (count < 0) {
+      onEndOfStream();
+    }
+    return count;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long count = super.skip(n);
+    bytes += count;
+    return count;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      super.close();
+    } finally {
+      if (!isComplete) {
+        endNanos = System.nanoTime();
+      }
+      logMetrics();
+    }
+  }
+
+  private void onEndOfStream() {
+    if (!isComplete) {
+      isComplete = true;
+      endNanos = System.nanoTime();
+      if (rows == ReportDownloadMetrics.UNKNOWN_ROWS) {
+        logMetrics();
+      }
+    }
+  }
+
+  private void logMetrics() {
+    if (isLogged) {
+      return;
+    }
+    isLogged = true;
+    reportServiceLogger.logMetrics(metricsBuilder
+        .downloadTimeMillis(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos))
+        .bytes(bytes)
+        .rows(rows)
+        .complete(isComplete)
+        .build());
+  }
+}
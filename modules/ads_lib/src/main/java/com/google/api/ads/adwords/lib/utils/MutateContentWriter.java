@@ -0,0 +1,121 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import com.google.api.ads.adwords.lib.utils.StreamingBatchJobUploader.RequestFactory;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Writes the operations of a batch job as a single {@code mutate} element, which may be spread
+ * across any number of uploads. Each set of operations is serialized directly into an
+ * {@link UploadContentBuffer}, after which the start {@code mutate} element is removed in place
+ * unless it is the first element of the job, and the end {@code mutate} element is removed in place
+ * until {@link #writeEndElement(UploadContentBuffer)} is called.
+ *
+ * @param <OperationT> the operation type for the API version and SOAP toolkit.
+ */
+class MutateContentWriter<OperationT> {
+
+  private final RequestFactory<OperationT> requestFactory;
+  private BatchJobUploadBodyProvider bodyProvider;
+  private boolean isStartElementWritten;
+  private byte[] endElement;
+
+  /**
+   * @param requestFactory creates the mutate request for each set of operations
+   * @param isStartElementWritten if the start element was already uploaded for the job
+   */
+  MutateContentWriter(RequestFactory<OperationT> requestFactory, boolean isStartElementWritten) {
+    this.requestFactory = Preconditions.checkNotNull(requestFactory, "Null request factory");
+    this.isStartElementWritten = isStartElementWritten;
+  }
+
+  /**
+   * Appends the operations to the buffer. If empty, this method does nothing.
+   */
+  void writeOperations(Iterable<? extends OperationT> operations, UploadContentBuffer buffer)
+      throws BatchJobException {
+    Preconditions.checkNotNull(operations, "Null operations");
+    if (Iterables.isEmpty(operations)) {
+      return;
+    }
+    int start = buffer.size();
+    writeRequest(operations, buffer);
+
+    // Remove the end element, keeping a copy to append when the job is finished.
+    int endIndex = buffer.lastIndexOf('<', start);
+    Preconditions.checkState(
+        endIndex >= 0 && buffer.contains("mutate", endIndex, buffer.size()),
+        "Did not find a closing </mutate> element at the end of the serialized request");
+    if (endElement == null) {
+      endElement = Arrays.copyOfRange(buffer.array(), endIndex, buffer.size());
+    }
+    buffer.truncate(endIndex);
+
+    // Remove the start element unless these are the first operations of the job.
+    if (isStartElementWritten) {
+      int startEndIndex = buffer.indexOf('>', start);
+      Preconditions.checkState(
+          startEndIndex >= 0 && buffer.contains("mutate", start, startEndIndex),
+          "Did not find an opening <mutate> element at the beginning of the serialized request");
+      buffer.remove(start, startEndIndex + 1);
+    }
+    isStartElementWritten = true;
+  }
+
+  /**
+   * Appends the end element of the job to the buffer, or an empty {@code mutate} element if no
+   * content was written for the job.
+   */
+  void writeEndElement(UploadContentBuffer buffer) throws BatchJobException {
+    if (endElement == null) {
+      // No operations were written, so derive the end element from a request without operations.
+      int start = buffer.size();
+      writeRequest(ImmutableList.<OperationT>of(), buffer);
+      if (!isStartElementWritten) {
+        isStartElementWritten = true;
+        return;
+      }
+      endElement = buffer.closingTagFor(start);
+      buffer.truncate(start);
+    }
+    buffer.write(endElement, 0, endElement.length);
+  }
+
+  /**
+   * Serializes a request with the operations to the end of the buffer, directly if the body
+   * provider supports it.
+   */
+  private void writeRequest(Iterable<? extends OperationT> operations, UploadContentBuffer buffer)
+      throws BatchJobException {
+    BatchJobMutateRequestInterface request = requestFactory.createRequest(operations);
+    if (bodyProvider == null) {
+      bodyProvider = request.createBatchJobUploadBodyProvider();
+    }
+    if (bodyProvider instanceof StreamingBatchJobUploadBodyProvider) {
+      ((StreamingBatchJobUploadBodyProvider) bodyProvider).writeHttpContent(request, buffer);
+      return;
+    }
+    try {
+      bodyProvider.getHttpContent(request, true, true).writeTo(buffer);
+    } catch (IOException e) {
+      throw new BatchJobException("Failed to write the request content", e);
+    }
+  }
+}
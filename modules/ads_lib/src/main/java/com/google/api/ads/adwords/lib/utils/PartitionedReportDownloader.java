@@ -0,0 +1,470 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import com.google.api.ads.adwords.lib.client.AdWordsSession;
+import com.google.api.ads.adwords.lib.client.reporting.ReportingConfiguration;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+/**
+ * Downloads a report over a long date range as a number of shorter date range partitions.
+ *
+ * <p>The date range is split into day or week partitions, which are downloaded concurrently and
+ * saved to a cache directory. Each partition file is keyed by the client customer, the report
+ * and the dates of the partition, so downloading the same report again only downloads the
+ * partitions that are not in the cache, plus the most recent partitions, whose statistics may
+ * still change. The partitions are then read back as a single merged {@link ReportRowReader}.
+ *
+ * <pre>
+ * PartitionedReportDownloader downloader = new PartitionedReportDownloader.Builder()
+ *     .cacheDirectory(cacheDirectory)
+ *     .partitionSize(PartitionSize.DAY)
+ *     .build();
+ * ReportRowReader rows = downloader.download(session,
+ *     ReportDownloads.forDateRangeQuery(queryWithoutDuring, DownloadFormat.GZIPPED_CSV),
+ *     new LocalDate(2017, 8, 1), new LocalDate(2017, 10, 31));
+ * </pre>
+ *
+ * <p>Only the {@code CSV} and {@code TSV} download formats and their gzipped variants are
+ * supported. Cached partitions are never deleted by this class.
+ */
+@ThreadSafe
+public class PartitionedReportDownloader {
+
+  /** The format of the dates of a date range passed to {@link DateRangeReport#download}. */
+  public static final DateTimeFormatter DATE_FORMAT = DateTimeFormat.forPattern("yyyyMMdd");
+
+  private static final String GZIPPED_PREFIX = "GZIPPED_";
+  private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+  private static final ImmutableSet<String> SUPPORTED_DOWNLOAD_FORMATS =
+      ImmutableSet.of("CSV", "TSV");
+
+  /** Partitions are downloaded with a column header, which is used to merge them. */
+  private static final ReportingConfiguration PARTITION_REPORTING_CONFIGURATION =
+      new ReportingConfiguration.Builder()
+          .skipReportHeader(true)
+          .skipColumnHeader(false)
+          .skipReportSummary(true)
+          .build();
+
+  /** The size of the partitions a date range is split into. */
+  public enum PartitionSize {
+    /** Each day is downloaded separately. */
+    DAY,
+    /**
+     * Each calendar week, from Monday to Sunday, is downloaded separately. The partitions at the
+     * start and end of the date range may be shorter.
+     */
+    WEEK
+  }
+
+  private final File cacheDirectory;
+  private final PartitionSize partitionSize;
+  private final ExecutorService executor;
+  private final int refreshDays;
+  private final DateTimeZone timeZone;
+
+  private PartitionedReportDownloader(Builder builder) {
+    this.cacheDirectory = builder.cacheDirectory;
+    this.partitionSize = builder.partitionSize;
+    // Shared by all calls, so the maximum number of concurrent downloads applies to the
+    // downloader. Threads exit when idle, so a downloader that is no longer used does not need to
+    // be shut down.
+    ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+        builder.maxConcurrentDownloads,
+        builder.maxConcurrentDownloads,
+        IDLE_THREAD_TIMEOUT_SECONDS,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("partitioned-report-download-%d")
+            .build());
+    threadPoolExecutor.allowCoreThreadTimeOut(true);
+    this.executor = threadPoolExecutor;
+    this.refreshDays = builder.refreshDays;
+    this.timeZone = builder.timeZone;
+  }
+
+  /**
+   * Downloads the partitions of the date range that are not in the cache and returns a reader
+   * for the rows of all partitions, in date order. The rows of each partition are returned in the
+   * order of its report.
+   *
+   * @param session the session to download the report with
+   * @param report the report to download
+   * @param startDate the first day of the date range
+   * @param endDate the last day of the date range
+   * @return a reader for the rows of the date range. The caller must close the reader.
+   * @throws ReportException if there is an exception while making the HTTP request to the server
+   * @throws ReportDownloadResponseException if the server indicates a problem with the request
+   * @throws IOException if unable to write or read a partition file
+   * @throws InterruptedException if interrupted while waiting for the partitions to download
+   * @throws IllegalArgumentException if the download format of the report is not supported, or
+   *     {@code endDate} is before {@code startDate}
+   */
+  public ReportRowReader download(AdWordsSession session, DateRangeReport report,
+      LocalDate startDate, LocalDate endDate) throws ReportException,
+      ReportDownloadResponseException, IOException, InterruptedException {
+    Preconditions.checkNotNull(session, "Null session");
+    Preconditions.checkNotNull(report, "Null report");
+    Preconditions.checkNotNull(startDate, "Null start date");
+    Preconditions.checkNotNull(endDate, "Null end date");
+    Preconditions.checkArgument(!endDate.isBefore(startDate),
+        "End date %s is before start date %s", endDate, startDate);
+    String downloadFormat = report.getDownloadFormat();
+    String format = downloadFormat.startsWith(GZIPPED_PREFIX)
+        ? downloadFormat.substring(GZIPPED_PREFIX.length())
+        : downloadFormat;
+    Preconditions.checkArgument(SUPPORTED_DOWNLOAD_FORMATS.contains(format),
+        "Unsupported download format: %s", downloadFormat);
+
+    String reportId = getReportId(session, report);
+    LocalDate lastCachedDate = LocalDate.now(timeZone).minusDays(refreshDays + 1);
+    List<File> partitionFiles = Lists.newArrayList();
+    List<Callable<Void>> downloads = Lists.newArrayList();
+    for (LocalDate[] partition : getPartitions(startDate, endDate)) {
+      File partitionFile = new File(cacheDirectory, String.format("%s_%s_%s.%s", reportId,
+          DATE_FORMAT.print(partition[0]), DATE_FORMAT.print(partition[1]),
+          format.toLowerCase()));
+      partitionFiles.add(partitionFile);
+      if (partition[1].isAfter(lastCachedDate) || !partitionFile.isFile()) {
+        downloads.add(new PartitionDownloadCallable(
+            session, report, partition[0], partition[1], partitionFile));
+      }
+    }
+    downloadAll(downloads);
+
+    return ReportRowReader.create(new PartitionsInputStream(partitionFiles),
+        StandardCharsets.UTF_8, format, PARTITION_REPORTING_CONFIGURATION);
+  }
+
+  /**
+   * Runs the downloads on the executor of this downloader and waits for all of them to complete,
+   * so that no download of this call is still writing to the cache when it returns. The first
+   * failure is thrown once all downloads are complete. If the wait is interrupted, the downloads
+   * that did not complete yet are cancelled.
+   */
+  private void downloadAll(List<Callable<Void>> downloads) throws ReportException,
+      ReportDownloadResponseException, IOException, InterruptedException {
+    if (downloads.isEmpty()) {
+      return;
+    }
+    List<Future<Void>> futures = Lists.newArrayList();
+    Throwable failure = null;
+    boolean isDone = false;
+    try {
+      for (Callable<Void> download : downloads) {
+        futures.add(executor.submit(download));
+      }
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+        }
+      }
+      isDone = true;
+    } finally {
+      if (!isDone) {
+        for (Future<Void> future : futures) {
+          future.cancel(true);
+        }
+      }
+    }
+    if (failure instanceof ReportException) {
+      throw (ReportException) failure;
+    } else if (failure instanceof ReportDownloadResponseException) {
+      throw (ReportDownloadResponseException) failure;
+    } else if (failure instanceof IOException) {
+      throw (IOException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new RuntimeException(failure);
+    }
+  }
+
+  /**
+   * Returns the first and last day of each partition of the date range, in date order.
+   */
+  private List<LocalDate[]> getPartitions(LocalDate startDate, LocalDate endDate) {
+    List<LocalDate[]> partitions = Lists.newArrayList();
+    LocalDate partitionStart = startDate;
+    while (!partitionStart.isAfter(endDate)) {
+      LocalDate partitionEnd = partitionSize == PartitionSize.WEEK
+          ? partitionStart.withDayOfWeek(DateTimeConstants.SUNDAY)
+          : partitionStart;
+      if (partitionEnd.isAfter(endDate)) {
+        partitionEnd = endDate;
+      }
+      partitions.add(new LocalDate[] {partitionStart, partitionEnd});
+      partitionStart = partitionEnd.plusDays(1);
+    }
+    return partitions;
+  }
+
+  /**
+   * Returns an ID for the report of a client customer that can be used in file names. Includes
+   * the reporting options of the session that change the rows of the report.
+   */
+  private static String getReportId(AdWordsSession session, DateRangeReport report) {
+    ReportingConfiguration reportingConfiguration = session.getReportingConfiguration();
+    String key = ImmutableList.of(
+        String.valueOf(session.getClientCustomerId()),
+        report.getCacheKey(),
+        report.getDownloadFormat(),
+        String.valueOf(reportingConfiguration == null
+            ? null : reportingConfiguration.isIncludeZeroImpressions()),
+        String.valueOf(reportingConfiguration == null
+            ? null : reportingConfiguration.isUseRawEnumValues()))
+        .toString();
+    return Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString();
+  }
+
+  /**
+   * A report that can be downloaded for any date range. Implementations must be thread-safe.
+   *
+   * @see com.google.api.ads.adwords.lib.utils.v201710.ReportDownloads
+   */
+  public interface DateRangeReport {
+
+    /**
+     * Returns a key that identifies the report, other than its date range. Reports with the same
+     * key must have the same columns and rows for the same date range.
+     */
+    String getCacheKey();
+
+    /**
+     * Returns the name of the download format of the report.
+     */
+    String getDownloadFormat();
+
+    /**
+     * Downloads the report for a date range.
+     *
+     * @param session the session to download the report with
+     * @param startDate the first day of the date range, in
+     *     {@link PartitionedReportDownloader#DATE_FORMAT}
+     * @param endDate the last day of the date range, in
+     *     {@link PartitionedReportDownloader#DATE_FORMAT}
+     * @param overrides the options that must take precedence over the session's reporting
+     *     configuration
+     */
+    ReportDownloadResponse download(AdWordsSession session, String startDate, String endDate,
+        ReportingConfiguration overrides) throws ReportException, ReportDownloadResponseException;
+  }
+
+  /**
+   * Downloads a single partition and saves it to its cache file.
+   */
+  private static class PartitionDownloadCallable implements Callable<Void> {
+    private final AdWordsSession session;
+    private final DateRangeReport report;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final File partitionFile;
+
+    private PartitionDownloadCallable(AdWordsSession session, DateRangeReport report,
+        LocalDate startDate, LocalDate endDate, File partitionFile) {
+      this.session = session;
+      this.report = report;
+      this.startDate = startDate;
+      this.endDate = endDate;
+      this.partitionFile = partitionFile;
+    }
+
+    @Override
+    public Void call() throws Exception {
+      ReportDownloadResponse response = report.download(session, DATE_FORMAT.print(startDate),
+          DATE_FORMAT.print(endDate), PARTITION_REPORTING_CONFIGURATION);
+      // Saved to a temporary file first, so a failed download never replaces a cached partition.
+      response.saveToFile(partitionFile.getPath(), true);
+      return null;
+    }
+  }
+
+  /**
+   * Reads the partition files one after the other, skipping the column header of all but the
+   * first, and ending the last row of each partition with a line break if it has none. Only one
+   * partition file is open at a time.
+   */
+  private static class PartitionsInputStream extends InputStream {
+    private final Iterator<File> partitionFiles;
+    @Nullable private InputStream current;
+    private boolean isFirst = true;
+    private int lastByte = '\n';
+    private boolean isClosed;
+
+    private PartitionsInputStream(List<File> partitionFiles) {
+      this.partitionFiles = partitionFiles.iterator();
+    }
+
+    /**
+     * Returns the stream of the partition to read from, opening the next partition if needed, or
+     * {@code null} if all partitions were read.
+     */
+    @Nullable
+    private InputStream currentStream() throws IOException {
+      if (current == null && !isClosed && partitionFiles.hasNext()) {
+        current = new BufferedInputStream(new FileInputStream(partitionFiles.next()));
+        if (!isFirst) {
+          int b;
+          do {
+            b = current.read();
+          } while (b != -1 && b != '\n');
+        }
+        isFirst = false;
+      }
+      return current;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      for (InputStream in = currentStream(); in != null; in = currentStream()) {
+        int count = in.read(b, off, len);
+        if (count != -1) {
+          lastByte = b[off + count - 1];
+          return count;
+        }
+        in.close();
+        current = null;
+        if (lastByte != '\n' && partitionFiles.hasNext()) {
+          lastByte = '\n';
+          b[off] = '\n';
+          return 1;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+      isClosed = true;
+      if (current != null) {
+        current.close();
+        current = null;
+      }
+    }
+  }
+
+  /**
+   * Mutable builder for {@link PartitionedReportDownloader} objects.
+   */
+  public static class Builder {
+    private File cacheDirectory;
+    private PartitionSize partitionSize = PartitionSize.DAY;
+    private int maxConcurrentDownloads = 5;
+    private int refreshDays = 3;
+    private DateTimeZone timeZone = DateTimeZone.getDefault();
+
+    /**
+     * Sets the directory that partition files are cached in. Required. The directory must exist.
+     */
+    public Builder cacheDirectory(File cacheDirectory) {
+      this.cacheDirectory = Preconditions.checkNotNull(cacheDirectory, "Null cache directory");
+      return this;
+    }
+
+    /**
+     * Sets the size of the partitions that date ranges are split into. Defaults to
+     * {@link PartitionSize#DAY}.
+     */
+    public Builder partitionSize(PartitionSize partitionSize) {
+      this.partitionSize = Preconditions.checkNotNull(partitionSize, "Null partition size");
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of partitions downloaded at the same time by the downloader, across
+     * all calls to {@link PartitionedReportDownloader#download}. Defaults to 5.
+     */
+    public Builder maxConcurrentDownloads(int maxConcurrentDownloads) {
+      Preconditions.checkArgument(maxConcurrentDownloads > 0,
+          "Max concurrent downloads must be positive: %s", maxConcurrentDownloads);
+      this.maxConcurrentDownloads = maxConcurrentDownloads;
+      return this;
+    }
+
+    /**
+     * Sets the number of days before today whose partitions are downloaded again even if they are
+     * cached, because their statistics may still change. Partitions that include today or later
+     * are never read from the cache. Defaults to 3.
+     */
+    public Builder refreshDays(int refreshDays) {
+      Preconditions.checkArgument(refreshDays >= 0, "Negative refresh days: %s", refreshDays);
+      this.refreshDays = refreshDays;
+      return this;
+    }
+
+    /**
+     * Sets the time zone of the client customers' accounts, which determines the date of today
+     * for {@link #refreshDays(int)}. Defaults to the default time zone of the JVM, which may be a
+     * day ahead of or behind the account.
+     */
+    public Builder timeZone(DateTimeZone timeZone) {
+      this.timeZone = Preconditions.checkNotNull(timeZone, "Null time zone");
+      return this;
+    }
+
+    /**
+     * Builds a new {@link PartitionedReportDownloader}.
+     *
+     * @throws IllegalStateException if no cache directory was set
+     */
+    public PartitionedReportDownloader build() {
+      Preconditions.checkState(cacheDirectory != null, "No cache directory");
+      return new PartitionedReportDownloader(this);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.Properties;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+
+/**
+ * Progress of a resumable report download: the number of bytes of the report persisted to the
+ * output file, the number of rows they contain, and a checksum of those bytes.
+ */
+public final class ReportDownloadCheckpoint {
+
+  /** Checkpoint of a download that has not persisted anything yet. */
+  public static final ReportDownloadCheckpoint START = new ReportDownloadCheckpoint(0, 0, 0);
+
+  private static final String BYTES_KEY = "bytes";
+  private static final String ROWS_KEY = "rows";
+  private static final String CHECKSUM_KEY = "checksum";
+
+  private final long bytes;
+  private final long rows;
+  private final long checksum;
+
+  /**
+   * Constructor.
+   *
+   * @param bytes the number of bytes persisted
+   * @param rows the number of line breaks in the persisted bytes
+   * @param checksum the CRC-32 checksum of the persisted bytes
+   */
+  public ReportDownloadCheckpoint(long bytes, long rows, long checksum) {
+    Preconditions.checkArgument(bytes >= 0, "Negative bytes: %s", bytes);
+    Preconditions.checkArgument(rows >= 0, "Negative rows: %s", rows);
+    this.bytes = bytes;
+    this.rows = rows;
+    this.checksum = checksum;
+  }
+
+  /**
+   * Returns the number of bytes of the report persisted to the output file.
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns the number of line breaks in the persisted bytes. For uncompressed delimited formats,
+   * this is the number of rows persisted, including any header rows.
+   */
+  public long getRows() {
+    return rows;
+  }
+
+  /**
+   * Returns the CRC-32 checksum of the persisted bytes.
+   */
+  public long getChecksum() {
+    return checksum;
+  }
+
+  /**
+   * Reads a checkpoint from a file.
+   *
+   * @return the checkpoint, or {@code null} if the file does not exist
+   * @throws IOException if the file exists but is not a valid checkpoint
+   */
+  @Nullable
+  static ReportDownloadCheckpoint read(File checkpointFile) throws IOException {
+    if (!checkpointFile.exists()) {
+      return null;
+    }
+    Properties properties = new Properties();
+    InputStream inputStream = new FileInputStream(checkpointFile);
+    try {
+      properties.load(inputStream);
+    } finally {
+      inputStream.close();
+    }
+    try {
+      return new ReportDownloadCheckpoint(
+          Long.parseLong(properties.getProperty(BYTES_KEY)),
+          Long.parseLong(properties.getProperty(ROWS_KEY)),
+          Long.parseLong(properties.getProperty(CHECKSUM_KEY)));
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid report download checkpoint: " + checkpointFile, e);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid report download checkpoint: " + checkpointFile, e);
+    }
+  }
+
+  /**
+   * Writes this checkpoint to a file, replacing it atomically where the file system allows.
+   */
+  void write(File checkpointFile) throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty(BYTES_KEY, Long.toString(bytes));
+    properties.setProperty(ROWS_KEY, Long.toString(rows));
+    properties.setProperty(CHECKSUM_KEY, Long.toString(checksum));
+    File tempFile = new File(checkpointFile.getPath() + ".tmp");
+    OutputStream outputStream = new FileOutputStream(tempFile);
+    try {
+      properties.store(outputStream, "Report download checkpoint");
+    } finally {
+      outputStream.close();
+    }
+    try {
+      Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof ReportDownloadCheckpoint) {
+      ReportDownloadCheckpoint other = (ReportDownloadCheckpoint) obj;
+      return bytes == other.bytes && rows == other.rows && checksum == other.checksum;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(bytes, rows, checksum);
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+        .append("bytes", bytes)
+        .append("rows", rows)
+        .append("checksum", checksum)
+        .toString();
+  }
+}
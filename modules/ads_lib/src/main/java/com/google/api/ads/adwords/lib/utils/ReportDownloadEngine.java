@@ -0,0 +1,503 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import com.google.api.ads.adwords.lib.client.AdWordsSession;
+import com.google.api.ads.common.lib.exception.ValidationException;
+import com.google.api.client.util.BackOff;
+import com.google.api.client.util.ExponentialBackOff;
+import com.google.api.client.util.Sleeper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Downloads the same report for many client customers in parallel.
+ *
+ * <p>Downloads run with bounded concurrency: at most {@code maxConcurrentDownloads} downloads of
+ * an engine run at the same time, across all calls to {@link #download}. Each client customer's
+ * download is retried with backoff if it fails with an I/O error, a server error, or a rate
+ * exceeded error.
+ * When a download is rate limited, all downloads of the engine pause before their next attempt.
+ * The contents of each successful download are handed to a {@link ReportSink}, and progress is
+ * reported to a {@link ReportDownloadListener}.
+ *
+ * <pre>
+ * ReportDownloadEngine engine = new ReportDownloadEngine.Builder()
+ *     .maxConcurrentDownloads(10)
+ *     .build();
+ * Map&lt;String, ListenableFuture&lt;File&gt;&gt; reportFiles = engine.download(
+ *     session,
+ *     clientCustomerIds,
+ *     ReportDownloads.forQuery(query, DownloadFormat.GZIPPED_CSV),
+ *     ReportDownloadEngine.fileSink(reportDirectory, "report_%s.csv.gz"));
+ * </pre>
+ */
+@ThreadSafe
+public class ReportDownloadEngine {
+
+  private static final String RATE_EXCEEDED_ERROR = "RateExceeded";
+  private static final String RATE_EXCEEDED_REASON = "RATE_EXCEEDED";
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+  private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+  private final ExecutorService executor;
+  private final int maxAttempts;
+  private final long rateExceededPauseMillis;
+  private final Supplier<BackOff> backOffSupplier;
+  private final ReportDownloadListener listener;
+  private final Sleeper sleeper;
+
+  private final Object pauseLock = new Object();
+  private long pausedUntilNanos;
+  private boolean isPaused;
+
+  private ReportDownloadEngine(Builder builder) {
+    // Threads exit when idle, so an engine that is no longer used does not need to be shut down.
+    ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+        builder.maxConcurrentDownloads,
+        builder.maxConcurrentDownloads,
+        IDLE_THREAD_TIMEOUT_SECONDS,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("report-download-engine-%d")
+            .build());
+    threadPoolExecutor.allowCoreThreadTimeOut(true);
+    this.executor = threadPoolExecutor;
+    this.maxAttempts = builder.maxAttempts;
+    this.rateExceededPauseMillis = builder.rateExceededPauseMillis;
+    this.backOffSupplier = builder.backOffSupplier;
+    this.listener = builder.listener;
+    this.sleeper = builder.sleeper;
+  }
+
+  /**
+   * Downloads a report for each client customer. Returns immediately; the downloads run on the
+   * threads of this engine, which are shared with the downloads of concurrent calls.
+   *
+   * @param session the session to download the reports with. Each download uses a copy of the
+   *     session with the client customer ID replaced.
+   * @param clientCustomerIds the IDs of the client customers to download the report for
+   * @param reportDownload downloads the report for a session
+   * @param sink consumes the contents of each successful download
+   * @return the result of the sink for each client customer ID, in the order of
+   *     {@code clientCustomerIds}. A future fails with the last exception of the download if all
+   *     attempts failed.
+   */
+  public <T> Map<String, ListenableFuture<T>> download(AdWordsSession session,
+      Iterable<String> clientCustomerIds, ReportDownload reportDownload, ReportSink<T> sink) {
+    Preconditions.checkNotNull(session, "Null session");
+    Preconditions.checkNotNull(clientCustomerIds, "Null client customer IDs");
+    Preconditions.checkNotNull(reportDownload, "Null report download");
+    Preconditions.checkNotNull(sink, "Null sink");
+
+    ImmutableMap.Builder<String, ListenableFuture<T>> results = ImmutableMap.builder();
+    for (String clientCustomerId : ImmutableSet.copyOf(clientCustomerIds)) {
+      ListenableFutureTask<T> task = ListenableFutureTask.create(
+          new ReportDownloadCallable<T>(session, clientCustomerId, reportDownload, sink));
+      executor.execute(task);
+      results.put(clientCustomerId, task);
+    }
+    return results.build();
+  }
+
+  /**
+   * Downloads the report for a single client customer, retrying retryable failures.
+   */
+  private <T> T downloadWithRetries(AdWordsSession session, String clientCustomerId,
+      ReportDownload reportDownload, ReportSink<T> sink) throws Exception {
+    BackOff backOff = backOffSupplier.get();
+    for (int attempt = 1; ; attempt++) {
+      awaitPause();
+      try {
+        ReportDownloadResponse response = reportDownload.download(session, attempt);
+        T result;
+        try {
+          result = sink.accept(clientCustomerId, response);
+        } finally {
+          closeQuietly(response.getInputStream());
+        }
+        listener.onSuccess(clientCustomerId, attempt);
+        return result;
+      } catch (Exception e) {
+        if (isRateExceeded(e)) {
+          pause(rateExceededPauseMillis);
+        }
+        long retryDelayMillis =
+            attempt < maxAttempts && isRetryable(e) ? backOff.nextBackOffMillis() : BackOff.STOP;
+        if (retryDelayMillis == BackOff.STOP) {
+          listener.onFailure(clientCustomerId, attempt, e);
+          throw e;
+        }
+        listener.onAttemptFailed(clientCustomerId, attempt, e, retryDelayMillis);
+        sleeper.sleep(retryDelayMillis);
+      }
+    }
+  }
+
+  /**
+   * Pauses all downloads for at least the specified time.
+   */
+  private void pause(long pauseMillis) {
+    long pausedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pauseMillis);
+    synchronized (pauseLock) {
+      if (!isPaused || pausedUntil - pausedUntilNanos > 0) {
+        pausedUntilNanos = pausedUntil;
+        isPaused = true;
+      }
+    }
+  }
+
+  /**
+   * Waits until downloads are no longer paused.
+   */
+  private void awaitPause() throws InterruptedException {
+    long remainingNanos;
+    synchronized (pauseLock) {
+      if (!isPaused) {
+        return;
+      }
+      remainingNanos = pausedUntilNanos - System.nanoTime();
+      if (remainingNanos <= 0) {
+        isPaused = false;
+        return;
+      }
+    }
+    sleeper.sleep(TimeUnit.NANOSECONDS.toMillis(remainingNanos));
+  }
+
+  /**
+   * Returns if the exception indicates that the request was rejected because of the rate or
+   * quota of report downloads.
+   */
+  @VisibleForTesting
+  static boolean isRateExceeded(Exception e) {
+    if (e instanceof ReportDownloadResponseException
+        && ((ReportDownloadResponseException) e).getHttpStatus() == HTTP_TOO_MANY_REQUESTS) {
+      return true;
+    }
+    if (e instanceof DetailedReportDownloadResponseException) {
+      DetailedReportDownloadResponseException detailedException =
+          (DetailedReportDownloadResponseException) e;
+      String type = detailedException.getType();
+      String errorText = detailedException.getErrorText();
+      return (type != null
+              && (type.contains(RATE_EXCEEDED_ERROR) || type.contains(RATE_EXCEEDED_REASON)))
+          || (errorText != null && errorText.contains(RATE_EXCEEDED_REASON));
+    }
+    return false;
+  }
+
+  /**
+   * Returns if a download that failed with the exception may succeed if retried. A
+   * {@link ReportException} is only retried if it was caused by an I/O error, since other causes,
+   * such as an authorization failure or an invalid URL, fail again on every attempt.
+   */
+  @VisibleForTesting
+  static boolean isRetryable(Exception e) {
+    if (e instanceof IOException) {
+      return true;
+    }
+    if (e instanceof ReportException) {
+      return e.getCause() instanceof IOException
+          && !(e.getCause() instanceof MalformedURLException);
+    }
+    if (e instanceof ReportDownloadResponseException) {
+      int httpStatus = ((ReportDownloadResponseException) e).getHttpStatus();
+      return httpStatus >= HttpURLConnection.HTTP_INTERNAL_ERROR
+          || e.getCause() instanceof IOException
+          || isRateExceeded(e);
+    }
+    return false;
+  }
+
+  private static void closeQuietly(@Nullable InputStream inputStream) {
+    if (inputStream != null) {
+      try {
+        inputStream.close();
+      } catch (IOException e) {
+        // Nothing left to read, so a failure to close does not affect the download.
+      }
+    }
+  }
+
+  /**
+   * Returns a sink that saves each report to a file in a directory. The file of a client
+   * customer is overwritten if its download is retried.
+   *
+   * @param directory the directory to save the reports to
+   * @param fileNameFormat the format of the file names, with a {@code %s} for the client customer
+   *     ID
+   */
+  public static ReportSink<File> fileSink(final File directory, final String fileNameFormat) {
+    Preconditions.checkNotNull(directory, "Null directory");
+    Preconditions.checkNotNull(fileNameFormat, "Null file name format");
+    return new ReportSink<File>() {
+      @Override
+      public File accept(String clientCustomerId, ReportDownloadResponse response)
+          throws IOException {
+        File file = new File(directory, String.format(fileNameFormat, clientCustomerId));
+        response.saveToFile(file.getPath());
+        return file;
+      }
+    };
+  }
+
+  /**
+   * Returns a sink that appends the contents of each report to a single output stream, one report
+   * at a time. Each report is first saved to a temporary file, so that a download that fails part
+   * way through and is retried does not leave partial contents in the output stream.
+   *
+   * @param outputStream the output stream to append the reports to. Not closed by the sink.
+   * @return a sink whose result for each client customer is the number of bytes appended
+   */
+  public static ReportSink<Long> mergedSink(final OutputStream outputStream) {
+    Preconditions.checkNotNull(outputStream, "Null output stream");
+    return new ReportSink<Long>() {
+      @Override
+      public Long accept(String clientCustomerId, ReportDownloadResponse response)
+          throws IOException {
+        File tempFile = File.createTempFile("report_" + clientCustomerId, ".tmp");
+        try {
+          response.saveToFile(tempFile.getPath());
+          InputStream reportContents = new FileInputStream(tempFile);
+          try {
+            synchronized (outputStream) {
+              long count = ByteStreams.copy(reportContents, outputStream);
+              outputStream.flush();
+              return count;
+            }
+          } finally {
+            reportContents.close();
+          }
+        } finally {
+          if (!tempFile.delete()) {
+            tempFile.deleteOnExit();
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Downloads a report for a session. Implementations must be thread-safe.
+   *
+   * @see com.google.api.ads.adwords.lib.utils.v201710.ReportDownloads
+   */
+  public interface ReportDownload {
+
+    /**
+     * Downloads the report for the client customer of the session.
+     *
+     * @param session the session to download the report for
+     * @param attempt the 1-based attempt to download the report, to pass on to the report
+     *     downloader so the metrics of the download have the right retry count
+     */
+    ReportDownloadResponse download(AdWordsSession session, int attempt)
+        throws ReportException, ReportDownloadResponseException;
+  }
+
+  /**
+   * Consumes the contents of successful report downloads. Called concurrently for different
+   * client customers, so implementations must be thread-safe. May be called more than once for a
+   * client customer if consuming the contents fails with an {@link IOException}.
+   *
+   * @param <T> the type of the result for each client customer
+   */
+  public interface ReportSink<T> {
+
+    /**
+     * Consumes the contents of the report of a client customer.
+     *
+     * @return the result for the client customer
+     * @throws IOException if unable to read or write the report contents. The download is retried.
+     */
+    T accept(String clientCustomerId, ReportDownloadResponse response) throws IOException;
+  }
+
+  /**
+   * Listener for the progress of the downloads of a {@link ReportDownloadEngine}. Called
+   * concurrently for different client customers, so implementations must be thread-safe.
+   */
+  public interface ReportDownloadListener {
+
+    /**
+     * Called when an attempt to download the report of a client customer failed and will be
+     * retried.
+     */
+    void onAttemptFailed(
+        String clientCustomerId, int attempt, Exception exception, long retryDelayMillis);
+
+    /**
+     * Called when the report of a client customer was downloaded and consumed by the sink.
+     */
+    void onSuccess(String clientCustomerId, int attempts);
+
+    /**
+     * Called when the last attempt to download the report of a client customer failed.
+     */
+    void onFailure(String clientCustomerId, int attempts, Exception exception);
+
+    /** Listener that ignores all progress. */
+    public static final ReportDownloadListener NO_OP_LISTENER =
+        new ReportDownloadListener() {
+          @Override
+          public void onAttemptFailed(
+              String clientCustomerId, int attempt, Exception exception, long retryDelayMillis) {}
+
+          @Override
+          public void onSuccess(String clientCustomerId, int attempts) {}
+
+          @Override
+          public void onFailure(String clientCustomerId, int attempts, Exception exception) {}
+        };
+  }
+
+  /**
+   * Downloads the report of a single client customer.
+   */
+  private class ReportDownloadCallable<T> implements Callable<T> {
+    private final AdWordsSession session;
+    private final String clientCustomerId;
+    private final ReportDownload reportDownload;
+    private final ReportSink<T> sink;
+
+    private ReportDownloadCallable(AdWordsSession session, String clientCustomerId,
+        ReportDownload reportDownload, ReportSink<T> sink) {
+      this.session = session;
+      this.clientCustomerId = clientCustomerId;
+      this.reportDownload = reportDownload;
+      this.sink = sink;
+    }
+
+    @Override
+    public T call() throws Exception {
+      AdWordsSession sessionForCustomer;
+      try {
+        sessionForCustomer =
+            session.newBuilder().withClientCustomerId(clientCustomerId).buildImmutable();
+      } catch (ValidationException e) {
+        listener.onFailure(clientCustomerId, 0, e);
+        throw e;
+      }
+      return downloadWithRetries(sessionForCustomer, clientCustomerId, reportDownload, sink);
+    }
+  }
+
+  /**
+   * Builder for {@link ReportDownloadEngine} objects.
+   */
+  public static class Builder {
+    private int maxConcurrentDownloads = 5;
+    private int maxAttempts = 5;
+    private long rateExceededPauseMillis = 30 * 1000;
+    private Supplier<BackOff> backOffSupplier = new Supplier<BackOff>() {
+      @Override
+      public BackOff get() {
+        return new ExponentialBackOff();
+      }
+    };
+    private ReportDownloadListener listener = ReportDownloadListener.NO_OP_LISTENER;
+    private Sleeper sleeper = Sleeper.DEFAULT;
+
+    /**
+     * Sets the maximum number of reports downloaded at the same time by the engine, across all
+     * calls to {@link ReportDownloadEngine#download}. Defaults to 5.
+     */
+    public Builder maxConcurrentDownloads(int maxConcurrentDownloads) {
+      Preconditions.checkArgument(maxConcurrentDownloads > 0,
+          "Max concurrent downloads must be positive: %s", maxConcurrentDownloads);
+      this.maxConcurrentDownloads = maxConcurrentDownloads;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of attempts to download the report of a client customer, including
+     * the first attempt. Defaults to 5.
+     */
+    public Builder maxAttempts(int maxAttempts) {
+      Preconditions.checkArgument(maxAttempts > 0, "Max attempts must be positive: %s",
+          maxAttempts);
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    /**
+     * Sets the time in milliseconds that all downloads pause after a download is rate limited.
+     * Defaults to 30 seconds.
+     */
+    public Builder rateExceededPauseMillis(long rateExceededPauseMillis) {
+      Preconditions.checkArgument(rateExceededPauseMillis >= 0,
+          "Negative rate exceeded pause: %s", rateExceededPauseMillis);
+      this.rateExceededPauseMillis = rateExceededPauseMillis;
+      return this;
+    }
+
+    /**
+     * Sets the supplier of the backoff policy between attempts to download the report of a client
+     * customer. A new backoff policy is obtained for each client customer. Defaults to an
+     * {@link ExponentialBackOff} with default settings.
+     */
+    public Builder backOff(Supplier<BackOff> backOffSupplier) {
+      this.backOffSupplier = Preconditions.checkNotNull(backOffSupplier, "Null back off");
+      return this;
+    }
+
+    /**
+     * Sets the listener for the progress of the downloads.
+     */
+    public Builder listener(ReportDownloadListener listener) {
+      this.listener = Preconditions.checkNotNull(listener, "Null listener");
+      return this;
+    }
+
+    @VisibleForTesting
+    Builder sleeper(Sleeper sleeper) {
+      this.sleeper = Preconditions.checkNotNull(sleeper, "Null sleeper");
+      return this;
+    }
+
+    /**
+     * Builds a new {@link ReportDownloadEngine}.
+     */
+    public ReportDownloadEngine build() {
+      return new ReportDownloadEngine(this);
+    }
+  }
+}
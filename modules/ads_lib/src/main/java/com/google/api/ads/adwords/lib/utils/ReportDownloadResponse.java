@@ -14,15 +14,24 @@
 
 package com.google.api.ads.adwords.lib.utils;
 
+import com.google.api.ads.adwords.lib.client.reporting.ReportingConfiguration;
 import com.google.api.ads.common.lib.utils.Streams;
 import com.google.common.base.Preconditions;
 
-import java.io.BufferedOutputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
 import java.util.zip.GZIPInputStream;
 
 import javax.annotation.Nullable;
@@ -33,6 +42,8 @@ import javax.annotation.Nullable;
 public class ReportDownloadResponse {
 
   private static final String HTTP_SUCCESS_MESSAGE = "SUCCESS";
+  private static final int TRANSFER_BUFFER_SIZE = 1024 * 1024;
+  private static final int INFLATER_BUFFER_SIZE = 64 * 1024;
 
   private final RawReportDownloadResponse rawResponse;
 
@@ -76,14 +87,164 @@ public class ReportDownloadResponse {
   }
   
   /**
-   * Writes the contents of the response to the specified File.
+   * Returns a reader of the rows of the response, for a report downloaded with the default
+   * reporting configuration. Inflates the response if it is in one of the gzip formats.
+   *
+   * @throws IllegalArgumentException if the download format is not supported
+   * @throws IOException if unable to read the response contents
+   * @see #getRowReader(ReportingConfiguration)
+   */
+  public ReportRowReader getRowReader() throws IOException {
+    return getRowReader(null);
+  }
+
+  /**
+   * Returns a reader of the rows of the response. Inflates the response if it is in one of the
+   * gzip formats.
+   *
+   * @param reportingConfiguration the reporting configuration the report was downloaded with,
+   *     which determines the header and summary rows present in the response, or {@code null} for
+   *     the default reporting configuration
+   * @throws IllegalArgumentException if the download format is not supported
+   * @throws IOException if unable to read the response contents
+   */
+  public ReportRowReader getRowReader(@Nullable ReportingConfiguration reportingConfiguration)
+      throws IOException {
+    return ReportRowReader.create(getInputStream(), rawResponse.getCharset(),
+        rawResponse.getDownloadFormat(), reportingConfiguration);
+  }
+
+  /**
+   * Writes the contents of the response to the specified File. The contents are first written to
+   * a temporary file in the same directory, which is then renamed to {@code outputFile}, so
+   * {@code outputFile} never has partial contents. Gzipped responses are written compressed.
+   * If {@code outputFile} is a symbolic link to an existing file, the file it links to is
+   * replaced instead, in the directory of that file.
    *
    * @param outputFile the output file to write to
-   * @throws FileNotFoundException if unable to write to {@code outputFile}
+   * @throws FileNotFoundException if unable to create a file in the directory of
+   *     {@code outputFile} or to replace {@code outputFile}, for example because the directory
+   *     does not exist
    * @throws IOException if unable to read the response contents
    */
   public void saveToFile(String outputFile) throws FileNotFoundException, IOException {
-    Streams.copy(getInputStream(), new BufferedOutputStream(new FileOutputStream(outputFile)));
+    saveToFile(outputFile, false);
+  }
+
+  /**
+   * Writes the contents of the response to the specified File. The contents are first written to
+   * a temporary file in the same directory, which is then renamed to {@code outputFile}, so
+   * {@code outputFile} never has partial contents. If {@code outputFile} is a symbolic link to an
+   * existing file, the file it links to is replaced instead, in the directory of that file.
+   *
+   * @param outputFile the output file to write to
+   * @param inflate if the contents of a response in one of the gzip formats should be inflated
+   *     while writing them. Ignored for responses that are not gzipped.
+   * @throws FileNotFoundException if unable to create a file in the directory of
+   *     {@code outputFile} or to replace {@code outputFile}, for example because the directory
+   *     does not exist
+   * @throws IOException if unable to read the response contents
+   */
+  public void saveToFile(String outputFile, boolean inflate)
+      throws FileNotFoundException, IOException {
+    Path outputPath = Paths.get(outputFile).toAbsolutePath();
+    if (Files.isSymbolicLink(outputPath) && Files.exists(outputPath)) {
+      // Renaming onto the link would replace the link itself.
+      outputPath = outputPath.toRealPath();
+    }
+    // Not created with Files.createTempFile, so the file gets the same permissions as any other
+    // new file instead of being readable only by its owner.
+    Path tempPath = outputPath.resolveSibling(
+        "." + outputPath.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    boolean isSaved = false;
+    try {
+      FileChannel fileChannel;
+      try {
+        fileChannel = FileChannel.open(tempPath, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.WRITE);
+      } catch (FileSystemException e) {
+        throw toFileNotFoundException(e);
+      }
+      try {
+        saveToChannel(fileChannel, 0, inflate);
+      } finally {
+        fileChannel.close();
+      }
+      try {
+        try {
+          Files.move(tempPath, outputPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(tempPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } catch (FileSystemException e) {
+        throw toFileNotFoundException(e);
+      }
+      isSaved = true;
+    } finally {
+      if (!isSaved) {
+        Files.deleteIfExists(tempPath);
+      }
+    }
+  }
+
+  /**
+   * Translates a failure to create or replace a file into the exception thrown by
+   * {@link #saveToFile(String)}, like {@link java.io.FileOutputStream} does.
+   */
+  private static FileNotFoundException toFileNotFoundException(FileSystemException e) {
+    FileNotFoundException fileNotFoundException = new FileNotFoundException(e.getMessage());
+    fileNotFoundException.initCause(e);
+    return fileNotFoundException;
+  }
+
+  /**
+   * Writes the contents of the response to a file channel, starting at the specified position,
+   * and closes the response. The contents are copied through a buffer with positional writes,
+   * which do not change the position of the channel, so the contents of several responses can be
+   * written to the same channel concurrently, for example to regions of a pre-sized file.
+   *
+   * @param fileChannel the file channel to write to
+   * @param position the position in the file to start writing at
+   * @param inflate if the contents of a response in one of the gzip formats should be inflated
+   *     while writing them. Ignored for responses that are not gzipped.
+   * @return the number of bytes written
+   * @throws IOException if unable to read the response contents or write to the channel
+   */
+  public long saveToChannel(FileChannel fileChannel, long position, boolean inflate)
+      throws IOException {
+    Preconditions.checkNotNull(fileChannel, "Null file channel");
+    Preconditions.checkArgument(position >= 0, "Negative position: %s", position);
+    InputStream inputStream = inflate && isGzipped()
+        ? new GZIPInputStream(getInputStream(), INFLATER_BUFFER_SIZE)
+        : getInputStream();
+    try {
+      // Read straight into the array of a heap buffer; a channel over the input stream would
+      // copy through an array of its own anyway.
+      byte[] bytes = new byte[TRANSFER_BUFFER_SIZE];
+      long written = 0;
+      boolean isEndOfStream = false;
+      while (!isEndOfStream) {
+        // Fill the buffer before writing, so each write to the file is as large as possible.
+        int length = 0;
+        while (length < bytes.length && !isEndOfStream) {
+          int read = inputStream.read(bytes, length, bytes.length - length);
+          if (read < 0) {
+            isEndOfStream = true;
+          } else {
+            length += read;
+          }
+        }
+        // Wrapped for each write instead of calling limit and position, whose ByteBuffer
+        // overloads only exist on Java 9 and later.
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+          written += fileChannel.write(buffer, position + written);
+        }
+      }
+      return written;
+    } finally {
+      inputStream.close();
+    }
   }
   
   private boolean isGzipped() {
@@ -26,28 +26,36 @@ import com.google.api.client.http.HttpRequestFactory;
 import com.google.api.client.http.HttpRequestInitializer;
 import com.google.api.client.http.HttpTransport;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 import java.io.IOException;
+import javax.annotation.Nullable;
 
 /**
  * Helper class that generates a configured HttpURLConnection for report downloads.
+ *
+ * <p>An instance created with a {@code null} session is not bound to any session and only
+ * supports {@link #getHttpRequestFactory(AdWordsSession, String, String, ReportingConfiguration)},
+ * which is thread-safe.
  */
 public class ReportRequestFactoryHelper {
 
   /** The URI of the download server. */
   public static final String DOWNLOAD_SERVER_URI = "/api/adwords/reportdownload";
   
-  private final AdWordsSession session;
+  @Nullable private final AdWordsSession session;
   private final UserAgentCombiner userAgentCombiner;
   private final AuthorizationHeaderProvider authorizationHeaderProvider;
   private final HttpTransport httpTransport;
+  private final int defaultReportDownloadTimeout;
   private int reportDownloadTimeout;
   private final ReportResponseInterceptor responseInterceptor;
 
   /**
    * Constructor used by Guice.
    *
-   * @param session Used to pull authentication data.
+   * @param session Used to pull authentication data, or {@code null} if the session is provided
+   *        on each call instead.
    * @param authorizationHeaderProvider Used to population the authentication data into a header.
    * @param userAgentCombiner Used to populate the User-Agent header.
    * @param adWordsLibConfiguration Used to obtain configuration options affecting report requests.
@@ -55,7 +63,7 @@ public class ReportRequestFactoryHelper {
    *        helper.
    */
   @Inject
-  ReportRequestFactoryHelper(AdWordsSession session,
+  ReportRequestFactoryHelper(@Nullable AdWordsSession session,
       AuthorizationHeaderProvider authorizationHeaderProvider, UserAgentCombiner userAgentCombiner,
       HttpTransport httpTransport, AdWordsLibConfiguration adWordsLibConfiguration,
       ReportResponseInterceptor responseInterceptor) {
@@ -63,11 +71,13 @@ public class ReportRequestFactoryHelper {
     this.authorizationHeaderProvider = authorizationHeaderProvider;
     this.userAgentCombiner = userAgentCombiner;
     this.httpTransport = httpTransport;
+    this.defaultReportDownloadTimeout = adWordsLibConfiguration.getReportDownloadTimeout();
     this.reportDownloadTimeout =
-        (session.getReportingConfiguration() != null
+        (session != null
+                && session.getReportingConfiguration() != null
                 && session.getReportingConfiguration().getReportDownloadTimeout() != null)
             ? session.getReportingConfiguration().getReportDownloadTimeout()
-            : adWordsLibConfiguration.getReportDownloadTimeout();
+            : defaultReportDownloadTimeout;
     this.responseInterceptor = responseInterceptor;
   }
 
@@ -78,17 +88,55 @@ public class ReportRequestFactoryHelper {
    * @param reportUrl the URL of the report response or download
    * @return the report HTTP URL connection
    * @throws AuthenticationException If OAuth authorization fails.
+   * @throws IllegalStateException if this helper is not bound to a session.
    */
   @VisibleForTesting
-  HttpRequestFactory getHttpRequestFactory(final String reportUrl, String version)
+  HttpRequestFactory getHttpRequestFactory(String reportUrl, String version)
       throws AuthenticationException {
-    final HttpHeaders httpHeaders = createHeaders(reportUrl, version);
+    Preconditions.checkState(session != null, "Helper is not bound to a session");
+    return createRequestFactory(
+        session, reportUrl, version, session.getReportingConfiguration(), reportDownloadTimeout);
+  }
+
+  /**
+   * Gets the report HTTP URL connection for a request made on behalf of {@code session}, with the
+   * options of {@code overrides} taking precedence over the session's reporting configuration.
+   * Unlike {@link #getHttpRequestFactory(String, String)}, this ignores any timeout set through
+   * {@link #setReportDownloadTimeout(int)}.
+   *
+   * @param session the session used to pull authentication data and default options
+   * @param reportUrl the URL of the report response or download
+   * @param version the version of the AdWords API
+   * @param overrides the per-request options, or {@code null} to use the session's options
+   * @return the report HTTP URL connection
+   * @throws AuthenticationException If OAuth authorization fails.
+   */
+  HttpRequestFactory getHttpRequestFactory(AdWordsSession session, String reportUrl,
+      String version, @Nullable ReportingConfiguration overrides)
+      throws AuthenticationException {
+    Preconditions.checkNotNull(session, "Null session");
+    ReportingConfiguration reportingConfiguration = session.getReportingConfiguration() == null
+        ? overrides
+        : session.getReportingConfiguration().withOverrides(overrides);
+    int timeout =
+        (reportingConfiguration != null
+                && reportingConfiguration.getReportDownloadTimeout() != null)
+            ? reportingConfiguration.getReportDownloadTimeout()
+            : defaultReportDownloadTimeout;
+    return createRequestFactory(session, reportUrl, version, reportingConfiguration, timeout);
+  }
+
+  private HttpRequestFactory createRequestFactory(AdWordsSession session, String reportUrl,
+      String version, @Nullable ReportingConfiguration reportingConfiguration,
+      final int timeout) throws AuthenticationException {
+    final HttpHeaders httpHeaders =
+        createHeaders(session, reportUrl, version, reportingConfiguration);
     return httpTransport.createRequestFactory(new HttpRequestInitializer() {
       @Override
       public void initialize(HttpRequest request) throws IOException {
         request.setHeaders(httpHeaders);
-        request.setConnectTimeout(reportDownloadTimeout);
-        request.setReadTimeout(reportDownloadTimeout);
+        request.setConnectTimeout(timeout);
+        request.setReadTimeout(timeout);
         request.setThrowExceptionOnExecuteError(false);
         request.setLoggingEnabled(true);
         request.setResponseInterceptor(responseInterceptor);
@@ -98,18 +146,17 @@ public class ReportRequestFactoryHelper {
 
   /**
    * Creates the http headers object for this request, populated from data in
-   * the session.
+   * the session and the reporting configuration.
    * @throws AuthenticationException If OAuth authorization fails.
    */
-  private HttpHeaders createHeaders(String reportUrl, String version)
-      throws AuthenticationException {
+  private HttpHeaders createHeaders(AdWordsSession session, String reportUrl, String version,
+      @Nullable ReportingConfiguration reportingConfiguration) throws AuthenticationException {
     HttpHeaders httpHeaders = new HttpHeaders();
     httpHeaders.setAuthorization(
         authorizationHeaderProvider.getAuthorizationHeader(session, reportUrl));
     httpHeaders.setUserAgent(userAgentCombiner.getUserAgent(session.getUserAgent()));
     httpHeaders.set("developerToken", session.getDeveloperToken());
     httpHeaders.set("clientCustomerId", session.getClientCustomerId());
-    ReportingConfiguration reportingConfiguration = session.getReportingConfiguration();
     if (reportingConfiguration != null) {
       reportingConfiguration.validate(version);
       if (reportingConfiguration.isSkipReportHeader() != null) {
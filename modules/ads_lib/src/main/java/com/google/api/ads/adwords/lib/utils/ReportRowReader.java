@@ -0,0 +1,553 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import com.google.api.ads.adwords.lib.client.reporting.ReportingConfiguration;
+import com.google.api.ads.common.lib.utils.DelimitedRowTokenizer;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the rows of a downloaded report one at a time, so that reports of any size can be
+ * processed in constant memory.
+ *
+ * <p>Supports the {@code CSV}, {@code CSVFOREXCEL}, {@code TSV} and {@code XML} download formats
+ * and their gzipped variants, which are inflated while reading. The report header, column header
+ * and summary rows are not returned as rows. The column header, if present, determines the names
+ * that fields can be looked up by.
+ *
+ * <p>The reader reuses a single buffer for the current row: each call to {@link #next()} replaces
+ * the fields of the previous row, and numeric fields are parsed directly from the buffer. This
+ * class is <em>not</em> thread-safe.
+ *
+ * <pre>
+ * ReportRowReader rows = response.getRowReader(reportingConfiguration);
+ * try {
+ *   int impressions = rows.getColumnIndex("Impressions");
+ *   while (rows.next()) {
+ *     total += rows.getLong(impressions);
+ *   }
+ * } finally {
+ *   rows.close();
+ * }
+ * </pre>
+ */
+public final class ReportRowReader implements Closeable {
+
+  private static final String GZIPPED_PREFIX = "GZIPPED_";
+  private static final String SUMMARY_ROW_PREFIX = "Total";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final RowSource rowSource;
+  private final Closeable closeable;
+  private final ImmutableList<String> columnNames;
+  private final Map<String, Integer> columnIndexes;
+  private final boolean hasReportSummary;
+
+  private RowBuffer row = new RowBuffer();
+  private RowBuffer nextRow = new RowBuffer();
+  private boolean hasRow;
+  private boolean hasNextRow;
+  private long rowCount;
+  @Nullable private MeteredReportInputStream meteredInputStream;
+
+  private ReportRowReader(RowSource rowSource, Closeable closeable, boolean hasReportSummary)
+      throws IOException {
+    this.rowSource = rowSource;
+    this.closeable = closeable;
+    this.hasReportSummary = hasReportSummary;
+    this.columnNames = rowSource.getColumnNames();
+    this.columnIndexes = Maps.newHashMap();
+    for (int i = columnNames.size() - 1; i >= 0; i--) {
+      columnIndexes.put(columnNames.get(i), i);
+    }
+    columnIndexes.putAll(rowSource.getAdditionalColumnIndexes());
+    // The reader stays one row ahead, so the summary row can be recognized as the last row.
+    this.hasNextRow = rowSource.readRow(nextRow);
+  }
+
+  /**
+   * Creates a reader for the contents of a report download.
+   *
+   * @param inputStream the contents of the report download
+   * @param charset the charset of the report contents
+   * @param downloadFormat the download format of the report
+   * @param reportingConfiguration the reporting configuration the report was downloaded with, or
+   *     {@code null} if the report was downloaded with the default reporting configuration
+   * @throws IllegalArgumentException if the download format is not supported
+   * @throws IOException if unable to read the report contents
+   */
+  static ReportRowReader create(InputStream inputStream, Charset charset, String downloadFormat,
+      @Nullable ReportingConfiguration reportingConfiguration) throws IOException {
+    Preconditions.checkNotNull(inputStream, "Null input stream");
+    Preconditions.checkNotNull(downloadFormat, "Null download format");
+    MeteredReportInputStream meteredInputStream = null;
+    if (inputStream instanceof MeteredReportInputStream) {
+      // Log the metrics of the download when this reader is closed, with the number of rows.
+      meteredInputStream = (MeteredReportInputStream) inputStream;
+      meteredInputStream.countRows();
+    }
+    String format = downloadFormat;
+    if (format.startsWith(GZIPPED_PREFIX)) {
+      inputStream = new GZIPInputStream(inputStream, BUFFER_SIZE);
+      format = format.substring(GZIPPED_PREFIX.length());
+    }
+    boolean hasReportHeader = !isTrue(
+        reportingConfiguration == null ? null : reportingConfiguration.isSkipReportHeader());
+    boolean hasColumnHeader = !isTrue(
+        reportingConfiguration == null ? null : reportingConfiguration.isSkipColumnHeader());
+    boolean hasReportSummary = !isTrue(
+        reportingConfiguration == null ? null : reportingConfiguration.isSkipReportSummary());
+
+    ReportRowReader rowReader;
+    if ("XML".equals(format)) {
+      rowReader = new ReportRowReader(new XmlRowSource(inputStream, charset), inputStream, false);
+      rowReader.meteredInputStream = meteredInputStream;
+      return rowReader;
+    }
+    char delimiter;
+    boolean isQuoted;
+    if ("CSV".equals(format)) {
+      delimiter = ',';
+      isQuoted = true;
+    } else if ("CSVFOREXCEL".equals(format)) {
+      delimiter = '\t';
+      isQuoted = true;
+    } else if ("TSV".equals(format)) {
+      delimiter = '\t';
+      isQuoted = false;
+    } else {
+      throw new IllegalArgumentException("Unsupported download format: " + downloadFormat);
+    }
+    Reader reader = new InputStreamReader(inputStream, charset);
+    rowReader = new ReportRowReader(
+        new DelimitedRowSource(reader, delimiter, isQuoted, hasReportHeader, hasColumnHeader),
+        reader,
+        hasReportSummary);
+    rowReader.meteredInputStream = meteredInputStream;
+    return rowReader;
+  }
+
+  private static boolean isTrue(@Nullable Boolean value) {
+    return value != null && value;
+  }
+
+  /**
+   * Advances to the next row of the report.
+   *
+   * @return {@code true} if there is a next row, or {@code false} if the end of the report was
+   *     reached
+   * @throws IOException if unable to read the report contents
+   */
+  public boolean next() throws IOException {
+    if (!hasNextRow) {
+      hasRow = false;
+      return false;
+    }
+    RowBuffer previousRow = row;
+    row = nextRow;
+    nextRow = previousRow;
+    hasNextRow = rowSource.readRow(nextRow);
+    hasRow = hasNextRow || !hasReportSummary || !row.startsWith(SUMMARY_ROW_PREFIX);
+    if (hasRow) {
+      rowCount++;
+    }
+    return hasRow;
+  }
+
+  /**
+   * Returns the column names from the column header of the report, or an empty list if the report
+   * has no column header.
+   */
+  public List<String> getColumnNames() {
+    return columnNames;
+  }
+
+  /**
+   * Returns the index of the column with the specified name.
+   *
+   * @throws IllegalArgumentException if the report has no column with the name
+   */
+  public int getColumnIndex(String columnName) {
+    Integer index = columnIndexes.get(columnName);
+    Preconditions.checkArgument(index != null, "No column named %s in %s", columnName,
+        columnNames);
+    return index;
+  }
+
+  /**
+   * Returns the number of fields in the current row.
+   */
+  public int getFieldCount() {
+    checkRow();
+    return row.fieldCount;
+  }
+
+  /**
+   * Returns the value of the field at the specified index of the current row.
+   */
+  public String getString(int index) {
+    checkField(index);
+    return row.getString(index);
+  }
+
+  /**
+   * Returns the value of the field in the specified column of the current row.
+   */
+  public String getString(String columnName) {
+    return getString(getColumnIndex(columnName));
+  }
+
+  /**
+   * Returns the value of the field at the specified index of the current row as a {@code long}.
+   *
+   * @throws NumberFormatException if the field is not a valid {@code long}
+   */
+  public long getLong(int index) {
+    checkField(index);
+    return row.getLong(index);
+  }
+
+  /**
+   * Returns the value of the field in the specified column of the current row as a {@code long}.
+   *
+   * @throws NumberFormatException if the field is not a valid {@code long}
+   */
+  public long getLong(String columnName) {
+    return getLong(getColumnIndex(columnName));
+  }
+
+  /**
+   * Returns the value of the field at the specified index of the current row as a
+   * {@code double}.
+   *
+   * @throws NumberFormatException if the field is not a valid {@code double}
+   */
+  public double getDouble(int index) {
+    checkField(index);
+    return Double.parseDouble(row.getString(index));
+  }
+
+  /**
+   * Returns the value of the field in the specified column of the current row as a
+   * {@code double}.
+   *
+   * @throws NumberFormatException if the field is not a valid {@code double}
+   */
+  public double getDouble(String columnName) {
+    return getDouble(getColumnIndex(columnName));
+  }
+
+  /**
+   * Closes the underlying report contents.
+   */
+  @Override
+  public void close() throws IOException {
+    if (meteredInputStream != null) {
+      meteredInputStream.addRows(rowCount);
+      rowCount = 0;
+    }
+    closeable.close();
+  }
+
+  private void checkRow() {
+    Preconditions.checkState(hasRow, "No current row, call next() first");
+  }
+
+  private void checkField(int index) {
+    checkRow();
+    Preconditions.checkElementIndex(index, row.fieldCount, "Field index");
+  }
+
+  /**
+   * Source of the rows of a report in a specific format.
+   */
+  private interface RowSource {
+
+    /**
+     * Returns the column names of the report.
+     */
+    ImmutableList<String> getColumnNames();
+
+    /**
+     * Returns indexes of columns under names other than those of {@link #getColumnNames()}.
+     */
+    Map<String, Integer> getAdditionalColumnIndexes();
+
+    /**
+     * Reads the next row into the buffer.
+     *
+     * @return {@code true} if a row was read, or {@code false} if there are no more rows
+     */
+    boolean readRow(RowBuffer row) throws IOException;
+  }
+
+  /**
+   * Reusable buffer for the fields of a row. The fields are stored back to back in a single
+   * character array.
+   */
+  private static final class RowBuffer implements DelimitedRowTokenizer.FieldSink {
+    private char[] chars = new char[256];
+    private int length;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+
+    void clear() {
+      length = 0;
+      fieldCount = 0;
+    }
+
+    void append(char c) {
+      if (length == chars.length) {
+        chars = Arrays.copyOf(chars, length * 2);
+      }
+      chars[length++] = c;
+    }
+
+    void append(String value) {
+      for (int i = 0; i < value.length(); i++) {
+        append(value.charAt(i));
+      }
+    }
+
+    @Override
+    public void append(char[] source, int offset, int count) {
+      if (length + count > chars.length) {
+        chars = Arrays.copyOf(chars, Math.max(length + count, chars.length * 2));
+      }
+      System.arraycopy(source, offset, chars, length, count);
+      length += count;
+    }
+
+    @Override
+    public void startField(int fieldIndex) {
+      startField();
+    }
+
+    @Override
+    public void endField(int fieldIndex) {
+      endField();
+    }
+
+    void startField() {
+      if (fieldCount == fieldStarts.length) {
+        fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+        fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+      }
+      fieldStarts[fieldCount] = length;
+    }
+
+    void endField() {
+      fieldEnds[fieldCount++] = length;
+    }
+
+    String getString(int index) {
+      return new String(chars, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    /**
+     * Returns if the first field starts with the prefix.
+     */
+    boolean startsWith(String prefix) {
+      if (fieldCount == 0 || fieldEnds[0] - fieldStarts[0] < prefix.length()) {
+        return false;
+      }
+      for (int i = 0; i < prefix.length(); i++) {
+        if (chars[fieldStarts[0] + i] != prefix.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Parses a field as a {@code long} without creating intermediate objects. Accumulates
+     * negatively, like {@link Long#parseLong(String)}, so {@link Long#MIN_VALUE} can be parsed.
+     */
+    long getLong(int index) {
+      int start = fieldStarts[index];
+      int end = fieldEnds[index];
+      boolean isNegative = start < end && chars[start] == '-';
+      int i = isNegative ? start + 1 : start;
+      if (i == end) {
+        throw new NumberFormatException("Not a long: \"" + getString(index) + "\"");
+      }
+      long limit = isNegative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+      long multiplyMin = limit / 10;
+      long result = 0;
+      for (; i < end; i++) {
+        int digit = chars[i] - '0';
+        if (digit < 0 || digit > 9 || result < multiplyMin) {
+          throw new NumberFormatException("Not a long: \"" + getString(index) + "\"");
+        }
+        result *= 10;
+        if (result < limit + digit) {
+          throw new NumberFormatException("Not a long: \"" + getString(index) + "\"");
+        }
+        result -= digit;
+      }
+      return isNegative ? result : -result;
+    }
+  }
+
+  /**
+   * Source of rows of a delimited report, such as a {@code CSV} or {@code TSV} report.
+   */
+  private static final class DelimitedRowSource implements RowSource {
+    private final DelimitedRowTokenizer tokenizer;
+    private final ImmutableList<String> columnNames;
+
+    DelimitedRowSource(Reader reader, char delimiter, boolean isQuoted, boolean hasReportHeader,
+        boolean hasColumnHeader) throws IOException {
+      this.tokenizer = new DelimitedRowTokenizer(reader, delimiter, isQuoted);
+      List<String> header = Lists.newArrayList();
+      if (hasReportHeader) {
+        tokenizer.readRow(header);
+      }
+      if (hasColumnHeader && tokenizer.readRow(header)) {
+        this.columnNames = ImmutableList.copyOf(header);
+      } else {
+        this.columnNames = ImmutableList.of();
+      }
+    }
+
+    @Override
+    public ImmutableList<String> getColumnNames() {
+      return columnNames;
+    }
+
+    @Override
+    public Map<String, Integer> getAdditionalColumnIndexes() {
+      return ImmutableMap.of();
+    }
+
+    @Override
+    public boolean readRow(RowBuffer row) throws IOException {
+      row.clear();
+      return tokenizer.readRow(row);
+    }
+  }
+
+  /**
+   * Source of rows of an {@code XML} report. Each {@code row} element is a row, with a field for
+   * each column declared by the {@code column} elements of the report.
+   */
+  private static final class XmlRowSource implements RowSource {
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private final XMLStreamReader xmlReader;
+    private final ImmutableList<String> columnNames;
+    private final List<String> attributeNames;
+    private boolean isOnRow;
+
+    XmlRowSource(InputStream inputStream, Charset charset) throws IOException {
+      List<String> displayNames = Lists.newArrayList();
+      this.attributeNames = Lists.newArrayList();
+      try {
+        this.xmlReader = INPUT_FACTORY.createXMLStreamReader(inputStream, charset.name());
+        while (xmlReader.hasNext()) {
+          if (xmlReader.next() == XMLStreamConstants.START_ELEMENT) {
+            String elementName = xmlReader.getLocalName();
+            if ("column".equals(elementName)) {
+              String name = xmlReader.getAttributeValue(null, "name");
+              String display = xmlReader.getAttributeValue(null, "display");
+              attributeNames.add(name);
+              displayNames.add(display == null ? name : display);
+            } else if ("row".equals(elementName)) {
+              isOnRow = true;
+              break;
+            }
+          }
+        }
+      } catch (XMLStreamException e) {
+        throw new IOException("Unable to read XML report", e);
+      }
+      if (attributeNames.isEmpty() && isOnRow) {
+        // No column declarations, so use the attributes of the first row.
+        for (int i = 0; i < xmlReader.getAttributeCount(); i++) {
+          attributeNames.add(xmlReader.getAttributeLocalName(i));
+        }
+        displayNames.addAll(attributeNames);
+      }
+      this.columnNames = ImmutableList.copyOf(displayNames);
+    }
+
+    @Override
+    public ImmutableList<String> getColumnNames() {
+      return columnNames;
+    }
+
+    @Override
+    public Map<String, Integer> getAdditionalColumnIndexes() {
+      Map<String, Integer> indexes = Maps.newHashMap();
+      for (int i = attributeNames.size() - 1; i >= 0; i--) {
+        indexes.put(attributeNames.get(i), i);
+      }
+      return indexes;
+    }
+
+    @Override
+    public boolean readRow(RowBuffer row) throws IOException {
+      row.clear();
+      try {
+        while (!isOnRow && xmlReader.hasNext()) {
+          isOnRow = xmlReader.next() == XMLStreamConstants.START_ELEMENT
+              && "row".equals(xmlReader.getLocalName());
+        }
+        if (!isOnRow) {
+          return false;
+        }
+        isOnRow = false;
+        for (String attributeName : attributeNames) {
+          String value = xmlReader.getAttributeValue(null, attributeName);
+          row.startField();
+          if (value != null) {
+            row.append(value);
+          }
+          row.endField();
+        }
+        return true;
+      } catch (XMLStreamException e) {
+        throw new IOException("Unable to read XML report", e);
+      }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+      XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+      inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+      return inputFactory;
+    }
+  }
+}
@@ -0,0 +1,264 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import com.google.api.ads.adwords.lib.client.AdWordsSession;
+import com.google.api.ads.adwords.lib.utils.ReportDownloadEngine.ReportDownload;
+import com.google.api.client.util.BackOff;
+import com.google.api.client.util.ExponentialBackOff;
+import com.google.api.client.util.Sleeper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Downloads a report to a file, resuming from the last checkpoint if a download fails part way
+ * through.
+ *
+ * <p>While the report is written to the output file, a checkpoint with the number of bytes and
+ * rows persisted and a CRC-32 checksum of those bytes is periodically written next to it, to a
+ * file with the {@code .checkpoint} suffix. Report downloads cannot start part way through a
+ * report, so a resumed download requests the report again, reads the prefix already persisted
+ * without writing it, and checks it against the checkpoint's checksum. If the prefix matches, the
+ * rest of the report is appended to the output file; otherwise the report changed in the
+ * meantime and the download starts over. The checkpoint file is deleted once the report is
+ * complete, so an output file with a checkpoint file next to it is incomplete.
+ *
+ * <p>Checkpoints survive the process, so calling {@link #download} again for the same output file
+ * resumes a download that previously gave up. Gzipped formats may embed a timestamp in each
+ * response, which prevents resuming them; uncompressed formats are preferable for very large
+ * reports.
+ */
+public class ResumableReportDownloader {
+
+  static final String CHECKPOINT_FILE_SUFFIX = ".checkpoint";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final byte LINE_BREAK = '\n';
+
+  private final long checkpointIntervalBytes;
+  private final int maxAttempts;
+  private final Supplier<BackOff> backOffSupplier;
+  private final Sleeper sleeper;
+
+  private ResumableReportDownloader(Builder builder) {
+    this.checkpointIntervalBytes = builder.checkpointIntervalBytes;
+    this.maxAttempts = builder.maxAttempts;
+    this.backOffSupplier = builder.backOffSupplier;
+    this.sleeper = builder.sleeper;
+  }
+
+  /**
+   * Downloads a report to the output file, resuming from its checkpoint if there is one.
+   *
+   * @param session the session to download the report with
+   * @param reportDownload downloads the report
+   * @param outputFile the file to write the report to
+   * @return the checkpoint of the complete report
+   * @throws ReportException if the last attempt failed to send the request
+   * @throws ReportDownloadResponseException if the last attempt received an error response
+   * @throws IOException if the last attempt failed to read the report or write the output file
+   * @throws InterruptedException if interrupted while waiting to retry
+   */
+  public ReportDownloadCheckpoint download(AdWordsSession session, ReportDownload reportDownload,
+      File outputFile) throws ReportException, ReportDownloadResponseException, IOException,
+      InterruptedException {
+    Preconditions.checkNotNull(session, "Null session");
+    Preconditions.checkNotNull(reportDownload, "Null report download");
+    Preconditions.checkNotNull(outputFile, "Null output file");
+    BackOff backOff = backOffSupplier.get();
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return downloadOnce(session, reportDownload, outputFile, attempt);
+      } catch (Exception e) {
+        long retryDelayMillis = attempt < maxAttempts && ReportDownloadEngine.isRetryable(e)
+            ? backOff.nextBackOffMillis()
+            : BackOff.STOP;
+        if (retryDelayMillis == BackOff.STOP) {
+          throw e;
+        }
+        sleeper.sleep(retryDelayMillis);
+      }
+    }
+  }
+
+  /**
+   * Returns the checkpoint file of an output file.
+   */
+  public static File getCheckpointFile(File outputFile) {
+    return new File(outputFile.getPath() + CHECKPOINT_FILE_SUFFIX);
+  }
+
+  /**
+   * Makes a single attempt to download the rest of the report.
+   */
+  private ReportDownloadCheckpoint downloadOnce(AdWordsSession session,
+      ReportDownload reportDownload, File outputFile, int attempt)
+      throws ReportException, ReportDownloadResponseException, IOException {
+    File checkpointFile = getCheckpointFile(outputFile);
+    ReportDownloadCheckpoint checkpoint = ReportDownloadCheckpoint.read(checkpointFile);
+    if (checkpoint == null || !outputFile.exists() || outputFile.length() < checkpoint.getBytes()) {
+      checkpoint = ReportDownloadCheckpoint.START;
+    }
+
+    ReportDownloadResponse response = reportDownload.download(session, attempt);
+    InputStream contents = response.getInputStream();
+    try {
+      CRC32 checksum = new CRC32();
+      byte[] buffer = new byte[BUFFER_SIZE];
+      skipPersistedPrefix(contents, checkpoint, checksum, buffer, checkpointFile);
+
+      FileChannel fileChannel = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE);
+      try {
+        // Discards anything written after the checkpoint.
+        fileChannel.truncate(checkpoint.getBytes());
+        long bytes = checkpoint.getBytes();
+        long rows = checkpoint.getRows();
+        long checkpointedBytes = bytes;
+        if (bytes == 0) {
+          // Marks the output file as incomplete from the start.
+          checkpoint.write(checkpointFile);
+        }
+        int count;
+        while ((count = contents.read(buffer)) != -1) {
+          ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, count);
+          while (chunk.hasRemaining()) {
+            fileChannel.write(chunk, bytes + chunk.position());
+          }
+          checksum.update(buffer, 0, count);
+          rows += countLineBreaks(buffer, count);
+          bytes += count;
+          if (bytes - checkpointedBytes >= checkpointIntervalBytes) {
+            // The checkpoint must never claim more bytes than are durably written.
+            fileChannel.force(false);
+            new ReportDownloadCheckpoint(bytes, rows, checksum.getValue()).write(checkpointFile);
+            checkpointedBytes = bytes;
+          }
+        }
+        fileChannel.force(false);
+        if (!checkpointFile.delete() && checkpointFile.exists()) {
+          throw new IOException("Unable to delete report download checkpoint: " + checkpointFile);
+        }
+        return new ReportDownloadCheckpoint(bytes, rows, checksum.getValue());
+      } finally {
+        fileChannel.close();
+      }
+    } finally {
+      contents.close();
+    }
+  }
+
+  /**
+   * Reads the prefix of the report that is already persisted and checks it against the
+   * checkpoint. If it does not match, deletes the checkpoint so the next attempt starts over.
+   */
+  private static void skipPersistedPrefix(InputStream contents, ReportDownloadCheckpoint checkpoint,
+      CRC32 checksum, byte[] buffer, File checkpointFile) throws IOException {
+    long remaining = checkpoint.getBytes();
+    while (remaining > 0) {
+      int count = contents.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+      if (count == -1) {
+        break;
+      }
+      checksum.update(buffer, 0, count);
+      remaining -= count;
+    }
+    if (remaining > 0 || checksum.getValue() != checkpoint.getChecksum()) {
+      if (!checkpointFile.delete() && checkpointFile.exists()) {
+        throw new IOException("Unable to delete report download checkpoint: " + checkpointFile);
+      }
+      throw new IOException(String.format(
+          "Report contents do not match the checkpoint %s, restarting the download.", checkpoint));
+    }
+  }
+
+  private static int countLineBreaks(byte[] buffer, int count) {
+    int lineBreaks = 0;
+    for (int i = 0; i < count; i++) {
+      if (buffer[i] == LINE_BREAK) {
+        lineBreaks++;
+      }
+    }
+    return lineBreaks;
+  }
+
+  /**
+   * Builder for {@link ResumableReportDownloader} objects.
+   */
+  public static class Builder {
+    private long checkpointIntervalBytes = 64L * 1024 * 1024;
+    private int maxAttempts = 5;
+    private Supplier<BackOff> backOffSupplier = new Supplier<BackOff>() {
+      @Override
+      public BackOff get() {
+        return new ExponentialBackOff();
+      }
+    };
+    private Sleeper sleeper = Sleeper.DEFAULT;
+
+    /**
+     * Sets the number of bytes written between checkpoints. Each checkpoint forces the written
+     * bytes to storage. Defaults to 64 MiB.
+     */
+    public Builder checkpointIntervalBytes(long checkpointIntervalBytes) {
+      Preconditions.checkArgument(checkpointIntervalBytes > 0,
+          "Checkpoint interval must be positive: %s", checkpointIntervalBytes);
+      this.checkpointIntervalBytes = checkpointIntervalBytes;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of attempts per call to {@link ResumableReportDownloader#download},
+     * including the first attempt. Defaults to 5.
+     */
+    public Builder maxAttempts(int maxAttempts) {
+      Preconditions.checkArgument(maxAttempts > 0, "Max attempts must be positive: %s",
+          maxAttempts);
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    /**
+     * Sets the supplier of the backoff policy between attempts. A new backoff policy is obtained
+     * for each call to {@link ResumableReportDownloader#download}. Defaults to an
+     * {@link ExponentialBackOff} with default settings.
+     */
+    public Builder backOff(Supplier<BackOff> backOffSupplier) {
+      this.backOffSupplier = Preconditions.checkNotNull(backOffSupplier, "Null back off");
+      return this;
+    }
+
+    @VisibleForTesting
+    Builder sleeper(Sleeper sleeper) {
+      this.sleeper = Preconditions.checkNotNull(sleeper, "Null sleeper");
+      return this;
+    }
+
+    /**
+     * Builds a new {@link ResumableReportDownloader}.
+     */
+    public ResumableReportDownloader build() {
+      return new ResumableReportDownloader(this);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import com.google.api.ads.adwords.lib.client.AdWordsSession;
+import com.google.api.ads.adwords.lib.client.reporting.ReportingConfiguration;
+import com.google.api.ads.adwords.lib.conf.AdWordsLibConfiguration;
+import com.google.api.ads.adwords.lib.utils.DetailedReportDownloadResponseException.Builder;
+import com.google.api.ads.adwords.lib.utils.logging.ReportServiceLogger;
+import com.google.api.ads.common.lib.auth.AuthorizationHeaderProvider;
+import com.google.api.ads.common.lib.useragent.UserAgentCombiner;
+import com.google.api.ads.common.lib.utils.AdsUtility;
+import com.google.api.ads.common.lib.utils.AdsUtilityRegistry;
+import com.google.api.ads.common.lib.utils.XmlFieldExtractor;
+import com.google.api.client.http.HttpTransport;
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Helper that handles report downloads for any number of sessions. Unlike
+ * {@link AdHocReportDownloadHelper}, which is bound to a single session, the session and the
+ * per-request {@link ReportingConfiguration} are provided on each call, so a single long-lived
+ * instance can be shared by all threads.
+ */
+@ThreadSafe
+public class SharedReportDownloadHelper {
+
+  private final AdHocReportDownloadHelperImpl impl;
+  private final AdsUtilityRegistry adsUtilityRegistry;
+
+  /** Constructor used by Guice. */
+  @Inject
+  SharedReportDownloadHelper(AuthorizationHeaderProvider authorizationHeaderProvider,
+      UserAgentCombiner userAgentCombiner, HttpTransport httpTransport,
+      AdWordsLibConfiguration adWordsLibConfiguration,
+      ReportResponseInterceptor responseInterceptor,
+      ReportBodyProviderFactory reportBodyProviderFactory, XmlFieldExtractor xmlFieldExtractor,
+      AdsUtilityRegistry adsUtilityRegistry, ReportServiceLogger reportServiceLogger) {
+    ReportRequestFactoryHelper reportRequestFactoryHelper = new ReportRequestFactoryHelper(null,
+        authorizationHeaderProvider, userAgentCombiner, httpTransport, adWordsLibConfiguration,
+        responseInterceptor);
+    this.impl = new AdHocReportDownloadHelperImpl(null, reportRequestFactoryHelper,
+        reportBodyProviderFactory, xmlFieldExtractor, reportServiceLogger);
+    this.adsUtilityRegistry = adsUtilityRegistry;
+  }
+
+  /**
+   * Returns a helper created by the default {@link AdWordsInternals} instance.
+   */
+  public static SharedReportDownloadHelper getInstance() {
+    return AdWordsInternals.getInstance().getSharedReportDownloadHelper();
+  }
+
+  /**
+   * Downloads a report on behalf of {@code session} and returns a ReportDownloadResponse with the
+   * results.
+   *
+   * @param session the session to download the report for
+   * @param reportRequest the report request
+   * @param overrides the per-request options that take precedence over the session's
+   *     {@link AdWordsSession#getReportingConfiguration()}, or {@code null} to use the session's
+   * @param exceptionBuilder the version-specific exception builder
+   * @return {@link ReportDownloadResponse} If the HTTP request completes successfully.
+   * @throws ReportException if there is an exception while making the HTTP request to the server.
+   * @throws ReportDownloadResponseException If the server indicates a problem with the request.
+   * @throws NullPointerException if any argument other than {@code overrides} is {@code null}.
+   */
+  public ReportDownloadResponse downloadReport(AdWordsSession session, ReportRequest reportRequest,
+      @Nullable ReportingConfiguration overrides, Builder exceptionBuilder)
+      throws ReportException, ReportDownloadResponseException {
+    return downloadReport(session, reportRequest, overrides, exceptionBuilder, 1);
+  }
+
+  /**
+   * Downloads a report on behalf of {@code session} and returns a ReportDownloadResponse with the
+   * results, as a retry of earlier attempts that failed.
+   *
+   * @param session the session to download the report for
+   * @param reportRequest the report request
+   * @param overrides the per-request options that take precedence over the session's
+   *     {@link AdWordsSession#getReportingConfiguration()}, or {@code null} to use the session's
+   * @param exceptionBuilder the version-specific exception builder
+   * @param attempt the 1-based attempt to download the report, which determines the retry count
+   *     reported to {@link ReportServiceLogger#addMetricsListener metrics listeners}
+   * @return {@link ReportDownloadResponse} If the HTTP request completes successfully.
+   * @throws ReportException if there is an exception while making the HTTP request to the server.
+   * @throws ReportDownloadResponseException If the server indicates a problem with the request.
+   * @throws NullPointerException if any argument other than {@code overrides} is {@code null}.
+   * @throws IllegalArgumentException if {@code attempt} is not positive.
+   */
+  public ReportDownloadResponse downloadReport(AdWordsSession session, ReportRequest reportRequest,
+      @Nullable ReportingConfiguration overrides, Builder exceptionBuilder, int attempt)
+      throws ReportException, ReportDownloadResponseException {
+    Preconditions.checkNotNull(reportRequest, "Null report request");
+    Preconditions.checkNotNull(exceptionBuilder, "Null exception builder");
+    Preconditions.checkArgument(attempt > 0, "Non-positive attempt: %s", attempt);
+    adsUtilityRegistry.addUtility(AdsUtility.REPORT_DOWNLOADER);
+    return impl.handleResponse(
+        impl.downloadReport(session, reportRequest, overrides, attempt), exceptionBuilder);
+  }
+}
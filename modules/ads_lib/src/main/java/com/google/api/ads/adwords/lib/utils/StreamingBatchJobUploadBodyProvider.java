@@ -0,0 +1,38 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import java.io.OutputStream;
+
+/**
+ * A {@link BatchJobUploadBodyProvider} that can also write the batch job upload operations
+ * directly to an output stream, which {@link StreamingBatchJobUploader} uses to avoid copying the
+ * content. The upload body providers of the library implement this interface. Other providers are
+ * still supported by the streaming uploader, which then copies the result of
+ * {@link #getHttpContent} instead.
+ */
+public interface StreamingBatchJobUploadBodyProvider extends BatchJobUploadBodyProvider {
+
+  /**
+   * Writes the complete batch job upload operations, including the start and end {@code mutate}
+   * elements and without an XML declaration, as UTF-8 directly to an output stream. Providers may
+   * be reused for any number of requests, so that their setup cost is paid only once.
+   *
+   * @param request the mutate request
+   * @param outputStream the output stream to write to. Not closed by the provider.
+   */
+  void writeHttpContent(BatchJobMutateRequestInterface request, OutputStream outputStream)
+      throws BatchJobException;
+}
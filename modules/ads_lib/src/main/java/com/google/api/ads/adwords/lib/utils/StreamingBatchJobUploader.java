@@ -0,0 +1,160 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import com.google.api.client.http.ByteArrayContent;
+import com.google.common.base.Preconditions;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Incrementally uploads an unbounded sequence of operations to a {@code BatchJob} using a constant
+ * amount of memory.
+ *
+ * <p>Operations passed to {@link #addOperations(Iterable)} are serialized directly into a reusable
+ * buffer. The start {@code mutate} element is kept only for the first operations of the job and
+ * the end {@code mutate} element is only appended by {@link #finish()}, so no content has to be
+ * trimmed or copied after serialization. Whenever the buffer holds at least
+ * {@link BatchJobUploader#REQUIRED_CONTENT_LENGTH_INCREMENT} bytes, the largest aligned prefix of
+ * the buffer is uploaded straight from the buffer. Padding is only needed if {@link #flush()} is
+ * called, and is written in place.
+ *
+ * <p>Typical usage:
+ * <pre>
+ * StreamingBatchJobUploader&lt;Operation&gt; streamingUploader =
+ *     batchJobHelper.createStreamingUploader(
+ *         new BatchJobUploadStatus(0, URI.create(batchJob.getUploadUrl().getUrl())));
+ * for (List&lt;Operation&gt; operations : ...) {
+ *   streamingUploader.addOperations(operations);
+ * }
+ * BatchJobUploadResponse response = streamingUploader.finish();
+ * </pre>
+ *
+ * @param <OperationT> the operation type for the API version and SOAP toolkit.
+ */
+@NotThreadSafe
+public class StreamingBatchJobUploader<OperationT> {
+
+  /**
+   * Creates the mutate request for a set of operations.
+   *
+   * @param <OperationT> the operation type for the API version and SOAP toolkit.
+   */
+  public interface RequestFactory<OperationT> {
+    /** Returns a new mutate request containing the operations. */
+    BatchJobMutateRequestInterface createRequest(Iterable<? extends OperationT> operations);
+  }
+
+  private static final String CONTENT_TYPE = "application/xml";
+
+  private final BatchJobUploader uploader;
+  private final MutateContentWriter<OperationT> contentWriter;
+  private final UploadContentBuffer buffer =
+      new UploadContentBuffer(BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT);
+
+  private BatchJobUploadStatus uploadStatus;
+  private boolean isUploadInitiated;
+  private boolean isFinished;
+
+  StreamingBatchJobUploader(BatchJobUploader uploader, RequestFactory<OperationT> requestFactory,
+      BatchJobUploadStatus batchJobUploadStatus) {
+    this.uploader = Preconditions.checkNotNull(uploader, "Null uploader");
+    Preconditions.checkNotNull(batchJobUploadStatus, "Null batch job upload status");
+    Preconditions.checkNotNull(
+        batchJobUploadStatus.getResumableUploadUri(), "No resumable session URI");
+    this.uploadStatus = batchJobUploadStatus;
+    // If content was already uploaded for the job, then the upload was initiated and the start
+    // element was part of that content.
+    this.isUploadInitiated = batchJobUploadStatus.getTotalContentLength() > 0;
+    this.contentWriter = new MutateContentWriter<OperationT>(requestFactory, isUploadInitiated);
+  }
+
+  /**
+   * Adds operations to the job, uploading any complete increments of content that result.
+   *
+   * @param operations the operations to add. If empty, this method does nothing.
+   * @throws BatchJobException if an upload failed
+   * @throws IllegalStateException if {@link #finish()} was already called
+   */
+  public void addOperations(Iterable<? extends OperationT> operations) throws BatchJobException {
+    Preconditions.checkState(!isFinished, "Uploads for the job are already finished");
+    contentWriter.writeOperations(operations, buffer);
+    int alignedLength =
+        buffer.size() - buffer.size() % BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT;
+    if (alignedLength > 0) {
+      upload(alignedLength, false);
+    }
+  }
+
+  /**
+   * Pads and uploads all buffered content, so that the returned status can be used to resume the
+   * upload later, e.g., with another {@link StreamingBatchJobUploader} or
+   * {@link BatchJobHelperInterface#uploadIncrementalBatchJobOperations}.
+   *
+   * @return the upload status after all buffered content was uploaded
+   * @throws BatchJobException if an upload failed
+   * @throws IllegalStateException if {@link #finish()} was already called
+   */
+  public BatchJobUploadStatus flush() throws BatchJobException {
+    Preconditions.checkState(!isFinished, "Uploads for the job are already finished");
+    int remainder = buffer.size() % BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT;
+    if (remainder > 0) {
+      buffer.pad(BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT - remainder, (byte) ' ');
+    }
+    if (buffer.size() > 0) {
+      upload(buffer.size(), false);
+    }
+    return uploadStatus;
+  }
+
+  /**
+   * Appends the end {@code mutate} element and uploads all remaining content as the last request
+   * for the job. After this method returns successfully, the job will transition to the
+   * {@code ACTIVE} state.
+   *
+   * @return the response from the last upload
+   * @throws BatchJobException if an upload failed
+   * @throws IllegalStateException if this method was already called
+   */
+  public BatchJobUploadResponse finish() throws BatchJobException {
+    Preconditions.checkState(!isFinished, "Uploads for the job are already finished");
+    contentWriter.writeEndElement(buffer);
+    isFinished = true;
+    return upload(buffer.size(), true);
+  }
+
+  /**
+   * Returns the upload status of the job, which does not include content that is still buffered.
+   */
+  public BatchJobUploadStatus getUploadStatus() {
+    return uploadStatus;
+  }
+
+  /**
+   * Uploads the first {@code length} bytes of the buffer and discards them.
+   */
+  private BatchJobUploadResponse upload(int length, boolean isLastRequest)
+      throws BatchJobException {
+    if (!isUploadInitiated) {
+      uploadStatus = new BatchJobUploadStatus(
+          0, uploader.initiateResumableUpload(uploadStatus.getResumableUploadUri()));
+      isUploadInitiated = true;
+    }
+    BatchJobUploadResponse response = uploader.uploadChunk(
+        new ByteArrayContent(CONTENT_TYPE, buffer.array(), 0, length), isLastRequest, uploadStatus);
+    uploadStatus = response.getBatchJobUploadStatus();
+    buffer.discard(length);
+    return response;
+  }
+}
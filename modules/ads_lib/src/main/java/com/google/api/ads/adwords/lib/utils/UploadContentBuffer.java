@@ -0,0 +1,110 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import com.google.common.base.Preconditions;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Buffer of serialized content that can be edited in place. The XML delimiters searched for are
+ * ASCII, and can therefore never be part of a multi-byte UTF-8 character.
+ */
+class UploadContentBuffer extends ByteArrayOutputStream {
+
+  UploadContentBuffer(int initialCapacity) {
+    super(initialCapacity);
+  }
+
+  /** Returns the backing array, which is only valid until the next write. */
+  byte[] array() {
+    return buf;
+  }
+
+  int indexOf(char c, int fromIndex) {
+    for (int i = fromIndex; i < count; i++) {
+      if (buf[i] == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  int lastIndexOf(char c, int minIndex) {
+    for (int i = count - 1; i >= minIndex; i--) {
+      if (buf[i] == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Returns if {@code [fromIndex, toIndex)} contains the ASCII string {@code s}. */
+  boolean contains(String s, int fromIndex, int toIndex) {
+    byte[] bytes = s.getBytes(US_ASCII);
+    for (int i = fromIndex; i <= toIndex - bytes.length; i++) {
+      int j = 0;
+      while (j < bytes.length && buf[i + j] == bytes[j]) {
+        j++;
+      }
+      if (j == bytes.length) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the end element for the element that starts at {@code fromIndex}. */
+  byte[] closingTagFor(int fromIndex) {
+    int nameStart = indexOf('<', fromIndex) + 1;
+    int nameEnd = nameStart;
+    while (nameEnd < count && buf[nameEnd] != '>' && buf[nameEnd] != '/'
+        && !Character.isWhitespace(buf[nameEnd])) {
+      nameEnd++;
+    }
+    String name = new String(buf, nameStart, nameEnd - nameStart, US_ASCII);
+    Preconditions.checkState(name.contains("mutate"),
+        "Did not find an opening <mutate> element at the beginning of the serialized request");
+    return ("</" + name + ">").getBytes(US_ASCII);
+  }
+
+  /** Discards the content at and after {@code newSize}. */
+  void truncate(int newSize) {
+    count = newSize;
+  }
+
+  /** Removes the content in {@code [fromIndex, toIndex)}. */
+  void remove(int fromIndex, int toIndex) {
+    System.arraycopy(buf, toIndex, buf, fromIndex, count - toIndex);
+    count -= toIndex - fromIndex;
+  }
+
+  /** Discards the first {@code length} bytes of content. */
+  void discard(int length) {
+    remove(0, length);
+  }
+
+  /** Appends {@code length} copies of {@code b} without allocating a padding array. */
+  void pad(int length, byte b) {
+    int newCount = count + length;
+    if (newCount > buf.length) {
+      buf = Arrays.copyOf(buf, Math.max(buf.length << 1, newCount));
+    }
+    Arrays.fill(buf, count, newCount, b);
+    count = newCount;
+  }
+}
@@ -48,6 +48,14 @@ public class BatchJobLogger {
     this.loggerDelegate = loggerDelegate;
   }
 
+  /**
+   * Returns if the contents of uploads are logged for any result, so callers can avoid building
+   * the contents of large uploads only to have them ignored.
+   */
+  public boolean isUploadContentsLoggable() {
+    return loggerDelegate.isDetailsLoggable(true) || loggerDelegate.isDetailsLoggable(false);
+  }
+
   /**
    * Logs a batch job operations upload.
    *
@@ -101,16 +109,28 @@ public class BatchJobLogger {
       String downloadUrl,
       @Nullable BatchJobMutateResponseInterface<O, E, R> response,
       @Nullable Throwable throwable) {
+    int resultsCount = 0;
+    if (response != null && response.getMutateResults() != null) {
+      resultsCount = response.getMutateResults().length;
+    }
+    logDownload(downloadUrl, resultsCount, throwable);
+  }
+
+  /**
+   * Logs a streaming batch job results download.
+   *
+   * @param downloadUrl the download URL for the batch job.
+   * @param resultsCount the number of results downloaded.
+   * @param throwable the throwable that occurred during download, or {@code null} if the download
+   *     succeeded.
+   */
+  public void logDownload(String downloadUrl, long resultsCount, @Nullable Throwable throwable) {
     RequestInfo requestInfo =
         new RequestInfo.Builder()
             .withServiceName("batchjobdownload")
             .withContext(CONTEXT_NAME, null)
             .withUrl(downloadUrl)
             .build();
-    int resultsCount = 0;
-    if (response != null && response.getMutateResults() != null) {
-      resultsCount = response.getMutateResults().length;
-    }
     // The response payload could be massive, so simply indicate the number of results instead.
     ResponseInfo responseInfo =
         new ResponseInfo.Builder()
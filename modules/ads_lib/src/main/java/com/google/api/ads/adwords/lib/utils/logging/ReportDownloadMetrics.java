@@ -0,0 +1,270 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils.logging;
+
+import com.google.common.collect.ImmutableMap;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+
+/**
+ * Metrics of a single report download.
+ *
+ * <p>The {@link #getTags() tags} identify the download along dimensions that are suitable for
+ * grouping metrics, such as the report type, so that the metrics can be recorded in a registry
+ * like Micrometer or Dropwizard Metrics:
+ *
+ * <pre>
+ * ReportServiceLogger.addMetricsListener(new ReportDownloadMetricsListener() {
+ *   public void onReportDownloaded(ReportDownloadMetrics metrics) {
+ *     registry.timer("report.download.time", toTags(metrics.getTags()))
+ *         .record(metrics.getDownloadTimeMillis(), TimeUnit.MILLISECONDS);
+ *   }
+ * });
+ * </pre>
+ */
+@Immutable
+public final class ReportDownloadMetrics {
+
+  /** Tag of the report type, such as {@code CRITERIA_PERFORMANCE_REPORT}. */
+  public static final String REPORT_TYPE_TAG = "reportType";
+  /** Tag of the download format, such as {@code GZIPPED_CSV}. */
+  public static final String DOWNLOAD_FORMAT_TAG = "downloadFormat";
+  /** Tag of the HTTP status code of the response. */
+  public static final String HTTP_STATUS_TAG = "httpStatus";
+  /** Tag of the client customer ID, if the session has one. */
+  public static final String CLIENT_CUSTOMER_ID_TAG = "clientCustomerId";
+
+  /** Value of {@link #getReportType()} if the report type cannot be determined. */
+  public static final String UNKNOWN_REPORT_TYPE = "UNKNOWN";
+
+  /** Value of {@link #getRows()} if the rows of the report were not decoded. */
+  public static final long UNKNOWN_ROWS = -1;
+
+  private final String reportType;
+  private final String downloadFormat;
+  private final int httpStatus;
+  @Nullable private final String clientCustomerId;
+  private final int retryCount;
+  private final long timeToFirstByteMillis;
+  private final long downloadTimeMillis;
+  private final long bytes;
+  private final long rows;
+  private final boolean isComplete;
+
+  private ReportDownloadMetrics(Builder builder) {
+    this.reportType = builder.reportType;
+    this.downloadFormat = builder.downloadFormat;
+    this.httpStatus = builder.httpStatus;
+    this.clientCustomerId = builder.clientCustomerId;
+    this.retryCount = builder.retryCount;
+    this.timeToFirstByteMillis = builder.timeToFirstByteMillis;
+    this.downloadTimeMillis = builder.downloadTimeMillis;
+    this.bytes = builder.bytes;
+    this.rows = builder.rows;
+    this.isComplete = builder.isComplete;
+  }
+
+  /**
+   * Returns the report type, or {@link #UNKNOWN_REPORT_TYPE} if it cannot be determined.
+   */
+  public String getReportType() {
+    return reportType;
+  }
+
+  /**
+   * Returns the download format.
+   */
+  public String getDownloadFormat() {
+    return downloadFormat;
+  }
+
+  /**
+   * Returns the HTTP status code of the response.
+   */
+  public int getHttpStatus() {
+    return httpStatus;
+  }
+
+  /**
+   * Returns the client customer ID of the session, or {@code null} if it has none.
+   */
+  @Nullable
+  public String getClientCustomerId() {
+    return clientCustomerId;
+  }
+
+  /**
+   * Returns the number of earlier attempts to download the same report, as passed to the report
+   * downloader, for example by a {@link com.google.api.ads.adwords.lib.utils.ReportDownloadEngine}
+   * or a {@link com.google.api.ads.adwords.lib.utils.ResumableReportDownloader}.
+   */
+  public int getRetryCount() {
+    return retryCount;
+  }
+
+  /**
+   * Returns the time in milliseconds from sending the request until the response headers were
+   * received.
+   */
+  public long getTimeToFirstByteMillis() {
+    return timeToFirstByteMillis;
+  }
+
+  /**
+   * Returns the time in milliseconds from sending the request until the contents were read to the
+   * end or closed.
+   */
+  public long getDownloadTimeMillis() {
+    return downloadTimeMillis;
+  }
+
+  /**
+   * Returns the number of bytes of contents read.
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns the number of bytes of contents read per second, or {@code 0} if the download took no
+   * measurable time.
+   */
+  public double getBytesPerSecond() {
+    return downloadTimeMillis > 0 ? bytes * 1000d / downloadTimeMillis : 0;
+  }
+
+  /**
+   * Returns the number of rows decoded by a
+   * {@link com.google.api.ads.adwords.lib.utils.ReportRowReader}, or {@link #UNKNOWN_ROWS} if the
+   * contents were not read as rows.
+   */
+  public long getRows() {
+    return rows;
+  }
+
+  /**
+   * Returns if the contents were read to the end, rather than closed before the end.
+   */
+  public boolean isComplete() {
+    return isComplete;
+  }
+
+  /**
+   * Returns the tags that identify the download, keyed by the {@code *_TAG} constants of this
+   * class. The client customer ID tag is omitted if the session has no client customer ID.
+   */
+  public ImmutableMap<String, String> getTags() {
+    ImmutableMap.Builder<String, String> tags = ImmutableMap.<String, String>builder()
+        .put(REPORT_TYPE_TAG, reportType)
+        .put(DOWNLOAD_FORMAT_TAG, downloadFormat)
+        .put(HTTP_STATUS_TAG, String.valueOf(httpStatus));
+    if (clientCustomerId != null) {
+      tags.put(CLIENT_CUSTOMER_ID_TAG, clientCustomerId);
+    }
+    return tags.build();
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+        .append("reportType", reportType)
+        .append("downloadFormat", downloadFormat)
+        .append("httpStatus", httpStatus)
+        .append("clientCustomerId", clientCustomerId)
+        .append("retryCount", retryCount)
+        .append("timeToFirstByteMillis", timeToFirstByteMillis)
+        .append("downloadTimeMillis", downloadTimeMillis)
+        .append("bytes", bytes)
+        .append("rows", rows)
+        .append("isComplete", isComplete)
+        .toString();
+  }
+
+  /**
+   * Builder for {@link ReportDownloadMetrics} objects.
+   */
+  public static class Builder {
+    private String reportType = UNKNOWN_REPORT_TYPE;
+    private String downloadFormat;
+    private int httpStatus;
+    private String clientCustomerId;
+    private int retryCount;
+    private long timeToFirstByteMillis;
+    private long downloadTimeMillis;
+    private long bytes;
+    private long rows = UNKNOWN_ROWS;
+    private boolean isComplete;
+
+    public Builder reportType(String reportType) {
+      this.reportType = reportType;
+      return this;
+    }
+
+    public Builder downloadFormat(String downloadFormat) {
+      this.downloadFormat = downloadFormat;
+      return this;
+    }
+
+    public Builder httpStatus(int httpStatus) {
+      this.httpStatus = httpStatus;
+      return this;
+    }
+
+    public Builder clientCustomerId(@Nullable String clientCustomerId) {
+      this.clientCustomerId = clientCustomerId;
+      return this;
+    }
+
+    public Builder retryCount(int retryCount) {
+      this.retryCount = retryCount;
+      return this;
+    }
+
+    public Builder timeToFirstByteMillis(long timeToFirstByteMillis) {
+      this.timeToFirstByteMillis = timeToFirstByteMillis;
+      return this;
+    }
+
+    public Builder downloadTimeMillis(long downloadTimeMillis) {
+      this.downloadTimeMillis = downloadTimeMillis;
+      return this;
+    }
+
+    public Builder bytes(long bytes) {
+      this.bytes = bytes;
+      return this;
+    }
+
+    public Builder rows(long rows) {
+      this.rows = rows;
+      return this;
+    }
+
+    public Builder complete(boolean isComplete) {
+      this.isComplete = isComplete;
+      return this;
+    }
+
+    /**
+     * Returns a new instance of {@link ReportDownloadMetrics} based on the attributes of this
+     * builder.
+     */
+    public ReportDownloadMetrics build() {
+      return new ReportDownloadMetrics(this);
+    }
+  }
+}
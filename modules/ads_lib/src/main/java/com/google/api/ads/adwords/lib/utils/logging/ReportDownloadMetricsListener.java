@@ -0,0 +1,30 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils.logging;
+
+/**
+ * Listener for the metrics of report downloads, for example to export them to a metrics registry.
+ * Called concurrently for different downloads, so implementations must be thread-safe.
+ *
+ * @see ReportServiceLogger#addMetricsListener(ReportDownloadMetricsListener)
+ */
+public interface ReportDownloadMetricsListener {
+
+  /**
+   * Called once the contents of a report download were read to the end, or closed before the end.
+   * Called on the thread that read or closed the contents, so implementations should not block.
+   */
+  void onReportDownloaded(ReportDownloadMetrics metrics);
+}
@@ -18,6 +18,7 @@ import com.google.api.ads.adwords.lib.utils.ReportException;
 import com.google.api.ads.common.lib.client.RemoteCallReturn;
 import com.google.api.ads.common.lib.client.RequestInfo;
 import com.google.api.ads.common.lib.client.ResponseInfo;
+import com.google.api.ads.common.lib.utils.logging.AdsServiceLoggers;
 import com.google.api.ads.common.lib.utils.logging.RemoteCallLoggerDelegate;
 import com.google.api.ads.common.lib.utils.logging.RemoteCallLoggerDelegate.RemoteCallType;
 import com.google.api.client.http.HttpContent;
@@ -27,14 +28,17 @@ import com.google.api.client.http.HttpStatusCodes;
 import com.google.api.client.http.UrlEncodedContent;
 import com.google.api.client.util.Data;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Sets;
 import com.google.inject.name.Named;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import org.slf4j.Logger;
@@ -46,6 +50,9 @@ import org.slf4j.Logger;
  *   <li>Log successful requests (header and payload) and responses to INFO.
  *   <li>Log failed requests (header and payload) and responses to WARN.
  * </ul>
+ *
+ * <p>Also passes the metrics of each report download to the listeners registered with
+ * {@link #addMetricsListener(ReportDownloadMetricsListener)}.
  */
 public class ReportServiceLogger {
 
@@ -63,6 +70,10 @@ public class ReportServiceLogger {
 
   private static final String CLIENT_CUSTOMER_ID = "clientCustomerId";
 
+  /** Listeners for the metrics of report downloads, shared by all instances. */
+  private static final List<ReportDownloadMetricsListener> METRICS_LISTENERS =
+      new CopyOnWriteArrayList<ReportDownloadMetricsListener>();
+
   private final RemoteCallLoggerDelegate loggerDelegate;
 
   /**
@@ -112,6 +123,44 @@ public class ReportServiceLogger {
     loggerDelegate.logRequestDetails(remoteCallReturn);
   }
 
+  /**
+   * Registers a listener for the metrics of all subsequent report downloads.
+   */
+  public static void addMetricsListener(ReportDownloadMetricsListener listener) {
+    METRICS_LISTENERS.add(Preconditions.checkNotNull(listener, "Null listener"));
+  }
+
+  /**
+   * Unregisters a listener registered with {@link #addMetricsListener}.
+   *
+   * @return {@code true} if the listener was registered
+   */
+  public static boolean removeMetricsListener(ReportDownloadMetricsListener listener) {
+    return METRICS_LISTENERS.remove(listener);
+  }
+
+  /**
+   * Returns if any metrics listener is registered, so that callers can skip measuring downloads
+   * otherwise.
+   */
+  public boolean isMetricsLoggable() {
+    return !METRICS_LISTENERS.isEmpty();
+  }
+
+  /**
+   * Passes the metrics of a report download to the registered listeners. An exception thrown by a
+   * listener is logged and does not prevent other listeners from being called.
+   */
+  public void logMetrics(ReportDownloadMetrics metrics) {
+    for (ReportDownloadMetricsListener listener : METRICS_LISTENERS) {
+      try {
+        listener.onReportDownloaded(metrics);
+      } catch (RuntimeException e) {
+        AdsServiceLoggers.ADS_API_LIB_LOG.warn("Report download metrics listener failed", e);
+      }
+    }
+  }
+
   @VisibleForTesting
   RequestInfo buildRequestInfo(HttpRequest request) {
     RequestInfo.Builder requestBuilder = new RequestInfo.Builder();
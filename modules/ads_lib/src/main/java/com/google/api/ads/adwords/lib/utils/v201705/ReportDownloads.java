@@ -0,0 +1,178 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils.v201705;
+
+import com.google.api.ads.adwords.lib.client.AdWordsSession;
+import com.google.api.ads.adwords.lib.client.reporting.ReportingConfiguration;
+import com.google.api.ads.adwords.lib.jaxb.v201705.DateRange;
+import com.google.api.ads.adwords.lib.jaxb.v201705.DownloadFormat;
+import com.google.api.ads.adwords.lib.jaxb.v201705.ReportDefinition;
+import com.google.api.ads.adwords.lib.jaxb.v201705.ReportDefinitionDateRangeType;
+import com.google.api.ads.adwords.lib.jaxb.v201705.Selector;
+import com.google.api.ads.adwords.lib.utils.PartitionedReportDownloader;
+import com.google.api.ads.adwords.lib.utils.PartitionedReportDownloader.DateRangeReport;
+import com.google.api.ads.adwords.lib.utils.ReportDownloadEngine;
+import com.google.api.ads.adwords.lib.utils.ReportDownloadEngine.ReportDownload;
+import com.google.api.ads.adwords.lib.utils.ReportDownloadResponse;
+import com.google.api.ads.adwords.lib.utils.ReportDownloadResponseException;
+import com.google.api.ads.adwords.lib.utils.ReportException;
+import com.google.common.base.Preconditions;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * Creates the {@link ReportDownload}s of a {@link ReportDownloadEngine} and the
+ * {@link DateRangeReport}s of a {@link PartitionedReportDownloader} for this version of the
+ * AdWords API.
+ */
+public final class ReportDownloads {
+
+  private static final SharedReportDownloader REPORT_DOWNLOADER = new SharedReportDownloader();
+  private static final Pattern DURING_PATTERN =
+      Pattern.compile("\\bDURING\\b", Pattern.CASE_INSENSITIVE);
+
+  private ReportDownloads() {}
+
+  /**
+   * Returns a report download for an AWQL query.
+   *
+   * @param reportQuery the AWQL query of the report
+   * @param format the download format of the report
+   */
+  public static ReportDownload forQuery(final String reportQuery, final DownloadFormat format) {
+    Preconditions.checkNotNull(reportQuery, "Null report query");
+    Preconditions.checkNotNull(format, "Null download format");
+    return new ReportDownload() {
+      @Override
+      public ReportDownloadResponse download(AdWordsSession session, int attempt)
+          throws ReportException, ReportDownloadResponseException {
+        return REPORT_DOWNLOADER.downloadReport(session, reportQuery, format, null, attempt);
+      }
+    };
+  }
+
+  /**
+   * Returns a report download for a report definition. The report definition must not be
+   * modified while it is being downloaded.
+   *
+   * @param reportDefinition the definition of the report
+   */
+  public static ReportDownload forReportDefinition(final ReportDefinition reportDefinition) {
+    Preconditions.checkNotNull(reportDefinition, "Null report definition");
+    return new ReportDownload() {
+      @Override
+      public ReportDownloadResponse download(AdWordsSession session, int attempt)
+          throws ReportException, ReportDownloadResponseException {
+        return REPORT_DOWNLOADER.downloadReport(session, reportDefinition, null, attempt);
+      }
+    };
+  }
+
+  /**
+   * Returns a report for an AWQL query that can be downloaded for any date range. The date range
+   * is appended to the query as a {@code DURING} clause.
+   *
+   * @param reportQuery the AWQL query of the report, without a {@code DURING} clause
+   * @param format the download format of the report
+   * @throws IllegalArgumentException if the query has a {@code DURING} clause
+   */
+  public static DateRangeReport forDateRangeQuery(final String reportQuery,
+      final DownloadFormat format) {
+    Preconditions.checkNotNull(reportQuery, "Null report query");
+    Preconditions.checkNotNull(format, "Null download format");
+    Preconditions.checkArgument(!DURING_PATTERN.matcher(reportQuery).find(),
+        "Report query must not have a DURING clause: %s", reportQuery);
+    return new DateRangeReport() {
+      @Override
+      public String getCacheKey() {
+        return reportQuery;
+      }
+
+      @Override
+      public String getDownloadFormat() {
+        return format.value();
+      }
+
+      @Override
+      public ReportDownloadResponse download(AdWordsSession session, String startDate,
+          String endDate, ReportingConfiguration overrides)
+          throws ReportException, ReportDownloadResponseException {
+        return REPORT_DOWNLOADER.downloadReport(session,
+            reportQuery + " DURING " + startDate + "," + endDate, format, overrides);
+      }
+    };
+  }
+
+  /**
+   * Returns a report for a report definition that can be downloaded for any date range. The date
+   * range of the report definition is ignored. The report definition must not be modified while
+   * the report is in use.
+   *
+   * @param reportDefinition the definition of the report
+   */
+  public static DateRangeReport forDateRangeReportDefinition(ReportDefinition reportDefinition) {
+    Preconditions.checkNotNull(reportDefinition, "Null report definition");
+    final ReportDefinition definitionCopy = copyWithDateRange(reportDefinition, null);
+    final String cacheKey =
+        new XmlReportDefinitionRequest(definitionCopy).getReportRequestString();
+    return new DateRangeReport() {
+      @Override
+      public String getCacheKey() {
+        return cacheKey;
+      }
+
+      @Override
+      public String getDownloadFormat() {
+        return definitionCopy.getDownloadFormat().value();
+      }
+
+      @Override
+      public ReportDownloadResponse download(AdWordsSession session, String startDate,
+          String endDate, ReportingConfiguration overrides)
+          throws ReportException, ReportDownloadResponseException {
+        DateRange dateRange = new DateRange();
+        dateRange.setMin(startDate);
+        dateRange.setMax(endDate);
+        return REPORT_DOWNLOADER.downloadReport(
+            session, copyWithDateRange(definitionCopy, dateRange), overrides);
+      }
+    };
+  }
+
+  /**
+   * Returns a copy of the report definition with a custom date range, or without a date range if
+   * {@code dateRange} is {@code null}.
+   */
+  private static ReportDefinition copyWithDateRange(
+      ReportDefinition reportDefinition, @Nullable DateRange dateRange) {
+    ReportDefinition copy = new ReportDefinition();
+    copy.setId(reportDefinition.getId());
+    copy.setReportName(reportDefinition.getReportName());
+    copy.setReportType(reportDefinition.getReportType());
+    copy.setDownloadFormat(reportDefinition.getDownloadFormat());
+    copy.setDateRangeType(dateRange == null ? null : ReportDefinitionDateRangeType.CUSTOM_DATE);
+    Selector selector = reportDefinition.getSelector();
+    Selector selectorCopy = new Selector();
+    if (selector != null) {
+      selectorCopy.getFields().addAll(selector.getFields());
+      selectorCopy.getPredicates().addAll(selector.getPredicates());
+      selectorCopy.getOrdering().addAll(selector.getOrdering());
+      selectorCopy.setPaging(selector.getPaging());
+    }
+    selectorCopy.setDateRange(dateRange);
+    copy.setSelector(selectorCopy);
+    return copy;
+  }
+}
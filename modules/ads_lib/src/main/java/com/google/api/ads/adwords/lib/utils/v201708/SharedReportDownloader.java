@@ -0,0 +1,141 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils.v201708;
+
+import com.google.api.ads.adwords.lib.client.AdWordsSession;
+import com.google.api.ads.adwords.lib.client.reporting.ReportingConfiguration;
+import com.google.api.ads.adwords.lib.jaxb.v201708.DownloadFormat;
+import com.google.api.ads.adwords.lib.jaxb.v201708.ReportDefinition;
+import com.google.api.ads.adwords.lib.utils.ReportDownloadResponse;
+import com.google.api.ads.adwords.lib.utils.ReportDownloadResponseException;
+import com.google.api.ads.adwords.lib.utils.ReportException;
+import com.google.api.ads.adwords.lib.utils.SharedReportDownloadHelper;
+import com.google.inject.Inject;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Downloads reports for any number of sessions. Unlike {@link ReportDownloader}, which is bound to
+ * a single session, a single long-lived instance can be shared by all threads:
+ *
+ * <pre>
+ *<code>private static final SharedReportDownloader REPORT_DOWNLOADER =
+ *    new SharedReportDownloader();
+ *...
+ *REPORT_DOWNLOADER.downloadReport(adWordsSession, reportDefinition, reportingConfiguration);
+ *</code>
+ *</pre>
+ *
+ * The {@code reportingConfiguration} of each call overrides the options of the
+ * {@code adWordsSession}'s reporting configuration, including the report download timeout.
+ */
+@ThreadSafe
+public class SharedReportDownloader {
+
+  private final SharedReportDownloadHelper sharedReportDownloadHelper;
+
+  /**
+   * Constructs a {@link SharedReportDownloader}.
+   */
+  public SharedReportDownloader() {
+    this(SharedReportDownloadHelper.getInstance());
+  }
+
+  /** Constructor used by Guice. */
+  @Inject
+  SharedReportDownloader(SharedReportDownloadHelper sharedReportDownloadHelper) {
+    this.sharedReportDownloadHelper = sharedReportDownloadHelper;
+  }
+
+  /**
+   * Downloads a report and returns a ReportDownloadResponse with the results.
+   *
+   * @param session the session to download the report for.
+   * @param reportDefinition to download a report for.
+   * @param overrides the options that take precedence over the session's reporting configuration,
+   *     or {@code null} to use the session's.
+   * @return {@link ReportDownloadResponse} If the HTTP request completes successfully.
+   * @throws ReportException If we don't receive a response from the server.
+   * @throws ReportDownloadResponseException If the server indicates a problem with the request.
+   */
+  public ReportDownloadResponse downloadReport(AdWordsSession session,
+      ReportDefinition reportDefinition, @Nullable ReportingConfiguration overrides)
+      throws ReportException, ReportDownloadResponseException {
+    return downloadReport(session, reportDefinition, overrides, 1);
+  }
+
+  /**
+   * Downloads a report and returns a ReportDownloadResponse with the results, as a retry of
+   * earlier attempts that failed.
+   *
+   * @param session the session to download the report for.
+   * @param reportDefinition to download a report for.
+   * @param overrides the options that take precedence over the session's reporting configuration,
+   *     or {@code null} to use the session's.
+   * @param attempt the 1-based attempt to download the report, which determines the retry count of
+   *     the metrics of the download.
+   * @return {@link ReportDownloadResponse} If the HTTP request completes successfully.
+   * @throws ReportException If we don't receive a response from the server.
+   * @throws ReportDownloadResponseException If the server indicates a problem with the request.
+   */
+  public ReportDownloadResponse downloadReport(AdWordsSession session,
+      ReportDefinition reportDefinition, @Nullable ReportingConfiguration overrides, int attempt)
+      throws ReportException, ReportDownloadResponseException {
+    return sharedReportDownloadHelper.downloadReport(session,
+        new XmlReportDefinitionRequest(reportDefinition), overrides,
+        new DetailedReportDownloadResponseException.Builder(), attempt);
+  }
+
+  /**
+   * Downloads a report query (AWQL) and returns a ReportDownloadResponse with the results.
+   *
+   * @param session the session to download the report for.
+   * @param reportQuery to download a report for.
+   * @param format Format to download the report as.
+   * @param overrides the options that take precedence over the session's reporting configuration,
+   *     or {@code null} to use the session's.
+   * @return {@link ReportDownloadResponse} If the HTTP request completes successfully.
+   * @throws ReportException If there is any issue making HTTP request with server.
+   * @throws ReportDownloadResponseException If the server indicates a problem with the request.
+   */
+  public ReportDownloadResponse downloadReport(AdWordsSession session, String reportQuery,
+      DownloadFormat format, @Nullable ReportingConfiguration overrides)
+      throws ReportException, ReportDownloadResponseException {
+    return downloadReport(session, reportQuery, format, overrides, 1);
+  }
+
+  /**
+   * Downloads a report query (AWQL) and returns a ReportDownloadResponse with the results, as a
+   * retry of earlier attempts that failed.
+   *
+   * @param session the session to download the report for.
+   * @param reportQuery to download a report for.
+   * @param format Format to download the report as.
+   * @param overrides the options that take precedence over the session's reporting configuration,
+   *     or {@code null} to use the session's.
+   * @param attempt the 1-based attempt to download the report, which determines the retry count of
+   *     the metrics of the download.
+   * @return {@link ReportDownloadResponse} If the HTTP request completes successfully.
+   * @throws ReportException If there is any issue making HTTP request with server.
+   * @throws ReportDownloadResponseException If the server indicates a problem with the request.
+   */
+  public ReportDownloadResponse downloadReport(AdWordsSession session, String reportQuery,
+      DownloadFormat format, @Nullable ReportingConfiguration overrides, int attempt)
+      throws ReportException, ReportDownloadResponseException {
+    return sharedReportDownloadHelper.downloadReport(session,
+        new AwqlReportRequest(reportQuery, format), overrides,
+        new DetailedReportDownloadResponseException.Builder(), attempt);
+  }
+}
@@ -96,7 +96,12 @@ public abstract class AdsServiceClient<S extends AdsSession,
 
   @Override
   protected void setHeaders() throws ServiceException, AuthenticationException {
-    getSoapClientHandler().clearHeaders(getSoapClient());
-    headerHandler.setHeaders(getSoapClient(), adsSession, adsServiceDescriptor);
+    setHeaders(getSoapClient());
+  }
+
+  @Override
+  protected void setHeaders(Object soapClient) throws ServiceException, AuthenticationException {
+    getSoapClientHandler().clearHeaders(soapClient);
+    headerHandler.setHeaders(soapClient, adsSession, adsServiceDescriptor);
   }
 }
@@ -0,0 +1,76 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.client;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A request or response payload that is read from its supplier at most once, on first use.
+ * Unlike {@link com.google.common.base.Suppliers#memoize(Supplier)}, it reports whether the
+ * payload has been read, so that {@code toString()} methods can avoid reading it.
+ */
+@ThreadSafe
+final class LazyPayload implements Supplier<String> {
+
+  @GuardedBy("this")
+  private Supplier<String> supplier;
+
+  @GuardedBy("this")
+  private String payload;
+
+  private LazyPayload(@Nullable Supplier<String> supplier, @Nullable String payload) {
+    this.supplier = supplier;
+    this.payload = payload;
+  }
+
+  /**
+   * Returns a payload that has already been read.
+   */
+  static LazyPayload of(@Nullable String payload) {
+    return new LazyPayload(null, payload);
+  }
+
+  /**
+   * Returns a payload that is read from {@code supplier} on first use.
+   */
+  static LazyPayload fromSupplier(Supplier<String> supplier) {
+    return new LazyPayload(Preconditions.checkNotNull(supplier, "Null payload supplier"), null);
+  }
+
+  @Override
+  public synchronized String get() {
+    if (supplier != null) {
+      payload = supplier.get();
+      // Release the supplier, which may hold on to a large message.
+      supplier = null;
+    }
+    return payload;
+  }
+
+  /**
+   * Returns the length of the payload if it has already been read, or {@code null} otherwise.
+   */
+  @Nullable
+  synchronized Integer getMaterializedLength() {
+    if (supplier != null) {
+      return null;
+    }
+    return payload == null ? 0 : payload.length();
+  }
+}
@@ -15,14 +15,14 @@
 package com.google.api.ads.common.lib.client;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
 
 /**
  * Contains information about the request that was made.
  */
 public class RequestInfo {
 
-  private String payload;
+  private LazyPayload payload;
   private String serviceName;
   private String methodName;
   private String url;
@@ -35,7 +35,7 @@ public class RequestInfo {
    * Gets the SOAP request XML.
    */
   public String getPayload() {
-    return payload;
+    return payload == null ? null : payload.get();
   }
 
   /**
@@ -84,8 +84,10 @@ public class RequestInfo {
         .add("url", url)
         .add("contextName", contextName)
         .add("contextValue", contextValue)
-        // Return payload length, since the payload could be large.
-        .add("payload.length", Strings.nullToEmpty(payload).length())
+        // Return payload length, since the payload could be large, and only if the payload
+        // has been read, since reading it may serialize the whole message.
+        .add("payload.length",
+            payload == null ? Integer.valueOf(0) : payload.getMaterializedLength())
         .toString();
   }
   
@@ -130,7 +132,20 @@ public class RequestInfo {
      * @return this builder
      */
     public Builder withPayload(String payload) {
-      requestInfo.payload = payload;
+      requestInfo.payload = LazyPayload.of(payload);
+      return this;
+    }
+
+    /**
+     * Adds a supplier of the request payload to the RequestInfo under construction. The
+     * supplier is not called until the payload is first read, and is called at
+     * most once.
+     *
+     * @param payloadSupplier the supplier of the raw request string
+     * @return this builder
+     */
+    public Builder withPayloadSupplier(Supplier<String> payloadSupplier) {
+      requestInfo.payload = LazyPayload.fromSupplier(payloadSupplier);
       return this;
     }
 
@@ -15,13 +15,13 @@
 package com.google.api.ads.common.lib.client;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
 import javax.annotation.Nullable;
 
 /** Contains information about the response from the request that was made. */
 public class ResponseInfo {
 
-  private String payload;
+  private LazyPayload payload;
   private String requestId;
   private Long operationsCount;
   private Long responseTimeMillis;
@@ -30,7 +30,7 @@ public class ResponseInfo {
 
   /** Gets the response payload (e.g., XML, HTTP request). */
   public String getPayload() {
-    return payload;
+    return payload == null ? null : payload.get();
   }
 
   /** Gets the SOAP response request ID. */
@@ -56,8 +56,10 @@ public class ResponseInfo {
         .add("requestId", requestId)
         .add("operationsCount", operationsCount)
         .add("responseTimeMillis", responseTimeMillis)
-        // Return payload length, since the payload could be large.
-        .add("payload.length", Strings.nullToEmpty(payload).length())
+        // Return payload length, since the payload could be large, and only if the payload
+        // has been read, since reading it may serialize the whole message.
+        .add("payload.length",
+            payload == null ? Integer.valueOf(0) : payload.getMaterializedLength())
         .toString();
   }
 
@@ -76,7 +78,20 @@ public class ResponseInfo {
      * @return this builder
      */
     public Builder withPayload(String payload) {
-      responseInfo.payload = payload;
+      responseInfo.payload = LazyPayload.of(payload);
+      return this;
+    }
+
+    /**
+     * Adds a supplier of the response payload to the ResponseInfo under construction. The
+     * supplier is not called until the payload is first read, and is called at
+     * most once.
+     *
+     * @param payloadSupplier the supplier of the raw response string
+     * @return this builder
+     */
+    public Builder withPayloadSupplier(Supplier<String> payloadSupplier) {
+      responseInfo.payload = LazyPayload.fromSupplier(payloadSupplier);
       return this;
     }
 
@@ -31,10 +31,30 @@ public abstract class AdsLibConfiguration extends BaseConfiguration {
   public static final String AUTO_REFRESH_OAUTH2_TOKEN_POSTFIX = "refreshOAuth2Token";
   public static final String USE_COMPRESSION_POSTFIX = "useCompression";
   public static final String SOAP_REQUEST_TIMEOUT_POSTFIX = "soapRequestTimeout";
+  public static final String USE_REQUEST_STREAMING_POSTFIX = "useRequestStreaming";
+  public static final String USE_CONCURRENT_INVOCATION_POSTFIX = "useConcurrentInvocation";
+  public static final String MAX_IDLE_CONCURRENT_SOAP_CLIENTS_POSTFIX =
+      "maxIdleConcurrentSoapClients";
+  public static final String SOAP_CLIENT_POOL_SIZE_POSTFIX = "soapClientPoolSize";
+  public static final String SOAP_CLIENT_POOL_IDLE_TIMEOUT_POSTFIX = "soapClientPoolIdleTimeout";
+  public static final String ASYNC_THREAD_POOL_SIZE_POSTFIX = "asyncThreadPoolSize";
+  public static final String USE_STREAMING_PRETTY_PRINTER_POSTFIX = "useStreamingPrettyPrinter";
+  public static final String PRETTY_PRINT_MAX_PAYLOAD_SIZE_POSTFIX = "prettyPrintMaxPayloadSize";
+  public static final String HTTP_TRANSPORT_POSTFIX = "httpTransport";
+  public static final String HTTP_MAX_CONNECTIONS_POSTFIX = "httpMaxConnections";
+  public static final String HTTP_MAX_CONNECTIONS_PER_ROUTE_POSTFIX = "httpMaxConnectionsPerRoute";
+  public static final String HTTP_KEEP_ALIVE_POSTFIX = "httpKeepAlive";
   public static final String INCLUDE_UTILITIES_IN_USER_AGENT_POSTFIX =
       "includeUtilitiesInUserAgent";
   
   public static final int DEFAULT_SOAP_REQUEST_TIMEOUT = 20 * 60 * 1000;
+  public static final int DEFAULT_MAX_IDLE_CONCURRENT_SOAP_CLIENTS = 1;
+  public static final long DEFAULT_SOAP_CLIENT_POOL_IDLE_TIMEOUT = 5 * 60 * 1000;
+  public static final int DEFAULT_ASYNC_THREAD_POOL_SIZE = 10;
+  public static final String DEFAULT_HTTP_TRANSPORT = "net";
+  public static final int DEFAULT_HTTP_MAX_CONNECTIONS = 200;
+  public static final int DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE = 20;
+  public static final long DEFAULT_HTTP_KEEP_ALIVE = 30 * 1000;
 
   /**
    * Constructor.
@@ -74,6 +94,105 @@ public abstract class AdsLibConfiguration extends BaseConfiguration {
     return false;
   }
   
+  /**
+   * Returns if SOAP requests should be streamed to the connection instead of
+   * being buffered in memory first.
+   */
+  public boolean isRequestStreamingEnabled() {
+    return false;
+  }
+
+  /**
+   * Returns if a service client should make concurrent calls on call-scoped SOAP
+   * clients instead of serializing calls on a single SOAP client.
+   */
+  public boolean isConcurrentInvocationEnabled() {
+    return false;
+  }
+
+  /**
+   * Gets the maximum number of idle call-scoped SOAP clients each service client
+   * keeps for reuse when concurrent invocation is enabled. Default is
+   * {@code 1}, so sequential calls reuse a single call-scoped SOAP client.
+   */
+  public int getMaxIdleConcurrentSoapClients() {
+    return DEFAULT_MAX_IDLE_CONCURRENT_SOAP_CLIENTS;
+  }
+
+  /**
+   * Gets the maximum number of idle SOAP clients pooled per service, version and
+   * endpoint. Default is {@code 0}, which disables pooling.
+   */
+  public int getSoapClientPoolSize() {
+    return 0;
+  }
+
+  /**
+   * Gets the time in milliseconds after which an idle pooled SOAP client is
+   * evicted.
+   */
+  public long getSoapClientPoolIdleTimeout() {
+    return DEFAULT_SOAP_CLIENT_POOL_IDLE_TIMEOUT;
+  }
+
+  /**
+   * Gets the maximum number of threads of the default executor used for
+   * asynchronous service calls.
+   */
+  public int getAsyncThreadPoolSize() {
+    return DEFAULT_ASYNC_THREAD_POOL_SIZE;
+  }
+
+  /**
+   * Returns if logged SOAP messages should be pretty printed in a single streaming pass instead
+   * of via a DOM.
+   */
+  public boolean isStreamingPrettyPrinterEnabled() {
+    return false;
+  }
+
+  /**
+   * Gets the number of characters of a SOAP message after which the streaming pretty printer
+   * truncates it. Default is {@code 0}, which disables truncation.
+   */
+  public int getPrettyPrintMaxPayloadSize() {
+    return 0;
+  }
+
+  /**
+   * Gets the name of the HTTP transport shared by SOAP, report download and
+   * batch job upload requests: {@code net} for the JDK's
+   * {@code HttpURLConnection}, or {@code apache} for a pooled Apache
+   * HttpClient.
+   */
+  public String getHttpTransport() {
+    return DEFAULT_HTTP_TRANSPORT;
+  }
+
+  /**
+   * Gets the maximum number of pooled connections of the {@code apache} HTTP
+   * transport.
+   */
+  public int getHttpMaxConnections() {
+    return DEFAULT_HTTP_MAX_CONNECTIONS;
+  }
+
+  /**
+   * Gets the maximum number of pooled connections per route (host) of the
+   * {@code apache} HTTP transport.
+   */
+  public int getHttpMaxConnectionsPerRoute() {
+    return DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE;
+  }
+
+  /**
+   * Gets the maximum time in milliseconds an idle connection of the
+   * {@code apache} HTTP transport is kept alive for reuse.
+   */
+  public long getHttpKeepAlive() {
+    return DEFAULT_HTTP_KEEP_ALIVE;
+  }
+
   /**
    * Gets the request timeout in milliseconds.
    */
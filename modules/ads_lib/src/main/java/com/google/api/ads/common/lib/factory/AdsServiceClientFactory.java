@@ -19,6 +19,7 @@ import com.google.api.ads.common.lib.client.AdsServiceDescriptor;
 import com.google.api.ads.common.lib.client.AdsSession;
 import com.google.api.ads.common.lib.exception.ServiceException;
 import com.google.api.ads.common.lib.factory.helper.AdsServiceClientFactoryHelper;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Sets;
 
 import java.lang.reflect.Proxy;
@@ -77,6 +78,44 @@ public class AdsServiceClientFactory<C extends AdsServiceClient<S, D>,
     return createProxy(interfaceClass, adsServiceClient);
   }
 
+  /**
+   * Releases a client returned by {@link #getServiceClient(AdsSession, Class)},
+   * so its underlying SOAP client can be reused by clients created later. The
+   * client must not be used after it is released.
+   *
+   * @param serviceClient the client to release
+   * @throws IllegalArgumentException if the client was not created by this
+   *     factory
+   */
+  @SuppressWarnings("unchecked") /* Only proxies of C are created by this factory. */
+  public void releaseServiceClient(Object serviceClient) {
+    Preconditions.checkArgument(
+        serviceClient != null && Proxy.isProxyClass(serviceClient.getClass())
+            && Proxy.getInvocationHandler(serviceClient) instanceof AdsServiceClient,
+        "Not a service client: %s", serviceClient);
+    adsServiceFactoryHelper.releaseAdsServiceClient(
+        (C) Proxy.getInvocationHandler(serviceClient));
+  }
+
+  /**
+   * Creates idle SOAP clients for the session and class of the desired stub
+   * interface, so that clients requested later do not have to create them.
+   *
+   * @param adsSession the session associated with the clients that will be
+   *     requested
+   * @param interfaceClass the class type of the clients that will be requested
+   * @param count the number of idle SOAP clients to create
+   * @throws ServiceException if the SOAP clients could not be created
+   */
+  public void preWarmServiceClients(S adsSession, Class<?> interfaceClass, int count)
+      throws ServiceException {
+    adsServiceFactoryHelper.checkServiceClientPreconditions(adsSession, interfaceClass);
+    String version = adsServiceFactoryHelper.determineVersion(interfaceClass);
+    D adsServiceDescriptor =
+        adsServiceFactoryHelper.createServiceDescriptor(interfaceClass, version);
+    adsServiceFactoryHelper.preWarmSoapClients(adsServiceDescriptor, adsSession, count);
+  }
+
   /**
    * Creates the proxy for the {@link AdsServiceClient}.
    *
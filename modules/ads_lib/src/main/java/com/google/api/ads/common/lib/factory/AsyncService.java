@@ -0,0 +1,80 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.factory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous facade for a service client. Calls are submitted to an executor
+ * and made on the underlying service client, so they go through the same
+ * header, authorization and logging handling as blocking calls.
+ * <p>
+ * Each call is still a blocking SOAP call, made on a thread of the executor, so
+ * every call in flight occupies one executor thread. Calls on a service client
+ * are serialized on the service client unless {@code useConcurrentInvocation}
+ * is enabled in the configuration, so without it, calls submitted to the same
+ * {@code AsyncService} wait for each other and run one at a time. With it,
+ * they proceed concurrently, up to the number of threads of the executor.
+ * </p>
+ *
+ * @param <T> the service interface type
+ */
+public class AsyncService<T> {
+
+  private final T service;
+  private final Executor executor;
+
+  /**
+   * Constructor.
+   *
+   * @param service the service client to make calls on
+   * @param executor the executor to make calls on
+   */
+  public AsyncService(T service, Executor executor) {
+    this.service = Preconditions.checkNotNull(service, "Null service");
+    this.executor = Preconditions.checkNotNull(executor, "Null executor");
+  }
+
+  /**
+   * Gets the underlying service client.
+   */
+  public T getService() {
+    return service;
+  }
+
+  /**
+   * Submits a call to be made on the service client.
+   *
+   * @param <V> the type returned by the call
+   * @param serviceCall the call to make
+   * @return a future for the result of the call, which fails with the exception
+   *     thrown by the call if it fails
+   */
+  public <V> ListenableFuture<V> submit(final ServiceCall<T, V> serviceCall) {
+    Preconditions.checkNotNull(serviceCall, "Null service call");
+    ListenableFutureTask<V> task = ListenableFutureTask.create(new Callable<V>() {
+      @Override
+      public V call() throws Exception {
+        return serviceCall.call(service);
+      }
+    });
+    executor.execute(task);
+    return task;
+  }
+}
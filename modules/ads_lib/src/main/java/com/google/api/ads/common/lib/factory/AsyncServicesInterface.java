@@ -0,0 +1,54 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.factory;
+
+import com.google.api.ads.common.lib.client.AdsSession;
+import java.util.concurrent.Executor;
+
+/**
+ * Service factory for an ads product that also returns asynchronous facades for its service
+ * clients. Kept separate from {@link AdsServicesInterface} so that existing implementations of
+ * that interface do not have to implement these methods. The services classes of each product,
+ * such as {@code AdWordsServices} and {@code DfpServices}, implement both interfaces, so a
+ * reference of this type can be used for asynchronous calls, for example
+ * {@code AsyncServicesInterface<AdWordsSession> services = new AdWordsServices();}.
+ */
+public interface AsyncServicesInterface<S extends AdsSession> {
+
+  /**
+   * Gets an asynchronous facade for a client for the service represented by the interface, which
+   * makes calls on the default executor of the services instance.
+   *
+   * @param <T> the service type
+   * @param session your current session
+   * @param interfaceClass the service interface class representing a SOAP service
+   * @return the asynchronous facade for the client for the service
+   * @see AsyncService
+   */
+  <T> AsyncService<T> getAsync(S session, Class<T> interfaceClass);
+
+  /**
+   * Gets an asynchronous facade for a client for the service represented by the interface, which
+   * makes calls on the specified executor.
+   *
+   * @param <T> the service type
+   * @param session your current session
+   * @param interfaceClass the service interface class representing a SOAP service
+   * @param executor the executor to make calls on
+   * @return the asynchronous facade for the client for the service
+   * @see AsyncService
+   */
+  <T> AsyncService<T> getAsync(S session, Class<T> interfaceClass, Executor executor);
+}
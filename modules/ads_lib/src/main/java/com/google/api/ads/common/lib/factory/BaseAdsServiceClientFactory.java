@@ -80,4 +80,29 @@ public abstract class BaseAdsServiceClientFactory<C extends AdsServiceClient<S,
       throws ServiceException {
     return adsServiceClientFactory.getServiceClient(adsSession, interfaceClass);
   }
+
+  /**
+   * Releases a client returned by
+   * {@link #getServiceClientAsInterface(AdsSession, Class)}, so its underlying
+   * SOAP client can be reused. The client must not be used after it is released.
+   *
+   * @param serviceClient the client to release
+   */
+  public void releaseServiceClient(Object serviceClient) {
+    adsServiceClientFactory.releaseServiceClient(serviceClient);
+  }
+
+  /**
+   * Creates idle SOAP clients for the session and class of the desired stub
+   * interface.
+   *
+   * @param adsSession the session associated with the clients that will be
+   *     requested
+   * @param interfaceClass the class type of the clients that will be requested
+   * @param count the number of idle SOAP clients to create
+   */
+  public void preWarmServiceClients(S adsSession, Class<?> interfaceClass, int count)
+      throws ServiceException {
+    adsServiceClientFactory.preWarmServiceClients(adsSession, interfaceClass, count);
+  }
 }
@@ -17,6 +17,15 @@ package com.google.api.ads.common.lib.factory;
 import com.google.api.ads.common.lib.client.AdsServiceClient;
 import com.google.api.ads.common.lib.client.AdsServiceDescriptor;
 import com.google.api.ads.common.lib.client.AdsSession;
+import com.google.api.ads.common.lib.conf.AdsLibConfiguration;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Base for a utility class which creates service clients.
@@ -27,9 +36,12 @@ import com.google.api.ads.common.lib.client.AdsSession;
  */
 public abstract class BaseServices<
         C extends AdsServiceClient<S, D>, S extends AdsSession, D extends AdsServiceDescriptor>
-    implements AdsServicesInterface<S> {
+    implements AdsServicesInterface<S>, AsyncServicesInterface<S> {
+
+  private static final long IDLE_ASYNC_THREAD_TIMEOUT_SECONDS = 60;
 
   private final BaseAdsServiceClientFactory<C, S, D> factory;
+  private final Supplier<Executor> defaultAsyncExecutor;
 
   /**
    * Constructor.
@@ -37,11 +49,102 @@ public abstract class BaseServices<
    * @param factory a factory capable of instantiating service clients
    */
   protected BaseServices(BaseAdsServiceClientFactory<C, S, D> factory) {
+    this(factory, AdsLibConfiguration.DEFAULT_ASYNC_THREAD_POOL_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param factory a factory capable of instantiating service clients
+   * @param asyncThreadPoolSize the maximum number of threads of the default
+   *     executor for asynchronous service calls, which is created when first used
+   */
+  protected BaseServices(BaseAdsServiceClientFactory<C, S, D> factory,
+      final int asyncThreadPoolSize) {
+    Preconditions.checkArgument(asyncThreadPoolSize > 0, "Non-positive async thread pool size: %s",
+        asyncThreadPoolSize);
     this.factory = factory;
+    this.defaultAsyncExecutor = Suppliers.memoize(new Supplier<Executor>() {
+      @Override
+      public Executor get() {
+        // Threads exit when idle, so services instances that are no longer used do not keep
+        // threads alive, and the executor never has to be shut down.
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            asyncThreadPoolSize,
+            asyncThreadPoolSize,
+            IDLE_ASYNC_THREAD_TIMEOUT_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("ads-async-service-%d")
+                .build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+      }
+    });
   }
 
   @Override
   public <T> T get(S session, Class<T> interfaceClass) {
     return factory.getServiceClientAsInterface(session, interfaceClass);
   }
+
+  /**
+   * Gets an asynchronous facade for a client for the service represented by the interface. Calls
+   * are made on the default executor of this services instance, which is shared by all of its
+   * asynchronous facades. It runs at most {@code asyncThreadPoolSize} calls at a time, and its
+   * threads exit after a minute without calls.
+   *
+   * @param <T> the service type
+   * @param session your current session
+   * @param interfaceClass the service interface class representing a SOAP service
+   * @return the asynchronous facade for the client for the service
+   * @see AsyncService
+   */
+  @Override
+  public <T> AsyncService<T> getAsync(S session, Class<T> interfaceClass) {
+    return getAsync(session, interfaceClass, defaultAsyncExecutor.get());
+  }
+
+  /**
+   * Gets an asynchronous facade for a client for the service represented by the interface, which
+   * makes calls on the specified executor.
+   *
+   * @param <T> the service type
+   * @param session your current session
+   * @param interfaceClass the service interface class representing a SOAP service
+   * @param executor the executor to make calls on
+   * @return the asynchronous facade for the client for the service
+   * @see AsyncService
+   */
+  @Override
+  public <T> AsyncService<T> getAsync(S session, Class<T> interfaceClass, Executor executor) {
+    return new AsyncService<T>(get(session, interfaceClass), executor);
+  }
+
+  /**
+   * Releases a service client returned by {@link #get(AdsSession, Class)}, so
+   * its underlying SOAP client can be reused by later calls to {@code get} if
+   * SOAP client pooling is enabled. The service client must not be used after it
+   * is released.
+   *
+   * @param serviceClient the service client to release
+   */
+  public void release(Object serviceClient) {
+    factory.releaseServiceClient(serviceClient);
+  }
+
+  /**
+   * Creates {@code count} idle SOAP clients for the session and service, so that
+   * later calls to {@link #get(AdsSession, Class)} do not have to create them.
+   * Has no effect unless SOAP client pooling is enabled.
+   *
+   * @param session the session of the service clients that will be requested
+   * @param interfaceClass the interface class of the service
+   * @param count the number of idle SOAP clients to create
+   */
+  public void preWarm(S session, Class<?> interfaceClass, int count) {
+    factory.preWarmServiceClients(session, interfaceClass, count);
+  }
 }
@@ -0,0 +1,35 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.factory;
+
+/**
+ * A call to make on a service client, for use with
+ * {@link AsyncService#submit(ServiceCall)}.
+ *
+ * @param <T> the service interface type
+ * @param <V> the type returned by the call
+ */
+public interface ServiceCall<T, V> {
+
+  /**
+   * Makes the call on the service client.
+   *
+   * @param service the service client
+   * @return the result of the call
+   * @throws Exception if the call fails, such as an {@code ApiException} or
+   *     {@code RemoteException} thrown by the service client
+   */
+  V call(T service) throws Exception;
+}
@@ -52,6 +52,27 @@ public interface AdsServiceClientFactoryHelper<C extends AdsServiceClient<S, D>,
    C createAdsServiceClient(D adsServiceDescriptor, S adsSession)
       throws ServiceException;
 
+   /**
+    * Releases an {@link AdsServiceClient} created by this helper, so its SOAP
+    * client can be reused by service clients created later. The service client
+    * must not be used after it is released.
+    *
+    * @param adsServiceClient the service client to release
+    */
+   void releaseAdsServiceClient(C adsServiceClient);
+
+   /**
+    * Creates idle SOAP clients for the descriptor and session, so service
+    * clients created later do not have to create them.
+    *
+    * @param adsServiceDescriptor the ads service descriptor
+    * @param adsSession the session
+    * @param count the number of idle SOAP clients to create
+    * @throws ServiceException if there was a problem creating the SOAP clients
+    */
+   void preWarmSoapClients(D adsServiceDescriptor, S adsSession, int count)
+       throws ServiceException;
+
    /**
     * Determines what API version an ads service belongs to.
     *
@@ -17,6 +17,7 @@ package com.google.api.ads.common.lib.factory.helper;
 import com.google.api.ads.common.lib.client.AdsServiceClient;
 import com.google.api.ads.common.lib.client.AdsServiceDescriptor;
 import com.google.api.ads.common.lib.client.AdsSession;
+import com.google.api.ads.common.lib.conf.AdsLibConfiguration;
 import com.google.api.ads.common.lib.exception.ServiceException;
 import com.google.api.ads.common.lib.factory.FactoryModule.AdsServiceClientFactoryInterface;
 import com.google.api.ads.common.lib.factory.FactoryModule.AdsServiceDescriptorFactoryInterface;
@@ -39,10 +40,11 @@ public abstract class BaseAdsServiceClientFactoryHelper<C extends AdsServiceClie
 
   private final AdsServiceClientFactoryInterface<C, S, D> adsServiceClientFactory;
   private final AdsServiceDescriptorFactoryInterface<D> adsServiceDescriptorFactory;
-  private final SoapClientHandlerInterface<?> soapClientHandler;
+  private final SoapClientHandlerInterface<Object> soapClientHandler;
+  private final SoapClientPool<Object> soapClientPool;
 
   /**
-   * Constructor.
+   * Constructor. SOAP clients are not pooled.
    *
    * @param adsServiceClientFactory the Guice service client factory.
    */
@@ -50,14 +52,32 @@ public abstract class BaseAdsServiceClientFactoryHelper<C extends AdsServiceClie
       AdsServiceClientFactoryInterface<C, S, D> adsServiceClientFactory,
       AdsServiceDescriptorFactoryInterface<D> adsServiceDescriptorFactory,
       SoapClientHandlerInterface<?> soapClientHandler) {
+    this(adsServiceClientFactory, adsServiceDescriptorFactory, soapClientHandler,
+        new SoapClientPool<Object>(0, 0));
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param adsServiceClientFactory the Guice service client factory.
+   * @param soapClientPool the pool of idle SOAP clients
+   */
+  @SuppressWarnings("unchecked") /* SOAP clients are handled as Object by service clients. */
+  public BaseAdsServiceClientFactoryHelper(
+      AdsServiceClientFactoryInterface<C, S, D> adsServiceClientFactory,
+      AdsServiceDescriptorFactoryInterface<D> adsServiceDescriptorFactory,
+      SoapClientHandlerInterface<?> soapClientHandler,
+      SoapClientPool<Object> soapClientPool) {
     this.adsServiceClientFactory = adsServiceClientFactory;
     this.adsServiceDescriptorFactory = adsServiceDescriptorFactory;
-    this.soapClientHandler = soapClientHandler;
+    this.soapClientHandler = (SoapClientHandlerInterface<Object>) soapClientHandler;
+    this.soapClientPool = soapClientPool;
   }
 
   /**
    * Creates an {@link AdsServiceClient} given an {@link AdsServiceDescriptor}
-   * descriptor and an {@link AdsSession}.
+   * descriptor and an {@link AdsSession}. The SOAP client of the service client
+   * is checked out of the SOAP client pool if an idle one is available.
    *
    * @param adsServiceDescriptor descriptor with information on ads service
    * @param adsSession the session associated with the desired
@@ -67,15 +87,74 @@ public abstract class BaseAdsServiceClientFactoryHelper<C extends AdsServiceClie
    */
   @Override
   public C createAdsServiceClient(D adsServiceDescriptor, S adsSession) throws ServiceException {
-    Object soapClient = createSoapClient(adsServiceDescriptor);
+    boolean concurrentInvocationEnabled = isConcurrentInvocationEnabled();
+    if (concurrentInvocationEnabled && !soapClientHandler.isConcurrentSoapClientSupported()) {
+      throw new ServiceException("Concurrent invocation is enabled, but it is not supported by "
+          + soapClientHandler.getClass().getSimpleName()
+          + ". Set useConcurrentInvocation to false in your configuration.", null);
+    }
+    String endpointAddress = getEndpointAddress(adsServiceDescriptor, adsSession);
+    Object soapClient = soapClientPool.checkOut(adsServiceDescriptor, endpointAddress);
+    if (soapClient == null) {
+      soapClient = createSoapClient(adsServiceDescriptor);
+    }
     C adsServiceClient = createServiceClient(soapClient, adsServiceDescriptor, adsSession);
+    adsServiceClient.setConcurrentInvocationEnabled(concurrentInvocationEnabled);
+    adsServiceClient.setMaxIdleConcurrentSoapClients(getMaxIdleConcurrentSoapClients());
+    adsServiceClient.setEndpointAddress(endpointAddress);
+    return adsServiceClient;
+  }
+
+  /**
+   * Returns the SOAP client of the service client to the SOAP client pool. The
+   * headers of the SOAP client are cleared so no session information is kept
+   * while it is idle.
+   *
+   * @param adsServiceClient the service client to release
+   */
+  @Override
+  public void releaseAdsServiceClient(C adsServiceClient) {
+    if (!soapClientPool.isEnabled()) {
+      return;
+    }
+    Object soapClient = adsServiceClient.getSoapClient();
+    soapClientHandler.clearHeaders(soapClient);
+    soapClientPool.checkIn(adsServiceClient.getAdsServiceDescriptor(),
+        soapClientHandler.getEndpointAddress(soapClient), soapClient);
+  }
+
+  /**
+   * Creates SOAP clients for the service and session until the SOAP client pool
+   * holds {@code count} idle SOAP clients for them, or until the pool is full.
+   *
+   * @param adsServiceDescriptor descriptor with information on ads service
+   * @param adsSession the session whose endpoint the SOAP clients are for
+   * @param count the number of idle SOAP clients to create
+   * @throws ServiceException if a SOAP client could not be created
+   */
+  @Override
+  public void preWarmSoapClients(D adsServiceDescriptor, S adsSession, int count)
+      throws ServiceException {
+    String endpointAddress = getEndpointAddress(adsServiceDescriptor, adsSession);
+    while (soapClientPool.getIdleCount(adsServiceDescriptor, endpointAddress) < count) {
+      Object soapClient = createSoapClient(adsServiceDescriptor);
+      soapClientHandler.setEndpointAddress(soapClient, endpointAddress);
+      if (!soapClientPool.checkIn(adsServiceDescriptor, endpointAddress, soapClient)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns the endpoint address of the service for the session's endpoint.
+   */
+  private String getEndpointAddress(D adsServiceDescriptor, S adsSession)
+      throws ServiceException {
     try {
-      adsServiceClient.setEndpointAddress(adsServiceDescriptor.getEndpointAddress(adsSession
-          .getEndpoint()));
+      return adsServiceDescriptor.getEndpointAddress(adsSession.getEndpoint());
     } catch (MalformedURLException e) {
       throw new ServiceException("Unexpected exception", e);
     }
-    return adsServiceClient;
   }
 
   /**
@@ -106,6 +185,24 @@ public abstract class BaseAdsServiceClientFactoryHelper<C extends AdsServiceClie
     return soapClientHandler.createSoapClient(adsServiceDescriptor);
   }
 
+  /**
+   * Returns if created service clients should make calls concurrently instead
+   * of serializing them on the underlying SOAP client. Default is
+   * {@code false}.
+   */
+  protected boolean isConcurrentInvocationEnabled() {
+    return false;
+  }
+
+  /**
+   * Returns the maximum number of idle call-scoped SOAP clients each created
+   * service client keeps for reuse. Default is
+   * {@link AdsLibConfiguration#DEFAULT_MAX_IDLE_CONCURRENT_SOAP_CLIENTS}.
+   */
+  protected int getMaxIdleConcurrentSoapClients() {
+    return AdsLibConfiguration.DEFAULT_MAX_IDLE_CONCURRENT_SOAP_CLIENTS;
+  }
+
   /**
    * Default implementation of passing service client preconditions.
    */
@@ -0,0 +1,216 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.factory.helper;
+
+import com.google.api.ads.common.lib.client.AdsServiceDescriptor;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Maps;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Bounded pool of idle SOAP clients, keyed by the interface class, version and
+ * endpoint address of the service they were created for.
+ * <p>
+ * At most {@code maxIdlePerKey} idle SOAP clients are kept for each key, and
+ * SOAP clients that have been idle for longer than the idle timeout are evicted
+ * the next time their key is checked out or checked in. The most recently
+ * checked in SOAP client is checked out first. This class is thread-safe.
+ * </p>
+ *
+ * @param <T> the type of SOAP client
+ */
+public class SoapClientPool<T> {
+
+  private final int maxIdlePerKey;
+  private final long idleTimeoutNanos;
+  private final Ticker ticker;
+  private final ConcurrentMap<PoolKey, Deque<IdleSoapClient<T>>> idleSoapClients =
+      Maps.newConcurrentMap();
+
+  /**
+   * Constructor.
+   *
+   * @param maxIdlePerKey the maximum number of idle SOAP clients kept per key.
+   *     If {@code 0}, no SOAP clients are pooled.
+   * @param idleTimeoutMillis the time in milliseconds after which an idle SOAP
+   *     client is evicted
+   */
+  public SoapClientPool(int maxIdlePerKey, long idleTimeoutMillis) {
+    this(maxIdlePerKey, idleTimeoutMillis, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  SoapClientPool(int maxIdlePerKey, long idleTimeoutMillis, Ticker ticker) {
+    Preconditions.checkArgument(maxIdlePerKey >= 0, "Negative max idle per key: %s",
+        maxIdlePerKey);
+    Preconditions.checkArgument(idleTimeoutMillis >= 0, "Negative idle timeout: %s",
+        idleTimeoutMillis);
+    this.maxIdlePerKey = maxIdlePerKey;
+    this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+    this.ticker = Preconditions.checkNotNull(ticker, "Null ticker");
+  }
+
+  /**
+   * Returns if this pool keeps any idle SOAP clients.
+   */
+  public boolean isEnabled() {
+    return maxIdlePerKey > 0;
+  }
+
+  /**
+   * Checks out an idle SOAP client for the service and endpoint address.
+   *
+   * @param adsServiceDescriptor the descriptor of the service
+   * @param endpointAddress the endpoint address of the service
+   * @return an idle SOAP client, or {@code null} if there is none
+   */
+  @Nullable
+  public T checkOut(AdsServiceDescriptor adsServiceDescriptor, String endpointAddress) {
+    Deque<IdleSoapClient<T>> idle =
+        idleSoapClients.get(new PoolKey(adsServiceDescriptor, endpointAddress));
+    if (idle == null) {
+      return null;
+    }
+    synchronized (idle) {
+      evictExpired(idle);
+      IdleSoapClient<T> idleSoapClient = idle.pollFirst();
+      return idleSoapClient == null ? null : idleSoapClient.soapClient;
+    }
+  }
+
+  /**
+   * Checks in a SOAP client for the service and endpoint address, so it can be
+   * checked out again. The SOAP client must no longer be used by the caller.
+   *
+   * @param adsServiceDescriptor the descriptor of the service
+   * @param endpointAddress the endpoint address of the service
+   * @param soapClient the SOAP client to check in
+   * @return {@code true} if the SOAP client was pooled, or {@code false} if it
+   *     was discarded because the pool is full for its key
+   */
+  public boolean checkIn(AdsServiceDescriptor adsServiceDescriptor, String endpointAddress,
+      T soapClient) {
+    Preconditions.checkNotNull(soapClient, "Null SOAP client");
+    if (!isEnabled()) {
+      return false;
+    }
+    PoolKey key = new PoolKey(adsServiceDescriptor, endpointAddress);
+    Deque<IdleSoapClient<T>> idle = idleSoapClients.get(key);
+    if (idle == null) {
+      Deque<IdleSoapClient<T>> newIdle = new ArrayDeque<IdleSoapClient<T>>();
+      idle = idleSoapClients.putIfAbsent(key, newIdle);
+      if (idle == null) {
+        idle = newIdle;
+      }
+    }
+    synchronized (idle) {
+      evictExpired(idle);
+      if (idle.size() >= maxIdlePerKey) {
+        return false;
+      }
+      idle.addFirst(new IdleSoapClient<T>(soapClient, ticker.read()));
+      return true;
+    }
+  }
+
+  /**
+   * Returns the number of idle SOAP clients for the service and endpoint
+   * address, after evicting expired SOAP clients.
+   */
+  public int getIdleCount(AdsServiceDescriptor adsServiceDescriptor, String endpointAddress) {
+    Deque<IdleSoapClient<T>> idle =
+        idleSoapClients.get(new PoolKey(adsServiceDescriptor, endpointAddress));
+    if (idle == null) {
+      return 0;
+    }
+    synchronized (idle) {
+      evictExpired(idle);
+      return idle.size();
+    }
+  }
+
+  /**
+   * Evicts all idle SOAP clients.
+   */
+  public void clear() {
+    idleSoapClients.clear();
+  }
+
+  /**
+   * Removes SOAP clients idle for longer than the idle timeout. The oldest SOAP
+   * clients are at the end of the deque. Must be called while holding the lock
+   * of {@code idle}.
+   */
+  private void evictExpired(Deque<IdleSoapClient<T>> idle) {
+    long now = ticker.read();
+    Iterator<IdleSoapClient<T>> oldestFirst = idle.descendingIterator();
+    while (oldestFirst.hasNext() && now - oldestFirst.next().checkInNanos > idleTimeoutNanos) {
+      oldestFirst.remove();
+    }
+  }
+
+  /**
+   * An idle SOAP client and the time it was checked in.
+   */
+  private static final class IdleSoapClient<T> {
+    private final T soapClient;
+    private final long checkInNanos;
+
+    private IdleSoapClient(T soapClient, long checkInNanos) {
+      this.soapClient = soapClient;
+      this.checkInNanos = checkInNanos;
+    }
+  }
+
+  /**
+   * Key of the pool, consisting of the interface class, version and endpoint
+   * address of a service.
+   */
+  private static final class PoolKey {
+    private final Class<?> interfaceClass;
+    private final String version;
+    private final String endpointAddress;
+
+    private PoolKey(AdsServiceDescriptor adsServiceDescriptor, String endpointAddress) {
+      this.interfaceClass = adsServiceDescriptor.getInterfaceClass();
+      this.version = adsServiceDescriptor.getVersion();
+      this.endpointAddress = endpointAddress;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof PoolKey) {
+        PoolKey other = (PoolKey) obj;
+        return Objects.equals(interfaceClass, other.interfaceClass)
+            && Objects.equals(version, other.version)
+            && Objects.equals(endpointAddress, other.endpointAddress);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(interfaceClass, version, endpointAddress);
+    }
+  }
+}
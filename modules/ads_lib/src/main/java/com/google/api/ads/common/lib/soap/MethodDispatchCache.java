@@ -0,0 +1,79 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.soap;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Maps;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+
+/**
+ * Caches the method to dispatch a proxied interface method to, for each class
+ * that calls are dispatched on. Each method is resolved at most once per class,
+ * so dispatching a call does not require any reflective lookups. The methods
+ * of a class are stored with the class itself through a {@link ClassValue}, so
+ * caching does not prevent the class from being unloaded even though the cached
+ * methods refer to it. This class is thread-safe.
+ */
+final class MethodDispatchCache {
+
+  /**
+   * Resolves the method to dispatch an interface method to.
+   */
+  interface MethodResolver {
+
+    /**
+     * Returns the method of {@code targetClass} to dispatch {@code method} to,
+     * or {@code null} if there is none.
+     */
+    @Nullable
+    Method resolve(Class<?> targetClass, Method method);
+  }
+
+  private final MethodResolver methodResolver;
+  private final ClassValue<ConcurrentMap<Method, Optional<Method>>> methodsByClass =
+      new ClassValue<ConcurrentMap<Method, Optional<Method>>>() {
+        @Override
+        protected ConcurrentMap<Method, Optional<Method>> computeValue(Class<?> targetClass) {
+          return Maps.newConcurrentMap();
+        }
+      };
+
+  /**
+   * Constructor.
+   *
+   * @param methodResolver the resolver called the first time a method is
+   *     dispatched on a class
+   */
+  MethodDispatchCache(MethodResolver methodResolver) {
+    this.methodResolver = methodResolver;
+  }
+
+  /**
+   * Returns the method of {@code targetClass} to dispatch {@code method} to, or
+   * {@code null} if there is none.
+   */
+  @Nullable
+  Method get(Class<?> targetClass, Method method) {
+    ConcurrentMap<Method, Optional<Method>> methods = methodsByClass.get(targetClass);
+    Optional<Method> targetMethod = methods.get(method);
+    if (targetMethod == null) {
+      targetMethod = Optional.fromNullable(methodResolver.resolve(targetClass, method));
+      methods.putIfAbsent(method, targetMethod);
+    }
+    return targetMethod.orNull();
+  }
+}
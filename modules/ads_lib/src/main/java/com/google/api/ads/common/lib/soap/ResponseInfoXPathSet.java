@@ -23,9 +23,6 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.primitives.Longs;
 import com.google.inject.Inject;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import javax.xml.soap.SOAPException;
 import javax.xml.soap.SOAPHeader;
 import javax.xml.soap.SOAPMessage;
@@ -72,12 +69,10 @@ public class ResponseInfoXPathSet {
     if (soapMessage == null) {
       return builder;
     }
-    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-      soapMessage.writeTo(outputStream);
-      builder.withPayload(outputStream.toString(StandardCharsets.UTF_8.name()));
-    } catch (SOAPException | IOException e) {
-      builder.withPayload("Unable to read response due to exception: " + e);
-    }
+    // Defer serializing the message until the payload is read, since it can be
+    // large and is only needed when details are logged.
+    builder.withPayloadSupplier(
+        new SoapMessagePayloadSupplier(soapMessage, "Unable to read response due to exception: "));
 
     try {
       SOAPHeader soapHeader = soapMessage.getSOAPHeader();
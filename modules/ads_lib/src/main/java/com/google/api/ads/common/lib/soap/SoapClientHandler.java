@@ -29,6 +29,20 @@ import java.util.Arrays;
  */
 public abstract class SoapClientHandler<T> implements SoapClientHandlerInterface<T> {
 
+  private final MethodDispatchCache soapClientMethods =
+      new MethodDispatchCache(new MethodDispatchCache.MethodResolver() {
+        @Override
+        public Method resolve(Class<?> soapClientClass, Method method) {
+          for (Method soapClientMethod : soapClientClass.getMethods()) {
+            if (method.getName().equals(soapClientMethod.getName())
+                && method.getReturnType().equals(soapClientMethod.getReturnType())) {
+              return soapClientMethod;
+            }
+          }
+          return null;
+        }
+      });
+
   /**
    * Default constructor.
    */
@@ -61,7 +75,7 @@ public abstract class SoapClientHandler<T> implements SoapClientHandlerInterface
    * Gets the method from the SOAP client that matches the supplied method.
    * <p>
    * In the default implementation, only the method name and return type
-   * will be matched.
+   * will be matched. The matching method is cached per SOAP client class.
    * </p>
    *
    * @param soapClient the SOAP client within which to search for the method
@@ -74,11 +88,9 @@ public abstract class SoapClientHandler<T> implements SoapClientHandlerInterface
    */
   @Override
   public Method getSoapClientMethod(T soapClient, Method method) throws NoSuchMethodException {
-    for (Method soapClientMethod : soapClient.getClass().getMethods()) {
-      if (method.getName().equals(soapClientMethod.getName())
-          && method.getReturnType().equals(soapClientMethod.getReturnType())) {
-        return soapClientMethod;
-      }
+    Method soapClientMethod = soapClientMethods.get(soapClient.getClass(), method);
+    if (soapClientMethod != null) {
+      return soapClientMethod;
     }
     throw new NoSuchMethodException("No method named " + method.getName() + " with return type "
         + method.getReturnType() + " found.");
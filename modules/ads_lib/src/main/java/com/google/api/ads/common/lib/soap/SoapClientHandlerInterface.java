@@ -42,6 +42,27 @@ public interface SoapClientHandlerInterface<T> {
    */
   T createSoapClient(SoapServiceDescriptor soapServiceDescriptor) throws ServiceException;
 
+  /**
+   * Returns if this handler supports
+   * {@link #createConcurrentSoapClient(Object)}, which concurrent invocation
+   * requires.
+   */
+  boolean isConcurrentSoapClientSupported();
+
+  /**
+   * Creates a SOAP client for the same service as {@code soapClient}. The new
+   * client shares the service-level state of {@code soapClient} (e.g., the
+   * service locator and engine configuration) but none of its per-call state,
+   * such as headers, so the two clients can be used by concurrent calls.
+   *
+   * @param soapClient the SOAP client whose service should be shared
+   * @return a new SOAP client for the same service
+   * @throws ServiceException if there was a problem creating the SOAP client
+   * @throws UnsupportedOperationException if
+   *     {@link #isConcurrentSoapClientSupported()} is {@code false}
+   */
+  T createConcurrentSoapClient(T soapClient) throws ServiceException;
+
   /**
    * Executes the {@code SoapCall}, which has a reference to a
    * {@code SoapClientHandlerInterface}.
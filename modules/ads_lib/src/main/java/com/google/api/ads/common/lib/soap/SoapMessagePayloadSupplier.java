@@ -0,0 +1,55 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.soap;
+
+import com.google.common.base.Supplier;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import javax.xml.soap.SOAPException;
+import javax.xml.soap.SOAPMessage;
+
+/**
+ * Supplies the XML of a SOAP message, serializing the message each time
+ * {@link #get()} is called. Callers that may read the payload more than once
+ * should memoize this supplier.
+ */
+final class SoapMessagePayloadSupplier implements Supplier<String> {
+
+  private final SOAPMessage soapMessage;
+  private final String errorMessage;
+
+  /**
+   * Constructor.
+   *
+   * @param soapMessage the SOAP message to serialize
+   * @param errorMessage the message to prefix the exception with if the SOAP
+   *     message cannot be serialized
+   */
+  SoapMessagePayloadSupplier(SOAPMessage soapMessage, String errorMessage) {
+    this.soapMessage = soapMessage;
+    this.errorMessage = errorMessage;
+  }
+
+  @Override
+  public String get() {
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      soapMessage.writeTo(outputStream);
+      return outputStream.toString(StandardCharsets.UTF_8.name());
+    } catch (SOAPException | IOException e) {
+      return errorMessage + e;
+    }
+  }
+}
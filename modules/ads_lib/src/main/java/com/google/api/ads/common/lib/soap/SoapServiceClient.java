@@ -17,9 +17,13 @@ package com.google.api.ads.common.lib.soap;
 import com.google.api.ads.common.lib.client.RemoteCallReturn;
 import com.google.api.ads.common.lib.exception.AuthenticationException;
 import com.google.api.ads.common.lib.exception.ServiceException;
+import com.google.common.base.Preconditions;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The {@code SoapServiceClient} class pairs together the {@code soapClient} and
@@ -28,13 +32,42 @@ import java.lang.reflect.Method;
  * handled correctly in the SOAP layer. This class is not aware of what API it
  * uses and relies on the {@code soapClientHandler} to determine how the SOAP
  * framework should be used.
+ * <p>
+ * By default, calls are serialized on the SOAP client. If concurrent invocation
+ * is enabled, each call is instead made on a call-scoped SOAP client created by
+ * {@link SoapClientHandlerInterface#createConcurrentSoapClient(Object)}, so a
+ * single service client can have many calls in flight. Call-scoped SOAP clients
+ * are reused by later calls once their call completes, and up to
+ * {@link #setMaxIdleConcurrentSoapClients(int)} of them are kept while idle.
+ * </p>
  *
  * @param <T> the type of SOAP client
  */
 public abstract class SoapServiceClient<T> implements InvocationHandler {
 
+  /**
+   * Public methods of service client classes that calls are dispatched to
+   * instead of the SOAP client.
+   */
+  private static final MethodDispatchCache serviceClientMethods =
+      new MethodDispatchCache(new MethodDispatchCache.MethodResolver() {
+        @Override
+        public Method resolve(Class<?> serviceClientClass, Method method) {
+          try {
+            return serviceClientClass.getMethod(method.getName(), method.getParameterTypes());
+          } catch (NoSuchMethodException e) {
+            // The call is meant for the SOAP client.
+            return null;
+          }
+        }
+      });
+
   private final SoapClientHandlerInterface<T> soapClientHandler;
   private final T soapClient;
+  private final Queue<T> idleConcurrentSoapClients = new ConcurrentLinkedQueue<T>();
+  private final AtomicInteger idleConcurrentSoapClientCount = new AtomicInteger();
+  private volatile boolean concurrentInvocationEnabled;
+  private volatile int maxIdleConcurrentSoapClients = 1;
 
   /**
    * Protected constructor.
@@ -63,6 +96,19 @@ public abstract class SoapServiceClient<T> implements InvocationHandler {
     return soapClientHandler.invokeSoapCall(soapCall);
   }
 
+  /**
+   * Called from {@link #invoke(Object, Method, Object[])} instead of
+   * {@link #callSoapClient(SoapCall)} if concurrent invocation is enabled. The
+   * SOAP client of the {@code soapCall} is used exclusively by this call, so
+   * the call is not synchronized on this service client.
+   *
+   * @param soapCall the call to send to the call-scoped SOAP client
+   * @return the return value from the {@code soapCall}
+   */
+  protected RemoteCallReturn callConcurrentSoapClient(SoapCall<T> soapCall) {
+    return soapClientHandler.invokeSoapCall(soapCall);
+  }
+
   /**
    * Wraps the underlying SOAP RPC such that first the method, by its name,
    * is applied to the runtime class. If no such method exists, it is assumed
@@ -83,19 +129,60 @@ public abstract class SoapServiceClient<T> implements InvocationHandler {
   @Override
   public Object invoke(Object proxy, final Method method, final Object[] args)
       throws Throwable {
-    try {
-      return getClass().getMethod(method.getName(), method.getParameterTypes())
-          .invoke(this, args);
-    } catch (NoSuchMethodException e) {
-      // Ignore and let the SOAP client handler take over.
+    Method serviceClientMethod = serviceClientMethods.get(getClass(), method);
+    if (serviceClientMethod != null) {
+      return serviceClientMethod.invoke(this, args);
+    }
+    RemoteCallReturn remoteCallReturn;
+    if (concurrentInvocationEnabled) {
+      T concurrentSoapClient = checkOutConcurrentSoapClient();
+      try {
+        setHeaders(concurrentSoapClient);
+        remoteCallReturn = callConcurrentSoapClient(new SoapCall<T>(
+            soapClientHandler.getSoapClientMethod(concurrentSoapClient, method),
+            concurrentSoapClient, args));
+      } finally {
+        checkInConcurrentSoapClient(concurrentSoapClient);
+      }
+    } else {
+      setHeaders();
+      remoteCallReturn = callSoapClient(
+          createSoapCall(soapClientHandler.getSoapClientMethod(soapClient, method), args));
     }
-    setHeaders();
-    RemoteCallReturn remoteCallReturn = callSoapClient(
-        createSoapCall(soapClientHandler.getSoapClientMethod(soapClient, method), args));
     logSoapCall(remoteCallReturn);
     return unwrapRemoteCallReturn(remoteCallReturn);
   }
 
+  /**
+   * Returns an idle call-scoped SOAP client, creating one if all existing
+   * call-scoped SOAP clients are in use. The endpoint address is always copied
+   * from the underlying SOAP client since it may have changed since the
+   * call-scoped SOAP client was created.
+   */
+  private T checkOutConcurrentSoapClient() {
+    T concurrentSoapClient = idleConcurrentSoapClients.poll();
+    if (concurrentSoapClient != null) {
+      idleConcurrentSoapClientCount.decrementAndGet();
+    } else {
+      concurrentSoapClient = soapClientHandler.createConcurrentSoapClient(soapClient);
+    }
+    soapClientHandler.setEndpointAddress(concurrentSoapClient,
+        soapClientHandler.getEndpointAddress(soapClient));
+    return concurrentSoapClient;
+  }
+
+  /**
+   * Returns a call-scoped SOAP client for reuse by later calls, unless the
+   * maximum number of idle call-scoped SOAP clients are already kept.
+   */
+  private void checkInConcurrentSoapClient(T concurrentSoapClient) {
+    if (idleConcurrentSoapClientCount.incrementAndGet() <= maxIdleConcurrentSoapClients) {
+      idleConcurrentSoapClients.offer(concurrentSoapClient);
+    } else {
+      idleConcurrentSoapClientCount.decrementAndGet();
+    }
+  }
+
   /**
    * Creates the {@link SoapCall} from the  {@code soapClientMethod} and its
    * {@code args}.
@@ -111,6 +198,34 @@ public abstract class SoapServiceClient<T> implements InvocationHandler {
     soapClientHandler.setEndpointAddress(soapClient, endpointAddress);
   }
 
+  /**
+   * Sets whether calls should be made concurrently on call-scoped SOAP clients
+   * instead of being serialized on the underlying SOAP client.
+   */
+  public void setConcurrentInvocationEnabled(boolean concurrentInvocationEnabled) {
+    this.concurrentInvocationEnabled = concurrentInvocationEnabled;
+  }
+
+  /**
+   * Returns if calls are made concurrently on call-scoped SOAP clients.
+   */
+  public boolean isConcurrentInvocationEnabled() {
+    return concurrentInvocationEnabled;
+  }
+
+  /**
+   * Sets the maximum number of idle call-scoped SOAP clients kept for reuse.
+   * Call-scoped SOAP clients of calls that complete while this many are idle are
+   * discarded, so a burst of concurrent calls does not keep a SOAP client per
+   * call for the life of the service client. Default is {@code 1}.
+   */
+  public void setMaxIdleConcurrentSoapClients(int maxIdleConcurrentSoapClients) {
+    Preconditions.checkArgument(maxIdleConcurrentSoapClients >= 0,
+        "Max idle concurrent SOAP clients must be non-negative: %s",
+        maxIdleConcurrentSoapClients);
+    this.maxIdleConcurrentSoapClients = maxIdleConcurrentSoapClients;
+  }
+
   /**
    * Returns the underlying SOAP client.
    */
@@ -141,6 +256,17 @@ public abstract class SoapServiceClient<T> implements InvocationHandler {
    */
   protected abstract void setHeaders() throws ServiceException, AuthenticationException;
 
+  /**
+   * Sets the headers for a call-scoped SOAP client of the service client.
+   *
+   * @param soapClient the call-scoped SOAP client
+   * @throws ServiceException if there was a problem setting the headers
+   * @throws AuthenticationException if there was a problem authenticating while
+   *     setting headers
+   */
+  protected abstract void setHeaders(T soapClient)
+      throws ServiceException, AuthenticationException;
+
   /**
    * Handles the exception.
    * <p>
@@ -20,6 +20,7 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.Source;
 
 /**
@@ -63,4 +64,22 @@ public class JaxBDeserializer<T> {
           String.format("Could not deserialize %s object from source %s.", clazz, source), e);
     }
   }
+
+  /**
+   * Deserializes the object from the element that the reader is positioned at. The reader is left
+   * positioned after the end of the element, so consecutive elements can be deserialized from the
+   * same reader.
+   *
+   * @throws SerializationException if we cannot deserialize the object.
+   */
+  public T deserialize(XMLStreamReader reader) {
+    try {
+      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+      JAXBElement<T> jaxbElement = unmarshaller.unmarshal(reader, clazz);
+      return jaxbElement.getValue();
+    } catch (JAXBException e) {
+      throw new SerializationException(
+          String.format("Could not deserialize %s object from XML stream.", clazz), e);
+    }
+  }
 }
@@ -16,6 +16,7 @@ package com.google.api.ads.common.lib.soap.jaxb;
 
 import org.apache.commons.lang.SerializationException;
 
+import java.io.OutputStream;
 import java.io.StringWriter;
 
 import javax.xml.bind.JAXBContext;
@@ -84,4 +85,22 @@ public class JaxBSerializer<T> {
       throw new SerializationException(String.format("Could not serialize object: %s.", object), e);
     }
   }
+
+  /**
+   * Serializes the object as UTF-8 directly to an output stream, with the option to include or
+   * exclude the XML declaration. The output stream is not closed.
+   *
+   * @throws SerializationException if we cannot serialize the object.
+   */
+  public void serialize(T object, boolean includeXmlDeclaration, OutputStream outputStream) {
+    try {
+      Marshaller marshaller = jaxbContext.createMarshaller();
+      marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.valueOf(!includeXmlDeclaration));
+      JAXBElement<T> element =
+          new JAXBElement<T>(qname, clazz, object);
+      marshaller.marshal(element, outputStream);
+    } catch (JAXBException e) {
+      throw new SerializationException(String.format("Could not serialize object: %s.", object), e);
+    }
+  }
 }
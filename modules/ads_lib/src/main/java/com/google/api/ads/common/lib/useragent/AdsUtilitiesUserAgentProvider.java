@@ -48,6 +48,14 @@ public class AdsUtilitiesUserAgentProvider implements UserAgentProvider {
     this.adsLibConfiguration = adsLibConfiguration;
   }
 
+  /**
+   * Returns if {@link #getUserAgent()} may return a non-null user agent, that is, if any utilities
+   * have been registered since the user agent was last retrieved.
+   */
+  public boolean hasUserAgent() {
+    return adsUtilityRegistry.hasRegisteredUtilities();
+  }
+
   @Override
   public String getUserAgent() {
     Set<AdsUtility> adsUtilities = adsUtilityRegistry.popRegisteredUtilities();
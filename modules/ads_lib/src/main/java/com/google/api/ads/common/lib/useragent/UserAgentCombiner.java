@@ -16,23 +16,42 @@ package com.google.api.ads.common.lib.useragent;
 
 import com.google.api.ads.adwords.lib.AdWordsPluginModule;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicates;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import java.util.List;
-import javax.annotation.Nullable;
 
 /**
  * Combines all user agents along with a user supplied string.
+ * <p>
+ * All user agent providers except {@link AdsUtilitiesUserAgentProvider} are
+ * assumed to return the same user agent for the life of the JVM, so the full
+ * user agent is cached per user supplied string. The cache is bypassed only
+ * when utilities have been registered since the last request.
+ * </p>
  */
 public class UserAgentCombiner {
 
-  private ImmutableList<UserAgentProvider> userAgentProviders;
+  /** The maximum number of user supplied strings to cache the full user agent for. */
+  private static final int MAX_CACHED_USER_AGENTS = 100;
+
+  private final ImmutableList<UserAgentProvider> userAgentProviders;
+  private final ImmutableList<AdsUtilitiesUserAgentProvider> adsUtilitiesUserAgentProviders;
+  private final LoadingCache<String, String> userAgents = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_USER_AGENTS)
+      .build(new CacheLoader<String, String>() {
+        @Override
+        public String load(String nonLibraryUserAgent) {
+          return combineUserAgents(nonLibraryUserAgent, false);
+        }
+      });
   
   /**
    * Constructor that builds an instance based on a list of underlying user agent
@@ -81,6 +100,8 @@ public class UserAgentCombiner {
     // Remove any nulls from the list, since ImmutableList does not support null entries.
     this.userAgentProviders = ImmutableList.<UserAgentProvider>copyOf(
         Collections2.filter(userAgentProviders, Predicates.notNull()));
+    this.adsUtilitiesUserAgentProviders = ImmutableList.copyOf(
+        Iterables.filter(this.userAgentProviders, AdsUtilitiesUserAgentProvider.class));
   }
 
   /**
@@ -88,15 +109,34 @@ public class UserAgentCombiner {
    * {@code "(UserAgent1,UserAgent2,UserAgent3,...)"}
    */
   public String getUserAgent(String nonLibraryUserAgent) {
+    for (AdsUtilitiesUserAgentProvider adsUtilitiesUserAgentProvider
+        : adsUtilitiesUserAgentProviders) {
+      if (adsUtilitiesUserAgentProvider.hasUserAgent()) {
+        return combineUserAgents(nonLibraryUserAgent, true);
+      }
+    }
+    return userAgents.getUnchecked(String.valueOf(nonLibraryUserAgent));
+  }
+
+  /**
+   * Combines the user agents of the providers with the user supplied string.
+   *
+   * @param nonLibraryUserAgent the user supplied string
+   * @param includeAdsUtilities whether to include the user agents of
+   *     {@link AdsUtilitiesUserAgentProvider}s, which are only included in a
+   *     single request
+   */
+  private String combineUserAgents(String nonLibraryUserAgent, boolean includeAdsUtilities) {
+    List<String> libraryUserAgents = Lists.newArrayListWithExpectedSize(userAgentProviders.size());
+    for (UserAgentProvider userAgentProvider : userAgentProviders) {
+      if (includeAdsUtilities || !(userAgentProvider instanceof AdsUtilitiesUserAgentProvider)) {
+        libraryUserAgents.add(userAgentProvider.getUserAgent());
+      }
+    }
     StringBuilder agentStringBuilder = new StringBuilder();
     agentStringBuilder.append(nonLibraryUserAgent);
     agentStringBuilder.append(" (");
-    agentStringBuilder.append(Joiner.on(", ").skipNulls().join(
-        Iterables.transform(userAgentProviders, new Function<UserAgentProvider, String>() {
-          @Override
-          public String apply(@Nullable UserAgentProvider input) {
-            return input == null ? null : input.getUserAgent();
-          }})));
+    agentStringBuilder.append(Joiner.on(", ").skipNulls().join(libraryUserAgents));
     agentStringBuilder.append(')');
     return agentStringBuilder.toString();
   }
@@ -52,6 +52,14 @@ public final class AdsUtilityRegistry {
     adsUtilities.add(adsUtility);
   }
 
+  /**
+   * Returns if the registry contains any utilities. This does not allocate, so it is suitable for
+   * checking the registry on every request.
+   */
+  public boolean hasRegisteredUtilities() {
+    return !adsUtilities.isEmpty();
+  }
+
   /** Returns all utilities in the registry and clears the registry. */
   public Set<AdsUtility> popRegisteredUtilities() {
     // Detach and return, so we don't have to make a copy.
@@ -0,0 +1,219 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.utils;
+
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Splits delimited text, such as {@code CSV} or {@code TSV} report contents, into rows of fields.
+ *
+ * <p>A byte order mark at the start of the contents is skipped, and empty lines are ignored. If
+ * quoting is enabled, a field that starts with a double quote may contain delimiters, line breaks
+ * and doubled quotes.
+ *
+ * <p>The characters of each field are passed to a {@link FieldSink} in runs straight from the
+ * read buffer, so the caller decides which fields to copy and where. This class is <em>not</em>
+ * thread-safe.
+ */
+public final class DelimitedRowTokenizer {
+
+  private static final char BYTE_ORDER_MARK = '\uFEFF';
+  private static final char[] QUOTE = {'"'};
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Reader reader;
+  private final char delimiter;
+  private final boolean isQuoted;
+  private final char[] buffer = new char[BUFFER_SIZE];
+  private int position;
+  private int limit;
+  private boolean isStarted;
+  private long rowCount;
+
+  /**
+   * Receives the fields of a row from {@link DelimitedRowTokenizer#readRow(FieldSink)}.
+   */
+  public interface FieldSink {
+
+    /**
+     * Starts the field at the index in the row.
+     */
+    void startField(int fieldIndex);
+
+    /**
+     * Appends characters to the current field. The array is only valid during the call.
+     */
+    void append(char[] chars, int offset, int count);
+
+    /**
+     * Ends the field at the index in the row.
+     */
+    void endField(int fieldIndex);
+  }
+
+  /**
+   * Creates a tokenizer.
+   *
+   * @param reader the delimited text
+   * @param delimiter the character that separates the fields of a row
+   * @param isQuoted whether fields may be enclosed in double quotes
+   * @throws IllegalArgumentException if the delimiter is a double quote or a line break
+   */
+  public DelimitedRowTokenizer(Reader reader, char delimiter, boolean isQuoted) {
+    Preconditions.checkNotNull(reader, "Null reader");
+    Preconditions.checkArgument(delimiter != '"' && delimiter != '\r' && delimiter != '\n',
+        "Invalid delimiter: %s", delimiter);
+    this.reader = reader;
+    this.delimiter = delimiter;
+    this.isQuoted = isQuoted;
+  }
+
+  /**
+   * Reads the next non-empty row, passing its fields to the sink.
+   *
+   * @return {@code true} if a row was read, or {@code false} if there are no more rows
+   * @throws IOException if unable to read the text, or a quoted field is not terminated
+   */
+  public boolean readRow(FieldSink sink) throws IOException {
+    if (!isStarted) {
+      isStarted = true;
+      if (peek() == BYTE_ORDER_MARK) {
+        position++;
+      }
+    }
+    int c = peek();
+    while (c == '\r' || c == '\n') {
+      position++;
+      c = peek();
+    }
+    if (c == -1) {
+      return false;
+    }
+    rowCount++;
+    int fieldIndex = 0;
+    sink.startField(fieldIndex);
+    boolean isFieldEmpty = true;
+    boolean inQuotes = false;
+    while (true) {
+      if (position == limit && !fill()) {
+        if (inQuotes) {
+          throw new IOException("Unterminated quoted field in row " + rowCount);
+        }
+        sink.endField(fieldIndex);
+        return true;
+      }
+      if (inQuotes) {
+        int start = position;
+        while (position < limit && buffer[position] != '"') {
+          position++;
+        }
+        if (position > start) {
+          sink.append(buffer, start, position - start);
+        }
+        if (position < limit) {
+          position++;
+          if (peek() == '"') {
+            position++;
+            sink.append(QUOTE, 0, 1);
+          } else {
+            inQuotes = false;
+          }
+        }
+        continue;
+      }
+      char next = buffer[position];
+      if (next == delimiter) {
+        position++;
+        sink.endField(fieldIndex);
+        sink.startField(++fieldIndex);
+        isFieldEmpty = true;
+      } else if (next == '\n' || next == '\r') {
+        position++;
+        if (next == '\r' && peek() == '\n') {
+          position++;
+        }
+        sink.endField(fieldIndex);
+        return true;
+      } else if (next == '"' && isQuoted && isFieldEmpty) {
+        position++;
+        inQuotes = true;
+        isFieldEmpty = false;
+      } else {
+        int start = position++;
+        while (position < limit && !isSeparator(buffer[position])) {
+          position++;
+        }
+        sink.append(buffer, start, position - start);
+        isFieldEmpty = false;
+      }
+    }
+  }
+
+  /**
+   * Reads the next non-empty row into a list, such as for a column header.
+   *
+   * @param fields receives the values of the fields of the row, replacing its contents
+   * @return {@code true} if a row was read, or {@code false} if there are no more rows
+   * @throws IOException if unable to read the text, or a quoted field is not terminated
+   */
+  public boolean readRow(final List<String> fields) throws IOException {
+    fields.clear();
+    final StringBuilder field = new StringBuilder();
+    return readRow(new FieldSink() {
+      @Override
+      public void startField(int fieldIndex) {
+        field.setLength(0);
+      }
+
+      @Override
+      public void append(char[] chars, int offset, int count) {
+        field.append(chars, offset, count);
+      }
+
+      @Override
+      public void endField(int fieldIndex) {
+        fields.add(field.toString());
+      }
+    });
+  }
+
+  /**
+   * Returns the number of rows read so far.
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  private boolean isSeparator(char c) {
+    return c == delimiter || c == '\n' || c == '\r';
+  }
+
+  private int peek() throws IOException {
+    if (position == limit && !fill()) {
+      return -1;
+    }
+    return buffer[position];
+  }
+
+  private boolean fill() throws IOException {
+    int count = reader.read(buffer, 0, buffer.length);
+    position = 0;
+    limit = Math.max(count, 0);
+    return count > 0;
+  }
+}
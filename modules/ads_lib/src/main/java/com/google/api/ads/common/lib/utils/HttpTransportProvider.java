@@ -0,0 +1,168 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.utils;
+
+import com.google.api.ads.common.lib.conf.AdsLibConfiguration;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.ApacheHttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import java.net.ProxySelector;
+import java.util.Locale;
+import javax.annotation.Nullable;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.conn.ProxySelectorRoutePlanner;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Provides the {@link HttpTransport} shared by SOAP, report download and batch job upload
+ * requests, as selected by {@link AdsLibConfiguration#getHttpTransport()}.
+ * <p>
+ * The {@code apache} transport keeps up to
+ * {@link AdsLibConfiguration#getHttpMaxConnectionsPerRoute()} connections per host alive for
+ * {@link AdsLibConfiguration#getHttpKeepAlive()} milliseconds, so consecutive requests skip the
+ * TCP and TLS handshakes. All of its connections share one SSL socket factory, so new connections
+ * can resume previously negotiated TLS sessions. This class is thread-safe.
+ * </p>
+ */
+@Singleton
+public class HttpTransportProvider implements Provider<HttpTransport> {
+
+  /** The name of the transport that uses the JDK's {@code HttpURLConnection}. */
+  public static final String NET_HTTP_TRANSPORT = "net";
+
+  /** The name of the transport that uses a pooled Apache HttpClient. */
+  public static final String APACHE_HTTP_TRANSPORT = "apache";
+
+  private static final int SOCKET_BUFFER_SIZE = 8192;
+
+  private final HttpTransport httpTransport;
+  @Nullable private final ThreadSafeClientConnManager connectionManager;
+
+  /**
+   * Constructor used by Guice.
+   *
+   * @param adsLibConfiguration the lib configuration selecting and configuring the transport
+   * @throws IllegalArgumentException if the configured transport is not supported
+   */
+  @Inject
+  public HttpTransportProvider(AdsLibConfiguration adsLibConfiguration) {
+    String transportName = getTransportName(adsLibConfiguration);
+    if (NET_HTTP_TRANSPORT.equals(transportName)) {
+      this.connectionManager = null;
+      this.httpTransport = new NetHttpTransport();
+    } else if (APACHE_HTTP_TRANSPORT.equals(transportName)) {
+      HttpParams params = createHttpParams(adsLibConfiguration.getHttpMaxConnections(),
+          adsLibConfiguration.getHttpMaxConnectionsPerRoute());
+      this.connectionManager = new ThreadSafeClientConnManager(params, createSchemeRegistry());
+      this.httpTransport = new ApacheHttpTransport(
+          createHttpClient(connectionManager, params, adsLibConfiguration.getHttpKeepAlive()));
+    } else {
+      throw new IllegalArgumentException("Unsupported HTTP transport: " + transportName);
+    }
+  }
+
+  /**
+   * Returns the shared transport. Each call returns the same instance.
+   */
+  @Override
+  public HttpTransport get() {
+    return httpTransport;
+  }
+
+  /**
+   * Returns if the transport selected by the configuration pools its connections.
+   */
+  public static boolean isPooled(AdsLibConfiguration adsLibConfiguration) {
+    return !NET_HTTP_TRANSPORT.equals(getTransportName(adsLibConfiguration));
+  }
+
+  private static String getTransportName(AdsLibConfiguration adsLibConfiguration) {
+    String transportName = adsLibConfiguration.getHttpTransport();
+    return transportName == null
+        ? AdsLibConfiguration.DEFAULT_HTTP_TRANSPORT
+        : transportName.trim().toLowerCase(Locale.US);
+  }
+
+  /**
+   * Returns the number of open connections of the shared transport, whether in use or idle, or
+   * {@code -1} if the transport does not pool its connections.
+   */
+  public int getPooledConnectionCount() {
+    return connectionManager == null ? -1 : connectionManager.getConnectionsInPool();
+  }
+
+  private static SchemeRegistry createSchemeRegistry() {
+    SchemeRegistry schemeRegistry = new SchemeRegistry();
+    schemeRegistry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
+    schemeRegistry.register(new Scheme("https", SSLSocketFactory.getSocketFactory(), 443));
+    return schemeRegistry;
+  }
+
+  private static HttpParams createHttpParams(int maxConnections, int maxConnectionsPerRoute) {
+    Preconditions.checkArgument(maxConnections > 0, "Max connections must be > 0: %s",
+        maxConnections);
+    Preconditions.checkArgument(maxConnectionsPerRoute > 0,
+        "Max connections per route must be > 0: %s", maxConnectionsPerRoute);
+    HttpParams params = new BasicHttpParams();
+    HttpConnectionParams.setSocketBufferSize(params, SOCKET_BUFFER_SIZE);
+    // Pooled connections may be closed by the server while idle, so check them before reuse.
+    HttpConnectionParams.setStaleCheckingEnabled(params, true);
+    ConnManagerParams.setMaxTotalConnections(params, maxConnections);
+    ConnManagerParams.setMaxConnectionsPerRoute(params,
+        new ConnPerRouteBean(maxConnectionsPerRoute));
+    return params;
+  }
+
+  private static DefaultHttpClient createHttpClient(
+      ThreadSafeClientConnManager connectionManager, HttpParams params,
+      final long keepAliveMillis) {
+    Preconditions.checkArgument(keepAliveMillis >= 0, "Negative keep alive: %s",
+        keepAliveMillis);
+    DefaultHttpClient httpClient =
+        new DefaultHttpClient(connectionManager, params);
+    // Retry should be handled by the client.
+    httpClient.setHttpRequestRetryHandler(new DefaultHttpRequestRetryHandler(0, false));
+    httpClient.setRoutePlanner(new ProxySelectorRoutePlanner(
+        connectionManager.getSchemeRegistry(), ProxySelector.getDefault()));
+    // The pool closes connections whose keep alive has expired when they would be reused.
+    httpClient.setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+      @Override
+      public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        long serverKeepAliveMillis = super.getKeepAliveDuration(response, context);
+        return serverKeepAliveMillis < 0
+            ? keepAliveMillis
+            : Math.min(serverKeepAliveMillis, keepAliveMillis);
+      }
+    });
+    return httpClient;
+  }
+}
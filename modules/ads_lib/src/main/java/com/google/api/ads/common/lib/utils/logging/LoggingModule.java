@@ -14,9 +14,12 @@
 
 package com.google.api.ads.common.lib.utils.logging;
 
+import com.google.api.ads.common.lib.conf.AdsLibConfiguration;
 import com.google.common.base.Supplier;
 import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
 import com.google.inject.Provider;
+import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
 import com.google.inject.name.Names;
 
@@ -54,16 +57,17 @@ public class LoggingModule extends AbstractModule {
   @Override
   protected void configure() {
     bind(AdsServiceLoggers.class);
-    // DocumentBuilderFactory is *not* guaranteed to be thread-safe.
-    bind(new TypeLiteral<Supplier<DocumentBuilder>>(){}).to( 
-        DocumentBuilderSupplier.class);
+    // DocumentBuilderFactory is *not* guaranteed to be thread-safe. The suppliers are singletons
+    // so that the thread-local instances they hold are shared by everything they are injected into.
+    bind(new TypeLiteral<Supplier<DocumentBuilder>>(){}).to(
+        DocumentBuilderSupplier.class).in(Singleton.class);
     // Transformer is *not* guaranteed to be thread-safe.
-    bind(new TypeLiteral<Supplier<Transformer>>(){}).to( 
-        TransformerSupplier.class);
+    bind(new TypeLiteral<Supplier<Transformer>>(){}).to(
+        TransformerSupplier.class).in(Singleton.class);
     // XPathFactory is *not* guaranteed to be thread-safe.
-    bind(new TypeLiteral<Supplier<XPath>>(){}).to( 
-        XPathSupplier.class);
-    bind(PrettyPrinterInterface.class).to(PrettyPrinter.class);
+    bind(new TypeLiteral<Supplier<XPath>>(){}).to(
+        XPathSupplier.class).in(Singleton.class);
+    bind(PrettyPrinterInterface.class).toProvider(PrettyPrinterProvider.class);
     bind(Logger.class)
         .annotatedWith(Names.named("libLogger")).toInstance(AdsServiceLoggers.ADS_API_LIB_LOG);
     configureLogger(loggerPrefix, "soapXmlLogger");
@@ -77,50 +81,81 @@ public class LoggingModule extends AbstractModule {
  
   /**
    * Thread-safe supplier for {@link XPath} objects. This is necessary because
-   * {@link XPathFactory} is <em>not</em> thread-safe.
+   * {@link XPathFactory} is <em>not</em> thread-safe. Each thread reuses a single {@link XPath},
+   * which is reset before it is returned, to avoid the cost of looking up the factory on every
+   * call.
    */
   @ThreadSafe
   private static final class XPathSupplier implements Supplier<XPath> {
+    private final ThreadLocal<XPath> xpaths = new ThreadLocal<XPath>() {
+      @Override
+      protected XPath initialValue() {
+        return XPathFactory.newInstance().newXPath();
+      }
+    };
+
     @Override
     public XPath get() {
-      return XPathFactory.newInstance().newXPath();
+      XPath xpath = xpaths.get();
+      xpath.reset();
+      return xpath;
     }
   }
   
   /**
    * Thread-safe supplier for {@link DocumentBuilder} objects. This is necessary because
-   * {@link DocumentBuilderFactory} is <em>not</em> thread-safe.
+   * {@link DocumentBuilderFactory} is <em>not</em> thread-safe. Each thread reuses a single
+   * {@link DocumentBuilder}, which is reset before it is returned.
    */
   @ThreadSafe
   private static final class DocumentBuilderSupplier implements Supplier<DocumentBuilder> {
+    private final ThreadLocal<DocumentBuilder> documentBuilders =
+        new ThreadLocal<DocumentBuilder>();
+
     @Override
     public DocumentBuilder get() {
-      try {
-        return DocumentBuilderFactory.newInstance().newDocumentBuilder();
-      } catch (ParserConfigurationException e) {
-        AdsServiceLoggers.ADS_API_LIB_LOG.warn("Unable to initialize DocumentBuilder. Error: " + e);
-        return null;
+      DocumentBuilder documentBuilder = documentBuilders.get();
+      if (documentBuilder == null) {
+        try {
+          documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+          AdsServiceLoggers.ADS_API_LIB_LOG.warn(
+              "Unable to initialize DocumentBuilder. Error: " + e);
+          return null;
+        }
+        documentBuilders.set(documentBuilder);
+      } else {
+        documentBuilder.reset();
       }
+      return documentBuilder;
     }
   }
 
   /**
    * Thread-safe supplier for {@link Transformer} objects. This is necessary because
-   * {@link TransformerFactory} is <em>not</em> thread-safe.
+   * {@link TransformerFactory} is <em>not</em> thread-safe. Each thread reuses a single
+   * {@link Transformer}, which is reset and reconfigured before it is returned.
    */
   @ThreadSafe
   private static final class TransformerSupplier implements Supplier<Transformer> {
+    private final ThreadLocal<Transformer> transformers = new ThreadLocal<Transformer>();
+
     @Override
     public Transformer get() {
-      Transformer transformer;
-      try {
-        transformer = TransformerFactory.newInstance().newTransformer();
-      } catch (TransformerConfigurationException e) {
-        AdsServiceLoggers.ADS_API_LIB_LOG.warn("Unable to initialize Transformer. Error: " + e);
-        return null;
-      } catch (TransformerFactoryConfigurationError e) {
-        AdsServiceLoggers.ADS_API_LIB_LOG.warn("Unable to initialize Transformer. Error: " + e);
-        return null;
+      Transformer transformer = transformers.get();
+      if (transformer == null) {
+        try {
+          transformer = TransformerFactory.newInstance().newTransformer();
+        } catch (TransformerConfigurationException e) {
+          AdsServiceLoggers.ADS_API_LIB_LOG.warn("Unable to initialize Transformer. Error: " + e);
+          return null;
+        } catch (TransformerFactoryConfigurationError e) {
+          AdsServiceLoggers.ADS_API_LIB_LOG.warn("Unable to initialize Transformer. Error: " + e);
+          return null;
+        }
+        transformers.set(transformer);
+      } else {
+        transformer.reset();
       }
       transformer.setOutputProperty(OutputKeys.INDENT, "yes");
       transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
@@ -128,6 +163,33 @@ public class LoggingModule extends AbstractModule {
     }
   }
 
+  /**
+   * Provider for the {@link PrettyPrinterInterface} selected by the lib configuration.
+   */
+  private static final class PrettyPrinterProvider implements Provider<PrettyPrinterInterface> {
+
+    private final AdsLibConfiguration adsLibConfiguration;
+    private final Provider<PrettyPrinter> prettyPrinterProvider;
+    private final Provider<StreamingPrettyPrinter> streamingPrettyPrinterProvider;
+
+    @Inject
+    PrettyPrinterProvider(
+        AdsLibConfiguration adsLibConfiguration,
+        Provider<PrettyPrinter> prettyPrinterProvider,
+        Provider<StreamingPrettyPrinter> streamingPrettyPrinterProvider) {
+      this.adsLibConfiguration = adsLibConfiguration;
+      this.prettyPrinterProvider = prettyPrinterProvider;
+      this.streamingPrettyPrinterProvider = streamingPrettyPrinterProvider;
+    }
+
+    @Override
+    public PrettyPrinterInterface get() {
+      return adsLibConfiguration.isStreamingPrettyPrinterEnabled()
+          ? streamingPrettyPrinterProvider.get()
+          : prettyPrinterProvider.get();
+    }
+  }
+
   /**
    * Provider for Loggers.
    */
@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.EmptyStackException;
+import java.util.List;
 
 import javax.annotation.Nullable;
 import javax.xml.parsers.DocumentBuilder;
@@ -54,6 +55,10 @@ public final class PrettyPrinter implements PrettyPrinterInterface {
   private final Supplier<XPath> xpathSupplier;
   private final Supplier<Transformer> transformerSupplier;
   private final Supplier<DocumentBuilder> documentBuilderSupplier;
+  // XPathExpression is *not* guaranteed to be thread-safe, so the sensitive XPaths are compiled
+  // once per thread.
+  private final ThreadLocal<List<XPathExpression>> sensitiveXPathExpressions =
+      new ThreadLocal<List<XPathExpression>>();
 
   /**
    * Default constructor used by Guice. Takes {@link Supplier} instances for {@link XPath},
@@ -142,12 +147,11 @@ public final class PrettyPrinter implements PrettyPrinterInterface {
   private Source sanitizeXml(@Nullable String xml) {
     if (xml != null && !sensitiveXPathStrings.isEmpty()) {
       try {
+        List<XPathExpression> expressions = getSensitiveXPathExpressions();
         DocumentBuilder documentBuilder = documentBuilderSupplier.get();
-        XPath xpath = xpathSupplier.get();
-        if (documentBuilder != null && xpath != null) {
+        if (documentBuilder != null && expressions != null) {
           Document doc = documentBuilder.parse(new InputSource(new StringReader(xml)));
-          for (String xpathString : sensitiveXPathStrings) {
-            XPathExpression expr = xpath.compile(xpathString);
+          for (XPathExpression expr : expressions) {
             Node node = (Node) expr.evaluate(doc, XPathConstants.NODE);
             if (node != null && node.getTextContent() != null) {
               node.setTextContent("REDACTED");
@@ -165,4 +169,32 @@ public final class PrettyPrinter implements PrettyPrinterInterface {
     }
     return null;
   }
+
+  /**
+   * Returns the compiled sensitive XPath expressions for the current thread, compiling them on
+   * first use. Expressions that fail to compile are logged and skipped.
+   *
+   * @return the compiled expressions, or null if no {@link XPath} is available
+   */
+  @Nullable
+  private List<XPathExpression> getSensitiveXPathExpressions() {
+    List<XPathExpression> expressions = sensitiveXPathExpressions.get();
+    if (expressions == null) {
+      XPath xpath = xpathSupplier.get();
+      if (xpath == null) {
+        return null;
+      }
+      ImmutableList.Builder<XPathExpression> builder = ImmutableList.builder();
+      for (String xpathString : sensitiveXPathStrings) {
+        try {
+          builder.add(xpath.compile(xpathString));
+        } catch (XPathExpressionException e) {
+          libLogger.warn("Unable to compile XPath {}: {}", xpathString, e);
+        }
+      }
+      expressions = builder.build();
+      sensitiveXPathExpressions.set(expressions);
+    }
+    return expressions;
+  }
 }
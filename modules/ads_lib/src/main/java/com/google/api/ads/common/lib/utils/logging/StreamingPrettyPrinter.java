@@ -0,0 +1,367 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.utils.logging;
+
+import com.google.api.ads.common.lib.conf.AdsApiConfiguration;
+import com.google.api.ads.common.lib.conf.AdsLibConfiguration;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+import org.slf4j.Logger;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * A {@link PrettyPrinterInterface} that redacts sensitive elements and indents XML messages in a
+ * single pass, reading the message with StAX and writing it back out as it goes. Unlike
+ * {@link PrettyPrinter}, no DOM is built, so the cost of pretty printing is linear in the size of
+ * the message.
+ *
+ * <p>Sensitive XPaths must be absolute paths of element names, such as
+ * {@code /Envelope/Header/RequestHeader/developerToken}, where each step may also be {@code *}.
+ * Steps are matched against local names, ignoring namespaces. If any configured XPath is not of
+ * that form, messages are pretty printed by the DOM-based {@link PrettyPrinter} instead.
+ *
+ * <p>Messages longer than the maximum payload size are truncated: once that many characters of the
+ * message have been read, the output is cut off and a note with the full length of the message is
+ * appended.
+ */
+public final class StreamingPrettyPrinter implements PrettyPrinterInterface {
+
+  private static final String REDACTED = "REDACTED";
+  private static final String INDENT = "    ";
+  private static final Pattern PATH_STEP_PATTERN = Pattern.compile("\\*|[\\p{L}_][\\p{L}\\d._-]*");
+
+  // Creating readers and writers from a configured factory is thread-safe, unlike looking up the
+  // factory itself, so a single instance of each is shared.
+  private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+  private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+  private final Logger libLogger;
+  private final ImmutableList<List<String>> sensitivePaths;
+  private final int maxPayloadSize;
+  private final PrettyPrinterInterface fallbackPrettyPrinter;
+  private final boolean useFallback;
+
+  /**
+   * Default constructor used by Guice.
+   *
+   * @param adsApiConfiguration the API configuration
+   * @param adsLibConfiguration the lib configuration
+   * @param libLogger the logger to use for errors
+   * @param fallbackPrettyPrinter the pretty printer to use if the configured sensitive XPaths
+   *     cannot be matched while streaming
+   */
+  @Inject
+  public StreamingPrettyPrinter(
+      AdsApiConfiguration adsApiConfiguration,
+      AdsLibConfiguration adsLibConfiguration,
+      @Named("libLogger") Logger libLogger,
+      PrettyPrinter fallbackPrettyPrinter) {
+    this(
+        adsApiConfiguration.getSensitiveXPaths(),
+        adsLibConfiguration.getPrettyPrintMaxPayloadSize(),
+        libLogger,
+        fallbackPrettyPrinter);
+  }
+
+  @VisibleForTesting
+  StreamingPrettyPrinter(
+      String[] sensitiveXPaths,
+      int maxPayloadSize,
+      Logger libLogger,
+      PrettyPrinterInterface fallbackPrettyPrinter) {
+    Preconditions.checkArgument(maxPayloadSize >= 0, "Negative max payload size: %s",
+        maxPayloadSize);
+    this.libLogger = libLogger;
+    this.maxPayloadSize = maxPayloadSize;
+    this.fallbackPrettyPrinter = fallbackPrettyPrinter;
+
+    ImmutableList.Builder<List<String>> paths = ImmutableList.builder();
+    boolean unsupportedPath = false;
+    if (sensitiveXPaths != null) {
+      for (String sensitiveXPath : sensitiveXPaths) {
+        List<String> path = parsePath(sensitiveXPath);
+        if (path == null) {
+          libLogger.warn("Unable to stream sensitive XPath {}, using DOM pretty printing instead.",
+              sensitiveXPath);
+          unsupportedPath = true;
+        } else {
+          paths.add(path);
+        }
+      }
+    }
+    this.sensitivePaths = paths.build();
+    this.useFallback = unsupportedPath;
+  }
+
+  /**
+   * Transforms XML into a pretty-printed format with sensitive elements redacted. If the XML
+   * cannot be read, the original message is returned.
+   *
+   * @param xml the XML message to be pretty printed
+   * @return the given message in pretty-printed format
+   */
+  @Override
+  public String prettyPrint(String xml) {
+    if (xml == null) {
+      return xml;
+    }
+    if (useFallback) {
+      return fallbackPrettyPrinter.prettyPrint(xml);
+    }
+    try {
+      return streamXml(xml);
+    } catch (XMLStreamException e) {
+      libLogger.warn("Unable to pretty print XML: {}", e);
+    } catch (RuntimeException e) {
+      libLogger.warn("Unable to pretty print XML: {}", e);
+    }
+    return xml;
+  }
+
+  /**
+   * Reads the XML and writes it back out indented, with sensitive elements redacted.
+   */
+  private String streamXml(String xml) throws XMLStreamException {
+    StringWriter output = new StringWriter(xml.length() + xml.length() / 4);
+    XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(xml));
+    XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(output);
+    // Sensitive paths that the current element may still be a prefix of, per depth.
+    Deque<List<List<String>>> candidates = new ArrayDeque<List<List<String>>>();
+    candidates.push(sensitivePaths);
+    // Whether the element at each depth has child elements, so its end tag goes on its own line.
+    Deque<Boolean> hasChildElements = new ArrayDeque<Boolean>();
+    boolean truncated = false;
+    try {
+      String version = reader.getVersion();
+      writer.writeStartDocument("UTF-8", version == null ? "1.0" : version);
+      while (reader.hasNext()) {
+        if (isPastMaxPayloadSize(reader)) {
+          truncated = true;
+          break;
+        }
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            markChildElement(hasChildElements);
+            writeIndent(writer, hasChildElements.size());
+            writeStartElement(reader, writer);
+            int depth = hasChildElements.size() + 1;
+            List<List<String>> matching = matchStep(candidates.peek(), depth, reader.getLocalName());
+            if (isSensitive(matching, depth)) {
+              writer.writeCharacters(REDACTED);
+              skipElement(reader);
+              writer.writeEndElement();
+            } else {
+              candidates.push(matching);
+              hasChildElements.push(false);
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            candidates.pop();
+            if (hasChildElements.pop()) {
+              writeIndent(writer, hasChildElements.size());
+            }
+            writer.writeEndElement();
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.SPACE:
+            if (!reader.isWhiteSpace()) {
+              writer.writeCharacters(reader.getText());
+            }
+            break;
+          case XMLStreamConstants.CDATA:
+            writer.writeCData(reader.getText());
+            break;
+          case XMLStreamConstants.COMMENT:
+            markChildElement(hasChildElements);
+            writeIndent(writer, hasChildElements.size());
+            writer.writeComment(reader.getText());
+            break;
+          case XMLStreamConstants.PROCESSING_INSTRUCTION:
+            markChildElement(hasChildElements);
+            writeIndent(writer, hasChildElements.size());
+            writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+            break;
+          case XMLStreamConstants.END_DOCUMENT:
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            break;
+          default:
+            break;
+        }
+      }
+      writer.flush();
+    } finally {
+      reader.close();
+      writer.close();
+    }
+    if (truncated) {
+      output.write(String.format("...\n[truncated, %d characters in total]", xml.length()));
+    }
+    return output.toString();
+  }
+
+  /**
+   * Returns if the reader has read more than the maximum payload size.
+   */
+  private boolean isPastMaxPayloadSize(XMLStreamReader reader) {
+    if (maxPayloadSize == 0) {
+      return false;
+    }
+    Location location = reader.getLocation();
+    return location != null && location.getCharacterOffset() > maxPayloadSize;
+  }
+
+  /**
+   * Returns the paths among {@code candidates} whose step at {@code depth} (1-based) matches the
+   * local name.
+   */
+  private static List<List<String>> matchStep(
+      List<List<String>> candidates, int depth, String localName) {
+    if (candidates.isEmpty()) {
+      return candidates;
+    }
+    List<List<String>> matching = Lists.newArrayListWithCapacity(candidates.size());
+    for (List<String> path : candidates) {
+      if (path.size() >= depth) {
+        String step = path.get(depth - 1);
+        if ("*".equals(step) || step.equals(localName)) {
+          matching.add(path);
+        }
+      }
+    }
+    return matching.isEmpty() ? Collections.<List<String>>emptyList() : matching;
+  }
+
+  /**
+   * Returns if any of the matching paths ends at {@code depth}.
+   */
+  private static boolean isSensitive(List<List<String>> matching, int depth) {
+    for (List<String> path : matching) {
+      if (path.size() == depth) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Skips the content of the current element, leaving the reader on its end element.
+   */
+  private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  /**
+   * Writes the current start element of the reader, with its namespace declarations and
+   * attributes.
+   */
+  private static void writeStartElement(XMLStreamReader reader, XMLStreamWriter writer)
+      throws XMLStreamException {
+    writer.writeStartElement(Strings.nullToEmpty(reader.getPrefix()), reader.getLocalName(),
+        Strings.nullToEmpty(reader.getNamespaceURI()));
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      String prefix = reader.getNamespacePrefix(i);
+      if (Strings.isNullOrEmpty(prefix)) {
+        writer.writeDefaultNamespace(reader.getNamespaceURI(i));
+      } else {
+        writer.writeNamespace(prefix, reader.getNamespaceURI(i));
+      }
+    }
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String prefix = reader.getAttributePrefix(i);
+      if (Strings.isNullOrEmpty(prefix)) {
+        writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+      } else {
+        writer.writeAttribute(prefix, reader.getAttributeNamespace(i),
+            reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+      }
+    }
+  }
+
+  /**
+   * Marks the element enclosing the current event, if any, as having child elements.
+   */
+  private static void markChildElement(Deque<Boolean> hasChildElements) {
+    if (!hasChildElements.isEmpty() && !hasChildElements.peek()) {
+      hasChildElements.pop();
+      hasChildElements.push(true);
+    }
+  }
+
+  private static void writeIndent(XMLStreamWriter writer, int depth) throws XMLStreamException {
+    writer.writeCharacters("\n");
+    for (int i = 0; i < depth; i++) {
+      writer.writeCharacters(INDENT);
+    }
+  }
+
+  /**
+   * Parses an absolute XPath of element names into its steps.
+   *
+   * @return the steps of the path, or null if the XPath is not an absolute path of element names
+   */
+  @VisibleForTesting
+  static List<String> parsePath(String xpath) {
+    if (xpath == null || !xpath.startsWith("/") || xpath.startsWith("//")) {
+      return null;
+    }
+    List<String> steps = Splitter.on('/').splitToList(xpath.substring(1).trim());
+    for (String step : steps) {
+      if (!PATH_STEP_PATTERN.matcher(step).matches()) {
+        return null;
+      }
+    }
+    return steps;
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return inputFactory;
+  }
+}
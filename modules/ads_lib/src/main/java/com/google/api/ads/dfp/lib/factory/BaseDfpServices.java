@@ -14,6 +14,7 @@
 
 package com.google.api.ads.dfp.lib.factory;
 
+import com.google.api.ads.common.lib.conf.AdsLibConfiguration;
 import com.google.api.ads.common.lib.factory.BaseServices;
 import com.google.api.ads.dfp.lib.client.DfpServiceClient;
 import com.google.api.ads.dfp.lib.client.DfpServiceDescriptor;
@@ -31,6 +32,7 @@ public abstract class BaseDfpServices
    * @param injector an injector which binds all the necessary classes
    */
   protected BaseDfpServices(Injector injector) {
-    super(new DfpServiceClientFactory(injector));
+    super(new DfpServiceClientFactory(injector),
+        injector.getInstance(AdsLibConfiguration.class).getAsyncThreadPoolSize());
   }
 }
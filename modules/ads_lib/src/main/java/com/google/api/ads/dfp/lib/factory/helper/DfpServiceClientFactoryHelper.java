@@ -19,6 +19,7 @@ import com.google.api.ads.common.lib.factory.FactoryModule.AdsServiceClientFacto
 import com.google.api.ads.common.lib.factory.FactoryModule.AdsServiceDescriptorFactoryInterface;
 import com.google.api.ads.common.lib.factory.helper.AdsServiceClientFactoryHelper;
 import com.google.api.ads.common.lib.factory.helper.BaseAdsServiceClientFactoryHelper;
+import com.google.api.ads.common.lib.factory.helper.SoapClientPool;
 import com.google.api.ads.common.lib.soap.SoapClientHandlerInterface;
 import com.google.api.ads.dfp.lib.client.DfpServiceClient;
 import com.google.api.ads.dfp.lib.client.DfpServiceDescriptor;
@@ -62,7 +63,9 @@ public class DfpServiceClientFactoryHelper extends
                                      * the raw type here. */
       SoapClientHandlerInterface soapClientHandler,
       AdsLibConfiguration adsLibConfiguration) {
-    super(adsServiceClientFactory, adsServiceDescriptorFactory, soapClientHandler);
+    super(adsServiceClientFactory, adsServiceDescriptorFactory, soapClientHandler,
+        new SoapClientPool<Object>(adsLibConfiguration.getSoapClientPoolSize(),
+            adsLibConfiguration.getSoapClientPoolIdleTimeout()));
     this.adsLibConfiguration = adsLibConfiguration;
   }
 
@@ -79,4 +82,21 @@ public class DfpServiceClientFactoryHelper extends
       return adsLibConfiguration.getDuckTypedVersion();
     }
   }
+
+  /**
+   * Returns if concurrent invocation is enabled in the lib configuration.
+   */
+  @Override
+  protected boolean isConcurrentInvocationEnabled() {
+    return adsLibConfiguration.isConcurrentInvocationEnabled();
+  }
+
+  /**
+   * Returns the maximum number of idle call-scoped SOAP clients in the lib
+   * configuration.
+   */
+  @Override
+  protected int getMaxIdleConcurrentSoapClients() {
+    return adsLibConfiguration.getMaxIdleConcurrentSoapClients();
+  }
 }
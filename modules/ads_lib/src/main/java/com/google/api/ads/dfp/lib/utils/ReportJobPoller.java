@@ -0,0 +1,282 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.dfp.lib.utils;
+
+import com.google.api.client.util.BackOff;
+import com.google.api.client.util.ExponentialBackOff;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Waits for many report jobs to finish using a single scheduled executor, instead of a thread per
+ * report job.
+ *
+ * <p>The status of each report job is checked right away, and then again after increasing
+ * intervals while the job is in progress. Concurrent requests to wait for the same report job of
+ * the same {@link ReportJobStatusCheck} share a single series of status checks and a single
+ * future. A poller is meant to be long-lived and shared by all report jobs of an application.
+ *
+ * <pre>
+ * ReportJobPoller poller = new ReportJobPoller.Builder().build();
+ * ListenableFuture&lt;Boolean&gt; reportReady =
+ *     new ReportDownloader(reportService, reportJobId).whenReportReady(poller);
+ * </pre>
+ */
+@ThreadSafe
+public class ReportJobPoller {
+
+  /** The maximum interval between status checks of a report job by default. */
+  public static final int DEFAULT_MAX_POLL_INTERVAL_MILLIS = 30000;
+
+  private final ScheduledExecutorService executor;
+  private final boolean isExecutorOwned;
+  private final Supplier<BackOff> backOffSupplier;
+  private final ConcurrentMap<List<Object>, SettableFuture<Boolean>> pendingReportJobs =
+      Maps.newConcurrentMap();
+
+  private ReportJobPoller(Builder builder) {
+    if (builder.executor != null) {
+      this.executor = builder.executor;
+      this.isExecutorOwned = false;
+    } else {
+      this.executor = Executors.newScheduledThreadPool(builder.maxConcurrentStatusChecks,
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("report-job-poller-%d")
+              .build());
+      this.isExecutorOwned = true;
+    }
+    this.backOffSupplier = builder.backOffSupplier;
+  }
+
+  /**
+   * Waits for a report job to finish. Returns immediately.
+   *
+   * @param statusCheck checks the status of the report job
+   * @param reportJobId the ID of the report job
+   * @return a future that is set to {@code true} if the report job completed, or {@code false} if
+   *     it failed. The future fails with the exception of a status check if one fails, or with a
+   *     {@link TimeoutException} if the backoff policy stops before the report job finished.
+   *     Cancelling the future stops the status checks for all callers waiting for the same report
+   *     job.
+   */
+  public ListenableFuture<Boolean> poll(ReportJobStatusCheck statusCheck, long reportJobId) {
+    Preconditions.checkNotNull(statusCheck, "Null status check");
+    final List<Object> key = ImmutableList.<Object>of(statusCheck, reportJobId);
+    final SettableFuture<Boolean> future = SettableFuture.create();
+    SettableFuture<Boolean> pendingFuture = pendingReportJobs.putIfAbsent(key, future);
+    if (pendingFuture != null) {
+      return pendingFuture;
+    }
+    // Completed futures are removed by the poll task before they are set; this listener removes
+    // cancelled ones.
+    future.addListener(new Runnable() {
+      @Override
+      public void run() {
+        pendingReportJobs.remove(key, future);
+      }
+    }, MoreExecutors.directExecutor());
+    new PollTask(key, statusCheck, reportJobId, future).schedule(0);
+    return future;
+  }
+
+  /**
+   * Returns the number of report jobs that are still being waited for.
+   */
+  public int getPendingReportJobCount() {
+    return pendingReportJobs.size();
+  }
+
+  /**
+   * Stops waiting for all report jobs and cancels their futures. The executor is shut down unless
+   * it was supplied to the {@link Builder}.
+   */
+  public void shutdown() {
+    if (isExecutorOwned) {
+      executor.shutdownNow();
+    }
+    for (SettableFuture<Boolean> future : pendingReportJobs.values()) {
+      future.cancel(false);
+    }
+  }
+
+  /**
+   * The status of a report job, independent of the API version.
+   */
+  public enum ReportJobState {
+    IN_PROGRESS,
+    COMPLETED,
+    FAILED
+  }
+
+  /**
+   * Checks the status of report jobs. Called concurrently for different report jobs, so
+   * implementations must be thread-safe. Status checks of the same report job are coalesced only
+   * for status checks that are {@link Object#equals(Object) equal}.
+   */
+  public interface ReportJobStatusCheck {
+
+    /**
+     * Returns the status of the report job.
+     */
+    ReportJobState getStatus(long reportJobId) throws Exception;
+  }
+
+  /**
+   * Checks the status of a single report job, rescheduling itself while the job is in progress.
+   */
+  private class PollTask implements Runnable {
+    private final List<Object> key;
+    private final ReportJobStatusCheck statusCheck;
+    private final long reportJobId;
+    private final SettableFuture<Boolean> future;
+    private final BackOff backOff;
+    private int statusChecks;
+
+    private PollTask(List<Object> key, ReportJobStatusCheck statusCheck, long reportJobId,
+        SettableFuture<Boolean> future) {
+      this.key = key;
+      this.statusCheck = statusCheck;
+      this.reportJobId = reportJobId;
+      this.future = future;
+      this.backOff = backOffSupplier.get();
+    }
+
+    @Override
+    public void run() {
+      if (future.isDone()) {
+        return;
+      }
+      try {
+        ReportJobState state = statusCheck.getStatus(reportJobId);
+        statusChecks++;
+        Preconditions.checkState(state != null, "Null status of report job %s", reportJobId);
+        switch (state) {
+          case COMPLETED:
+            set(true);
+            break;
+          case FAILED:
+            set(false);
+            break;
+          default:
+            long pollIntervalMillis = backOff.nextBackOffMillis();
+            if (pollIntervalMillis == BackOff.STOP) {
+              setException(new TimeoutException(String.format(
+                  "Report job %s is still in progress after %s status checks", reportJobId,
+                  statusChecks)));
+            } else {
+              schedule(pollIntervalMillis);
+            }
+        }
+      } catch (Exception e) {
+        setException(e);
+      }
+    }
+
+    private void schedule(long delayMillis) {
+      try {
+        executor.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        setException(e);
+      }
+    }
+
+    /**
+     * Sets the future after removing the report job from the pending report jobs, so that the
+     * report job is no longer pending by the time callers see the result.
+     */
+    private void set(boolean isCompleted) {
+      pendingReportJobs.remove(key, future);
+      future.set(isCompleted);
+    }
+
+    private void setException(Exception e) {
+      pendingReportJobs.remove(key, future);
+      future.setException(e);
+    }
+  }
+
+  /**
+   * Builder for {@link ReportJobPoller} objects.
+   */
+  public static class Builder {
+    private int maxConcurrentStatusChecks = 5;
+    private ScheduledExecutorService executor;
+    private Supplier<BackOff> backOffSupplier = new Supplier<BackOff>() {
+      @Override
+      public BackOff get() {
+        return new ExponentialBackOff.Builder()
+            .setInitialIntervalMillis(1000)
+            .setMultiplier(2)
+            .setMaxIntervalMillis(DEFAULT_MAX_POLL_INTERVAL_MILLIS)
+            .setMaxElapsedTimeMillis(Integer.MAX_VALUE)
+            .build();
+      }
+    };
+
+    /**
+     * Sets the maximum number of status checks made at the same time by the executor created for
+     * the poller. Ignored if an executor is supplied. Defaults to 5.
+     */
+    public Builder maxConcurrentStatusChecks(int maxConcurrentStatusChecks) {
+      Preconditions.checkArgument(maxConcurrentStatusChecks > 0,
+          "Max concurrent status checks must be positive: %s", maxConcurrentStatusChecks);
+      this.maxConcurrentStatusChecks = maxConcurrentStatusChecks;
+      return this;
+    }
+
+    /**
+     * Sets the executor that runs the status checks. The poller does not shut down a supplied
+     * executor. Defaults to a new executor with daemon threads.
+     */
+    public Builder executor(@Nullable ScheduledExecutorService executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Sets the supplier of the policy for the intervals between status checks of a report job. A
+     * new policy is obtained for each report job. Defaults to an {@link ExponentialBackOff}
+     * starting at 1 second, doubling up to {@link #DEFAULT_MAX_POLL_INTERVAL_MILLIS}, that never
+     * stops.
+     */
+    public Builder backOff(Supplier<BackOff> backOffSupplier) {
+      this.backOffSupplier = Preconditions.checkNotNull(backOffSupplier, "Null back off");
+      return this;
+    }
+
+    /**
+     * Builds a new {@link ReportJobPoller}.
+     */
+    public ReportJobPoller build() {
+      return new ReportJobPoller(this);
+    }
+  }
+}
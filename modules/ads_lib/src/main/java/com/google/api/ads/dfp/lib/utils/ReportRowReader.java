@@ -0,0 +1,347 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.dfp.lib.utils;
+
+import com.google.api.ads.common.lib.utils.DelimitedRowTokenizer;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Reads the rows of a delimited DFP report, such as a {@code CSV_DUMP} or {@code TSV} report, one
+ * at a time, so that reports of any size can be processed in constant memory.
+ *
+ * <p>The first line of the report is the column header, which determines the names that fields
+ * can be looked up by. Only the columns selected with {@link Builder#columns(String...)} are kept:
+ * the characters of other columns are skipped while parsing and never copied.
+ *
+ * <p>The reader reuses a single buffer for the current row: each call to {@link #next()} replaces
+ * the fields of the previous row, and numeric fields are parsed directly from the buffer. This
+ * class is <em>not</em> thread-safe.
+ *
+ * <pre>
+ * ReportRowReader rows = reportDownloader.getReportAsRowReader(options,
+ *     "Dimension.ORDER_ID", "Column.AD_SERVER_IMPRESSIONS");
+ * try {
+ *   int orderId = rows.getColumnIndex("Dimension.ORDER_ID");
+ *   int impressions = rows.getColumnIndex("Column.AD_SERVER_IMPRESSIONS");
+ *   while (rows.next()) {
+ *     process(rows.getLong(orderId), rows.getLong(impressions));
+ *   }
+ * } finally {
+ *   rows.close();
+ * }
+ * </pre>
+ */
+public final class ReportRowReader implements Closeable {
+
+  private final Reader reader;
+  private final DelimitedRowTokenizer tokenizer;
+
+  private ImmutableList<String> columnNames;
+  private Map<String, Integer> columnIndexes;
+  private RowBuffer row;
+  private boolean hasRow;
+  private long rowCount;
+
+  private ReportRowReader(Reader reader, char delimiter) {
+    this.reader = reader;
+    this.tokenizer = new DelimitedRowTokenizer(reader, delimiter, true);
+  }
+
+  /**
+   * Reads the column header and selects the columns to keep.
+   *
+   * @param selectedColumns the columns to keep, or {@code null} to keep all columns
+   */
+  private void readHeader(@Nullable ImmutableList<String> selectedColumns) throws IOException {
+    List<String> header = Lists.newArrayList();
+    Preconditions.checkArgument(tokenizer.readRow(header), "Report has no column header");
+    columnNames = selectedColumns == null ? ImmutableList.copyOf(header) : selectedColumns;
+    ImmutableMap.Builder<String, Integer> indexes = ImmutableMap.builder();
+    int[] selectedIndexes = new int[header.size()];
+    Arrays.fill(selectedIndexes, -1);
+    for (int i = 0; i < columnNames.size(); i++) {
+      String columnName = columnNames.get(i);
+      int headerIndex = header.indexOf(columnName);
+      Preconditions.checkArgument(headerIndex >= 0, "No column named %s in %s", columnName,
+          header);
+      selectedIndexes[headerIndex] = i;
+      indexes.put(columnName, i);
+    }
+    columnIndexes = indexes.build();
+    row = new RowBuffer(selectedIndexes, columnNames.size());
+  }
+
+  /**
+   * Advances to the next row of the report.
+   *
+   * @return {@code true} if there is a next row, or {@code false} if the end of the report was
+   *     reached
+   * @throws IOException if unable to read the report contents
+   */
+  public boolean next() throws IOException {
+    hasRow = tokenizer.readRow(row);
+    if (hasRow) {
+      rowCount++;
+    }
+    return hasRow;
+  }
+
+  /**
+   * Returns the names of the selected columns, in the order of their indexes.
+   */
+  public List<String> getColumnNames() {
+    return columnNames;
+  }
+
+  /**
+   * Returns the index of the selected column with the specified name.
+   *
+   * @throws IllegalArgumentException if no selected column has the name
+   */
+  public int getColumnIndex(String columnName) {
+    Integer index = columnIndexes.get(columnName);
+    Preconditions.checkArgument(index != null, "No column named %s in %s", columnName,
+        columnNames);
+    return index;
+  }
+
+  /**
+   * Returns the number of rows read so far, not counting the column header.
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Returns the value of the field at the specified index of the current row.
+   */
+  public String getString(int index) {
+    checkField(index);
+    return row.getString(index);
+  }
+
+  /**
+   * Returns the value of the field in the specified column of the current row.
+   */
+  public String getString(String columnName) {
+    return getString(getColumnIndex(columnName));
+  }
+
+  /**
+   * Returns the value of the field at the specified index of the current row as a {@code long},
+   * such as a dimension ID or a count. Parses the field without creating intermediate objects.
+   *
+   * @throws NumberFormatException if the field is not a valid {@code long}
+   */
+  public long getLong(int index) {
+    checkField(index);
+    return row.getLong(index);
+  }
+
+  /**
+   * Returns the value of the field in the specified column of the current row as a {@code long}.
+   *
+   * @throws NumberFormatException if the field is not a valid {@code long}
+   */
+  public long getLong(String columnName) {
+    return getLong(getColumnIndex(columnName));
+  }
+
+  /**
+   * Returns the value of the field at the specified index of the current row as a
+   * {@code double}, such as a rate.
+   *
+   * @throws NumberFormatException if the field is not a valid {@code double}
+   */
+  public double getDouble(int index) {
+    return Double.parseDouble(getString(index));
+  }
+
+  /**
+   * Returns the value of the field in the specified column of the current row as a
+   * {@code double}.
+   *
+   * @throws NumberFormatException if the field is not a valid {@code double}
+   */
+  public double getDouble(String columnName) {
+    return getDouble(getColumnIndex(columnName));
+  }
+
+  /**
+   * Closes the underlying report contents.
+   */
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private void checkField(int index) {
+    Preconditions.checkState(hasRow, "No current row, call next() first");
+    Preconditions.checkElementIndex(index, columnNames.size(), "Field index");
+    Preconditions.checkState(row.hasField(index), "Row %s has no field for column %s",
+        rowCount, columnNames.get(index));
+  }
+
+  /**
+   * Reusable buffer for the selected fields of a row. The fields are stored back to back in a
+   * single character array, and the characters of other fields are never copied.
+   */
+  private static final class RowBuffer implements DelimitedRowTokenizer.FieldSink {
+    /** The index of each column of the report among the selected columns, or -1 if skipped. */
+    private final int[] selectedIndexes;
+    private char[] chars = new char[256];
+    private int length;
+    private final int[] fieldStarts;
+    private final int[] fieldEnds;
+    private int selectedIndex;
+
+    RowBuffer(int[] selectedIndexes, int selectedCount) {
+      this.selectedIndexes = selectedIndexes;
+      this.fieldStarts = new int[selectedCount];
+      this.fieldEnds = new int[selectedCount];
+    }
+
+    @Override
+    public void startField(int fieldIndex) {
+      if (fieldIndex == 0) {
+        length = 0;
+        Arrays.fill(fieldEnds, -1);
+      }
+      selectedIndex = fieldIndex < selectedIndexes.length ? selectedIndexes[fieldIndex] : -1;
+      if (selectedIndex >= 0) {
+        fieldStarts[selectedIndex] = length;
+      }
+    }
+
+    @Override
+    public void append(char[] source, int offset, int count) {
+      if (selectedIndex < 0) {
+        return;
+      }
+      if (length + count > chars.length) {
+        chars = Arrays.copyOf(chars, Math.max(length + count, chars.length * 2));
+      }
+      System.arraycopy(source, offset, chars, length, count);
+      length += count;
+    }
+
+    @Override
+    public void endField(int fieldIndex) {
+      if (selectedIndex >= 0) {
+        fieldEnds[selectedIndex] = length;
+      }
+    }
+
+    boolean hasField(int index) {
+      return fieldEnds[index] >= 0;
+    }
+
+    String getString(int index) {
+      return new String(chars, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    /**
+     * Parses a field as a {@code long} without creating intermediate objects. Accumulates
+     * negatively, like {@link Long#parseLong(String)}, so {@link Long#MIN_VALUE} can be parsed.
+     */
+    long getLong(int index) {
+      int start = fieldStarts[index];
+      int end = fieldEnds[index];
+      boolean isNegative = start < end && chars[start] == '-';
+      int i = isNegative ? start + 1 : start;
+      if (i == end) {
+        throw new NumberFormatException("Not a long: \"" + getString(index) + "\"");
+      }
+      long limit = isNegative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+      long multiplyMin = limit / 10;
+      long result = 0;
+      for (; i < end; i++) {
+        int digit = chars[i] - '0';
+        if (digit < 0 || digit > 9 || result < multiplyMin) {
+          throw new NumberFormatException("Not a long: \"" + getString(index) + "\"");
+        }
+        result *= 10;
+        if (result < limit + digit) {
+          throw new NumberFormatException("Not a long: \"" + getString(index) + "\"");
+        }
+        result -= digit;
+      }
+      return isNegative ? result : -result;
+    }
+  }
+
+  /**
+   * Builder for {@link ReportRowReader} objects.
+   */
+  public static class Builder {
+    private char delimiter = ',';
+    private ImmutableList<String> columns;
+
+    /**
+     * Sets the character that separates the fields of a row. Defaults to a comma, as in
+     * {@code CSV_DUMP} reports. Use a tab for {@code TSV} reports.
+     */
+    public Builder delimiter(char delimiter) {
+      Preconditions.checkArgument(delimiter != '"' && delimiter != '\r' && delimiter != '\n',
+          "Invalid delimiter: %s", delimiter);
+      this.delimiter = delimiter;
+      return this;
+    }
+
+    /**
+     * Selects the columns to keep, in the order of their indexes in each row. Defaults to all
+     * columns of the report, in the order of the column header.
+     */
+    public Builder columns(String... columns) {
+      Preconditions.checkNotNull(columns, "Null columns");
+      Preconditions.checkArgument(columns.length > 0, "No columns");
+      Preconditions.checkArgument(ImmutableSet.copyOf(columns).size() == columns.length,
+          "Duplicate columns: %s", Arrays.toString(columns));
+      this.columns = ImmutableList.copyOf(columns);
+      return this;
+    }
+
+    /**
+     * Builds a new {@link ReportRowReader} and reads the column header of the report.
+     *
+     * @param reader the contents of the report. Closed when the row reader is closed.
+     * @throws IOException if unable to read the column header
+     * @throws IllegalArgumentException if the report has no column header, or lacks a selected
+     *     column
+     */
+    public ReportRowReader build(Reader reader) throws IOException {
+      Preconditions.checkNotNull(reader, "Null reader");
+      ReportRowReader rowReader = new ReportRowReader(reader, delimiter);
+      try {
+        rowReader.readHeader(columns);
+      } catch (IOException | RuntimeException e) {
+        reader.close();
+        throw e;
+      }
+      return rowReader;
+    }
+  }
+}
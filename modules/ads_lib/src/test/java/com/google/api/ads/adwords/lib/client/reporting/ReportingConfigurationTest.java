@@ -14,6 +14,7 @@
 
 package com.google.api.ads.adwords.lib.client.reporting;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
@@ -132,6 +133,32 @@ public class ReportingConfigurationTest {
         config2.isSkipReportHeader());
   }
 
+  @Test
+  public void testWithOverrides() {
+    ReportingConfiguration base =
+        new Builder()
+            .skipReportHeader(true)
+            .skipColumnHeader(false)
+            .useRawEnumValues(true)
+            .reportDownloadTimeout(60_000)
+            .build();
+    ReportingConfiguration overrides =
+        new Builder().skipReportHeader(false).skipReportSummary(true).reportDownloadTimeout(5)
+            .build();
+
+    ReportingConfiguration merged = base.withOverrides(overrides);
+    assertFalse(merged.isSkipReportHeader());
+    assertFalse(merged.isSkipColumnHeader());
+    assertTrue(merged.isSkipReportSummary());
+    assertNull(merged.isIncludeZeroImpressions());
+    assertTrue(merged.isUseRawEnumValues());
+    assertEquals(Integer.valueOf(5), merged.getReportDownloadTimeout());
+
+    assertTrue("Overriding with null should leave the options unchanged",
+        base.withOverrides(null).isSkipReportHeader());
+    assertTrue("The base configuration should not be mutated", base.isSkipReportHeader());
+  }
+
   @Test
   public void testValidate_nullVersion_succeeds() {
     ReportingConfiguration config =
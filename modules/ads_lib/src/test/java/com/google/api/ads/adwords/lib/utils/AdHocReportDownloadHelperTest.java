@@ -19,11 +19,18 @@ import static org.hamcrest.Matchers.containsString;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.api.ads.adwords.lib.client.AdWordsSession;
 import com.google.api.ads.adwords.lib.utils.DetailedReportDownloadResponseException.Builder;
 import com.google.api.ads.adwords.lib.utils.ReportRequest.RequestType;
+import com.google.api.ads.adwords.lib.utils.logging.ReportDownloadMetrics;
+import com.google.api.ads.adwords.lib.utils.logging.ReportDownloadMetricsListener;
+import com.google.api.ads.adwords.lib.utils.logging.ReportServiceLogger;
 import com.google.api.ads.adwords.lib.utils.testing.GenericAdWordsServices;
 import com.google.api.ads.common.lib.testing.MockHttpIntegrationTest;
 import com.google.api.ads.common.lib.testing.TestPortFinder;
@@ -46,6 +53,7 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -66,6 +74,7 @@ public class AdHocReportDownloadHelperTest extends MockHttpIntegrationTest {
           + "</reportDownloadError>";
 
   private final boolean isTestRawDownload;
+  private AdWordsSession session;
   private AdHocReportDownloadHelper helper;
   private GoogleCredential credential;
   private Builder exceptionBuilder;
@@ -106,7 +115,7 @@ public class AdHocReportDownloadHelperTest extends MockHttpIntegrationTest {
         .setJsonFactory(new JacksonFactory()).build();
     credential.setAccessToken("TEST_ACCESS_TOKEN");
 
-    AdWordsSession session = new AdWordsSession.Builder()
+    session = new AdWordsSession.Builder()
         .withUserAgent("TEST_APP")
         .withOAuth2Credential(credential)
         .withEndpoint(testHttpServer.getServerUrl())
@@ -370,6 +379,91 @@ public class AdHocReportDownloadHelperTest extends MockHttpIntegrationTest {
     assertThat("format parameter incorrect", lastRequestBody, containsString("__fmt=CSV"));
   }
   
+  /**
+   * Tests that the metrics of a download are logged once its contents are read to the end.
+   */
+  @Test
+  public void testDownloadReport_logsMetrics() throws Exception {
+    when(reportRequest.getRequestType()).thenReturn(RequestType.AWQL);
+    when(reportRequest.getReportRequestString()).thenReturn(
+        "SELECT CampaignId FROM CAMPAIGN_PERFORMANCE_REPORT DURING THIS_MONTH");
+    testHttpServer.setMockResponseBody("test");
+    ReportDownloadMetricsListener listener = mock(ReportDownloadMetricsListener.class);
+
+    ReportServiceLogger.addMetricsListener(listener);
+    try {
+      InputStream contents = isTestRawDownload
+          ? helper.downloadReport(reportRequest).getInputStream()
+          : helper.downloadReport(reportRequest, exceptionBuilder).getInputStream();
+      verify(listener, never()).onReportDownloaded(Mockito.any(ReportDownloadMetrics.class));
+      assertEquals("test", Streams.readAll(contents, REPORT_CHARSET));
+    } finally {
+      ReportServiceLogger.removeMetricsListener(listener);
+    }
+
+    ArgumentCaptor<ReportDownloadMetrics> metrics =
+        ArgumentCaptor.forClass(ReportDownloadMetrics.class);
+    verify(listener).onReportDownloaded(metrics.capture());
+    assertEquals("CAMPAIGN_PERFORMANCE_REPORT", metrics.getValue().getReportType());
+    assertEquals("CSV", metrics.getValue().getDownloadFormat());
+    assertEquals(200, metrics.getValue().getHttpStatus());
+    assertEquals("TEST_CLIENT_CUSTOMER_ID", metrics.getValue().getClientCustomerId());
+    assertEquals(0, metrics.getValue().getRetryCount());
+    assertEquals(4, metrics.getValue().getBytes());
+    assertEquals(ReportDownloadMetrics.UNKNOWN_ROWS, metrics.getValue().getRows());
+    assertTrue(metrics.getValue().isComplete());
+    assertThat(metrics.getValue().getDownloadTimeMillis(),
+        Matchers.greaterThanOrEqualTo(metrics.getValue().getTimeToFirstByteMillis()));
+  }
+
+  /**
+   * Tests that the attempt passed to a {@link SharedReportDownloadHelper} determines the retry
+   * count of the metrics of the download.
+   */
+  @Test
+  public void testDownloadReport_retryCount() throws Exception {
+    when(reportRequest.getRequestType()).thenReturn(RequestType.AWQL);
+    when(reportRequest.getReportRequestString()).thenReturn(
+        "SELECT CampaignId FROM CAMPAIGN_PERFORMANCE_REPORT DURING THIS_MONTH");
+    testHttpServer.setMockResponseBody("test");
+    ReportDownloadMetricsListener listener = mock(ReportDownloadMetricsListener.class);
+    SharedReportDownloadHelper sharedHelper = new GenericAdWordsServices()
+        .getBootstrapper()
+        .getInstanceOf(session, SharedReportDownloadHelper.class);
+
+    ReportServiceLogger.addMetricsListener(listener);
+    try {
+      sharedHelper.downloadReport(session, reportRequest, null, exceptionBuilder, 3)
+          .getInputStream().close();
+    } finally {
+      ReportServiceLogger.removeMetricsListener(listener);
+    }
+
+    ArgumentCaptor<ReportDownloadMetrics> metrics =
+        ArgumentCaptor.forClass(ReportDownloadMetrics.class);
+    verify(listener).onReportDownloaded(metrics.capture());
+    assertEquals(2, metrics.getValue().getRetryCount());
+  }
+
+  @Test
+  public void testGetReportType() {
+    when(reportRequest.getRequestType()).thenReturn(RequestType.XML);
+    when(reportRequest.getReportRequestString()).thenReturn(
+        "<reportDefinition><reportType>AD_PERFORMANCE_REPORT</reportType></reportDefinition>");
+    assertEquals("AD_PERFORMANCE_REPORT",
+        AdHocReportDownloadHelperImpl.getReportType(reportRequest));
+
+    when(reportRequest.getRequestType()).thenReturn(RequestType.AWQL);
+    when(reportRequest.getReportRequestString()).thenReturn(
+        "SELECT Id from KEYWORDS_PERFORMANCE_REPORT");
+    assertEquals("KEYWORDS_PERFORMANCE_REPORT",
+        AdHocReportDownloadHelperImpl.getReportType(reportRequest));
+
+    when(reportRequest.getReportRequestString()).thenReturn("SELECT Id");
+    assertEquals(ReportDownloadMetrics.UNKNOWN_REPORT_TYPE,
+        AdHocReportDownloadHelperImpl.getReportType(reportRequest));
+  }
+
   @Test
   public void testHandleSuccessfulResponse() throws Exception {
     String responseBody = "Successful,report,response";
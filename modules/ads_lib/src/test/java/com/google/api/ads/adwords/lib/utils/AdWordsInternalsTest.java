@@ -15,6 +15,7 @@
 package com.google.api.ads.adwords.lib.utils;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import com.google.api.ads.common.lib.utils.Internals;
@@ -45,4 +46,12 @@ public class AdWordsInternalsTest {
     assertFalse(userAgent.contains("DfpApi"));
   }
 
+  /**
+   * Test method for {@link AdWordsInternals#getSharedReportDownloadHelper()}.
+   */
+  @Test
+  public void testGetSharedReportDownloadHelper() {
+    assertNotNull(AdWordsInternals.getInstance().getSharedReportDownloadHelper());
+  }
+
 }
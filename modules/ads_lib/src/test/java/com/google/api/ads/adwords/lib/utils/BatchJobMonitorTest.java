@@ -0,0 +1,343 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.api.ads.adwords.lib.utils.BatchJobMonitor.BatchJobState;
+import com.google.api.ads.adwords.lib.utils.BatchJobMonitor.BatchJobStatusCheck;
+import com.google.api.ads.adwords.lib.utils.BatchJobMonitor.PollSchedule;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@link BatchJobMonitor}.
+ */
+@RunWith(JUnit4.class)
+public class BatchJobMonitorTest {
+
+  private static final long MIN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+  private static final long MAX_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(300);
+
+  private FakeStatusCheck statusCheck;
+  private BatchJobMonitor monitor;
+
+  @Before
+  public void setUp() {
+    statusCheck = new FakeStatusCheck();
+    monitor = new BatchJobMonitor.Builder().pollIntervalMillis(1, 10).build();
+  }
+
+  @After
+  public void tearDown() {
+    monitor.shutdown();
+  }
+
+  /**
+   * Tests that batch jobs of the same status check are fetched with a single request per poll
+   * cycle, and that each future is set once its batch job finishes.
+   */
+  @Test
+  public void testWatch_sharedRequests() throws Exception {
+    statusCheck.addStates(1L, BatchJobState.IN_PROGRESS, BatchJobState.DONE);
+    statusCheck.addStates(2L, BatchJobState.IN_PROGRESS, BatchJobState.CANCELED);
+    // Block the executor until both batch jobs are watched, so they are due in the same cycle.
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    final CountDownLatch latch = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        Uninterruptibles.awaitUninterruptibly(latch);
+      }
+    });
+    BatchJobMonitor sharedMonitor =
+        new BatchJobMonitor.Builder().pollIntervalMillis(1, 10).executor(executor).build();
+    ListenableFuture<FakeBatchJob> future1 = sharedMonitor.watch(statusCheck, 1L);
+    ListenableFuture<FakeBatchJob> future2 = sharedMonitor.watch(statusCheck, 2L);
+    latch.countDown();
+
+    FakeBatchJob batchJob1 = future1.get(5, TimeUnit.SECONDS);
+    FakeBatchJob batchJob2 = future2.get(5, TimeUnit.SECONDS);
+    assertEquals(1L, batchJob1.id);
+    assertEquals(BatchJobState.DONE, batchJob1.state);
+    assertEquals(2L, batchJob2.id);
+    assertEquals(BatchJobState.CANCELED, batchJob2.state);
+    assertEquals(0, sharedMonitor.getPendingBatchJobCount());
+    assertEquals(ImmutableSet.of(1L, 2L), ImmutableSet.copyOf(statusCheck.getRequests().get(0)));
+    executor.shutdownNow();
+  }
+
+  /**
+   * Tests that watching the same batch job twice returns the same future.
+   */
+  @Test
+  public void testWatch_sameBatchJob() throws Exception {
+    statusCheck.addStates(1L, BatchJobState.IN_PROGRESS, BatchJobState.DONE);
+    ListenableFuture<FakeBatchJob> future;
+    synchronized (statusCheck) {
+      future = monitor.watch(statusCheck, 1L);
+      assertSame(future, monitor.watch(statusCheck, 1L));
+      assertEquals(1, monitor.getPendingBatchJobCount());
+    }
+    assertEquals(BatchJobState.DONE, future.get(5, TimeUnit.SECONDS).state);
+  }
+
+  /**
+   * Tests that a batch job can be watched again after the previous poll cycles have ended.
+   */
+  @Test
+  public void testWatch_afterFinished() throws Exception {
+    statusCheck.addStates(1L, BatchJobState.DONE);
+    statusCheck.addStates(2L, BatchJobState.IN_PROGRESS, BatchJobState.DONE);
+    assertEquals(1L, monitor.watch(statusCheck, 1L).get(5, TimeUnit.SECONDS).id);
+    assertEquals(2L, monitor.watch(statusCheck, 2L).get(5, TimeUnit.SECONDS).id);
+  }
+
+  /**
+   * Tests that a failed status check fails the futures of the batch jobs it checked.
+   */
+  @Test
+  public void testWatch_statusCheckFails() throws Exception {
+    IOException exception = new IOException("Request failed");
+    statusCheck.setException(exception);
+    try {
+      monitor.watch(statusCheck, 1L).get(5, TimeUnit.SECONDS);
+      fail("Expected an ExecutionException");
+    } catch (ExecutionException e) {
+      assertSame(exception, e.getCause());
+    }
+    assertEquals(0, monitor.getPendingBatchJobCount());
+  }
+
+  /**
+   * Tests that a status check failing to read a fetched batch job fails the futures of all the
+   * batch jobs it checked.
+   */
+  @Test
+  public void testWatch_statusCheckReadFails() throws Exception {
+    statusCheck.addStates(1L, BatchJobState.IN_PROGRESS);
+    statusCheck.addStates(2L, BatchJobState.IN_PROGRESS);
+    IllegalArgumentException exception = new IllegalArgumentException("Unknown state");
+    statusCheck.setReadException(exception);
+    ListenableFuture<FakeBatchJob> future1;
+    ListenableFuture<FakeBatchJob> future2;
+    synchronized (statusCheck) {
+      future1 = monitor.watch(statusCheck, 1L);
+      future2 = monitor.watch(statusCheck, 2L);
+    }
+    for (ListenableFuture<FakeBatchJob> future : ImmutableList.of(future1, future2)) {
+      try {
+        future.get(5, TimeUnit.SECONDS);
+        fail("Expected an ExecutionException");
+      } catch (ExecutionException e) {
+        assertSame(exception, e.getCause());
+      }
+    }
+    assertEquals(0, monitor.getPendingBatchJobCount());
+  }
+
+  /**
+   * Tests that a batch job missing from the response fails its future.
+   */
+  @Test
+  public void testWatch_notFound() throws Exception {
+    try {
+      monitor.watch(statusCheck, 1L).get(5, TimeUnit.SECONDS);
+      fail("Expected an ExecutionException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  /**
+   * Tests that cancelling a future stops waiting for its batch job.
+   */
+  @Test
+  public void testWatch_cancelled() throws Exception {
+    statusCheck.addStates(1L, BatchJobState.IN_PROGRESS);
+    ListenableFuture<FakeBatchJob> future = monitor.watch(statusCheck, 1L);
+    future.cancel(false);
+    assertEquals(0, monitor.getPendingBatchJobCount());
+  }
+
+  /**
+   * Tests that shutting down the monitor cancels the futures of pending batch jobs.
+   */
+  @Test
+  public void testShutdown() throws Exception {
+    statusCheck.addStates(1L, BatchJobState.IN_PROGRESS);
+    ListenableFuture<FakeBatchJob> future = monitor.watch(statusCheck, 1L);
+    monitor.shutdown();
+    assertTrue(future.isCancelled());
+    assertEquals(0, monitor.getPendingBatchJobCount());
+  }
+
+  /**
+   * Tests that the interval doubles while the progress of a batch job is unknown.
+   */
+  @Test
+  public void testPollSchedule_noProgress() {
+    PollSchedule schedule = new PollSchedule(MIN_INTERVAL_NANOS, MAX_INTERVAL_NANOS, 0);
+    assertEquals(0, schedule.getNextPollNanos());
+    long nowNanos = 0;
+    long expectedIntervalNanos = MIN_INTERVAL_NANOS;
+    for (int i = 0; i < 10; i++) {
+      schedule.update(null, nowNanos);
+      assertEquals(nowNanos + expectedIntervalNanos, schedule.getNextPollNanos());
+      nowNanos = schedule.getNextPollNanos();
+      expectedIntervalNanos = Math.min(MAX_INTERVAL_NANOS, expectedIntervalNanos * 2);
+    }
+  }
+
+  /**
+   * Tests that the interval is based on the estimated remaining time once progress is made.
+   */
+  @Test
+  public void testPollSchedule_progress() {
+    PollSchedule schedule = new PollSchedule(MIN_INTERVAL_NANOS, MAX_INTERVAL_NANOS, 0);
+    schedule.update(0, 0);
+    assertEquals(MIN_INTERVAL_NANOS, schedule.getNextPollNanos());
+
+    // 10% per 20 seconds leaves 180 seconds for the remaining 90%, so check again in 90 seconds.
+    long nowNanos = TimeUnit.SECONDS.toNanos(20);
+    schedule.update(10, nowNanos);
+    assertEquals(nowNanos + TimeUnit.SECONDS.toNanos(90), schedule.getNextPollNanos());
+
+    // 80% in the next 10 seconds leaves almost no remaining time, so use the minimum interval.
+    nowNanos += TimeUnit.SECONDS.toNanos(10);
+    schedule.update(90, nowNanos);
+    assertEquals(nowNanos + MIN_INTERVAL_NANOS, schedule.getNextPollNanos());
+  }
+
+  /**
+   * Tests that the interval never exceeds the maximum for slow batch jobs.
+   */
+  @Test
+  public void testPollSchedule_slowProgress() {
+    PollSchedule schedule = new PollSchedule(MIN_INTERVAL_NANOS, MAX_INTERVAL_NANOS, 0);
+    schedule.update(0, 0);
+    long nowNanos = TimeUnit.HOURS.toNanos(1);
+    schedule.update(1, nowNanos);
+    assertEquals(nowNanos + MAX_INTERVAL_NANOS, schedule.getNextPollNanos());
+  }
+
+  /**
+   * Tests that the builder rejects invalid poll intervals.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testBuilder_invalidPollIntervals() {
+    new BatchJobMonitor.Builder().pollIntervalMillis(10, 1);
+  }
+
+  /** A batch job returned by {@link FakeStatusCheck}. */
+  private static class FakeBatchJob {
+    private final long id;
+    private final BatchJobState state;
+
+    private FakeBatchJob(long id, BatchJobState state) {
+      this.id = id;
+      this.state = state;
+    }
+  }
+
+  /**
+   * Returns the next of the states added for each batch job, repeating the last one. Requests are
+   * made while holding the lock on this object, so tests can delay them.
+   */
+  private static class FakeStatusCheck implements BatchJobStatusCheck<FakeBatchJob> {
+    private final Map<Long, Queue<BatchJobState>> states = Maps.newHashMap();
+    private final List<Collection<Long>> requests = Lists.newArrayList();
+    private Exception exception;
+    private RuntimeException readException;
+
+    synchronized void addStates(long batchJobId, BatchJobState... batchJobStates) {
+      Queue<BatchJobState> queue = new LinkedList<BatchJobState>();
+      Collections.addAll(queue, batchJobStates);
+      states.put(batchJobId, queue);
+    }
+
+    synchronized void setException(Exception exception) {
+      this.exception = exception;
+    }
+
+    synchronized void setReadException(RuntimeException readException) {
+      this.readException = readException;
+    }
+
+    synchronized List<Collection<Long>> getRequests() {
+      return ImmutableList.copyOf(requests);
+    }
+
+    @Override
+    public synchronized List<FakeBatchJob> getBatchJobs(Collection<Long> batchJobIds)
+        throws Exception {
+      requests.add(ImmutableList.copyOf(batchJobIds));
+      if (exception != null) {
+        throw exception;
+      }
+      List<FakeBatchJob> batchJobs = Lists.newArrayList();
+      for (Long batchJobId : batchJobIds) {
+        Queue<BatchJobState> queue = states.get(batchJobId);
+        if (queue != null) {
+          BatchJobState state = queue.size() > 1 ? queue.remove() : queue.peek();
+          batchJobs.add(new FakeBatchJob(batchJobId, state));
+        }
+      }
+      return batchJobs;
+    }
+
+    @Override
+    public long getId(FakeBatchJob batchJob) {
+      return batchJob.id;
+    }
+
+    @Override
+    public synchronized BatchJobState getState(FakeBatchJob batchJob) {
+      if (readException != null) {
+        throw readException;
+      }
+      return batchJob.state;
+    }
+
+    @Override
+    public Integer getEstimatedPercentExecuted(FakeBatchJob batchJob) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,264 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+import com.google.api.ads.adwords.lib.client.AdWordsSession;
+import com.google.api.ads.adwords.lib.utils.StreamingBatchJobUploader.RequestFactory;
+import com.google.api.ads.adwords.lib.utils.logging.BatchJobLogger;
+import com.google.api.ads.common.lib.testing.ActualResponse;
+import com.google.api.ads.common.lib.testing.MockHttpServer;
+import com.google.api.ads.common.lib.testing.MockResponse;
+import com.google.api.client.http.ByteArrayContent;
+import com.google.common.base.Strings;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Tests for {@link BatchJobUploadPipeline}.
+ */
+@RunWith(JUnit4.class)
+public class BatchJobUploadPipelineTest {
+  private static final String START_ELEMENT = "<mutate xmlns=\"https://example.com/cm\">";
+  private static final String END_ELEMENT = "</mutate>";
+  private static final int INCREMENT = BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT;
+
+  @Mock private AdWordsSession adWordsSession;
+  @Mock private BatchJobLogger batchJobLogger;
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private MockHttpServer mockHttpServer;
+  private BatchJobUploader uploader;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    mockHttpServer = new MockHttpServer();
+    uploader =
+        new BatchJobUploader(adWordsSession, mockHttpServer.getHttpTransport(), batchJobLogger);
+  }
+
+  /**
+   * Tests that a lazily produced sequence of operations is uploaded as aligned chunks that
+   * together form a single mutate element.
+   */
+  @Test
+  public void testUpload_multipleChunks() throws Exception {
+    mockResponses(5);
+    final String operation = Strings.repeat("x", 1000);
+    Iterable<String> operations = new Iterable<String>() {
+      @Override
+      public Iterator<String> iterator() {
+        return new AbstractIterator<String>() {
+          private int count;
+
+          @Override
+          protected String computeNext() {
+            return count++ < 600 ? operation : endOfData();
+          }
+        };
+      }
+    };
+
+    BatchJobUploadResponse response =
+        uploader.createUploadPipelineBuilder(new TestRequestFactory())
+            .withChunkSize(1)
+            .withOperationsPerRequest(7)
+            .build()
+            .upload(operations, newUploadStatus(0));
+
+    List<ActualResponse> requests = mockHttpServer.getAllResponses();
+    assertEquals("start", requests.get(0).getRequestHeader("x-goog-resumable").get(0));
+    StringBuilder expectedContent = new StringBuilder(START_ELEMENT);
+    for (int i = 0; i < 600; i++) {
+      expectedContent.append("<op>").append(operation).append("</op>");
+    }
+    expectedContent.append(END_ELEMENT);
+    int expectedLength = expectedContent.length();
+    assertEquals("Should have initiated the upload and made one request per chunk",
+        2 + expectedLength / INCREMENT, requests.size());
+
+    StringBuilder actualContent = new StringBuilder();
+    for (int i = 1; i < requests.size(); i++) {
+      String body = requests.get(i).getRequestBody();
+      if (i < requests.size() - 1) {
+        assertEquals("Chunk " + i + " length is not aligned", 0, body.length() % INCREMENT);
+        assertEquals(
+            String.format("bytes %d-%d/*", actualContent.length(),
+                actualContent.length() + body.length() - 1),
+            requests.get(i).getRequestHeader("content-range").get(0));
+      }
+      actualContent.append(body);
+    }
+    assertEquals("Concatenated chunks are incorrect",
+        expectedContent.toString(), actualContent.toString());
+    assertEquals(
+        String.format("bytes %d-%d/%d",
+            INCREMENT * (requests.size() - 2), expectedLength - 1, expectedLength),
+        mockHttpServer.getLastResponse().getRequestHeader("content-range").get(0));
+    assertEquals(expectedLength, response.getBatchJobUploadStatus().getTotalContentLength());
+  }
+
+  /**
+   * Tests that a resumed upload is not initiated again and omits the start element.
+   */
+  @Test
+  public void testUpload_resumed() throws Exception {
+    mockResponses(1);
+    BatchJobUploadResponse response =
+        uploader.createUploadPipelineBuilder(new TestRequestFactory())
+            .build()
+            .upload(
+                ImmutableList.of("a", "b"),
+                newUploadStatus(INCREMENT));
+
+    assertEquals(1, mockHttpServer.getAllResponses().size());
+    assertEquals("<op>a</op><op>b</op>" + END_ELEMENT,
+        mockHttpServer.getLastResponse().getRequestBody());
+    assertEquals(INCREMENT + 29, response.getBatchJobUploadStatus().getTotalContentLength());
+  }
+
+  @Test
+  public void testUpload_noOperations() throws Exception {
+    mockResponses(2);
+    uploader.createUploadPipelineBuilder(new TestRequestFactory())
+        .build()
+        .upload(
+            Collections.<String>emptyList(),
+            newUploadStatus(0));
+    assertEquals(START_ELEMENT.replace(">", "/>"),
+        mockHttpServer.getLastResponse().getRequestBody());
+  }
+
+  /**
+   * Tests that a failure while producing operations is propagated to the caller.
+   */
+  @Test
+  public void testUpload_operationsFail_fails() throws Exception {
+    mockResponses(1);
+    final IllegalStateException failure = new IllegalStateException("mock failure");
+    Iterable<String> operations = new Iterable<String>() {
+      @Override
+      public Iterator<String> iterator() {
+        throw failure;
+      }
+    };
+    thrown.expect(Matchers.sameInstance(failure));
+    uploader.createUploadPipelineBuilder(new TestRequestFactory())
+        .build()
+        .upload(operations, newUploadStatus(0));
+  }
+
+  /**
+   * Tests that a failed upload is propagated to the caller.
+   */
+  @Test
+  public void testUpload_uploadFails_fails() throws Exception {
+    mockHttpServer.setMockResponses(
+        Lists.newArrayList(new MockResponse("ignore"), new MockResponse("error", 500)));
+    thrown.expect(BatchJobException.class);
+    uploader.createUploadPipelineBuilder(new TestRequestFactory())
+        .build()
+        .upload(
+            ImmutableList.of("a"),
+            newUploadStatus(0));
+  }
+
+  @Test
+  public void testBuilder_invalidOperationsPerRequest_fails() {
+    thrown.expect(IllegalArgumentException.class);
+    uploader.createUploadPipelineBuilder(new TestRequestFactory()).withOperationsPerRequest(0);
+  }
+
+  private BatchJobUploadStatus newUploadStatus(long totalContentLength) {
+    return new BatchJobUploadStatus(totalContentLength, URI.create(mockHttpServer.getServerUrl()));
+  }
+
+  private void mockResponses(int count) {
+    List<MockResponse> responses = Lists.newArrayList();
+    for (int i = 0; i < count; i++) {
+      responses.add(new MockResponse("testUploadResponse"));
+    }
+    mockHttpServer.setMockResponses(responses);
+  }
+
+  /** Creates requests whose operations are strings serialized as {@code op} elements. */
+  private static class TestRequestFactory implements RequestFactory<String> {
+    @Override
+    public BatchJobMutateRequestInterface createRequest(Iterable<? extends String> operations) {
+      return new TestRequest(ImmutableList.copyOf(operations));
+    }
+  }
+
+  private static class TestRequest implements BatchJobMutateRequestInterface {
+    private final List<String> operations;
+
+    TestRequest(List<String> operations) {
+      this.operations = operations;
+    }
+
+    @Override
+    public BatchJobUploadBodyProvider createBatchJobUploadBodyProvider() {
+      return new StreamingBatchJobUploadBodyProvider() {
+        @Override
+        public ByteArrayContent getHttpContent(BatchJobMutateRequestInterface request,
+            boolean isFirstRequest, boolean isLastRequest) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void writeHttpContent(BatchJobMutateRequestInterface request,
+            OutputStream outputStream) throws BatchJobException {
+          List<String> operations = ((TestRequest) request).operations;
+          StringBuilder builder = new StringBuilder();
+          if (operations.isEmpty()) {
+            builder.append(START_ELEMENT.replace(">", "/>"));
+          } else {
+            builder.append(START_ELEMENT);
+            for (String operation : operations) {
+              builder.append("<op>").append(operation).append("</op>");
+            }
+            builder.append(END_ELEMENT);
+          }
+          try {
+            outputStream.write(builder.toString().getBytes(UTF_8));
+          } catch (IOException e) {
+            throw new BatchJobException("Failed to write content", e);
+          }
+        }
+      };
+    }
+  }
+}
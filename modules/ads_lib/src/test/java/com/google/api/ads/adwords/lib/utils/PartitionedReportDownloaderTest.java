@@ -0,0 +1,292 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.api.ads.adwords.lib.client.AdWordsSession;
+import com.google.api.ads.adwords.lib.client.reporting.ReportingConfiguration;
+import com.google.api.ads.adwords.lib.utils.PartitionedReportDownloader.DateRangeReport;
+import com.google.api.ads.adwords.lib.utils.PartitionedReportDownloader.PartitionSize;
+import com.google.api.client.auth.oauth2.BearerToken;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@link PartitionedReportDownloader}.
+ */
+@RunWith(JUnit4.class)
+public class PartitionedReportDownloaderTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private AdWordsSession session;
+  private PartitionedReportDownloader.Builder downloaderBuilder;
+
+  @After
+  public void tearDown() {
+    DateTimeUtils.setCurrentMillisSystem();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    session = new AdWordsSession.Builder()
+        .withDeveloperToken("developer token")
+        .withEndpoint("https://www.google.com")
+        .withOAuth2Credential(new Credential(BearerToken.authorizationHeaderAccessMethod()))
+        .withUserAgent("user agent")
+        .withClientCustomerId("123-456-7890")
+        .build();
+    downloaderBuilder = new PartitionedReportDownloader.Builder()
+        .cacheDirectory(tempFolder.getRoot())
+        .maxConcurrentDownloads(2);
+  }
+
+  @Test
+  public void testDownload_mergesDailyPartitions() throws Exception {
+    DayReport report = new DayReport("CSV");
+    PartitionedReportDownloader downloader = downloaderBuilder.build();
+
+    ReportRowReader rows = downloader.download(
+        session, report, new LocalDate(2017, 1, 30), new LocalDate(2017, 2, 1));
+    try {
+      assertEquals(ImmutableList.of("Day", "Clicks"), rows.getColumnNames());
+      assertEquals(ImmutableList.of("20170130", "20170131", "20170201"), readDays(rows));
+    } finally {
+      rows.close();
+    }
+    Collections.sort(report.downloads);
+    assertEquals(ImmutableList.of("20170130-20170130", "20170131-20170131", "20170201-20170201"),
+        report.downloads);
+  }
+
+  @Test
+  public void testDownload_weeklyPartitions() throws Exception {
+    DayReport report = new DayReport("GZIPPED_CSV");
+    PartitionedReportDownloader downloader =
+        downloaderBuilder.partitionSize(PartitionSize.WEEK).build();
+
+    ReportRowReader rows = downloader.download(
+        session, report, new LocalDate(2017, 10, 4), new LocalDate(2017, 10, 17));
+    try {
+      assertEquals(14, readDays(rows).size());
+    } finally {
+      rows.close();
+    }
+    Collections.sort(report.downloads);
+    assertEquals(ImmutableList.of("20171004-20171008", "20171009-20171015", "20171016-20171017"),
+        report.downloads);
+  }
+
+  /**
+   * Tests that only partitions that are not cached, or are recent, are downloaded again.
+   */
+  @Test
+  public void testDownload_cachedPartitions() throws Exception {
+    DayReport report = new DayReport("TSV");
+    PartitionedReportDownloader downloader = downloaderBuilder.refreshDays(1).build();
+    LocalDate today = LocalDate.now();
+
+    downloader.download(session, report, today.minusDays(4), today.minusDays(1)).close();
+    assertEquals(4, report.downloads.size());
+    report.downloads.clear();
+
+    ReportRowReader rows = downloader.download(session, report, today.minusDays(5), today);
+    try {
+      assertEquals(6, readDays(rows).size());
+    } finally {
+      rows.close();
+    }
+    Collections.sort(report.downloads);
+    List<String> expectedDownloads = Lists.newArrayList();
+    for (LocalDate day : ImmutableList.of(
+        today.minusDays(5), today.minusDays(1), today)) {
+      String date = PartitionedReportDownloader.DATE_FORMAT.print(day);
+      expectedDownloads.add(date + "-" + date);
+    }
+    assertEquals(expectedDownloads, report.downloads);
+
+    report.downloads.clear();
+    AdWordsSession otherSession = session.newBuilder().withClientCustomerId("111").build();
+    downloader.download(otherSession, report, today.minusDays(4), today.minusDays(4)).close();
+    assertEquals("Partitions of other client customers should not be read from the cache",
+        1, report.downloads.size());
+  }
+
+  /**
+   * Tests that the date of today, which determines the partitions to refresh, is the date in the
+   * time zone of the downloader.
+   */
+  @Test
+  public void testDownload_timeZone() throws Exception {
+    // 2017-10-18 in UTC+14, 2017-10-17 in UTC-12.
+    DateTimeUtils.setCurrentMillisFixed(new DateTime(2017, 10, 17, 12, 0, DateTimeZone.UTC)
+        .getMillis());
+    LocalDate day = new LocalDate(2017, 10, 17);
+    DayReport report = new DayReport("CSV");
+
+    PartitionedReportDownloader aheadDownloader = downloaderBuilder.refreshDays(0)
+        .timeZone(DateTimeZone.forOffsetHours(14))
+        .build();
+    aheadDownloader.download(session, report, day, day).close();
+    aheadDownloader.download(session, report, day, day).close();
+    assertEquals("Yesterday's partition should be read from the cache",
+        1, report.downloads.size());
+
+    report.downloads.clear();
+    PartitionedReportDownloader behindDownloader = downloaderBuilder
+        .timeZone(DateTimeZone.forOffsetHours(-12))
+        .build();
+    behindDownloader.download(session, report, day, day).close();
+    assertEquals("Today's partition should be downloaded again", 1, report.downloads.size());
+  }
+
+  @Test
+  public void testDownload_failure() throws Exception {
+    DayReport report = new DayReport("CSV");
+    report.failedDate = "20170102";
+    PartitionedReportDownloader downloader = downloaderBuilder.build();
+
+    try {
+      downloader.download(session, report, new LocalDate(2017, 1, 1), new LocalDate(2017, 1, 3));
+      fail("Expected the failure of the partition to be thrown");
+    } catch (ReportDownloadResponseException e) {
+      assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, e.getHttpStatus());
+    }
+
+    report.failedDate = null;
+    report.downloads.clear();
+    downloader.download(session, report, new LocalDate(2017, 1, 1), new LocalDate(2017, 1, 3))
+        .close();
+    assertEquals("Only the failed partition should be downloaded again",
+        ImmutableList.of("20170102-20170102"), report.downloads);
+  }
+
+  @Test
+  public void testDownload_unsupportedFormat() throws Exception {
+    PartitionedReportDownloader downloader = downloaderBuilder.build();
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("XML");
+    downloader.download(
+        session, new DayReport("XML"), new LocalDate(2017, 1, 1), new LocalDate(2017, 1, 3));
+  }
+
+  @Test
+  public void testBuild_noCacheDirectory() {
+    thrown.expect(IllegalStateException.class);
+    new PartitionedReportDownloader.Builder().build();
+  }
+
+  private static List<String> readDays(ReportRowReader rows) throws IOException {
+    List<String> days = Lists.newArrayList();
+    while (rows.next()) {
+      assertEquals(1, rows.getLong("Clicks"));
+      days.add(rows.getString("Day"));
+    }
+    return days;
+  }
+
+  /**
+   * Report with a row for each day of the date range, which records the date ranges it was
+   * downloaded for.
+   */
+  private static class DayReport implements DateRangeReport {
+    private final String downloadFormat;
+    private final List<String> downloads =
+        Collections.synchronizedList(Lists.<String>newArrayList());
+    private volatile String failedDate;
+
+    private DayReport(String downloadFormat) {
+      this.downloadFormat = downloadFormat;
+    }
+
+    @Override
+    public String getCacheKey() {
+      return "SELECT Date, Clicks FROM ACCOUNT_PERFORMANCE_REPORT";
+    }
+
+    @Override
+    public String getDownloadFormat() {
+      return downloadFormat;
+    }
+
+    @Override
+    public ReportDownloadResponse download(AdWordsSession session, String startDate,
+        String endDate, ReportingConfiguration overrides) throws ReportDownloadResponseException {
+      assertTrue(overrides.isSkipReportHeader());
+      assertFalse(overrides.isSkipColumnHeader());
+      assertTrue(overrides.isSkipReportSummary());
+      if (startDate.equals(failedDate)) {
+        throw new ReportDownloadResponseException(HttpURLConnection.HTTP_BAD_REQUEST);
+      }
+      downloads.add(startDate + "-" + endDate);
+      String delimiter = downloadFormat.endsWith("TSV") ? "\t" : ",";
+      StringBuilder contents = new StringBuilder("Day" + delimiter + "Clicks\n");
+      LocalDate end = PartitionedReportDownloader.DATE_FORMAT.parseLocalDate(endDate);
+      for (LocalDate day = PartitionedReportDownloader.DATE_FORMAT.parseLocalDate(startDate);
+          !day.isAfter(end); day = day.plusDays(1)) {
+        contents.append(PartitionedReportDownloader.DATE_FORMAT.print(day))
+            .append(delimiter).append("1\n");
+      }
+      byte[] bytes = contents.toString().getBytes(UTF_8);
+      if (downloadFormat.startsWith("GZIPPED_")) {
+        bytes = gzip(bytes);
+      }
+      return new ReportDownloadResponse(new RawReportDownloadResponse(HttpURLConnection.HTTP_OK,
+          new ByteArrayInputStream(bytes), UTF_8, downloadFormat));
+    }
+  }
+
+  private static byte[] gzip(byte[] bytes) {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      GZIPOutputStream gzipOut = new GZIPOutputStream(out);
+      gzipOut.write(bytes);
+      gzipOut.close();
+      return out.toByteArray();
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
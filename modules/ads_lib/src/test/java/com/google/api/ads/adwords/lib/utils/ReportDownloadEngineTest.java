@@ -0,0 +1,315 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.api.ads.adwords.lib.client.AdWordsSession;
+import com.google.api.ads.adwords.lib.utils.ReportDownloadEngine.ReportDownload;
+import com.google.api.ads.adwords.lib.utils.ReportDownloadEngine.ReportDownloadListener;
+import com.google.api.ads.adwords.lib.utils.ReportDownloadEngine.ReportSink;
+import com.google.api.client.auth.oauth2.BearerToken;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.util.BackOff;
+import com.google.api.client.util.Sleeper;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@link ReportDownloadEngine}.
+ */
+@RunWith(JUnit4.class)
+public class ReportDownloadEngineTest {
+
+  private static final List<String> CLIENT_CUSTOMER_IDS = ImmutableList.of("111", "222", "333");
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private AdWordsSession session;
+  private List<Long> sleeps;
+  private ReportDownloadEngine.Builder engineBuilder;
+
+  @Before
+  public void setUp() throws Exception {
+    session = new AdWordsSession.Builder()
+        .withDeveloperToken("developer token")
+        .withEndpoint("https://www.google.com")
+        .withOAuth2Credential(new Credential(BearerToken.authorizationHeaderAccessMethod()))
+        .withUserAgent("user agent")
+        .build();
+    sleeps = Collections.synchronizedList(Lists.<Long>newArrayList());
+    engineBuilder = new ReportDownloadEngine.Builder()
+        .maxConcurrentDownloads(2)
+        .maxAttempts(3)
+        .rateExceededPauseMillis(0)
+        .backOff(Suppliers.<BackOff>ofInstance(BackOff.ZERO_BACKOFF))
+        .sleeper(new Sleeper() {
+          @Override
+          public void sleep(long millis) {
+            sleeps.add(millis);
+          }
+        });
+  }
+
+  @Test
+  public void testDownload_fileSink() throws Exception {
+    File directory = tempFolder.newFolder();
+
+    Map<String, ListenableFuture<File>> results = engineBuilder.build().download(session,
+        CLIENT_CUSTOMER_IDS, new ContentsDownload(), ReportDownloadEngine.fileSink(directory,
+            "report_%s.csv"));
+
+    assertEquals(CLIENT_CUSTOMER_IDS, ImmutableList.copyOf(results.keySet()));
+    for (String clientCustomerId : CLIENT_CUSTOMER_IDS) {
+      File file = results.get(clientCustomerId).get();
+      assertEquals(new File(directory, "report_" + clientCustomerId + ".csv"), file);
+      assertEquals("report for " + clientCustomerId,
+          com.google.common.io.Files.toString(file, UTF_8));
+    }
+  }
+
+  @Test
+  public void testDownload_mergedSink() throws Exception {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    Map<String, ListenableFuture<Long>> results = engineBuilder.build().download(session,
+        CLIENT_CUSTOMER_IDS, new ContentsDownload(), ReportDownloadEngine.mergedSink(outputStream));
+
+    long totalBytes = 0;
+    for (ListenableFuture<Long> result : results.values()) {
+      totalBytes += result.get();
+    }
+    String merged = new String(outputStream.toByteArray(), UTF_8);
+    assertEquals(merged.length(), totalBytes);
+    for (String clientCustomerId : CLIENT_CUSTOMER_IDS) {
+      assertTrue(merged.contains("report for " + clientCustomerId));
+    }
+  }
+
+  @Test
+  public void testDownload_retriesRetryableFailures() throws Exception {
+    final AtomicInteger attempts = new AtomicInteger();
+    final List<Integer> passedAttempts =
+        Collections.synchronizedList(Lists.<Integer>newArrayList());
+    ReportDownload flakyDownload = new ReportDownload() {
+      @Override
+      public ReportDownloadResponse download(AdWordsSession session, int attempt)
+          throws ReportException, ReportDownloadResponseException {
+        passedAttempts.add(attempt);
+        if (attempts.incrementAndGet() == 1) {
+          throw new ReportException("Problem sending data to report download server.",
+              new IOException("connection reset"));
+        }
+        return createResponse("report");
+      }
+    };
+    RecordingListener listener = new RecordingListener();
+
+    Map<String, ListenableFuture<String>> results = engineBuilder.listener(listener).build()
+        .download(session, ImmutableList.of("111"), flakyDownload, new StringSink());
+
+    assertEquals("report", results.get("111").get());
+    assertEquals(2, attempts.get());
+    assertEquals(ImmutableList.of(1, 2), passedAttempts);
+    assertEquals(ImmutableList.of("attemptFailed 111 1", "success 111 2"), listener.events);
+    assertEquals(ImmutableList.of(0L), sleeps);
+  }
+
+  @Test
+  public void testDownload_doesNotRetryBadRequests() throws Exception {
+    final DetailedReportDownloadResponseException badRequest =
+        new DetailedReportDownloadResponseException(HttpURLConnection.HTTP_BAD_REQUEST, "error");
+    badRequest.setType("ReportDefinitionError.INVALID_FIELD_NAME_FOR_REPORT");
+    final AtomicInteger attempts = new AtomicInteger();
+    ReportDownload failingDownload = new ReportDownload() {
+      @Override
+      public ReportDownloadResponse download(AdWordsSession session, int attempt)
+          throws ReportDownloadResponseException {
+        attempts.incrementAndGet();
+        throw badRequest;
+      }
+    };
+    RecordingListener listener = new RecordingListener();
+
+    Map<String, ListenableFuture<String>> results = engineBuilder.listener(listener).build()
+        .download(session, ImmutableList.of("111"), failingDownload, new StringSink());
+
+    try {
+      results.get("111").get();
+      fail("Expected the download to fail");
+    } catch (ExecutionException e) {
+      assertSame(badRequest, e.getCause());
+    }
+    assertEquals(1, attempts.get());
+    assertEquals(ImmutableList.of("failure 111 1"), listener.events);
+  }
+
+  @Test
+  public void testDownload_givesUpAfterMaxAttempts() throws Exception {
+    final AtomicInteger attempts = new AtomicInteger();
+    ReportDownload failingDownload = new ReportDownload() {
+      @Override
+      public ReportDownloadResponse download(AdWordsSession session, int attempt)
+          throws ReportDownloadResponseException {
+        attempts.incrementAndGet();
+        throw new ReportDownloadResponseException(HttpURLConnection.HTTP_UNAVAILABLE);
+      }
+    };
+
+    Map<String, ListenableFuture<String>> results = engineBuilder.build()
+        .download(session, ImmutableList.of("111"), failingDownload, new StringSink());
+
+    try {
+      results.get("111").get();
+      fail("Expected the download to fail");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ReportDownloadResponseException);
+    }
+    assertEquals(3, attempts.get());
+  }
+
+  @Test
+  public void testIsRateExceeded() {
+    DetailedReportDownloadResponseException rateExceeded =
+        new DetailedReportDownloadResponseException(HttpURLConnection.HTTP_BAD_REQUEST, "error");
+    rateExceeded.setType("RateExceededError.RATE_EXCEEDED");
+    DetailedReportDownloadResponseException invalidField =
+        new DetailedReportDownloadResponseException(HttpURLConnection.HTTP_BAD_REQUEST, "error");
+    invalidField.setType("ReportDefinitionError.INVALID_FIELD_NAME_FOR_REPORT");
+
+    assertTrue(ReportDownloadEngine.isRateExceeded(rateExceeded));
+    assertTrue(ReportDownloadEngine.isRetryable(rateExceeded));
+    assertFalse(ReportDownloadEngine.isRateExceeded(invalidField));
+    assertFalse(ReportDownloadEngine.isRetryable(invalidField));
+    assertTrue(ReportDownloadEngine.isRetryable(new IOException()));
+    assertFalse(ReportDownloadEngine.isRetryable(new IllegalStateException()));
+  }
+
+  @Test
+  public void testIsRetryable_reportException() {
+    assertTrue(ReportDownloadEngine.isRetryable(
+        new ReportException("Problem sending data", new IOException())));
+    assertFalse(ReportDownloadEngine.isRetryable(
+        new ReportException("Problem with OAuth authorization.", new IllegalStateException())));
+    assertFalse(ReportDownloadEngine.isRetryable(
+        new ReportException("Created invalid report download URL.",
+            new MalformedURLException())));
+    assertFalse(ReportDownloadEngine.isRetryable(new ReportException("500: Server error")));
+  }
+
+  /**
+   * Tests that the maximum number of concurrent downloads is shared by concurrent calls.
+   */
+  @Test
+  public void testDownload_concurrencySharedByCalls() throws Exception {
+    final AtomicInteger activeDownloads = new AtomicInteger();
+    final AtomicInteger maxActiveDownloads = new AtomicInteger();
+    ReportDownload slowDownload = new ReportDownload() {
+      @Override
+      public ReportDownloadResponse download(AdWordsSession session, int attempt) {
+        int active = activeDownloads.incrementAndGet();
+        synchronized (maxActiveDownloads) {
+          maxActiveDownloads.set(Math.max(maxActiveDownloads.get(), active));
+        }
+        Uninterruptibles.sleepUninterruptibly(20, TimeUnit.MILLISECONDS);
+        activeDownloads.decrementAndGet();
+        return createResponse("report for " + session.getClientCustomerId());
+      }
+    };
+    ReportDownloadEngine engine = engineBuilder.build();
+
+    Map<String, ListenableFuture<String>> firstResults =
+        engine.download(session, CLIENT_CUSTOMER_IDS, slowDownload, new StringSink());
+    Map<String, ListenableFuture<String>> secondResults =
+        engine.download(session, CLIENT_CUSTOMER_IDS, slowDownload, new StringSink());
+    for (String clientCustomerId : CLIENT_CUSTOMER_IDS) {
+      assertEquals("report for " + clientCustomerId, firstResults.get(clientCustomerId).get());
+      assertEquals("report for " + clientCustomerId, secondResults.get(clientCustomerId).get());
+    }
+
+    assertTrue("Too many concurrent downloads: " + maxActiveDownloads.get(),
+        maxActiveDownloads.get() <= 2);
+  }
+
+  private static ReportDownloadResponse createResponse(String contents) {
+    return new ReportDownloadResponse(new RawReportDownloadResponse(HttpURLConnection.HTTP_OK,
+        new ByteArrayInputStream(contents.getBytes(UTF_8)), UTF_8, "CSV"));
+  }
+
+  /**
+   * Download whose contents identify the client customer of the session.
+   */
+  private static class ContentsDownload implements ReportDownload {
+    @Override
+    public ReportDownloadResponse download(AdWordsSession session, int attempt) {
+      return createResponse("report for " + session.getClientCustomerId());
+    }
+  }
+
+  private static class StringSink implements ReportSink<String> {
+    @Override
+    public String accept(String clientCustomerId, ReportDownloadResponse response)
+        throws IOException {
+      return response.getAsString();
+    }
+  }
+
+  private static class RecordingListener implements ReportDownloadListener {
+    private final List<String> events = Collections.synchronizedList(Lists.<String>newArrayList());
+
+    @Override
+    public void onAttemptFailed(
+        String clientCustomerId, int attempt, Exception exception, long retryDelayMillis) {
+      events.add("attemptFailed " + clientCustomerId + " " + attempt);
+    }
+
+    @Override
+    public void onSuccess(String clientCustomerId, int attempts) {
+      events.add("success " + clientCustomerId + " " + attempts);
+    }
+
+    @Override
+    public void onFailure(String clientCustomerId, int attempts, Exception exception) {
+      events.add("failure " + clientCustomerId + " " + attempts);
+    }
+  }
+}
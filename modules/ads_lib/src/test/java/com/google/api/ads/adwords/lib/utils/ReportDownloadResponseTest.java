@@ -15,16 +15,24 @@
 package com.google.api.ads.adwords.lib.utils;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import com.google.api.ads.common.lib.utils.Streams;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.zip.GZIPOutputStream;
 import org.junit.Rule;
 import org.junit.Test;
@@ -112,6 +120,99 @@ public class ReportDownloadResponseTest {
         Streams.readAll(new FileInputStream(outputFile), UTF_8));
   }
 
+  /**
+   * Test method for
+   * {@link com.google.api.ads.adwords.lib.utils.ReportDownloadResponse#saveToFile(String)}
+   * when the file already exists.
+   */
+  @Test
+  public void testSaveToFile_replacesExistingFile() throws IOException {
+    File outputFile = tempFolder.newFile("ReportOutput.csv");
+    Streams.write("old contents that are longer", new FileOutputStream(outputFile), UTF_8);
+    String expectedContents = "a,b,c\nd,e,f\n";
+    ReportDownloadResponse response = createResponse(expectedContents.getBytes(UTF_8), "CSV");
+    response.saveToFile(outputFile.getPath());
+
+    assertEquals("contents saved to file are incorrect", expectedContents,
+        Streams.readAll(new FileInputStream(outputFile), UTF_8));
+    assertEquals("temporary file should be renamed", 1, tempFolder.getRoot().list().length);
+  }
+
+  /**
+   * Test method for
+   * {@link com.google.api.ads.adwords.lib.utils.ReportDownloadResponse#saveToFile(String)}
+   * when the directory of the file does not exist.
+   */
+  @Test
+  public void testSaveToFile_missingDirectory() throws IOException {
+    File outputFile = new File(new File(tempFolder.getRoot(), "missing"), "ReportOutput.csv");
+    ReportDownloadResponse response = createResponse("a,b,c\n".getBytes(UTF_8), "CSV");
+
+    thrown.expect(FileNotFoundException.class);
+    response.saveToFile(outputFile.getPath());
+  }
+
+  /**
+   * Test method for
+   * {@link com.google.api.ads.adwords.lib.utils.ReportDownloadResponse#saveToFile(String)}
+   * when the file is a symbolic link.
+   */
+  @Test
+  public void testSaveToFile_symbolicLink() throws IOException {
+    File targetFile = tempFolder.newFile("ReportTarget.csv");
+    Path linkPath = new File(tempFolder.getRoot(), "ReportOutput.csv").toPath();
+    Files.createSymbolicLink(linkPath, targetFile.toPath());
+    String expectedContents = "a,b,c\nd,e,f\n";
+    createResponse(expectedContents.getBytes(UTF_8), "CSV").saveToFile(linkPath.toString());
+
+    assertTrue("symbolic link should be kept", Files.isSymbolicLink(linkPath));
+    assertEquals("contents saved to file are incorrect", expectedContents,
+        Streams.readAll(new FileInputStream(targetFile), UTF_8));
+  }
+
+  /**
+   * Test method for
+   * {@link com.google.api.ads.adwords.lib.utils.ReportDownloadResponse#saveToFile(String,
+   * boolean)} when response data is compressed.
+   */
+  @Test
+  public void testSaveToFile_gzippedCSV() throws IOException {
+    String expectedContents = "a,b,c\nd,e,f\n";
+    byte[] zippedBytes = gzip(expectedContents);
+
+    File compressedFile = tempFolder.newFile("ReportOutput.csv.gz");
+    createResponse(zippedBytes, "GZIPPED_CSV").saveToFile(compressedFile.getPath(), false);
+    assertArrayEquals("compressed contents saved to file are incorrect", zippedBytes,
+        Files.readAllBytes(compressedFile.toPath()));
+
+    File inflatedFile = tempFolder.newFile("ReportOutput.csv");
+    createResponse(zippedBytes, "GZIPPED_CSV").saveToFile(inflatedFile.getPath(), true);
+    assertEquals("inflated contents saved to file are incorrect", expectedContents,
+        Streams.readAll(new FileInputStream(inflatedFile), UTF_8));
+  }
+
+  /**
+   * Test method for
+   * {@link com.google.api.ads.adwords.lib.utils.ReportDownloadResponse#saveToChannel(FileChannel,
+   * long, boolean)}.
+   */
+  @Test
+  public void testSaveToChannel_positionalWrites() throws IOException {
+    File outputFile = tempFolder.newFile("ReportOutput.csv");
+    FileChannel fileChannel = FileChannel.open(outputFile.toPath(), StandardOpenOption.WRITE);
+    try {
+      assertEquals(4, createResponse("d,e\n".getBytes(UTF_8), "CSV")
+          .saveToChannel(fileChannel, 4, false));
+      assertEquals(4, createResponse(gzip("a,b\n"), "GZIPPED_CSV")
+          .saveToChannel(fileChannel, 0, true));
+      assertEquals("channel position should not change", 0, fileChannel.position());
+    } finally {
+      fileChannel.close();
+    }
+    assertEquals("contents saved to channel are incorrect", "a,b\nd,e\n",
+        Streams.readAll(new FileInputStream(outputFile), UTF_8));
+  }
+
   @Test
   public void testFailedResponse_fails() {
     RawReportDownloadResponse rawResponse = new RawReportDownloadResponse(
@@ -120,4 +221,16 @@ public class ReportDownloadResponseTest {
     thrown.expect(IllegalArgumentException.class);
     new ReportDownloadResponse(rawResponse);
   }
+
+  private static ReportDownloadResponse createResponse(byte[] contents, String downloadFormat) {
+    return new ReportDownloadResponse(new RawReportDownloadResponse(HttpURLConnection.HTTP_OK,
+        new ByteArrayInputStream(contents), UTF_8, downloadFormat));
+  }
+
+  private static byte[] gzip(String contents) throws IOException {
+    ByteArrayOutputStream zippedBytesOut = new ByteArrayOutputStream();
+    Streams.copy(new ByteArrayInputStream(contents.getBytes(UTF_8)),
+        new GZIPOutputStream(zippedBytesOut));
+    return zippedBytesOut.toByteArray();
+  }
 }
@@ -232,6 +232,72 @@ public class ReportRequestFactoryHelperTest {
     }
   }
 
+  /**
+   * Tests that this test's reporting configuration, when passed as per-request overrides to a
+   * helper that is not bound to a session, takes precedence over the session's configuration.
+   */
+  @Test
+  public void testGetHttpRequestFactory_withOverrides()
+      throws ValidationException, AuthenticationException, IOException {
+    final int timeoutFromLibConfig = 42;
+    final int timeoutFromSession = 7;
+    when(adWordsLibConfiguration.getReportDownloadTimeout()).thenReturn(timeoutFromLibConfig);
+    AdWordsSession session =
+        new AdWordsSession.Builder()
+            .withDeveloperToken("foodevtoken")
+            .withClientCustomerId("fooclientcustomerid")
+            .withOAuth2Credential(credential)
+            .withUserAgent("userAgent")
+            .withReportingConfiguration(
+                new ReportingConfiguration.Builder()
+                    .skipReportHeader(true)
+                    .reportDownloadTimeout(timeoutFromSession)
+                    .build())
+            .build();
+    when(authorizationHeaderProvider.getAuthorizationHeader(session, ENDPOINT_URL.build()))
+        .thenReturn("fooauthheader");
+    when(userAgentCombiner.getUserAgent(anyString())).thenReturn("foouseragent");
+    ReportRequestFactoryHelper helper =
+        new ReportRequestFactoryHelper(
+            null,
+            authorizationHeaderProvider,
+            userAgentCombiner,
+            transport,
+            adWordsLibConfiguration,
+            reportResponseInterceptor);
+    HttpRequestFactory requestFactory =
+        helper.getHttpRequestFactory(
+            session, ENDPOINT_URL.build(), version, reportingConfiguration);
+
+    HttpRequest request =
+        requestFactory.buildPostRequest(
+            ENDPOINT_URL, new AwqlReportBodyProvider("select 1", "csv").getHttpContent());
+    HttpHeaders headers = request.getHeaders();
+    assertEquals("fooclientcustomerid", headers.get("clientCustomerId"));
+
+    Boolean expectedSkipReportHeader = true;
+    Integer expectedTimeout = timeoutFromSession;
+    if (reportingConfiguration != null) {
+      if (reportingConfiguration.isSkipReportHeader() != null) {
+        expectedSkipReportHeader = reportingConfiguration.isSkipReportHeader();
+      }
+      if (reportingConfiguration.getReportDownloadTimeout() != null) {
+        expectedTimeout = reportingConfiguration.getReportDownloadTimeout();
+      }
+      assertEquals(
+          "skipColumnHeader not equal to the override",
+          toStringBoolean(reportingConfiguration.isSkipColumnHeader()),
+          headers.get("skipColumnHeader"));
+    }
+    assertEquals(
+        "skipReportHeader not equal to the expected setting",
+        toStringBoolean(expectedSkipReportHeader),
+        headers.get("skipReportHeader"));
+    assertEquals(
+        "connect timeout is incorrect", expectedTimeout.intValue(), request.getConnectTimeout());
+    assertEquals("read timeout is incorrect", expectedTimeout.intValue(), request.getReadTimeout());
+  }
+
   /** @return {@code null} if {@code bool == null}, else returns {@code toString} result. */
   private String toStringBoolean(@Nullable Boolean bool) {
     return bool == null ? null : Boolean.toString(bool);
@@ -0,0 +1,219 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.google.api.ads.adwords.lib.client.reporting.ReportingConfiguration;
+import com.google.api.ads.adwords.lib.utils.logging.ReportDownloadMetrics;
+import com.google.api.ads.adwords.lib.utils.logging.ReportServiceLogger;
+import com.google.api.ads.common.lib.utils.Streams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+/**
+ * Tests for {@link ReportRowReader}.
+ */
+@RunWith(JUnit4.class)
+public class ReportRowReaderTest {
+
+  private static final String CSV_REPORT =
+      "\"CRITERIA_PERFORMANCE_REPORT (Oct 1, 2017-Oct 7, 2017)\"\n"
+          + "Keyword ID,Criterion,Impressions,Cost\n"
+          + "123,\"shoes, red\",10,1.5\n"
+          + "-456,\"say \"\"hi\"\"\nthere\",20,2.25\n"
+          + "Total, --,30,3.75\n";
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void testCsv() throws IOException {
+    ReportRowReader rows = createResponse(CSV_REPORT.getBytes(UTF_8), "CSV").getRowReader();
+
+    assertEquals(Arrays.asList("Keyword ID", "Criterion", "Impressions", "Cost"),
+        rows.getColumnNames());
+    assertTrue(rows.next());
+    assertEquals(4, rows.getFieldCount());
+    assertEquals(123L, rows.getLong("Keyword ID"));
+    assertEquals("shoes, red", rows.getString(1));
+    assertEquals(10L, rows.getLong(rows.getColumnIndex("Impressions")));
+    assertEquals(1.5, rows.getDouble("Cost"), 0);
+    assertTrue(rows.next());
+    assertEquals(-456L, rows.getLong(0));
+    assertEquals("say \"hi\"\nthere", rows.getString("Criterion"));
+    assertFalse("Summary row should be skipped", rows.next());
+    assertFalse(rows.next());
+    rows.close();
+  }
+
+  @Test
+  public void testGzippedCsv_withoutHeadersOrSummary() throws IOException {
+    String report = "1,a\r\n2,b\r\n";
+    ByteArrayOutputStream zippedBytesOut = new ByteArrayOutputStream();
+    Streams.copy(new ByteArrayInputStream(report.getBytes(UTF_8)),
+        new GZIPOutputStream(zippedBytesOut));
+    ReportingConfiguration reportingConfiguration = new ReportingConfiguration.Builder()
+        .skipReportHeader(true)
+        .skipColumnHeader(true)
+        .skipReportSummary(true)
+        .build();
+
+    ReportRowReader rows = createResponse(zippedBytesOut.toByteArray(), "GZIPPED_CSV")
+        .getRowReader(reportingConfiguration);
+
+    assertTrue(rows.getColumnNames().isEmpty());
+    assertTrue(rows.next());
+    assertEquals(1L, rows.getLong(0));
+    assertEquals("a", rows.getString(1));
+    assertTrue(rows.next());
+    assertEquals(2L, rows.getLong(0));
+    assertEquals("b", rows.getString(1));
+    assertFalse(rows.next());
+  }
+
+  @Test
+  public void testTsv() throws IOException {
+    String report = "Name\tClicks\n\"quoted\"\t5\n";
+    ReportingConfiguration reportingConfiguration =
+        new ReportingConfiguration.Builder().skipReportHeader(true).build();
+
+    ReportRowReader rows =
+        createResponse(report.getBytes(UTF_8), "TSV").getRowReader(reportingConfiguration);
+
+    assertTrue(rows.next());
+    assertEquals("\"quoted\"", rows.getString("Name"));
+    assertEquals(5L, rows.getLong("Clicks"));
+    assertFalse("Last row is not a summary row", rows.next());
+  }
+
+  @Test
+  public void testXml() throws IOException {
+    String report = "<?xml version='1.0' encoding='UTF-8' standalone='yes'?>"
+        + "<report><report-name name='CRITERIA_PERFORMANCE_REPORT'/>"
+        + "<table><columns><column name='keywordID' display='Keyword ID'/>"
+        + "<column name='impressions' display='Impressions'/></columns>"
+        + "<row keywordID='123' impressions='10'/>"
+        + "<row impressions='20' keywordID='456'/>"
+        + "</table></report>";
+
+    ReportRowReader rows = createResponse(report.getBytes(UTF_8), "XML").getRowReader();
+
+    assertEquals(Arrays.asList("Keyword ID", "Impressions"), rows.getColumnNames());
+    assertTrue(rows.next());
+    assertEquals(123L, rows.getLong("Keyword ID"));
+    assertEquals(10L, rows.getLong("impressions"));
+    assertTrue(rows.next());
+    assertEquals(456L, rows.getLong("keywordID"));
+    assertEquals(20L, rows.getLong(1));
+    assertFalse(rows.next());
+  }
+
+  @Test
+  public void testGetLong_invalid() throws IOException {
+    ReportRowReader rows = createResponse(CSV_REPORT.getBytes(UTF_8), "CSV").getRowReader();
+    rows.next();
+
+    thrown.expect(NumberFormatException.class);
+    rows.getLong("Criterion");
+  }
+
+  @Test
+  public void testGetLong_overflow() throws IOException {
+    ReportingConfiguration reportingConfiguration = new ReportingConfiguration.Builder()
+        .skipReportHeader(true)
+        .skipColumnHeader(true)
+        .build();
+    ReportRowReader rows = createResponse(
+        (Long.MIN_VALUE + "," + Long.MAX_VALUE + ",9223372036854775808\n").getBytes(UTF_8), "CSV")
+        .getRowReader(reportingConfiguration);
+    rows.next();
+    assertEquals(Long.MIN_VALUE, rows.getLong(0));
+    assertEquals(Long.MAX_VALUE, rows.getLong(1));
+
+    thrown.expect(NumberFormatException.class);
+    rows.getLong(2);
+  }
+
+  @Test
+  public void testGetColumnIndex_unknownColumn() throws IOException {
+    ReportRowReader rows = createResponse(CSV_REPORT.getBytes(UTF_8), "CSV").getRowReader();
+
+    thrown.expect(IllegalArgumentException.class);
+    rows.getColumnIndex("Clicks");
+  }
+
+  @Test
+  public void testGetString_beforeNext() throws IOException {
+    ReportRowReader rows = createResponse(CSV_REPORT.getBytes(UTF_8), "CSV").getRowReader();
+
+    thrown.expect(IllegalStateException.class);
+    rows.getString(0);
+  }
+
+  /**
+   * Tests that the metrics of a metered download are logged when the row reader is closed, with
+   * the number of rows excluding the summary row.
+   */
+  @Test
+  public void testClose_logsMetricsWithRows() throws IOException {
+    ReportServiceLogger reportServiceLogger = mock(ReportServiceLogger.class);
+    byte[] contents = CSV_REPORT.getBytes(UTF_8);
+    MeteredReportInputStream meteredInputStream = new MeteredReportInputStream(
+        new ByteArrayInputStream(contents), reportServiceLogger,
+        new ReportDownloadMetrics.Builder().downloadFormat("CSV").httpStatus(200),
+        System.nanoTime());
+    ReportRowReader rows = new ReportDownloadResponse(new RawReportDownloadResponse(
+        HttpURLConnection.HTTP_OK, meteredInputStream, UTF_8, "CSV")).getRowReader();
+    while (rows.next()) {}
+    verify(reportServiceLogger, never()).logMetrics(Mockito.any(ReportDownloadMetrics.class));
+    rows.close();
+
+    ArgumentCaptor<ReportDownloadMetrics> metrics =
+        ArgumentCaptor.forClass(ReportDownloadMetrics.class);
+    verify(reportServiceLogger).logMetrics(metrics.capture());
+    assertEquals(2, metrics.getValue().getRows());
+    assertEquals(contents.length, metrics.getValue().getBytes());
+    assertTrue(metrics.getValue().isComplete());
+  }
+
+  @Test
+  public void testUnsupportedFormat() throws IOException {
+    thrown.expect(IllegalArgumentException.class);
+    createResponse(new byte[0], "PDF").getRowReader();
+  }
+
+  private static ReportDownloadResponse createResponse(byte[] contents, String downloadFormat) {
+    return new ReportDownloadResponse(new RawReportDownloadResponse(HttpURLConnection.HTTP_OK,
+        new ByteArrayInputStream(contents), UTF_8, downloadFormat));
+  }
+}
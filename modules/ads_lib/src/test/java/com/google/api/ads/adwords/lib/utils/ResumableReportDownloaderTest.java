@@ -0,0 +1,203 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.api.ads.adwords.lib.client.AdWordsSession;
+import com.google.api.ads.adwords.lib.utils.ReportDownloadEngine.ReportDownload;
+import com.google.api.client.util.BackOff;
+import com.google.api.client.util.Sleeper;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mockito;
+
+/**
+ * Tests for {@link ResumableReportDownloader}.
+ */
+@RunWith(JUnit4.class)
+public class ResumableReportDownloaderTest {
+
+  private static final String REPORT = "a,b\n1,2\n3,4\n5,6\n7,8\n";
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private AdWordsSession session;
+  private File outputFile;
+  private File checkpointFile;
+  private ResumableReportDownloader.Builder downloaderBuilder;
+
+  @Before
+  public void setUp() throws Exception {
+    session = Mockito.mock(AdWordsSession.class);
+    outputFile = new File(tempFolder.getRoot(), "report.csv");
+    checkpointFile = ResumableReportDownloader.getCheckpointFile(outputFile);
+    downloaderBuilder = new ResumableReportDownloader.Builder()
+        .checkpointIntervalBytes(4)
+        .maxAttempts(3)
+        .backOff(Suppliers.<BackOff>ofInstance(BackOff.ZERO_BACKOFF))
+        .sleeper(new Sleeper() {
+          @Override
+          public void sleep(long millis) {}
+        });
+  }
+
+  @Test
+  public void testDownload_complete() throws Exception {
+    ReportDownloadCheckpoint checkpoint = downloaderBuilder.build()
+        .download(session, new FailingDownload(REPORT, Integer.MAX_VALUE), outputFile);
+
+    assertEquals(REPORT, Files.toString(outputFile, UTF_8));
+    assertEquals(new ReportDownloadCheckpoint(REPORT.length(), 5, crc32(REPORT)), checkpoint);
+    assertFalse("Checkpoint should be deleted", checkpointFile.exists());
+  }
+
+  @Test
+  public void testDownload_resumesAfterFailure() throws Exception {
+    FailingDownload download = new FailingDownload(REPORT, 10);
+
+    ReportDownloadCheckpoint checkpoint =
+        downloaderBuilder.build().download(session, download, outputFile);
+
+    assertEquals(REPORT, Files.toString(outputFile, UTF_8));
+    assertEquals(REPORT.length(), checkpoint.getBytes());
+    assertEquals(2, download.attempts);
+    assertFalse(checkpointFile.exists());
+  }
+
+  @Test
+  public void testDownload_resumesAcrossCalls() throws Exception {
+    try {
+      downloaderBuilder.maxAttempts(1).build()
+          .download(session, new FailingDownload(REPORT, 10), outputFile);
+      fail("Expected the download to fail");
+    } catch (IOException e) {
+      // Expected.
+    }
+    ReportDownloadCheckpoint persisted = ReportDownloadCheckpoint.read(checkpointFile);
+    assertTrue("Checkpoint should be persisted", persisted.getBytes() > 0);
+    assertTrue(persisted.getBytes() < REPORT.length());
+    assertEquals(crc32(REPORT.substring(0, (int) persisted.getBytes())), persisted.getChecksum());
+
+    ReportDownloadCheckpoint checkpoint = downloaderBuilder.build()
+        .download(session, new FailingDownload(REPORT, Integer.MAX_VALUE), outputFile);
+
+    assertEquals(REPORT, Files.toString(outputFile, UTF_8));
+    assertEquals(5, checkpoint.getRows());
+    assertFalse(checkpointFile.exists());
+  }
+
+  @Test
+  public void testDownload_restartsIfReportChanged() throws Exception {
+    Files.write("x,y\n9,9\n".getBytes(UTF_8), outputFile);
+    new ReportDownloadCheckpoint(8, 2, crc32("x,y\n9,9\n")).write(checkpointFile);
+    FailingDownload download = new FailingDownload(REPORT, Integer.MAX_VALUE);
+
+    downloaderBuilder.build().download(session, download, outputFile);
+
+    assertEquals(REPORT, Files.toString(outputFile, UTF_8));
+    assertEquals("Mismatched prefix should restart the download", 2, download.attempts);
+    assertEquals(ImmutableList.of(1, 2), download.passedAttempts);
+    assertFalse(checkpointFile.exists());
+  }
+
+  @Test
+  public void testDownload_doesNotRetryBadRequests() throws Exception {
+    final List<Integer> attempts = Lists.newArrayList();
+    ReportDownload download = new ReportDownload() {
+      @Override
+      public ReportDownloadResponse download(AdWordsSession session, int attempt)
+          throws ReportDownloadResponseException {
+        attempts.add(attempts.size());
+        throw new DetailedReportDownloadResponseException(HttpURLConnection.HTTP_BAD_REQUEST,
+            "error");
+      }
+    };
+
+    try {
+      downloaderBuilder.build().download(session, download, outputFile);
+      fail("Expected the download to fail");
+    } catch (DetailedReportDownloadResponseException e) {
+      // Expected.
+    }
+    assertEquals(1, attempts.size());
+  }
+
+  private static long crc32(String contents) {
+    CRC32 crc32 = new CRC32();
+    crc32.update(contents.getBytes(UTF_8));
+    return crc32.getValue();
+  }
+
+  /**
+   * Download whose first attempt fails after reading a number of bytes.
+   */
+  private static class FailingDownload implements ReportDownload {
+    private final String contents;
+    private final int failAfterBytes;
+    private int attempts;
+    private final List<Integer> passedAttempts = Lists.newArrayList();
+
+    FailingDownload(String contents, int failAfterBytes) {
+      this.contents = contents;
+      this.failAfterBytes = failAfterBytes;
+    }
+
+    @Override
+    public ReportDownloadResponse download(AdWordsSession session, int attempt) {
+      passedAttempts.add(attempt);
+      attempts++;
+      InputStream inputStream = new ByteArrayInputStream(contents.getBytes(UTF_8));
+      if (attempts == 1) {
+        inputStream = new FilterInputStream(inputStream) {
+          private int read;
+
+          @Override
+          public int read(byte[] b, int off, int len) throws IOException {
+            if (read >= failAfterBytes) {
+              throw new IOException("Connection reset");
+            }
+            int count = super.read(b, off, Math.min(len, 3));
+            read += Math.max(count, 0);
+            return count;
+          }
+        };
+      }
+      return new ReportDownloadResponse(new RawReportDownloadResponse(HttpURLConnection.HTTP_OK,
+          inputStream, UTF_8, "CSV"));
+    }
+  }
+}
@@ -0,0 +1,334 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.lib.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+import com.google.api.ads.adwords.lib.client.AdWordsSession;
+import com.google.api.ads.adwords.lib.utils.StreamingBatchJobUploader.RequestFactory;
+import com.google.api.ads.adwords.lib.utils.logging.BatchJobLogger;
+import com.google.api.ads.common.lib.testing.ActualResponse;
+import com.google.api.ads.common.lib.testing.MockHttpServer;
+import com.google.api.ads.common.lib.testing.MockResponse;
+import com.google.api.client.http.ByteArrayContent;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Tests for {@link StreamingBatchJobUploader}.
+ */
+@RunWith(JUnit4.class)
+public class StreamingBatchJobUploaderTest {
+  private static final String START_ELEMENT = "<mutate xmlns=\"https://example.com/cm\">";
+  private static final String END_ELEMENT = "</mutate>";
+
+  @Mock private AdWordsSession adWordsSession;
+  @Mock private BatchJobLogger batchJobLogger;
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private MockHttpServer mockHttpServer;
+  private BatchJobUploader uploader;
+  private int bodyProvidersCreated;
+
+  private final RequestFactory<String> requestFactory =
+      new RequestFactory<String>() {
+        @Override
+        public BatchJobMutateRequestInterface createRequest(Iterable<? extends String> operations) {
+          return new TestRequest(ImmutableList.copyOf(operations));
+        }
+      };
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    mockHttpServer = new MockHttpServer();
+    uploader =
+        new BatchJobUploader(adWordsSession, mockHttpServer.getHttpTransport(), batchJobLogger);
+  }
+
+  /**
+   * Tests that operations added across several calls are uploaded as a single mutate element.
+   */
+  @Test
+  public void testAddOperations_finish() throws Exception {
+    mockResponses(2);
+    StreamingBatchJobUploader<String> streamingUploader = createStreamingUploader(0);
+
+    streamingUploader.addOperations(ImmutableList.of("a", "b"));
+    streamingUploader.addOperations(Collections.<String>emptyList());
+    streamingUploader.addOperations(ImmutableList.of("c"));
+    assertEquals("Nothing should be uploaded until a full increment is buffered",
+        0, mockHttpServer.getAllResponses().size());
+
+    BatchJobUploadResponse response = streamingUploader.finish();
+
+    List<ActualResponse> requests = mockHttpServer.getAllResponses();
+    assertEquals("Should have initiated the upload and made one upload request",
+        2, requests.size());
+    assertEquals("start", requests.get(0).getRequestHeader("x-goog-resumable").get(0));
+    String expectedBody = START_ELEMENT + "<op>a</op><op>b</op><op>c</op>" + END_ELEMENT;
+    assertEquals("Request body is incorrect", expectedBody, requests.get(1).getRequestBody());
+    assertEquals(
+        String.format("bytes 0-%d/%d", expectedBody.length() - 1, expectedBody.length()),
+        requests.get(1).getRequestHeader("content-range").get(0));
+    assertEquals(200, response.getHttpStatus());
+    assertEquals(expectedBody.length(),
+        response.getBatchJobUploadStatus().getTotalContentLength());
+    assertEquals("The body provider should be reused", 1, bodyProvidersCreated);
+  }
+
+  /**
+   * Tests that full increments are uploaded as soon as they are buffered, without padding.
+   */
+  @Test
+  public void testAddOperations_uploadsAlignedIncrements() throws Exception {
+    mockResponses(3);
+    StreamingBatchJobUploader<String> streamingUploader = createStreamingUploader(0);
+    String largeOperation =
+        Strings.repeat("x", BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT + 100);
+
+    streamingUploader.addOperations(ImmutableList.of(largeOperation));
+    assertEquals("Should have initiated the upload and uploaded one increment",
+        2, mockHttpServer.getAllResponses().size());
+    assertEquals(
+        String.format("bytes 0-%d/*", BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT - 1),
+        mockHttpServer.getLastResponse().getRequestHeader("content-range").get(0));
+    assertEquals(BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT,
+        streamingUploader.getUploadStatus().getTotalContentLength());
+
+    streamingUploader.addOperations(ImmutableList.of("b"));
+    streamingUploader.finish();
+
+    List<ActualResponse> requests = mockHttpServer.getAllResponses();
+    assertEquals(3, requests.size());
+    String expectedContent =
+        START_ELEMENT + "<op>" + largeOperation + "</op><op>b</op>" + END_ELEMENT;
+    assertEquals("Concatenated request bodies are incorrect",
+        expectedContent, requests.get(1).getRequestBody() + requests.get(2).getRequestBody());
+  }
+
+  /**
+   * Tests that flushing pads the buffered content, and that a new uploader can resume from the
+   * returned status without repeating the start element.
+   */
+  @Test
+  public void testFlush_resume() throws Exception {
+    mockResponses(3);
+    StreamingBatchJobUploader<String> streamingUploader = createStreamingUploader(0);
+    streamingUploader.addOperations(ImmutableList.of("a"));
+
+    BatchJobUploadStatus status = streamingUploader.flush();
+    assertEquals(BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT,
+        status.getTotalContentLength());
+    assertEquals("Flushed request body is incorrect",
+        Strings.padEnd(START_ELEMENT + "<op>a</op>",
+            BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT, ' '),
+        mockHttpServer.getLastResponse().getRequestBody());
+
+    StreamingBatchJobUploader<String> resumedUploader =
+        uploader.createStreamingUploader(requestFactory, status);
+    resumedUploader.addOperations(ImmutableList.of("b"));
+    BatchJobUploadResponse response = resumedUploader.finish();
+
+    List<ActualResponse> requests = mockHttpServer.getAllResponses();
+    assertEquals("The resumed upload should not be initiated again", 3, requests.size());
+    assertEquals("<op>b</op>" + END_ELEMENT, requests.get(2).getRequestBody());
+    assertEquals(BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT + 19,
+        response.getBatchJobUploadStatus().getTotalContentLength());
+  }
+
+  /**
+   * Tests that finishing a job without operations uploads an empty mutate element.
+   */
+  @Test
+  public void testFinish_noOperations() throws Exception {
+    mockResponses(2);
+    createStreamingUploader(0).finish();
+    assertEquals(START_ELEMENT.replace(">", "/>"), mockHttpServer.getLastResponse().getRequestBody());
+  }
+
+  /**
+   * Tests that finishing a resumed job without operations only uploads the end element.
+   */
+  @Test
+  public void testFinish_resumedNoOperations() throws Exception {
+    mockResponses(1);
+    createStreamingUploader(BatchJobUploader.REQUIRED_CONTENT_LENGTH_INCREMENT).finish();
+    assertEquals(1, mockHttpServer.getAllResponses().size());
+    assertEquals(END_ELEMENT, mockHttpServer.getLastResponse().getRequestBody());
+  }
+
+  @Test
+  public void testAddOperations_afterFinish_fails() throws Exception {
+    mockResponses(2);
+    StreamingBatchJobUploader<String> streamingUploader = createStreamingUploader(0);
+    streamingUploader.finish();
+    thrown.expect(IllegalStateException.class);
+    streamingUploader.addOperations(ImmutableList.of("a"));
+  }
+
+  /**
+   * Tests that body providers that cannot write to a stream are supported through
+   * {@link BatchJobUploadBodyProvider#getHttpContent}.
+   */
+  @Test
+  public void testAddOperations_nonStreamingBodyProvider() throws Exception {
+    mockResponses(2);
+    StreamingBatchJobUploader<String> streamingUploader =
+        uploader.createStreamingUploader(
+            new RequestFactory<String>() {
+              @Override
+              public BatchJobMutateRequestInterface createRequest(
+                  Iterable<? extends String> operations) {
+                return new TestRequest(ImmutableList.copyOf(operations)) {
+                  @Override
+                  public BatchJobUploadBodyProvider createBatchJobUploadBodyProvider() {
+                    return new BatchJobUploadBodyProvider() {
+                      @Override
+                      public ByteArrayContent getHttpContent(
+                          BatchJobMutateRequestInterface request, boolean isFirstRequest,
+                          boolean isLastRequest) {
+                        return new ByteArrayContent(
+                            "application/xml", serialize(request).getBytes(UTF_8));
+                      }
+                    };
+                  }
+                };
+              }
+            },
+            new BatchJobUploadStatus(0, URI.create(mockHttpServer.getServerUrl())));
+
+    streamingUploader.addOperations(ImmutableList.of("a"));
+    streamingUploader.addOperations(ImmutableList.of("b"));
+    streamingUploader.finish();
+
+    assertEquals(START_ELEMENT + "<op>a</op><op>b</op>" + END_ELEMENT,
+        mockHttpServer.getLastResponse().getRequestBody());
+  }
+
+  @Test
+  public void testAddOperations_noMutateElement_fails() throws Exception {
+    StreamingBatchJobUploader<String> streamingUploader =
+        uploader.createStreamingUploader(
+            new RequestFactory<String>() {
+              @Override
+              public BatchJobMutateRequestInterface createRequest(
+                  Iterable<? extends String> operations) {
+                return new TestRequest(ImmutableList.copyOf(operations)) {
+                  @Override
+                  public BatchJobUploadBodyProvider createBatchJobUploadBodyProvider() {
+                    return new TestBodyProvider() {
+                      @Override
+                      public void writeHttpContent(
+                          BatchJobMutateRequestInterface request, OutputStream outputStream)
+                          throws BatchJobException {
+                        write("<foo></foo>", outputStream);
+                      }
+                    };
+                  }
+                };
+              }
+            },
+            new BatchJobUploadStatus(0, URI.create(mockHttpServer.getServerUrl())));
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("</mutate>");
+    streamingUploader.addOperations(ImmutableList.of("a"));
+  }
+
+  private StreamingBatchJobUploader<String> createStreamingUploader(long totalContentLength) {
+    return uploader.createStreamingUploader(
+        requestFactory,
+        new BatchJobUploadStatus(totalContentLength, URI.create(mockHttpServer.getServerUrl())));
+  }
+
+  private void mockResponses(int count) {
+    List<MockResponse> responses = Lists.newArrayList();
+    for (int i = 0; i < count; i++) {
+      responses.add(new MockResponse("testUploadResponse"));
+    }
+    mockHttpServer.setMockResponses(responses);
+  }
+
+  /** Request whose operations are strings serialized as {@code op} elements. */
+  private class TestRequest implements BatchJobMutateRequestInterface {
+    private final List<String> operations;
+
+    TestRequest(List<String> operations) {
+      this.operations = operations;
+    }
+
+    @Override
+    public BatchJobUploadBodyProvider createBatchJobUploadBodyProvider() {
+      bodyProvidersCreated++;
+      return new TestBodyProvider();
+    }
+  }
+
+  /** Serializes the operations of a {@link TestRequest} as a mutate element. */
+  private static String serialize(BatchJobMutateRequestInterface request) {
+    List<String> operations = ((TestRequest) request).operations;
+    StringBuilder builder = new StringBuilder();
+    if (operations.isEmpty()) {
+      // Mimic serializers that write an empty element.
+      builder.append(START_ELEMENT.replace(">", "/>"));
+    } else {
+      builder.append(START_ELEMENT);
+      for (String operation : operations) {
+        builder.append("<op>").append(operation).append("</op>");
+      }
+      builder.append(END_ELEMENT);
+    }
+    return builder.toString();
+  }
+
+  private static class TestBodyProvider implements StreamingBatchJobUploadBodyProvider {
+    @Override
+    public ByteArrayContent getHttpContent(BatchJobMutateRequestInterface request,
+        boolean isFirstRequest, boolean isLastRequest) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void writeHttpContent(BatchJobMutateRequestInterface request,
+        OutputStream outputStream) throws BatchJobException {
+      write(serialize(request), outputStream);
+    }
+
+    void write(String content, OutputStream outputStream) throws BatchJobException {
+      try {
+        outputStream.write(content.getBytes(UTF_8));
+      } catch (IOException e) {
+        throw new BatchJobException("Failed to write content", e);
+      }
+    }
+  }
+}
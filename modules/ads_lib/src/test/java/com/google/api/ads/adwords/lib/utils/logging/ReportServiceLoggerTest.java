@@ -17,8 +17,13 @@ package com.google.api.ads.adwords.lib.utils.logging;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import com.google.api.ads.common.lib.client.RequestInfo;
 import com.google.api.ads.common.lib.client.ResponseInfo;
@@ -31,6 +36,7 @@ import com.google.api.client.http.HttpTransport;
 import com.google.api.client.http.UrlEncodedContent;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.util.GenericData;
+import com.google.common.collect.ImmutableMap;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -134,6 +140,44 @@ public class ReportServiceLoggerTest {
         responseInfo, HttpStatusCodes.STATUS_CODE_BAD_GATEWAY, "Bad gateway");
   }
 
+  /**
+   * Tests that metrics are passed to all registered listeners, even if one of them fails.
+   */
+  @Test
+  public void testLogMetrics() {
+    ReportDownloadMetricsListener failingListener = mock(ReportDownloadMetricsListener.class);
+    ReportDownloadMetricsListener listener = mock(ReportDownloadMetricsListener.class);
+    ReportDownloadMetrics metrics = new ReportDownloadMetrics.Builder()
+        .reportType("CAMPAIGN_PERFORMANCE_REPORT")
+        .downloadFormat("CSV")
+        .httpStatus(200)
+        .clientCustomerId("123-456-7890")
+        .downloadTimeMillis(500)
+        .bytes(1000)
+        .build();
+    doThrow(new IllegalStateException()).when(failingListener).onReportDownloaded(metrics);
+
+    assertFalse(reportServiceLogger.isMetricsLoggable());
+    ReportServiceLogger.addMetricsListener(failingListener);
+    ReportServiceLogger.addMetricsListener(listener);
+    try {
+      assertTrue(reportServiceLogger.isMetricsLoggable());
+      reportServiceLogger.logMetrics(metrics);
+    } finally {
+      assertTrue(ReportServiceLogger.removeMetricsListener(failingListener));
+      assertTrue(ReportServiceLogger.removeMetricsListener(listener));
+    }
+    verify(listener).onReportDownloaded(metrics);
+    assertFalse(reportServiceLogger.isMetricsLoggable());
+
+    assertEquals(2000d, metrics.getBytesPerSecond(), 0);
+    assertEquals(ImmutableMap.of(
+        ReportDownloadMetrics.REPORT_TYPE_TAG, "CAMPAIGN_PERFORMANCE_REPORT",
+        ReportDownloadMetrics.DOWNLOAD_FORMAT_TAG, "CSV",
+        ReportDownloadMetrics.HTTP_STATUS_TAG, "200",
+        ReportDownloadMetrics.CLIENT_CUSTOMER_ID_TAG, "123-456-7890"), metrics.getTags());
+  }
+
   private void checkRequestInfoAttributes(RequestInfo requestInfo, boolean isCheckPayload) {
     assertEquals(requestMethod, requestInfo.getMethodName());
     assertEquals(url, requestInfo.getUrl());
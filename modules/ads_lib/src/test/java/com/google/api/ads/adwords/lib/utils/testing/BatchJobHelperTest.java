@@ -14,23 +14,34 @@
 
 package com.google.api.ads.adwords.lib.utils.testing;
 
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.verify;
 
 import com.google.api.ads.adwords.lib.client.AdWordsSession;
 import com.google.api.ads.adwords.lib.utils.BatchJobException;
 import com.google.api.ads.adwords.lib.utils.BatchJobHelperInterface;
 import com.google.api.ads.adwords.lib.utils.BatchJobMutateRequestInterface;
+import com.google.api.ads.adwords.lib.utils.BatchJobMutateResultIterator;
 import com.google.api.ads.adwords.lib.utils.BatchJobMutateResponseInterface;
 import com.google.api.ads.adwords.lib.utils.BatchJobMutateResultInterface;
+import com.google.api.ads.adwords.lib.utils.BatchJobUploadBodyProvider;
 import com.google.api.ads.adwords.lib.utils.BatchJobUploadStatus;
 import com.google.api.ads.adwords.lib.utils.BatchJobUploader;
+import com.google.api.ads.adwords.lib.utils.StreamingBatchJobUploadBodyProvider;
+import com.google.api.ads.adwords.lib.utils.StreamingBatchJobUploader.RequestFactory;
 import com.google.api.ads.adwords.lib.utils.logging.BatchJobLogger;
 import com.google.api.ads.common.lib.utils.AdsUtilityRegistry;
 import com.google.api.ads.common.lib.utils.Streams;
 import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -43,6 +54,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -119,6 +131,46 @@ public abstract class BatchJobHelperTest<
     }
   }
 
+  @Test
+  public void testDownloadBatchJobMutateResults() throws BatchJobException, IOException {
+    File tempFile = tempFolder.newFile();
+    OutputStream responseOutputStream = new FileOutputStream(tempFile);
+    Streams.write(getResponseString(), responseOutputStream, StandardCharsets.UTF_8);
+    String downloadUrl = tempFile.toURI().toURL().toString();
+    BatchJobMutateResultIterator<ResultT> results =
+        batchJobHelper.downloadBatchJobMutateResults(downloadUrl);
+    try {
+      assertTrue("Expected a mutate result", results.hasNext());
+      assertNotNull("Operand of mutate result is null", results.next().getOperand());
+      assertFalse("Expected a single mutate result", results.hasNext());
+    } finally {
+      results.close();
+    }
+    verify(batchJobLogger).logDownload(downloadUrl, 1L, null);
+  }
+
+  /**
+   * Verifies that the streaming download handles the case where the response does not contain any
+   * results.
+   */
+  @Test
+  public void testDownloadBatchJobMutateResults_emptyResponse()
+      throws BatchJobException, IOException {
+    String noResultsResponse = String.format("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<mutateResponse xmlns=\"https://adwords.google.com/api/adwords/cm/%s\">"
+        + "</mutateResponse>", getVersion());
+    File tempFile = tempFolder.newFile();
+    OutputStream responseOutputStream = new FileOutputStream(tempFile);
+    Streams.write(noResultsResponse, responseOutputStream, StandardCharsets.UTF_8);
+    BatchJobMutateResultIterator<ResultT> results =
+        batchJobHelper.downloadBatchJobMutateResults(tempFile.toURI().toURL().toString());
+    try {
+      assertFalse("Expected no mutate results", results.hasNext());
+    } finally {
+      results.close();
+    }
+  }
+
   @Test
   public void testUploadBatchJobOperations() throws BatchJobException {
     BatchJobUploadStatus status = new BatchJobUploadStatus(0L, URI.create(UPLOAD_URL));
@@ -150,6 +202,39 @@ public abstract class BatchJobHelperTest<
             Matchers.<BatchJobMutateRequestInterface>any(), Matchers.eq(true), Matchers.eq(status));
   }
 
+  /**
+   * Tests that the streaming uploader's requests are written by the body provider as a complete
+   * mutate element.
+   */
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testCreateStreamingUploader() throws BatchJobException {
+    BatchJobUploadStatus status = new BatchJobUploadStatus(0L, URI.create(UPLOAD_URL));
+    batchJobHelper.createStreamingUploader(status);
+    ArgumentCaptor<RequestFactory> requestFactoryCaptor =
+        ArgumentCaptor.forClass(RequestFactory.class);
+    verify(uploader)
+        .createStreamingUploader(requestFactoryCaptor.capture(), Matchers.eq(status));
+
+    BatchJobMutateRequestInterface request =
+        requestFactoryCaptor.getValue().createRequest(operations);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    BatchJobUploadBodyProvider bodyProvider = request.createBatchJobUploadBodyProvider();
+    assertTrue("The body provider should support streaming",
+        bodyProvider instanceof StreamingBatchJobUploadBodyProvider);
+    ((StreamingBatchJobUploadBodyProvider) bodyProvider).writeHttpContent(request, outputStream);
+    String content = new String(outputStream.toByteArray(), StandardCharsets.UTF_8).trim();
+    assertThat(content, startsWith("<"));
+    assertThat(content, endsWith("mutate>"));
+    assertThat(content, containsString(String.valueOf(TEST_CAMPAIGN_ID)));
+  }
+
+  @Test
+  public void testCreateUploadPipelineBuilder() {
+    batchJobHelper.createUploadPipelineBuilder();
+    verify(uploader).createUploadPipelineBuilder(Matchers.<RequestFactory<OperationT>>any());
+  }
+
   /**
    * Returns the {@link BatchJobHelperInterface} for this test's version and SOAP toolkit.
    */
@@ -0,0 +1,80 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Supplier;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@link RequestInfo} and {@link ResponseInfo}.
+ */
+@RunWith(JUnit4.class)
+public class RequestInfoTest {
+
+  /**
+   * Tests that {@code toString()} does not read a payload that has not been read yet.
+   */
+  @Test
+  public void testToString_payloadNotRead() {
+    CountingSupplier payloadSupplier = new CountingSupplier("<payload/>");
+    RequestInfo requestInfo =
+        new RequestInfo.Builder().withPayloadSupplier(payloadSupplier).build();
+    ResponseInfo responseInfo =
+        new ResponseInfo.Builder().withPayloadSupplier(payloadSupplier).build();
+
+    assertFalse(requestInfo.toString().contains("payload.length=10"));
+    assertFalse(responseInfo.toString().contains("payload.length=10"));
+    assertEquals(0, payloadSupplier.count.get());
+
+    assertEquals("<payload/>", requestInfo.getPayload());
+    assertEquals("<payload/>", requestInfo.getPayload());
+    assertEquals(1, payloadSupplier.count.get());
+    assertTrue(requestInfo.toString().contains("payload.length=10"));
+  }
+
+  /**
+   * Tests that {@code toString()} reports the length of a payload that was set directly.
+   */
+  @Test
+  public void testToString_payload() {
+    assertTrue(new RequestInfo.Builder().withPayload("<payload/>").build().toString()
+        .contains("payload.length=10"));
+    assertTrue(new ResponseInfo.Builder().withPayload("<payload/>").build().toString()
+        .contains("payload.length=10"));
+    assertTrue(new RequestInfo.Builder().build().toString().contains("payload.length=0"));
+  }
+
+  private static class CountingSupplier implements Supplier<String> {
+    private final String payload;
+    private final AtomicInteger count = new AtomicInteger();
+
+    private CountingSupplier(String payload) {
+      this.payload = payload;
+    }
+
+    @Override
+    public String get() {
+      count.incrementAndGet();
+      return payload;
+    }
+  }
+}
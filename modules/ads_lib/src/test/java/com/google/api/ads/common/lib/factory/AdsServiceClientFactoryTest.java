@@ -16,6 +16,7 @@ package com.google.api.ads.common.lib.factory;
 
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.api.ads.common.lib.client.AdsServiceClient;
@@ -128,4 +129,37 @@ public class AdsServiceClientFactoryTest {
     thrown.expect(Matchers.<Exception>is(serviceException));
     adsServiceClientFactory.getServiceClient(adsSession, MockSoapClientInterface.class);
   }
+
+  /**
+   * Test that verifies that releasing a client returned by getServiceClient releases the
+   * underlying service client through the helper.
+   */
+  @Test
+  public void testReleaseServiceClient() {
+    String version = "v1.1";
+
+    when(adsServiceClientFactoryHelper.determineVersion(MockSoapClientInterface.class))
+        .thenReturn(version);
+    when(
+        adsServiceClientFactoryHelper.createServiceDescriptor(
+            MockSoapClientInterface.class, version)).thenReturn(adsServiceDescriptor);
+    when(adsServiceClientFactoryHelper.createAdsServiceClient(adsServiceDescriptor, adsSession))
+        .thenReturn(adsServiceClient);
+    when(adsServiceClient.getSoapClient()).thenReturn(soapServiceClient);
+
+    MockSoapClientInterface mockSoapClientInterface =
+        adsServiceClientFactory.getServiceClient(adsSession, MockSoapClientInterface.class);
+    adsServiceClientFactory.releaseServiceClient(mockSoapClientInterface);
+
+    verify(adsServiceClientFactoryHelper).releaseAdsServiceClient(adsServiceClient);
+  }
+
+  /**
+   * Test to verify that releasing an object that is not a service client fails.
+   */
+  @Test
+  public void testReleaseServiceClient_notServiceClient() {
+    thrown.expect(IllegalArgumentException.class);
+    adsServiceClientFactory.releaseServiceClient(new Object());
+  }
 }
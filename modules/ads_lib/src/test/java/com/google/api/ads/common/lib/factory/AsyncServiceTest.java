@@ -0,0 +1,132 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.factory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.api.ads.common.lib.soap.testing.MockSoapClientInterface;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Tests for {@link AsyncService}.
+ */
+@RunWith(JUnit4.class)
+public class AsyncServiceTest {
+
+  @Mock private MockSoapClientInterface service;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+  }
+
+  @Test
+  public void testSubmit() throws Exception {
+    when(service.identityCallSingle("arg")).thenReturn("result");
+    AsyncService<MockSoapClientInterface> asyncService =
+        new AsyncService<MockSoapClientInterface>(service, MoreExecutors.directExecutor());
+
+    ListenableFuture<Object> future =
+        asyncService.submit(new ServiceCall<MockSoapClientInterface, Object>() {
+          @Override
+          public Object call(MockSoapClientInterface service) throws Exception {
+            return service.identityCallSingle("arg");
+          }
+        });
+
+    assertEquals("result", future.get());
+    verify(service).identityCallSingle("arg");
+  }
+
+  @Test
+  public void testSubmit_runsOnExecutor() throws Exception {
+    final List<Runnable> tasks = new ArrayList<Runnable>();
+    Executor queueingExecutor = new Executor() {
+      @Override
+      public void execute(Runnable task) {
+        tasks.add(task);
+      }
+    };
+    when(service.identityCallSingle("arg")).thenReturn("result");
+    AsyncService<MockSoapClientInterface> asyncService =
+        new AsyncService<MockSoapClientInterface>(service, queueingExecutor);
+
+    ListenableFuture<Object> future =
+        asyncService.submit(new ServiceCall<MockSoapClientInterface, Object>() {
+          @Override
+          public Object call(MockSoapClientInterface service) throws Exception {
+            return service.identityCallSingle("arg");
+          }
+        });
+
+    assertFalse("Call should not be made until the executor runs it", future.isDone());
+    assertEquals(1, tasks.size());
+    tasks.get(0).run();
+    assertTrue(future.isDone());
+    assertEquals("result", future.get());
+  }
+
+  @Test
+  public void testSubmit_failure() throws Exception {
+    final RemoteException exception = new RemoteException();
+    AsyncService<MockSoapClientInterface> asyncService =
+        new AsyncService<MockSoapClientInterface>(service, MoreExecutors.directExecutor());
+
+    ListenableFuture<Object> future =
+        asyncService.submit(new ServiceCall<MockSoapClientInterface, Object>() {
+          @Override
+          public Object call(MockSoapClientInterface service) throws Exception {
+            throw exception;
+          }
+        });
+
+    try {
+      future.get();
+      fail("Expected an ExecutionException");
+    } catch (ExecutionException e) {
+      assertSame(exception, e.getCause());
+    }
+  }
+
+  @Test
+  public void testGetService() {
+    assertSame(service,
+        new AsyncService<MockSoapClientInterface>(service, MoreExecutors.directExecutor())
+            .getService());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullExecutor_fails() {
+    new AsyncService<MockSoapClientInterface>(service, null);
+  }
+}
@@ -14,12 +14,16 @@
 
 package com.google.api.ads.common.lib.factory.helper;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.api.ads.common.lib.client.AdsServiceClient;
 import com.google.api.ads.common.lib.client.AdsServiceDescriptor;
 import com.google.api.ads.common.lib.client.AdsSession;
+import com.google.api.ads.common.lib.exception.ServiceException;
 import com.google.api.ads.common.lib.factory.FactoryModule.AdsServiceClientFactoryInterface;
 import com.google.api.ads.common.lib.factory.FactoryModule.AdsServiceDescriptorFactoryInterface;
 import com.google.api.ads.common.lib.soap.SoapClientHandlerInterface;
@@ -57,6 +61,7 @@ public class BaseAdsServiceClientFactoryHelperTest {
   @Mock private Object soapClient;
 
   private static final String VERSION = "v201108";
+  private static final String ENDPOINT_ADDRESS = "https://ads.google.com/api/v201108/Service";
 
   @SuppressWarnings("unchecked")
   @Before
@@ -123,4 +128,119 @@ public class BaseAdsServiceClientFactoryHelperTest {
 
     assertSame(adsServiceDescriptor, testAdsServiceDescriptor);
   }
+
+  @Test
+  public void testCreateAdsServiceClient_pooled() throws Exception {
+    BaseAdsServiceClientFactoryHelper<AdsServiceClient<AdsSession, AdsServiceDescriptor>,
+        AdsSession, AdsServiceDescriptor> pooledHelper = createPooledHelper();
+    when(adsServiceDescriptor.getEndpointAddress(ENDPOINT_ADDRESS)).thenReturn(ENDPOINT_ADDRESS);
+    when(adsSession.getEndpoint()).thenReturn(ENDPOINT_ADDRESS);
+    when(soapClientHandler.createSoapClient(adsServiceDescriptor)).thenReturn(soapClient);
+    when(soapClientHandler.getEndpointAddress(soapClient)).thenReturn(ENDPOINT_ADDRESS);
+    when(adsServiceClient.getSoapClient()).thenReturn(soapClient);
+    when(adsServiceClient.getAdsServiceDescriptor()).thenReturn(adsServiceDescriptor);
+    when(adsServiceClientFactory.create(soapClient, adsServiceDescriptor, adsSession))
+        .thenReturn(adsServiceClient);
+
+    pooledHelper.createAdsServiceClient(adsServiceDescriptor, adsSession);
+    pooledHelper.releaseAdsServiceClient(adsServiceClient);
+    pooledHelper.createAdsServiceClient(adsServiceDescriptor, adsSession);
+
+    // The second service client should reuse the released SOAP client.
+    verify(soapClientHandler, times(1)).createSoapClient(adsServiceDescriptor);
+    verify(soapClientHandler).clearHeaders(soapClient);
+    verify(adsServiceClient, times(2)).setEndpointAddress(ENDPOINT_ADDRESS);
+    verify(adsServiceClient, times(2)).setMaxIdleConcurrentSoapClients(1);
+  }
+
+  @Test(expected = ServiceException.class)
+  public void testCreateAdsServiceClient_concurrentInvocationUnsupported() throws Exception {
+    BaseAdsServiceClientFactoryHelper<AdsServiceClient<AdsSession, AdsServiceDescriptor>,
+        AdsSession, AdsServiceDescriptor> concurrentHelper =
+            new BaseAdsServiceClientFactoryHelper<
+                AdsServiceClient<AdsSession, AdsServiceDescriptor>, AdsSession,
+                AdsServiceDescriptor>(
+                adsServiceClientFactory, adsServiceDescriptorFactory, soapClientHandler) {
+              @Override
+              @SuppressWarnings("rawtypes")
+              public String determineVersion(Class interfaceClass) {
+                return VERSION;
+              }
+
+              @Override
+              protected boolean isConcurrentInvocationEnabled() {
+                return true;
+              }
+            };
+    when(soapClientHandler.isConcurrentSoapClientSupported()).thenReturn(false);
+
+    concurrentHelper.createAdsServiceClient(adsServiceDescriptor, adsSession);
+  }
+
+  /**
+   * Tests that the idle call-scoped SOAP client limit does not depend on the SOAP client pool
+   * size.
+   */
+  @Test
+  public void testCreateAdsServiceClient_maxIdleConcurrentSoapClients() throws Exception {
+    BaseAdsServiceClientFactoryHelper<AdsServiceClient<AdsSession, AdsServiceDescriptor>,
+        AdsSession, AdsServiceDescriptor> concurrentHelper =
+            new BaseAdsServiceClientFactoryHelper<
+                AdsServiceClient<AdsSession, AdsServiceDescriptor>, AdsSession,
+                AdsServiceDescriptor>(
+                adsServiceClientFactory, adsServiceDescriptorFactory, soapClientHandler) {
+              @Override
+              @SuppressWarnings("rawtypes")
+              public String determineVersion(Class interfaceClass) {
+                return VERSION;
+              }
+
+              @Override
+              protected int getMaxIdleConcurrentSoapClients() {
+                return 4;
+              }
+            };
+    when(soapClientHandler.createSoapClient(adsServiceDescriptor)).thenReturn(soapClient);
+    when(adsServiceClientFactory.create(soapClient, adsServiceDescriptor, adsSession))
+        .thenReturn(adsServiceClient);
+
+    concurrentHelper.createAdsServiceClient(adsServiceDescriptor, adsSession);
+
+    verify(adsServiceClient).setMaxIdleConcurrentSoapClients(4);
+  }
+
+  @Test
+  public void testPreWarmSoapClients() throws Exception {
+    SoapClientPool<Object> soapClientPool = new SoapClientPool<Object>(2, 60000);
+    BaseAdsServiceClientFactoryHelper<AdsServiceClient<AdsSession, AdsServiceDescriptor>,
+        AdsSession, AdsServiceDescriptor> pooledHelper = createPooledHelper(soapClientPool);
+    when(adsServiceDescriptor.getEndpointAddress(ENDPOINT_ADDRESS)).thenReturn(ENDPOINT_ADDRESS);
+    when(adsSession.getEndpoint()).thenReturn(ENDPOINT_ADDRESS);
+    when(soapClientHandler.createSoapClient(adsServiceDescriptor)).thenReturn(soapClient);
+
+    // Requesting more SOAP clients than the pool can hold stops at the pool size.
+    pooledHelper.preWarmSoapClients(adsServiceDescriptor, adsSession, 5);
+
+    assertEquals(2, soapClientPool.getIdleCount(adsServiceDescriptor, ENDPOINT_ADDRESS));
+    verify(soapClientHandler, times(3)).createSoapClient(adsServiceDescriptor);
+    verify(soapClientHandler, times(3)).setEndpointAddress(soapClient, ENDPOINT_ADDRESS);
+  }
+
+  private BaseAdsServiceClientFactoryHelper<AdsServiceClient<AdsSession, AdsServiceDescriptor>,
+      AdsSession, AdsServiceDescriptor> createPooledHelper() {
+    return createPooledHelper(new SoapClientPool<Object>(1, 60000));
+  }
+
+  private BaseAdsServiceClientFactoryHelper<AdsServiceClient<AdsSession, AdsServiceDescriptor>,
+      AdsSession, AdsServiceDescriptor> createPooledHelper(SoapClientPool<Object> soapClientPool) {
+    return new BaseAdsServiceClientFactoryHelper<
+        AdsServiceClient<AdsSession, AdsServiceDescriptor>, AdsSession, AdsServiceDescriptor>(
+        adsServiceClientFactory, adsServiceDescriptorFactory, soapClientHandler, soapClientPool) {
+      @Override
+      @SuppressWarnings("rawtypes")
+      public String determineVersion(Class interfaceClass) {
+        return VERSION;
+      }
+    };
+  }
 }
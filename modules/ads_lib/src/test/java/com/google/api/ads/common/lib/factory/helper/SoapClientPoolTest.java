@@ -0,0 +1,144 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.factory.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.google.api.ads.common.lib.client.AdsServiceDescriptor;
+import com.google.api.ads.common.lib.soap.testing.MockSoapClientInterface;
+import com.google.common.base.Ticker;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Tests for {@link SoapClientPool}.
+ */
+@RunWith(JUnit4.class)
+public class SoapClientPoolTest {
+
+  private static final String ENDPOINT = "https://ads.google.com/api/MockService";
+  private static final long IDLE_TIMEOUT_MILLIS = 1000;
+
+  @Mock private AdsServiceDescriptor adsServiceDescriptor;
+  @Mock private AdsServiceDescriptor otherVersionDescriptor;
+
+  private FakeTicker ticker;
+  private SoapClientPool<Object> soapClientPool;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    Mockito.<Class<?>>when(adsServiceDescriptor.getInterfaceClass())
+        .thenReturn(MockSoapClientInterface.class);
+    when(adsServiceDescriptor.getVersion()).thenReturn("v1");
+    Mockito.<Class<?>>when(otherVersionDescriptor.getInterfaceClass())
+        .thenReturn(MockSoapClientInterface.class);
+    when(otherVersionDescriptor.getVersion()).thenReturn("v2");
+
+    ticker = new FakeTicker();
+    soapClientPool = new SoapClientPool<Object>(2, IDLE_TIMEOUT_MILLIS, ticker);
+  }
+
+  @Test
+  public void testCheckOut_empty() {
+    assertNull(soapClientPool.checkOut(adsServiceDescriptor, ENDPOINT));
+  }
+
+  @Test
+  public void testCheckInAndCheckOut_mostRecentFirst() {
+    Object first = new Object();
+    Object second = new Object();
+    assertTrue(soapClientPool.checkIn(adsServiceDescriptor, ENDPOINT, first));
+    assertTrue(soapClientPool.checkIn(adsServiceDescriptor, ENDPOINT, second));
+
+    assertSame(second, soapClientPool.checkOut(adsServiceDescriptor, ENDPOINT));
+    assertSame(first, soapClientPool.checkOut(adsServiceDescriptor, ENDPOINT));
+    assertNull(soapClientPool.checkOut(adsServiceDescriptor, ENDPOINT));
+  }
+
+  @Test
+  public void testCheckIn_bounded() {
+    assertTrue(soapClientPool.checkIn(adsServiceDescriptor, ENDPOINT, new Object()));
+    assertTrue(soapClientPool.checkIn(adsServiceDescriptor, ENDPOINT, new Object()));
+    assertFalse(soapClientPool.checkIn(adsServiceDescriptor, ENDPOINT, new Object()));
+    assertEquals(2, soapClientPool.getIdleCount(adsServiceDescriptor, ENDPOINT));
+  }
+
+  @Test
+  public void testCheckOut_keyedByVersionAndEndpoint() {
+    soapClientPool.checkIn(adsServiceDescriptor, ENDPOINT, new Object());
+
+    assertNull(soapClientPool.checkOut(otherVersionDescriptor, ENDPOINT));
+    assertNull(soapClientPool.checkOut(adsServiceDescriptor, ENDPOINT + "/other"));
+    assertEquals(1, soapClientPool.getIdleCount(adsServiceDescriptor, ENDPOINT));
+  }
+
+  @Test
+  public void testCheckOut_evictsExpired() {
+    Object expired = new Object();
+    Object fresh = new Object();
+    soapClientPool.checkIn(adsServiceDescriptor, ENDPOINT, expired);
+    ticker.advance(IDLE_TIMEOUT_MILLIS / 2);
+    soapClientPool.checkIn(adsServiceDescriptor, ENDPOINT, fresh);
+    ticker.advance(IDLE_TIMEOUT_MILLIS / 2 + 1);
+
+    assertEquals(1, soapClientPool.getIdleCount(adsServiceDescriptor, ENDPOINT));
+    assertSame(fresh, soapClientPool.checkOut(adsServiceDescriptor, ENDPOINT));
+    assertNull(soapClientPool.checkOut(adsServiceDescriptor, ENDPOINT));
+  }
+
+  @Test
+  public void testDisabled() {
+    soapClientPool = new SoapClientPool<Object>(0, IDLE_TIMEOUT_MILLIS, ticker);
+
+    assertFalse(soapClientPool.isEnabled());
+    assertFalse(soapClientPool.checkIn(adsServiceDescriptor, ENDPOINT, new Object()));
+    assertNull(soapClientPool.checkOut(adsServiceDescriptor, ENDPOINT));
+  }
+
+  @Test
+  public void testClear() {
+    soapClientPool.checkIn(adsServiceDescriptor, ENDPOINT, new Object());
+    soapClientPool.clear();
+    assertEquals(0, soapClientPool.getIdleCount(adsServiceDescriptor, ENDPOINT));
+  }
+
+  /**
+   * Ticker that only advances when told to.
+   */
+  private static class FakeTicker extends Ticker {
+    private long nanos;
+
+    void advance(long millis) {
+      nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.soap;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.api.ads.common.lib.soap.MethodDispatchCache.MethodResolver;
+import com.google.api.ads.common.lib.soap.testing.MockSoapClient;
+import com.google.api.ads.common.lib.soap.testing.MockSoapClientInterface;
+import java.lang.reflect.Method;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Tests for {@link MethodDispatchCache}.
+ */
+@RunWith(JUnit4.class)
+public class MethodDispatchCacheTest {
+
+  @Mock private MethodResolver methodResolver;
+
+  private MethodDispatchCache methodDispatchCache;
+  private Method interfaceMethod;
+  private Method targetMethod;
+
+  @Before
+  public void setUp() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    methodDispatchCache = new MethodDispatchCache(methodResolver);
+    interfaceMethod = MockSoapClientInterface.class.getMethod("emptyCall");
+    targetMethod = MockSoapClient.class.getMethod("emptyCall");
+  }
+
+  @Test
+  public void testGet_resolvesOnce() {
+    when(methodResolver.resolve(MockSoapClient.class, interfaceMethod)).thenReturn(targetMethod);
+
+    assertSame(targetMethod, methodDispatchCache.get(MockSoapClient.class, interfaceMethod));
+    assertSame(targetMethod, methodDispatchCache.get(MockSoapClient.class, interfaceMethod));
+    verify(methodResolver, times(1)).resolve(MockSoapClient.class, interfaceMethod);
+  }
+
+  @Test
+  public void testGet_cachesMissingMethod() {
+    assertNull(methodDispatchCache.get(MockSoapClient.class, interfaceMethod));
+    assertNull(methodDispatchCache.get(MockSoapClient.class, interfaceMethod));
+    verify(methodResolver, times(1)).resolve(MockSoapClient.class, interfaceMethod);
+  }
+
+  @Test
+  public void testGet_resolvesPerClass() {
+    when(methodResolver.resolve(MockSoapClient.class, interfaceMethod)).thenReturn(targetMethod);
+
+    assertSame(targetMethod, methodDispatchCache.get(MockSoapClient.class, interfaceMethod));
+    assertNull(methodDispatchCache.get(Object.class, interfaceMethod));
+    verify(methodResolver, times(2)).resolve(Mockito.<Class<?>>any(), any(Method.class));
+  }
+}
@@ -21,6 +21,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
@@ -128,7 +131,11 @@ public class RequestInfoXPathSetTest {
         builder,
         xPathSet.parseMessage(builder, message));
     RequestInfo requestInfo = builder.build();
+    // The message should not be serialized until the payload is read.
+    verify(message, never()).writeTo(org.mockito.Matchers.any(OutputStream.class));
     assertEquals("Payload doesn't match", payload, requestInfo.getPayload());
+    assertEquals("Payload doesn't match", payload, requestInfo.getPayload());
+    verify(message, times(1)).writeTo(org.mockito.Matchers.any(OutputStream.class));
     assertEquals("Context name doesn't match", "bar", requestInfo.getContextName());
   }
 
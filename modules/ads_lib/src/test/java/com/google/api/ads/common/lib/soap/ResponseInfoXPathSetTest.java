@@ -19,6 +19,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
@@ -112,7 +115,11 @@ public class ResponseInfoXPathSetTest {
         builder,
         xPathSet.parseMessage(builder, message));
     ResponseInfo responseInfo = builder.build();
+    // The message should not be serialized until the payload is read.
+    verify(message, never()).writeTo(org.mockito.Matchers.any(OutputStream.class));
     assertEquals("Payload doesn't match", payload, responseInfo.getPayload());
+    assertEquals("Payload doesn't match", payload, responseInfo.getPayload());
+    verify(message, times(1)).writeTo(org.mockito.Matchers.any(OutputStream.class));
   }
 
   @Test
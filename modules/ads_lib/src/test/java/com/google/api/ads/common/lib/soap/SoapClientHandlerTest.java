@@ -291,6 +291,16 @@ public class SoapClientHandlerTest {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public boolean isConcurrentSoapClientSupported() {
+      return false;
+    }
+
+    @Override
+    public Object createConcurrentSoapClient(Object soapClient) throws ServiceException {
+      throw new UnsupportedOperationException();
+    }
+
     @Override
     public RemoteCallReturn invokeSoapCall(SoapCall<Object> soapCall) {
       throw new UnsupportedOperationException();
@@ -145,6 +145,65 @@ public class SoapServiceClientTest {
     soapServiceClient.invoke(null, indentityCallMethod, args);
   }
 
+  @Test
+  public void testInvoke_concurrentSoapClientMethod() throws Throwable {
+    Object returnValue = new Object();
+    RemoteCallReturn callReturn =
+        new RemoteCallReturn.Builder().withReturnValue(returnValue).build();
+    MockSoapClient concurrentSoapClient = Mockito.mock(MockSoapClient.class);
+    String endpointAddress = "http://test.com";
+
+    Method identityCallMethod = MockSoapClient.class.getMethod("identityCall", Object[].class);
+    Object[] args = new Object[] {new String[] {"arg1", "arg2"}};
+    SoapCall<Object> soapCall =
+        new SoapCall<Object>(identityCallMethod, concurrentSoapClient, args);
+
+    when(soapClientHandler.createConcurrentSoapClient(soapClient))
+        .thenReturn(concurrentSoapClient);
+    when(soapClientHandler.getEndpointAddress(soapClient)).thenReturn(endpointAddress);
+    when(soapClientHandler.getSoapClientMethod(concurrentSoapClient, identityCallMethod))
+        .thenReturn(identityCallMethod);
+    when(soapClientHandler.invokeSoapCall(soapCall)).thenReturn(callReturn);
+
+    soapServiceClient.setConcurrentInvocationEnabled(true);
+    assertEquals(returnValue, soapServiceClient.invoke(null, identityCallMethod, args));
+    assertEquals(returnValue, soapServiceClient.invoke(null, identityCallMethod, args));
+
+    // The call-scoped SOAP client should be reused by the second call.
+    verify(soapClientHandler, Mockito.times(1)).createConcurrentSoapClient(soapClient);
+    verify(soapClientHandler, Mockito.times(2))
+        .setEndpointAddress(concurrentSoapClient, endpointAddress);
+    verify(soapClientHandler, Mockito.never()).invokeSoapCall(
+        new SoapCall<Object>(identityCallMethod, soapClient, args));
+  }
+
+  @Test
+  public void testInvoke_concurrentInvocationNoIdleSoapClients() throws Throwable {
+    Object returnValue = new Object();
+    RemoteCallReturn callReturn =
+        new RemoteCallReturn.Builder().withReturnValue(returnValue).build();
+    MockSoapClient concurrentSoapClient = Mockito.mock(MockSoapClient.class);
+
+    Method identityCallMethod = MockSoapClient.class.getMethod("identityCall", Object[].class);
+    Object[] args = new Object[] {new String[] {"arg1", "arg2"}};
+
+    when(soapClientHandler.createConcurrentSoapClient(soapClient))
+        .thenReturn(concurrentSoapClient);
+    when(soapClientHandler.getSoapClientMethod(concurrentSoapClient, identityCallMethod))
+        .thenReturn(identityCallMethod);
+    when(soapClientHandler.invokeSoapCall(
+        new SoapCall<Object>(identityCallMethod, concurrentSoapClient, args)))
+        .thenReturn(callReturn);
+
+    soapServiceClient.setConcurrentInvocationEnabled(true);
+    soapServiceClient.setMaxIdleConcurrentSoapClients(0);
+    assertEquals(returnValue, soapServiceClient.invoke(null, identityCallMethod, args));
+    assertEquals(returnValue, soapServiceClient.invoke(null, identityCallMethod, args));
+
+    // No call-scoped SOAP client is kept, so each call creates its own.
+    verify(soapClientHandler, Mockito.times(2)).createConcurrentSoapClient(soapClient);
+  }
+
   @Test
   public void testCreateSoapCall() throws SecurityException, NoSuchMethodException {
     Method indentityCallMethod = MockSoapClient.class.getMethod("identityCall", Object[].class);
@@ -237,5 +296,10 @@ public class SoapServiceClientTest {
         throw AUTH_EXCEPTION;
       }
     }
+
+    @Override
+    protected void setHeaders(Object soapClient) throws AuthenticationException {
+      setHeaders();
+    }
   }
 }
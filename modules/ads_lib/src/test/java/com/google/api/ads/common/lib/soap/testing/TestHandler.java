@@ -96,6 +96,16 @@ public class TestHandler extends SoapClientHandler<Object> {
     return null;
   }
 
+  @Override
+  public boolean isConcurrentSoapClientSupported() {
+    return true;
+  }
+
+  @Override
+  public Object createConcurrentSoapClient(Object soapClient) {
+    return null;
+  }
+
   /**
    * Invoke a SOAP call.
    *
@@ -15,6 +15,7 @@
 package com.google.api.ads.common.lib.useragent;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
@@ -124,4 +125,20 @@ public class AdsUtilitiesUserAgentProviderTest {
     assertTrue("User agent provider should clear utilities",
         adsUtilityRegistry.popRegisteredUtilities().isEmpty());
   }
+
+  /**
+   * Tests that hasUserAgent is true only while utilities are registered.
+   */
+  @Test
+  public void testHasUserAgent() {
+    when(adsLibConfiguration.isIncludeAdsUtilitiesInUserAgent()).thenReturn(true);
+    adsUtilityRegistry.popRegisteredUtilities();
+    assertFalse("No utilities are registered", userAgentProvider.hasUserAgent());
+
+    adsUtilityRegistry.addUtility(AdsUtility.PRODUCT_PARTITION_TREE);
+    assertTrue("A utility is registered", userAgentProvider.hasUserAgent());
+
+    userAgentProvider.getUserAgent();
+    assertFalse("Registered utilities should be cleared", userAgentProvider.hasUserAgent());
+  }
 }
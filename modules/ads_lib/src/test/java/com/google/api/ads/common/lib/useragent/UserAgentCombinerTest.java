@@ -15,6 +15,8 @@
 package com.google.api.ads.common.lib.useragent;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.Lists;
@@ -37,6 +39,7 @@ public class UserAgentCombinerTest {
 
   @Mock private UserAgentProvider userAgentProvider1;
   @Mock private UserAgentProvider userAgentProvider2;
+  @Mock private AdsUtilitiesUserAgentProvider adsUtilitiesUserAgentProvider;
 
   @Before
   public void setUp() throws Exception {
@@ -61,4 +64,40 @@ public class UserAgentCombinerTest {
         "myUserAgent (userAgent/1, userAgent/2)",
         userAgentCombiner.getUserAgent(nonLibraryUserAgent));
   }
+
+  @Test
+  public void testGetUserAgent_cached() {
+    when(userAgentProvider1.getUserAgent()).thenReturn("userAgent/1");
+    when(userAgentProvider2.getUserAgent()).thenReturn("userAgent/2");
+
+    userAgentCombiner.getUserAgent("myUserAgent");
+    userAgentCombiner.getUserAgent("myUserAgent");
+    assertEquals("otherUserAgent (userAgent/1, userAgent/2)",
+        userAgentCombiner.getUserAgent("otherUserAgent"));
+
+    verify(userAgentProvider1, times(2)).getUserAgent();
+    verify(userAgentProvider2, times(2)).getUserAgent();
+  }
+
+  @Test
+  public void testGetUserAgent_withAdsUtilities() {
+    userAgentCombiner = new UserAgentCombiner(
+        Lists.newArrayList(userAgentProvider1, adsUtilitiesUserAgentProvider, userAgentProvider2));
+    when(userAgentProvider1.getUserAgent()).thenReturn("userAgent/1");
+    when(userAgentProvider2.getUserAgent()).thenReturn("userAgent/2");
+    when(adsUtilitiesUserAgentProvider.getUserAgent()).thenReturn("utility/1");
+
+    when(adsUtilitiesUserAgentProvider.hasUserAgent()).thenReturn(false);
+    assertEquals("myUserAgent (userAgent/1, userAgent/2)",
+        userAgentCombiner.getUserAgent("myUserAgent"));
+
+    when(adsUtilitiesUserAgentProvider.hasUserAgent()).thenReturn(true);
+    assertEquals("myUserAgent (userAgent/1, utility/1, userAgent/2)",
+        userAgentCombiner.getUserAgent("myUserAgent"));
+
+    when(adsUtilitiesUserAgentProvider.hasUserAgent()).thenReturn(false);
+    assertEquals("myUserAgent (userAgent/1, userAgent/2)",
+        userAgentCombiner.getUserAgent("myUserAgent"));
+    verify(adsUtilitiesUserAgentProvider, times(1)).getUserAgent();
+  }
 }
@@ -0,0 +1,115 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@link DelimitedRowTokenizer}.
+ */
+@RunWith(JUnit4.class)
+public class DelimitedRowTokenizerTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void testReadRow_quotedFields() throws IOException {
+    DelimitedRowTokenizer tokenizer = new DelimitedRowTokenizer(
+        new StringReader("a,\"b, \"\"c\"\"\",\"multi\r\nline\"\r\n\r\n,x\"y\"\n"), ',', true);
+    List<String> fields = Lists.newArrayList();
+
+    assertTrue(tokenizer.readRow(fields));
+    assertEquals(Arrays.asList("a", "b, \"c\"", "multi\r\nline"), fields);
+    assertTrue(tokenizer.readRow(fields));
+    assertEquals(Arrays.asList("", "x\"y\""), fields);
+    assertFalse(tokenizer.readRow(fields));
+    assertEquals(2, tokenizer.getRowCount());
+  }
+
+  @Test
+  public void testReadRow_unquotedFields() throws IOException {
+    DelimitedRowTokenizer tokenizer =
+        new DelimitedRowTokenizer(new StringReader("\"a\"\tb\t\n"), '\t', false);
+    List<String> fields = Lists.newArrayList();
+
+    assertTrue(tokenizer.readRow(fields));
+    assertEquals(Arrays.asList("\"a\"", "b", ""), fields);
+    assertFalse(tokenizer.readRow(fields));
+  }
+
+  @Test
+  public void testReadRow_byteOrderMark() throws IOException {
+    DelimitedRowTokenizer tokenizer =
+        new DelimitedRowTokenizer(new StringReader("\uFEFFa,b"), ',', true);
+    List<String> fields = Lists.newArrayList();
+
+    assertTrue(tokenizer.readRow(fields));
+    assertEquals(Arrays.asList("a", "b"), fields);
+  }
+
+  /**
+   * Tests that fields are split correctly when they span reads of the underlying reader.
+   */
+  @Test
+  public void testReadRow_acrossReads() throws IOException {
+    Reader reader = new StringReader("ab,\"c\"\"d\"\r\nef") {
+      @Override
+      public int read(char[] buffer, int offset, int length) throws IOException {
+        return super.read(buffer, offset, Math.min(length, 1));
+      }
+    };
+    DelimitedRowTokenizer tokenizer = new DelimitedRowTokenizer(reader, ',', true);
+    List<String> fields = Lists.newArrayList();
+
+    assertTrue(tokenizer.readRow(fields));
+    assertEquals(Arrays.asList("ab", "c\"d"), fields);
+    assertTrue(tokenizer.readRow(fields));
+    assertEquals(Arrays.asList("ef"), fields);
+    assertFalse(tokenizer.readRow(fields));
+  }
+
+  @Test
+  public void testReadRow_unterminatedQuote() throws IOException {
+    DelimitedRowTokenizer tokenizer =
+        new DelimitedRowTokenizer(new StringReader("a\n\"b"), ',', true);
+    List<String> fields = Lists.newArrayList();
+    assertTrue(tokenizer.readRow(fields));
+
+    thrown.expect(IOException.class);
+    thrown.expectMessage("row 2");
+    tokenizer.readRow(fields);
+  }
+
+  @Test
+  public void testConstructor_invalidDelimiter() {
+    thrown.expect(IllegalArgumentException.class);
+    new DelimitedRowTokenizer(new StringReader(""), '"', true);
+  }
+}
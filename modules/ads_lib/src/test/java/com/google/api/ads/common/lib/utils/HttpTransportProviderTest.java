@@ -0,0 +1,95 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.google.api.ads.common.lib.conf.AdsLibConfiguration;
+import com.google.api.client.http.apache.ApacheHttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Tests for {@link HttpTransportProvider}.
+ */
+@RunWith(JUnit4.class)
+public class HttpTransportProviderTest {
+
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  @Mock private AdsLibConfiguration adsLibConfiguration;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    when(adsLibConfiguration.getHttpMaxConnections())
+        .thenReturn(AdsLibConfiguration.DEFAULT_HTTP_MAX_CONNECTIONS);
+    when(adsLibConfiguration.getHttpMaxConnectionsPerRoute())
+        .thenReturn(AdsLibConfiguration.DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE);
+    when(adsLibConfiguration.getHttpKeepAlive())
+        .thenReturn(AdsLibConfiguration.DEFAULT_HTTP_KEEP_ALIVE);
+  }
+
+  @Test
+  public void testGet_net() {
+    when(adsLibConfiguration.getHttpTransport()).thenReturn("net");
+    HttpTransportProvider provider = new HttpTransportProvider(adsLibConfiguration);
+
+    assertTrue(provider.get() instanceof NetHttpTransport);
+    assertSame("Provider should return a shared transport", provider.get(), provider.get());
+    assertFalse(HttpTransportProvider.isPooled(adsLibConfiguration));
+    assertEquals(-1, provider.getPooledConnectionCount());
+  }
+
+  @Test
+  public void testGet_apache() {
+    when(adsLibConfiguration.getHttpTransport()).thenReturn(" Apache ");
+    HttpTransportProvider provider = new HttpTransportProvider(adsLibConfiguration);
+
+    assertTrue(provider.get() instanceof ApacheHttpTransport);
+    assertSame("Provider should return a shared transport", provider.get(), provider.get());
+    assertTrue(HttpTransportProvider.isPooled(adsLibConfiguration));
+    assertEquals(0, provider.getPooledConnectionCount());
+  }
+
+  @Test
+  public void testGet_apache_invalidMaxConnections() {
+    when(adsLibConfiguration.getHttpTransport()).thenReturn("apache");
+    when(adsLibConfiguration.getHttpMaxConnectionsPerRoute()).thenReturn(0);
+
+    thrown.expect(IllegalArgumentException.class);
+    new HttpTransportProvider(adsLibConfiguration);
+  }
+
+  @Test
+  public void testGet_unsupported() {
+    when(adsLibConfiguration.getHttpTransport()).thenReturn("carrierpigeon");
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("carrierpigeon");
+    new HttpTransportProvider(adsLibConfiguration);
+  }
+}
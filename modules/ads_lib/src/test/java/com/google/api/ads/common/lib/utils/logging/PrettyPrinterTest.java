@@ -15,9 +15,11 @@
 package com.google.api.ads.common.lib.utils.logging;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -227,6 +229,22 @@ public class PrettyPrinterTest {
         XMLUnit.getWhitespaceStrippedDocument(actualDocument));
   }
 
+  /**
+   * Tests that the sensitive XPaths are compiled once and reused by later calls on the same thread.
+   */
+  @Test
+  public void testPrettyPrint_compilesSensitiveXPathsOnce() {
+    when(adsApiConfiguration.getSensitiveXPaths()).thenReturn(new String[] {TEST_SENSITIVE_XPATH});
+
+    PrettyPrinter prettyPrinter = createPrettyPrinter();
+    String firstXml = prettyPrinter.prettyPrint(TEST_XML);
+    String secondXml = prettyPrinter.prettyPrint(TEST_XML);
+
+    assertEquals(firstXml, secondXml);
+    assertFalse("Sensitive value should be redacted", secondXml.contains("moe"));
+    verify(xpathSupplier, times(1)).get();
+  }
+
   /**
    * Tests that when the Transformer supplier returns null, request ID is still extracted, but
    * formatting is skipped.
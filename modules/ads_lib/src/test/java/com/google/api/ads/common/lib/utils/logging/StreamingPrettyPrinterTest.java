@@ -0,0 +1,145 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.common.lib.utils.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.custommonkey.xmlunit.XMLAssert;
+import org.custommonkey.xmlunit.XMLUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests for {@link StreamingPrettyPrinter}.
+ */
+@RunWith(JUnit4.class)
+public class StreamingPrettyPrinterTest {
+
+  private static final String TEST_XML =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+          + "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+          + "<soapenv:Header><ns1:RequestHeader xmlns:ns1=\"https://adwords.google.com/api\">"
+          + "<ns1:developerToken>secret</ns1:developerToken>"
+          + "<ns1:userAgent a=\"b\">agent</ns1:userAgent>"
+          + "</ns1:RequestHeader></soapenv:Header>"
+          + "<soapenv:Body><get><selector><fields>Id</fields><fields>Name</fields></selector>"
+          + "</get></soapenv:Body></soapenv:Envelope>";
+  private static final String[] SENSITIVE_XPATHS =
+      new String[] {"/Envelope/Header/RequestHeader/developerToken"};
+
+  @Mock private Logger logger;
+  @Mock private PrettyPrinterInterface fallbackPrettyPrinter;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+  }
+
+  @Test
+  public void testPrettyPrint_redactsAndIndents() throws Exception {
+    StreamingPrettyPrinter prettyPrinter =
+        new StreamingPrettyPrinter(SENSITIVE_XPATHS, 0, logger, fallbackPrettyPrinter);
+
+    String prettyXml = prettyPrinter.prettyPrint(TEST_XML);
+
+    assertFalse("Sensitive value should be redacted", prettyXml.contains("secret"));
+    assertTrue("Elements should be indented",
+        prettyXml.contains("\n            <ns1:developerToken>REDACTED</ns1:developerToken>"));
+    assertTrue("Text-only elements should stay on one line",
+        prettyXml.contains("<fields>Id</fields>"));
+    XMLAssert.assertXMLEqual(
+        XMLUnit.getWhitespaceStrippedDocument(parse(TEST_XML.replace("secret", "REDACTED"))),
+        XMLUnit.getWhitespaceStrippedDocument(parse(prettyXml)));
+    verifyZeroInteractions(fallbackPrettyPrinter);
+  }
+
+  @Test
+  public void testPrettyPrint_wildcardStep() {
+    StreamingPrettyPrinter prettyPrinter = new StreamingPrettyPrinter(
+        new String[] {"/Envelope/*/RequestHeader/userAgent"}, 0, logger, fallbackPrettyPrinter);
+
+    String prettyXml = prettyPrinter.prettyPrint(TEST_XML);
+
+    assertFalse(prettyXml.contains("agent<"));
+    assertTrue(prettyXml.contains("<ns1:userAgent a=\"b\">REDACTED</ns1:userAgent>"));
+    assertTrue(prettyXml.contains("secret"));
+  }
+
+  @Test
+  public void testPrettyPrint_truncatesLargePayloads() {
+    StreamingPrettyPrinter prettyPrinter =
+        new StreamingPrettyPrinter(SENSITIVE_XPATHS, 100, logger, fallbackPrettyPrinter);
+
+    String prettyXml = prettyPrinter.prettyPrint(TEST_XML);
+
+    assertTrue(prettyXml.endsWith("[truncated, " + TEST_XML.length() + " characters in total]"));
+    assertFalse(prettyXml.contains("<get>"));
+  }
+
+  @Test
+  public void testPrettyPrint_invalidXml() {
+    StreamingPrettyPrinter prettyPrinter =
+        new StreamingPrettyPrinter(SENSITIVE_XPATHS, 0, logger, fallbackPrettyPrinter);
+    String xml = "<Envelope><Header></Envelope>";
+
+    assertSame(xml, prettyPrinter.prettyPrint(xml));
+    assertNull(prettyPrinter.prettyPrint(null));
+  }
+
+  @Test
+  public void testPrettyPrint_unsupportedXPathUsesFallback() {
+    String xpath = "//developerToken";
+    when(fallbackPrettyPrinter.prettyPrint(TEST_XML)).thenReturn("fallback");
+    StreamingPrettyPrinter prettyPrinter =
+        new StreamingPrettyPrinter(new String[] {xpath}, 0, logger, fallbackPrettyPrinter);
+
+    assertEquals("fallback", prettyPrinter.prettyPrint(TEST_XML));
+    verify(logger).warn(
+        "Unable to stream sensitive XPath {}, using DOM pretty printing instead.", xpath);
+  }
+
+  @Test
+  public void testParsePath() {
+    assertEquals(Arrays.asList("Envelope", "*", "token"),
+        StreamingPrettyPrinter.parsePath("/Envelope/*/token"));
+    assertNull(StreamingPrettyPrinter.parsePath("Envelope/token"));
+    assertNull(StreamingPrettyPrinter.parsePath("//token"));
+    assertNull(StreamingPrettyPrinter.parsePath("/Envelope/token[1]"));
+    assertNull(StreamingPrettyPrinter.parsePath("/Envelope/@token"));
+  }
+
+  private static Document parse(String xml) throws Exception {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+  }
+}
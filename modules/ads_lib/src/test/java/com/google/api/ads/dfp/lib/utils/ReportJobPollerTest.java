@@ -0,0 +1,166 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.dfp.lib.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.api.ads.dfp.lib.utils.ReportJobPoller.ReportJobState;
+import com.google.api.ads.dfp.lib.utils.ReportJobPoller.ReportJobStatusCheck;
+import com.google.api.client.util.BackOff;
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests for {@link ReportJobPoller}.
+ */
+@RunWith(JUnit4.class)
+public class ReportJobPollerTest {
+
+  @Mock private ReportJobStatusCheck statusCheck;
+
+  private ReportJobPoller poller;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    poller = new ReportJobPoller.Builder().backOff(fixedBackOff(1, 3)).build();
+  }
+
+  @After
+  public void tearDown() {
+    poller.shutdown();
+  }
+
+  @Test
+  public void testPoll_completed() throws Exception {
+    when(statusCheck.getStatus(1L))
+        .thenReturn(ReportJobState.IN_PROGRESS, ReportJobState.IN_PROGRESS,
+            ReportJobState.COMPLETED);
+    assertTrue(poller.poll(statusCheck, 1L).get(5, TimeUnit.SECONDS));
+    verify(statusCheck, times(3)).getStatus(1L);
+    assertEquals(0, poller.getPendingReportJobCount());
+  }
+
+  @Test
+  public void testPoll_failed() throws Exception {
+    when(statusCheck.getStatus(1L)).thenReturn(ReportJobState.FAILED);
+    assertFalse(poller.poll(statusCheck, 1L).get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testPoll_statusCheckFails() throws Exception {
+    IOException exception = new IOException("status check failed");
+    when(statusCheck.getStatus(1L)).thenThrow(exception);
+    try {
+      poller.poll(statusCheck, 1L).get(5, TimeUnit.SECONDS);
+      fail("Expected the status check exception");
+    } catch (ExecutionException e) {
+      assertSame(exception, e.getCause());
+    }
+  }
+
+  @Test
+  public void testPoll_backOffStops() throws Exception {
+    when(statusCheck.getStatus(1L)).thenReturn(ReportJobState.IN_PROGRESS);
+    try {
+      poller.poll(statusCheck, 1L).get(5, TimeUnit.SECONDS);
+      fail("Expected a timeout");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+    }
+    verify(statusCheck, times(4)).getStatus(1L);
+  }
+
+  /**
+   * Tests that waiting for a report job that is already being waited for shares the status checks
+   * and the future.
+   */
+  @Test
+  public void testPoll_coalescesReportJobs() throws Exception {
+    final CountDownLatch released = new CountDownLatch(1);
+    when(statusCheck.getStatus(1L)).thenAnswer(new Answer<ReportJobState>() {
+      @Override
+      public ReportJobState answer(InvocationOnMock invocation) throws Exception {
+        released.await(5, TimeUnit.SECONDS);
+        return ReportJobState.COMPLETED;
+      }
+    });
+    when(statusCheck.getStatus(2L)).thenReturn(ReportJobState.FAILED);
+
+    ListenableFuture<Boolean> future = poller.poll(statusCheck, 1L);
+    assertSame(future, poller.poll(statusCheck, 1L));
+    assertEquals(1, poller.getPendingReportJobCount());
+    assertFalse(poller.poll(statusCheck, 2L).get(5, TimeUnit.SECONDS));
+
+    released.countDown();
+    assertTrue(future.get(5, TimeUnit.SECONDS));
+    verify(statusCheck, times(1)).getStatus(1L);
+  }
+
+  @Test
+  public void testShutdown_cancelsPendingReportJobs() throws Exception {
+    poller = new ReportJobPoller.Builder().backOff(fixedBackOff(60000, 3)).build();
+    when(statusCheck.getStatus(1L)).thenReturn(ReportJobState.IN_PROGRESS);
+    ListenableFuture<Boolean> future = poller.poll(statusCheck, 1L);
+    poller.shutdown();
+    assertTrue(future.isCancelled());
+  }
+
+  /**
+   * Returns a supplier of back off policies with a fixed interval that stop after a number of
+   * intervals.
+   */
+  private static Supplier<BackOff> fixedBackOff(final long intervalMillis, final int intervals) {
+    return new Supplier<BackOff>() {
+      @Override
+      public BackOff get() {
+        return new BackOff() {
+          private int count;
+
+          @Override
+          public void reset() {
+            count = 0;
+          }
+
+          @Override
+          public long nextBackOffMillis() {
+            return count++ < intervals ? intervalMillis : BackOff.STOP;
+          }
+        };
+      }
+    };
+  }
+}
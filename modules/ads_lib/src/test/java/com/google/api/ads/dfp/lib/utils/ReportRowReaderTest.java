@@ -0,0 +1,133 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.dfp.lib.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@link ReportRowReader}.
+ */
+@RunWith(JUnit4.class)
+public class ReportRowReaderTest {
+
+  private static final String CSV_REPORT =
+      "Dimension.ORDER_NAME,Dimension.ORDER_ID,"
+      + "Column.AD_SERVER_IMPRESSIONS,Column.AD_SERVER_CTR\r\n"
+      + "\"Order, \"\"one\"\"\",123,1000,0.0125\r\n"
+      + "\"Multi\nline\",456,-2000,0.5\r\n"
+      + "\r\n";
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void testNext_allColumns() throws IOException {
+    ReportRowReader rows = new ReportRowReader.Builder().build(new StringReader(CSV_REPORT));
+
+    assertEquals(Arrays.asList("Dimension.ORDER_NAME", "Dimension.ORDER_ID",
+        "Column.AD_SERVER_IMPRESSIONS", "Column.AD_SERVER_CTR"), rows.getColumnNames());
+    assertTrue(rows.next());
+    assertEquals("Order, \"one\"", rows.getString("Dimension.ORDER_NAME"));
+    assertEquals(123L, rows.getLong("Dimension.ORDER_ID"));
+    assertEquals(1000L, rows.getLong(2));
+    assertEquals(0.0125, rows.getDouble("Column.AD_SERVER_CTR"), 0);
+
+    assertTrue(rows.next());
+    assertEquals("Multi\nline", rows.getString(0));
+    assertEquals(-2000L, rows.getLong(2));
+
+    assertFalse(rows.next());
+    assertEquals(2, rows.getRowCount());
+    rows.close();
+  }
+
+  @Test
+  public void testNext_selectedColumns() throws IOException {
+    ReportRowReader rows = new ReportRowReader.Builder()
+        .columns("Column.AD_SERVER_IMPRESSIONS", "Dimension.ORDER_ID")
+        .build(new StringReader(CSV_REPORT));
+
+    assertEquals(0, rows.getColumnIndex("Column.AD_SERVER_IMPRESSIONS"));
+    assertEquals(1, rows.getColumnIndex("Dimension.ORDER_ID"));
+    assertTrue(rows.next());
+    assertEquals(1000L, rows.getLong(0));
+    assertEquals(123L, rows.getLong(1));
+    assertTrue(rows.next());
+    assertEquals("-2000", rows.getString(0));
+    assertEquals(456L, rows.getLong(1));
+    assertFalse(rows.next());
+
+    thrown.expect(IllegalArgumentException.class);
+    rows.getColumnIndex("Dimension.ORDER_NAME");
+  }
+
+  @Test
+  public void testNext_tabDelimited() throws IOException {
+    ReportRowReader rows = new ReportRowReader.Builder()
+        .delimiter('\t')
+        .build(new StringReader("\uFEFFDimension.DATE\tColumn.AD_SERVER_CLICKS\n2017-01-01\t5"));
+
+    assertTrue(rows.next());
+    assertEquals("2017-01-01", rows.getString("Dimension.DATE"));
+    assertEquals(5L, rows.getLong("Column.AD_SERVER_CLICKS"));
+    assertFalse(rows.next());
+  }
+
+  @Test
+  public void testGetLong_invalid() throws IOException {
+    ReportRowReader rows = new ReportRowReader.Builder().build(new StringReader(CSV_REPORT));
+    assertTrue(rows.next());
+
+    thrown.expect(NumberFormatException.class);
+    rows.getLong("Column.AD_SERVER_CTR");
+  }
+
+  @Test
+  public void testGetString_missingField() throws IOException {
+    ReportRowReader rows = new ReportRowReader.Builder()
+        .columns("Column.AD_SERVER_CLICKS")
+        .build(new StringReader("Dimension.DATE,Column.AD_SERVER_CLICKS\n2017-01-01\n"));
+    assertTrue(rows.next());
+
+    thrown.expect(IllegalStateException.class);
+    rows.getString(0);
+  }
+
+  @Test
+  public void testBuild_missingColumn() throws IOException {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Dimension.AD_UNIT_ID");
+    new ReportRowReader.Builder()
+        .columns("Dimension.AD_UNIT_ID")
+        .build(new StringReader(CSV_REPORT));
+  }
+
+  @Test
+  public void testBuild_noColumnHeader() throws IOException {
+    thrown.expect(IllegalArgumentException.class);
+    new ReportRowReader.Builder().build(new StringReader(""));
+  }
+}
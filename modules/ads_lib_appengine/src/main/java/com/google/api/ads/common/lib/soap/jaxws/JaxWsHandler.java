@@ -239,6 +239,29 @@ public class JaxWsHandler extends SoapClientHandler<BindingProvider> {
     }
   }
 
+  /**
+   * Returns {@code false}, since a binding provider does not expose the service
+   * it was created from.
+   *
+   * @see SoapClientHandlerInterface#isConcurrentSoapClientSupported()
+   */
+  @Override
+  public boolean isConcurrentSoapClientSupported() {
+    return false;
+  }
+
+  /**
+   * JAX-WS does not support use of this method, since a binding provider does
+   * not expose the service it was created from.
+   *
+   * @see SoapClientHandlerInterface#createConcurrentSoapClient(Object)
+   */
+  @Override
+  public BindingProvider createConcurrentSoapClient(BindingProvider soapClient) {
+    throw new UnsupportedOperationException(
+        "Concurrent invocation is not supported by the JAX-WS SOAP client handler");
+  }
+
   /**
    * Sets properties into the message context to alter the timeout on App Engine.
    */
@@ -25,8 +25,10 @@ import com.google.api.ads.common.lib.soap.SoapClientHandler;
 import com.google.api.ads.common.lib.soap.SoapClientHandlerInterface;
 import com.google.api.ads.common.lib.soap.SoapServiceDescriptor;
 import com.google.api.ads.common.lib.soap.compatability.AxisCompatible;
+import com.google.api.client.http.HttpTransport;
 import com.google.common.base.Preconditions;
 import java.lang.reflect.InvocationTargetException;
+import java.rmi.Remote;
 import java.util.Hashtable;
 import java.util.Map;
 import javax.inject.Inject;
@@ -178,6 +180,31 @@ public class AxisHandler extends SoapClientHandler<Stub> {
     soapClient._setProperty(HTTPConstants.MC_GZIP_REQUEST, compress);
   }
 
+  /**
+   * Sets whether SOAP requests should be streamed to the connection instead of
+   * being buffered in memory first.
+   *
+   * @param soapClient the client to set request streaming for
+   * @param streamRequest whether or not to stream requests
+   * @see HttpHandler#STREAM_REQUEST
+   */
+  public void setRequestStreaming(Stub soapClient, boolean streamRequest) {
+    soapClient._setProperty(HttpHandler.STREAM_REQUEST, streamRequest);
+  }
+
+  /**
+   * Sets the HTTP transport used to send requests of the given SOAP client. The
+   * transport is only used if the client engine configuration sends requests
+   * through {@link HttpHandler}.
+   *
+   * @param soapClient the client to set the HTTP transport for
+   * @param httpTransport the HTTP transport to use
+   * @see HttpHandler#HTTP_TRANSPORT
+   */
+  public void setHttpTransport(Stub soapClient, HttpTransport httpTransport) {
+    soapClient._setProperty(HttpHandler.HTTP_TRANSPORT, httpTransport);
+  }
+
   /**
    * Creates a SOAP client using a SOAP service descriptor.
    *
@@ -219,7 +246,43 @@ public class AxisHandler extends SoapClientHandler<Stub> {
   }
 
   /**
-   * Invoke a SOAP call.
+   * Returns {@code true}, since stubs expose the locator they were created from.
+   */
+  @Override
+  public boolean isConcurrentSoapClientSupported() {
+    return true;
+  }
+
+  /**
+   * Creates a stub for the same service as the given stub. The new stub is
+   * created from the existing stub's locator, so it shares the locator's engine
+   * configuration but none of the existing stub's headers, properties or calls.
+   *
+   * @param soapClient the stub whose locator should be shared
+   * @return a new stub for the same service
+   * @throws ServiceException thrown if the stub cannot be created
+   */
+  @Override
+  public Stub createConcurrentSoapClient(Stub soapClient) throws ServiceException {
+    javax.xml.rpc.Service locator = Preconditions.checkNotNull(soapClient._getService(),
+        "Stub [%s] has no service locator", soapClient);
+    for (Class<?> interfaceClass : soapClient.getClass().getInterfaces()) {
+      if (Remote.class.isAssignableFrom(interfaceClass)) {
+        try {
+          return (Stub) locator.getPort(interfaceClass);
+        } catch (javax.xml.rpc.ServiceException e) {
+          throw new ServiceException("Unexpected Exception.", e);
+        }
+      }
+    }
+    throw new ServiceException(
+        "Stub [" + soapClient + "] does not implement a remote service interface", null);
+  }
+
+  /**
+   * Invoke a SOAP call. Calls on the same stub are serialized, while calls on
+   * different stubs, such as those created by
+   * {@link #createConcurrentSoapClient(Stub)}, proceed concurrently.
    *
    * @param soapCall the call to make to a SOAP web service
    * @return information about the SOAP response
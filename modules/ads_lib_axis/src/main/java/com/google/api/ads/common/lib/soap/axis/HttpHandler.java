@@ -16,8 +16,11 @@ package com.google.api.ads.common.lib.soap.axis;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.api.client.http.AbstractHttpContent;
 import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.GZipEncoding;
 import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpContent;
 import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpRequestFactory;
 import com.google.api.client.http.HttpRequestInitializer;
@@ -31,6 +34,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.zip.GZIPOutputStream;
@@ -50,6 +54,18 @@ public class HttpHandler extends BasicHandler implements HttpRequestInitializer
 
   private static final Logger logger = LoggerFactory.getLogger(HttpHandler.class);
 
+  /**
+   * Message context property that, if {@code true}, streams the request message to the
+   * connection instead of buffering it in memory first.
+   */
+  public static final String STREAM_REQUEST = HttpHandler.class.getName() + ".streamRequest";
+
+  /**
+   * Message context property that, if set to an {@link HttpTransport}, sends the request with
+   * that transport instead of the transport of this handler.
+   */
+  public static final String HTTP_TRANSPORT = HttpHandler.class.getName() + ".httpTransport";
+
   private final HttpRequestFactory requestFactory;
 
   private final InputStreamEventListener inputStreamEventListener;
@@ -117,25 +133,31 @@ public class HttpHandler extends BasicHandler implements HttpRequestInitializer
         Preconditions.checkNotNull(
             msgContext.getRequestMessage(), "Null request message on message context");
     
-    // Construct the output stream.
-    String contentType = requestMessage.getContentType(msgContext.getSOAPConstants());
-    ByteArrayOutputStream bos = new ByteArrayOutputStream(BUFFER_SIZE);
+    HttpRequestFactory requestFactory = this.requestFactory;
+    Object httpTransport = msgContext.getProperty(HTTP_TRANSPORT);
+    if (httpTransport instanceof HttpTransport) {
+      requestFactory = ((HttpTransport) httpTransport).createRequestFactory(this);
+    }
 
-    if (msgContext.isPropertyTrue(HTTPConstants.MC_GZIP_REQUEST)) {
-      logger.debug("Compressing request");
-      try (GZIPOutputStream gzipOs = new GZIPOutputStream(bos, BUFFER_SIZE)) {
-        requestMessage.writeTo(gzipOs);
+    String contentType = requestMessage.getContentType(msgContext.getSOAPConstants());
+    GenericUrl url = new GenericUrl(msgContext.getStrProp(MessageContext.TRANS_URL));
+    HttpRequest httpRequest;
+    if (msgContext.isPropertyTrue(STREAM_REQUEST)) {
+      // Write the message directly to the connection. Since the length is unknown, the request
+      // will use chunked transfer encoding.
+      logger.debug("Streaming request");
+      httpRequest =
+          requestFactory.buildPostRequest(url, new MessageContent(contentType, requestMessage));
+      if (msgContext.isPropertyTrue(HTTPConstants.MC_GZIP_REQUEST)) {
+        logger.debug("Compressing request");
+        httpRequest.setEncoding(new GZipEncoding());
       }
     } else {
-      logger.debug("Not compressing request");
-      requestMessage.writeTo(bos);
+      httpRequest =
+          requestFactory.buildPostRequest(
+              url, createBufferedContent(msgContext, requestMessage, contentType));
     }
 
-    HttpRequest httpRequest =
-        requestFactory.buildPostRequest(
-            new GenericUrl(msgContext.getStrProp(MessageContext.TRANS_URL)),
-            new ByteArrayContent(contentType, bos.toByteArray()));
-
     int timeoutMillis = msgContext.getTimeout();
     if (timeoutMillis >= 0) {
       logger.debug("Setting read and connect timeout to {} millis", timeoutMillis);
@@ -150,6 +172,27 @@ public class HttpHandler extends BasicHandler implements HttpRequestInitializer
     return httpRequest;
   }
 
+  /**
+   * Returns the content of the request message, fully written to memory and compressed if
+   * requested by the message context.
+   */
+  private HttpContent createBufferedContent(
+      MessageContext msgContext, Message requestMessage, String contentType)
+      throws SOAPException, IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(BUFFER_SIZE);
+
+    if (msgContext.isPropertyTrue(HTTPConstants.MC_GZIP_REQUEST)) {
+      logger.debug("Compressing request");
+      try (GZIPOutputStream gzipOs = new GZIPOutputStream(bos, BUFFER_SIZE)) {
+        requestMessage.writeTo(gzipOs);
+      }
+    } else {
+      logger.debug("Not compressing request");
+      requestMessage.writeTo(bos);
+    }
+    return new ByteArrayContent(contentType, bos.toByteArray());
+  }
+
   /** Sets HTTP request headers based on the Axis message context. */
   private void setHttpRequestHeaders(MessageContext msgContext, HttpRequest httpRequest) {
     @SuppressWarnings("unchecked")
@@ -238,6 +281,42 @@ public class HttpHandler extends BasicHandler implements HttpRequestInitializer
     void afterClose();
   }
 
+  /**
+   * HTTP content that writes an Axis message directly to the output stream each time the content
+   * is written. The length of the content is unknown.
+   */
+  private static class MessageContent extends AbstractHttpContent {
+    private final Message message;
+
+    MessageContent(String contentType, Message message) {
+      super(contentType);
+      this.message = message;
+    }
+
+    @Override
+    public long getLength() {
+      // Computing the length would require writing the message an extra time.
+      return -1;
+    }
+
+    @Override
+    public boolean retrySupported() {
+      // Requests are never retried by this handler. This also prevents the request factory from
+      // writing the message an extra time to compute the length of the encoded content.
+      return false;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+      try {
+        message.writeTo(out);
+      } catch (SOAPException e) {
+        throw new IOException("Unable to write request message", e);
+      }
+      out.flush();
+    }
+  }
+
   /** Wrapper for an input stream that triggers lifecycle events. */
   private static class NotifyingInputStream extends FilterInputStream {
     private final InputStreamEventListener inputStreamEventListener;
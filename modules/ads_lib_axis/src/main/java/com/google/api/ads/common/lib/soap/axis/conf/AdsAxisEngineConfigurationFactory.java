@@ -15,6 +15,7 @@
 package com.google.api.ads.common.lib.soap.axis.conf;
 
 import com.google.api.ads.common.lib.conf.AdsLibConfiguration;
+import com.google.api.ads.common.lib.utils.HttpTransportProvider;
 
 import org.apache.axis.EngineConfiguration;
 import org.apache.axis.EngineConfigurationFactory;
@@ -25,8 +26,8 @@ import javax.inject.Inject;
 
 /**
  * EngineConfigurationFactory implementation that configures Axis clients using a custom
- * configuration file if compression is enabled and no client customization has been specified
- * in the environment.
+ * configuration file if compression or a pooled HTTP transport is enabled and no client
+ * customization has been specified in the environment.
  */
 public class AdsAxisEngineConfigurationFactory implements EngineConfigurationFactory {
 
@@ -43,10 +44,12 @@ public class AdsAxisEngineConfigurationFactory implements EngineConfigurationFac
 
   @Override
   public EngineConfiguration getClientEngineConfig() {
-    // Only return the custom configuration for compression if the client config has not
-    // been overridden.
+    // Only return the custom configuration for compression, pooled connections or request
+    // streaming if the client config has not been overridden.
     if (System.getProperty(EngineConfigurationFactoryDefault.OPTION_CLIENT_CONFIG_FILE) == null
-        && adsLibConfiguration.isCompressionEnabled()) {
+        && (adsLibConfiguration.isCompressionEnabled()
+            || HttpTransportProvider.isPooled(adsLibConfiguration)
+            || adsLibConfiguration.isRequestStreamingEnabled())) {
       return new FileProvider(
           this.getClass().getResourceAsStream("wsdd/ads-axis-client-config.wsdd"));
     }
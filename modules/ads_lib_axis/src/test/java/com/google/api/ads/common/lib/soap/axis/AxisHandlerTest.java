@@ -17,7 +17,9 @@ package com.google.api.ads.common.lib.soap.axis;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.google.api.ads.common.lib.exception.ServiceException;
@@ -168,4 +170,17 @@ public class AxisHandlerTest {
     axisHandler.setRequestTimeout(stub, 12345);
     assertEquals(12345, stub.getTimeout());
   }
+
+  @Test
+  public void testCreateConcurrentSoapClient() {
+    axisHandler.setHeader(stub, "namespace", "someHeader", "someValue");
+    Stub concurrentStub = axisHandler.createConcurrentSoapClient(stub);
+    assertNotSame("createConcurrentSoapClient returned the same Stub", stub, concurrentStub);
+    assertTrue("createConcurrentSoapClient did not return an implementation of the service "
+        + "interface", concurrentStub instanceof MockAxisServiceInterface);
+    assertSame("createConcurrentSoapClient did not share the service locator",
+        stub._getService(), concurrentStub._getService());
+    assertNull("createConcurrentSoapClient copied headers of the original Stub",
+        axisHandler.getHeader(concurrentStub, "someHeader"));
+  }
 }
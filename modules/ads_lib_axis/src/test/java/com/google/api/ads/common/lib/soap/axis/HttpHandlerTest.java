@@ -14,12 +14,16 @@
 
 package com.google.api.ads.common.lib.soap.axis;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
 
 import com.google.api.ads.adwords.lib.soap.testing.SoapResponseXmlProvider;
 import com.google.api.ads.common.lib.soap.axis.HttpHandler.InputStreamEventListener;
@@ -29,7 +33,13 @@ import com.google.api.client.testing.http.MockHttpTransport;
 import com.google.api.client.testing.http.MockLowLevelHttpRequest;
 import com.google.api.client.testing.http.MockLowLevelHttpResponse;
 import com.google.common.base.MoreObjects;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
 import org.apache.axis.AxisEngine;
 import org.apache.axis.AxisFault;
 import org.apache.axis.Message;
@@ -46,12 +56,15 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 /** Tests for {@link HttpHandler}. */
 @RunWith(JUnit4.class)
 public class HttpHandlerTest {
 
   private static final String API_VERSION = "v209901";
+  private static final String REQUEST_XML = "<soap:Envelope>request</soap:Envelope>";
 
   @Rule public ExpectedException thrown = ExpectedException.none();
 
@@ -231,6 +244,104 @@ public class HttpHandlerTest {
         "Timeouts not set to expected values", new int[] {timeout, timeout}, actualTimeouts);
   }
 
+  /** Tests that a streamed request is written to the connection with an unknown length. */
+  @Test
+  public void testInvokeStreamsRequest() throws Exception {
+    MockLowLevelHttpRequest lowLevelHttpRequest = invokeAndCaptureRequest(false);
+
+    assertEquals("Content length should be unknown", -1, lowLevelHttpRequest.getContentLength());
+    assertNull("Content should not be encoded", lowLevelHttpRequest.getContentEncoding());
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    lowLevelHttpRequest.getStreamingContent().writeTo(content);
+    assertEquals(REQUEST_XML, new String(content.toByteArray(), UTF_8));
+  }
+
+  /** Tests that a streamed request is compressed if compression is enabled. */
+  @Test
+  public void testInvokeStreamsCompressedRequest() throws Exception {
+    MockLowLevelHttpRequest lowLevelHttpRequest = invokeAndCaptureRequest(true);
+
+    assertEquals("Content length should be unknown", -1, lowLevelHttpRequest.getContentLength());
+    assertEquals(HTTPConstants.COMPRESSION_GZIP, lowLevelHttpRequest.getContentEncoding());
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    lowLevelHttpRequest.getStreamingContent().writeTo(content);
+    try (InputStream uncompressed =
+        new GZIPInputStream(new ByteArrayInputStream(content.toByteArray()))) {
+      assertEquals(REQUEST_XML, new String(ByteStreams.toByteArray(uncompressed), UTF_8));
+    }
+  }
+
+  /**
+   * Tests that the transport set on the message context is used instead of the handler's
+   * transport.
+   */
+  @Test
+  public void testInvokeUsesMessageContextTransport() throws Exception {
+    MockLowLevelHttpResponse lowLevelHttpResponse = new MockLowLevelHttpResponse();
+    lowLevelHttpResponse.setContent("Intentional failure");
+    lowLevelHttpResponse.setStatusCode(302);
+    MockLowLevelHttpRequest lowLevelHttpRequest = new MockLowLevelHttpRequest();
+    lowLevelHttpRequest.setResponse(lowLevelHttpResponse);
+    MockHttpTransport messageContextTransport =
+        new MockHttpTransport.Builder().setLowLevelHttpRequest(lowLevelHttpRequest).build();
+
+    MessageContext messageContext = new MessageContext(axisEngine);
+    messageContext.setRequestMessage(requestMessage);
+    messageContext.setProperty(MessageContext.TRANS_URL, "https://www.example.com");
+    messageContext.setProperty(HttpHandler.HTTP_TRANSPORT, messageContextTransport);
+
+    try {
+      httpHandler.invoke(messageContext);
+      fail("Expected an AxisFault");
+    } catch (AxisFault e) {
+      assertThat(e.getFaultString(), Matchers.containsString("302"));
+    }
+    assertNotNull("Request not sent with the message context's transport",
+        lowLevelHttpRequest.getStreamingContent());
+  }
+
+  /**
+   * Invokes the handler with request streaming enabled and returns the low level request that was
+   * executed.
+   */
+  private MockLowLevelHttpRequest invokeAndCaptureRequest(boolean compress) throws Exception {
+    MessageContext messageContext = new MessageContext(axisEngine);
+    messageContext.setRequestMessage(requestMessage);
+    messageContext.setProperty(MessageContext.TRANS_URL, "https://www.example.com");
+    messageContext.setProperty(HttpHandler.STREAM_REQUEST, true);
+    messageContext.setProperty(HTTPConstants.MC_GZIP_REQUEST, compress);
+    doAnswer(
+            new Answer<Void>() {
+              @Override
+              public Void answer(InvocationOnMock invocation) throws Throwable {
+                OutputStream outputStream = (OutputStream) invocation.getArguments()[0];
+                outputStream.write(REQUEST_XML.getBytes(UTF_8));
+                return null;
+              }
+            })
+        .when(requestMessage)
+        .writeTo(org.mockito.Matchers.any(OutputStream.class));
+
+    // Do not care about the response for this test, so set the response's status code to 302
+    // to trigger an AxisFault.
+    MockLowLevelHttpResponse lowLevelHttpResponse = new MockLowLevelHttpResponse();
+    lowLevelHttpResponse.setContent("Intentional failure");
+    lowLevelHttpResponse.setStatusCode(302);
+    MockLowLevelHttpRequest lowLevelHttpRequest = new MockLowLevelHttpRequest();
+    lowLevelHttpRequest.setResponse(lowLevelHttpResponse);
+    MockHttpTransport mockTransport =
+        new MockHttpTransport.Builder().setLowLevelHttpRequest(lowLevelHttpRequest).build();
+    httpHandler = new HttpHandler(mockTransport, streamListener);
+
+    try {
+      httpHandler.invoke(messageContext);
+      fail("Expected an AxisFault");
+    } catch (AxisFault e) {
+      assertThat(e.getFaultString(), Matchers.containsString("302"));
+    }
+    return lowLevelHttpRequest;
+  }
+
   /** InputStreamEventListener implementation that tracks the opened/closed state of a stream. */
   private static class StreamListener implements InputStreamEventListener {
 
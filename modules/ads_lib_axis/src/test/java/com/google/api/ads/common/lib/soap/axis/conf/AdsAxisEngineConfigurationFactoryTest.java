@@ -22,6 +22,7 @@ import static org.mockito.Mockito.when;
 
 import com.google.api.ads.common.lib.conf.AdsLibConfiguration;
 import com.google.api.ads.common.lib.soap.axis.HttpHandler;
+import com.google.api.ads.common.lib.utils.HttpTransportProvider;
 import com.google.common.collect.Lists;
 import java.util.List;
 import org.apache.axis.AxisEngine;
@@ -126,6 +127,41 @@ public class AdsAxisEngineConfigurationFactoryTest {
         defaultAxisServer);
   }
 
+  /**
+   * Tests that the client engine config returned by the factory when a pooled HTTP transport is
+   * enabled sends requests through the {@link HttpHandler}, even if compression is disabled.
+   */
+  @Test
+  public void testGetClientEngineConfig_pooledHttpTransport() throws Exception {
+    when(adsLibConfiguration.isCompressionEnabled()).thenReturn(false);
+    when(adsLibConfiguration.getHttpTransport())
+        .thenReturn(HttpTransportProvider.APACHE_HTTP_TRANSPORT);
+
+    EngineConfiguration clientEngineConfig = adsAxisConfigFactory.getClientEngineConfig();
+    assertNotNull("No client engine config returned", clientEngineConfig);
+
+    AxisClient axisClient = new AxisClient(clientEngineConfig);
+
+    assertEquals(HttpHandler.class, getTransport(axisClient, "http").getPivotHandler().getClass());
+  }
+
+  /**
+   * Tests that the client engine config returned by the factory when request streaming is enabled
+   * sends requests through the {@link HttpHandler}, even if compression and pooling are disabled.
+   */
+  @Test
+  public void testGetClientEngineConfig_requestStreaming() throws Exception {
+    when(adsLibConfiguration.isCompressionEnabled()).thenReturn(false);
+    when(adsLibConfiguration.isRequestStreamingEnabled()).thenReturn(true);
+
+    EngineConfiguration clientEngineConfig = adsAxisConfigFactory.getClientEngineConfig();
+    assertNotNull("No client engine config returned", clientEngineConfig);
+
+    AxisClient axisClient = new AxisClient(clientEngineConfig);
+
+    assertEquals(HttpHandler.class, getTransport(axisClient, "http").getPivotHandler().getClass());
+  }
+
   @Test
   public void testGetClientEngineConfig_factoryOverrideSet() throws Exception {
     List<Boolean> compressionEnabledSettings = Lists.newArrayList(Boolean.TRUE, Boolean.FALSE);
@@ -19,39 +19,44 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import com.google.api.ads.adwords.lib.utils.BatchJobException;
 import com.google.api.ads.adwords.lib.utils.BatchJobMutateRequestInterface;
 import com.google.api.ads.adwords.lib.utils.BatchJobUploadBodyProvider;
+import com.google.api.ads.adwords.lib.utils.StreamingBatchJobUploadBodyProvider;
 import com.google.api.ads.common.lib.soap.jaxb.JaxBSerializer;
 import com.google.api.client.http.ByteArrayContent;
 import com.google.common.base.Preconditions;
+import java.io.OutputStream;
 import javax.xml.namespace.QName;
 
 /**
  * Implementation of {@link BatchJobUploadBodyProvider} for JAX-WS.
  */
 public class JaxWsBatchJobUploadBodyProvider<RequestT extends BatchJobMutateRequestInterface>
-    implements BatchJobUploadBodyProvider {
+    implements StreamingBatchJobUploadBodyProvider {
   private static final String REQUEST_NAMESPACE_TEMPLATE =
       "https://adwords.google.com/api/adwords/cm/%s";
 
-  private final QName requestQName;
-  private final Class<RequestT> requestClass;
+  private final JaxBSerializer<RequestT> serializer;
 
   public JaxWsBatchJobUploadBodyProvider(String apiVersion, Class<RequestT> requestClass) {
-    this.requestQName = new QName(
+    QName requestQName = new QName(
         String.format(
             REQUEST_NAMESPACE_TEMPLATE, Preconditions.checkNotNull(apiVersion, "Null API version")),
         "mutate");
-    this.requestClass = requestClass;
+    this.serializer = new JaxBSerializer<RequestT>(requestClass, requestQName);
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public ByteArrayContent getHttpContent(BatchJobMutateRequestInterface request,
       boolean isFirstRequest, boolean isLastRequest) throws BatchJobException {
-    JaxBSerializer<RequestT> serializer =
-        new JaxBSerializer<RequestT>(requestClass, requestQName);
-
     String serializedRequest = serializer.serialize((RequestT) request, false);
 
     return new ByteArrayContent("application/xml", serializedRequest.getBytes(UTF_8));
   }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public void writeHttpContent(BatchJobMutateRequestInterface request, OutputStream outputStream)
+      throws BatchJobException {
+    serializer.serialize((RequestT) request, false, outputStream);
+  }
 }
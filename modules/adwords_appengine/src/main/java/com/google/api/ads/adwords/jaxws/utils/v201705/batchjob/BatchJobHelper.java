@@ -21,9 +21,12 @@ import com.google.api.ads.adwords.jaxws.v201705.cm.Operation;
 import com.google.api.ads.adwords.lib.client.AdWordsSession;
 import com.google.api.ads.adwords.lib.utils.BatchJobException;
 import com.google.api.ads.adwords.lib.utils.BatchJobHelperInterface;
+import com.google.api.ads.adwords.lib.utils.BatchJobMutateResultIterator;
+import com.google.api.ads.adwords.lib.utils.BatchJobUploadPipeline;
 import com.google.api.ads.adwords.lib.utils.BatchJobUploadResponse;
 import com.google.api.ads.adwords.lib.utils.BatchJobUploadStatus;
 import com.google.api.ads.adwords.lib.utils.SessionUtility;
+import com.google.api.ads.adwords.lib.utils.StreamingBatchJobUploader;
 import com.google.api.ads.common.lib.utils.AdsUtilityInvocationHandler;
 import com.google.api.ads.common.lib.utils.AdsUtilityRegistry;
 import com.google.common.reflect.Reflection;
@@ -76,4 +79,21 @@ public class BatchJobHelper
       throws BatchJobException {
     return impl.downloadBatchJobMutateResponse(downloadUrl);
   }
+
+  @Override
+  public BatchJobMutateResultIterator<MutateResult> downloadBatchJobMutateResults(
+      String downloadUrl) throws BatchJobException {
+    return impl.downloadBatchJobMutateResults(downloadUrl);
+  }
+
+  @Override
+  public StreamingBatchJobUploader<Operation> createStreamingUploader(
+      BatchJobUploadStatus batchJobUploadStatus) {
+    return impl.createStreamingUploader(batchJobUploadStatus);
+  }
+
+  @Override
+  public BatchJobUploadPipeline.Builder<Operation> createUploadPipelineBuilder() {
+    return impl.createUploadPipelineBuilder();
+  }
 }
@@ -20,15 +20,23 @@ import com.google.api.ads.adwords.jaxws.v201705.cm.Operand;
 import com.google.api.ads.adwords.jaxws.v201705.cm.Operation;
 import com.google.api.ads.adwords.lib.utils.BatchJobException;
 import com.google.api.ads.adwords.lib.utils.BatchJobHelperInterface;
+import com.google.api.ads.adwords.lib.utils.BatchJobMutateRequestInterface;
+import com.google.api.ads.adwords.lib.utils.BatchJobMutateResultIterator;
+import com.google.api.ads.adwords.lib.utils.BatchJobMutateResultIterator.ResultDeserializer;
+import com.google.api.ads.adwords.lib.utils.BatchJobUploadPipeline;
 import com.google.api.ads.adwords.lib.utils.BatchJobUploadResponse;
 import com.google.api.ads.adwords.lib.utils.BatchJobUploadStatus;
 import com.google.api.ads.adwords.lib.utils.BatchJobUploader;
+import com.google.api.ads.adwords.lib.utils.StreamingBatchJobUploader;
+import com.google.api.ads.adwords.lib.utils.StreamingBatchJobUploader.RequestFactory;
 import com.google.api.ads.adwords.lib.utils.logging.BatchJobLogger;
 import com.google.api.ads.common.lib.soap.jaxb.JaxBDeserializer;
 import com.google.inject.Inject;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
+import java.util.Map;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.stream.StreamSource;
 
 /** Utility for uploading operations and downloading results for a {@link BatchJob}. */
@@ -76,6 +84,23 @@ class BatchJobHelperImpl
     return response;
   }
 
+  @Override
+  public BatchJobMutateResultIterator<MutateResult> downloadBatchJobMutateResults(
+      String downloadUrl) throws BatchJobException {
+    final JaxBDeserializer<MutateResult> deserializer =
+        new JaxBDeserializer<MutateResult>(MutateResult.class);
+    return BatchJobMutateResultIterator.open(
+        downloadUrl,
+        new ResultDeserializer<MutateResult>() {
+          @Override
+          public MutateResult deserialize(
+              XMLStreamReader reader, Map<String, String> rootNamespaces) throws Exception {
+            return deserializer.deserialize(reader);
+          }
+        },
+        batchJobLogger);
+  }
+
   @Override
   public BatchJobUploadResponse uploadIncrementalBatchJobOperations(
       Iterable<? extends Operation> operations,
@@ -87,4 +112,30 @@ class BatchJobHelperImpl
     return uploader.uploadIncrementalBatchJobOperations(
         request, isLastRequest, batchJobUploadStatus);
   }
+
+  @Override
+  public StreamingBatchJobUploader<Operation> createStreamingUploader(
+      BatchJobUploadStatus batchJobUploadStatus) {
+    return uploader.createStreamingUploader(createRequestFactory(), batchJobUploadStatus);
+  }
+
+  @Override
+  public BatchJobUploadPipeline.Builder<Operation> createUploadPipelineBuilder() {
+    return uploader.createUploadPipelineBuilder(createRequestFactory());
+  }
+
+  /**
+   * Returns a factory for the mutate requests of this version.
+   */
+  private static RequestFactory<Operation> createRequestFactory() {
+    return new RequestFactory<Operation>() {
+      @Override
+      public BatchJobMutateRequestInterface createRequest(
+          Iterable<? extends Operation> operations) {
+        BatchJobMutateRequest request = new BatchJobMutateRequest();
+        request.addOperations(operations);
+        return request;
+      }
+    };
+  }
 }
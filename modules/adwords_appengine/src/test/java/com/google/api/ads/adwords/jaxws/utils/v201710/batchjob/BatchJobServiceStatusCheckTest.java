@@ -0,0 +1,124 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.jaxws.utils.v201710.batchjob;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.api.ads.adwords.jaxws.v201710.cm.BatchJob;
+import com.google.api.ads.adwords.jaxws.v201710.cm.BatchJobPage;
+import com.google.api.ads.adwords.jaxws.v201710.cm.BatchJobServiceInterface;
+import com.google.api.ads.adwords.jaxws.v201710.cm.BatchJobStatus;
+import com.google.api.ads.adwords.jaxws.v201710.cm.Predicate;
+import com.google.api.ads.adwords.jaxws.v201710.cm.PredicateOperator;
+import com.google.api.ads.adwords.jaxws.v201710.cm.ProgressStats;
+import com.google.api.ads.adwords.jaxws.v201710.cm.Selector;
+import com.google.api.ads.adwords.lib.utils.BatchJobMonitor.BatchJobState;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Tests for {@link BatchJobServiceStatusCheck}.
+ */
+@RunWith(JUnit4.class)
+public class BatchJobServiceStatusCheckTest {
+
+  @Mock private BatchJobServiceInterface batchJobService;
+
+  private BatchJobServiceStatusCheck statusCheck;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    statusCheck = new BatchJobServiceStatusCheck(batchJobService);
+  }
+
+  /**
+   * Tests that all batch jobs are fetched with a single request with an IN predicate.
+   */
+  @Test
+  public void testGetBatchJobs() throws Exception {
+    BatchJob batchJob1 = createBatchJob(1L, BatchJobStatus.ACTIVE, 50);
+    BatchJob batchJob2 = createBatchJob(2L, BatchJobStatus.DONE, 100);
+    BatchJobPage page = new BatchJobPage();
+    page.getEntries().add(batchJob1);
+    page.getEntries().add(batchJob2);
+    when(batchJobService.get(any(Selector.class))).thenReturn(page);
+
+    List<BatchJob> batchJobs = statusCheck.getBatchJobs(ImmutableList.of(1L, 2L));
+
+    assertEquals(ImmutableList.of(batchJob1, batchJob2), batchJobs);
+    ArgumentCaptor<Selector> selectorCaptor = ArgumentCaptor.forClass(Selector.class);
+    verify(batchJobService).get(selectorCaptor.capture());
+    Selector selector = selectorCaptor.getValue();
+    assertTrue(selector.getFields().containsAll(
+        ImmutableList.of("Id", "Status", "ProgressStats")));
+    assertEquals(1, selector.getPredicates().size());
+    Predicate predicate = selector.getPredicates().get(0);
+    assertEquals("Id", predicate.getField());
+    assertEquals(PredicateOperator.IN, predicate.getOperator());
+    assertEquals(ImmutableList.of("1", "2"), predicate.getValues());
+    assertEquals(Integer.valueOf(0), selector.getPaging().getStartIndex());
+    assertEquals(Integer.valueOf(2), selector.getPaging().getNumberResults());
+  }
+
+  /**
+   * Tests that an empty page returns no batch jobs.
+   */
+  @Test
+  public void testGetBatchJobs_noEntries() throws Exception {
+    when(batchJobService.get(any(Selector.class))).thenReturn(new BatchJobPage());
+    assertTrue(statusCheck.getBatchJobs(ImmutableList.of(1L)).isEmpty());
+  }
+
+  /**
+   * Tests the state and progress of batch jobs.
+   */
+  @Test
+  public void testGetState() {
+    BatchJob batchJob = createBatchJob(1L, BatchJobStatus.ACTIVE, 50);
+    assertEquals(1L, statusCheck.getId(batchJob));
+    assertEquals(BatchJobState.IN_PROGRESS, statusCheck.getState(batchJob));
+    assertEquals(Integer.valueOf(50), statusCheck.getEstimatedPercentExecuted(batchJob));
+    assertEquals(BatchJobState.DONE,
+        statusCheck.getState(createBatchJob(1L, BatchJobStatus.DONE, 100)));
+    assertEquals(BatchJobState.CANCELED,
+        statusCheck.getState(createBatchJob(1L, BatchJobStatus.CANCELED, 10)));
+
+    batchJob.setProgressStats(null);
+    assertNull(statusCheck.getEstimatedPercentExecuted(batchJob));
+  }
+
+  private static BatchJob createBatchJob(long id, BatchJobStatus status, int percentExecuted) {
+    BatchJob batchJob = new BatchJob();
+    batchJob.setId(id);
+    batchJob.setStatus(status);
+    ProgressStats progressStats = new ProgressStats();
+    progressStats.setEstimatedPercentExecuted(percentExecuted);
+    batchJob.setProgressStats(progressStats);
+    return batchJob;
+  }
+}
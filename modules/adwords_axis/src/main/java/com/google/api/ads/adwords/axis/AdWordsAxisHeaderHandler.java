@@ -25,8 +25,13 @@ import com.google.api.ads.common.lib.soap.AuthorizationHeaderHandler;
 import com.google.api.ads.common.lib.soap.axis.AxisHandler;
 import com.google.api.ads.common.lib.soap.axis.AxisSoapHeaderFactory;
 import com.google.api.ads.common.lib.useragent.UserAgentCombiner;
+import com.google.api.client.http.HttpTransport;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.List;
 import javax.inject.Inject;
 import org.apache.axis.client.Stub;
 
@@ -42,8 +47,20 @@ public class AdWordsAxisHeaderHandler implements
   private final AuthorizationHeaderHandler authorizationHeaderHandler;
   private final UserAgentCombiner userAgentCombiner;
   private final AxisSoapHeaderFactory<AdWordsServiceDescriptor> soapHeaderFactory;
+  private final HttpTransport httpTransport;
   
   static final String REQUEST_HEADER_LOCAL_PART = "RequestHeader";
+
+  /** The maximum number of request headers kept in {@link #requestHeaders}. */
+  static final int MAX_CACHED_REQUEST_HEADERS = 1000;
+
+  /**
+   * Request headers that have already been built, keyed by the service and the values of the
+   * header's fields. A request header is never modified once it is cached, so it can be shared by
+   * all SOAP clients whose headers have the same values.
+   */
+  private final Cache<List<Object>, Object> requestHeaders =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_REQUEST_HEADERS).build();
   
   /**
    * Constructor.
@@ -53,6 +70,7 @@ public class AdWordsAxisHeaderHandler implements
    * @param authorizationHeaderHandler the authorization header handler
    * @param userAgentCombiner the full user agent provider
    * @param soapHeaderFactory factory for creating the underlying soap header objects
+   * @param httpTransport the HTTP transport shared by all requests
    */
   @Inject
   AdWordsAxisHeaderHandler(
@@ -61,13 +79,15 @@ public class AdWordsAxisHeaderHandler implements
       AdsLibConfiguration adsLibConfiguration,
       AuthorizationHeaderHandler authorizationHeaderHandler,
       UserAgentCombiner userAgentCombiner,
-      AxisSoapHeaderFactory<AdWordsServiceDescriptor> soapHeaderFactory) {
+      AxisSoapHeaderFactory<AdWordsServiceDescriptor> soapHeaderFactory,
+      HttpTransport httpTransport) {
     this.soapClientHandler = soapClientHandler;
     this.adWordsApiConfiguration = adWordsApiConfiguration;
     this.adsLibConfiguration = adsLibConfiguration;
     this.authorizationHeaderHandler = authorizationHeaderHandler;
     this.userAgentCombiner = userAgentCombiner;
     this.soapHeaderFactory = soapHeaderFactory;
+    this.httpTransport = httpTransport;
   }
 
   /**
@@ -83,28 +103,46 @@ public class AdWordsAxisHeaderHandler implements
       Preconditions.checkArgument(soapClient instanceof Stub,
           "soapClient must be Stub but was: %s", soapClient);
       Stub stub = (Stub) soapClient;
-      Object soapHeader = soapHeaderFactory.createSoapHeader(adWordsServiceDescriptor);
-
       String namespace =
           adWordsApiConfiguration.getNamespacePrefix() + "/"
               + adWordsServiceDescriptor.getPackageGroup() + "/"
               + adWordsServiceDescriptor.getVersion();
+      String userAgent = userAgentCombiner.getUserAgent(adWordsSession.getUserAgent());
 
-      soapClientHandler.setHeader(stub, namespace, REQUEST_HEADER_LOCAL_PART, soapHeader);
-
-      soapClientHandler.setHeaderChild(stub, REQUEST_HEADER_LOCAL_PART, "developerToken",
-          adWordsSession.getDeveloperToken());
-      soapClientHandler.setHeaderChild(stub, REQUEST_HEADER_LOCAL_PART, "clientCustomerId",
-          adWordsSession.getClientCustomerId());
-      soapClientHandler.setHeaderChild(stub, REQUEST_HEADER_LOCAL_PART, "userAgent",
-          userAgentCombiner.getUserAgent(adWordsSession.getUserAgent()));
-      soapClientHandler.setHeaderChild(stub, REQUEST_HEADER_LOCAL_PART, "validateOnly",
-          adWordsSession.isValidateOnly());
-      soapClientHandler.setHeaderChild(stub, REQUEST_HEADER_LOCAL_PART, "partialFailure",
+      List<Object> requestHeaderKey = Arrays.<Object>asList(
+          adWordsServiceDescriptor.getInterfaceClass(),
+          namespace,
+          adWordsSession.getDeveloperToken(),
+          adWordsSession.getClientCustomerId(),
+          userAgent,
+          adWordsSession.isValidateOnly(),
           adWordsSession.isPartialFailure());
+      Object soapHeader = requestHeaders.getIfPresent(requestHeaderKey);
+      if (soapHeader != null) {
+        soapClientHandler.setHeader(stub, namespace, REQUEST_HEADER_LOCAL_PART, soapHeader);
+      } else {
+        soapHeader = soapHeaderFactory.createSoapHeader(adWordsServiceDescriptor);
+
+        soapClientHandler.setHeader(stub, namespace, REQUEST_HEADER_LOCAL_PART, soapHeader);
+
+        soapClientHandler.setHeaderChild(stub, REQUEST_HEADER_LOCAL_PART, "developerToken",
+            adWordsSession.getDeveloperToken());
+        soapClientHandler.setHeaderChild(stub, REQUEST_HEADER_LOCAL_PART, "clientCustomerId",
+            adWordsSession.getClientCustomerId());
+        soapClientHandler.setHeaderChild(stub, REQUEST_HEADER_LOCAL_PART, "userAgent",
+            userAgent);
+        soapClientHandler.setHeaderChild(stub, REQUEST_HEADER_LOCAL_PART, "validateOnly",
+            adWordsSession.isValidateOnly());
+        soapClientHandler.setHeaderChild(stub, REQUEST_HEADER_LOCAL_PART, "partialFailure",
+            adWordsSession.isPartialFailure());
+
+        requestHeaders.put(requestHeaderKey, soapHeader);
+      }
 
       soapClientHandler.setCompression(stub, adsLibConfiguration.isCompressionEnabled());
+      soapClientHandler.setRequestStreaming(stub, adsLibConfiguration.isRequestStreamingEnabled());
       soapClientHandler.setRequestTimeout(stub, adsLibConfiguration.getSoapRequestTimeout());
+      soapClientHandler.setHttpTransport(stub, httpTransport);
 
       authorizationHeaderHandler.setAuthorization(soapClient, adWordsSession);
     } catch (InstantiationException
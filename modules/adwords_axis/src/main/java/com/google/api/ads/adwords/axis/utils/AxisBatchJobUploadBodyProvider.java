@@ -19,11 +19,15 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import com.google.api.ads.adwords.lib.utils.BatchJobException;
 import com.google.api.ads.adwords.lib.utils.BatchJobMutateRequestInterface;
 import com.google.api.ads.adwords.lib.utils.BatchJobUploadBodyProvider;
+import com.google.api.ads.adwords.lib.utils.StreamingBatchJobUploadBodyProvider;
 import com.google.api.client.http.ByteArrayContent;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSortedSet;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.util.SortedSet;
 import javax.xml.namespace.QName;
 import org.apache.axis.encoding.SerializationContext;
@@ -32,7 +36,7 @@ import org.xml.sax.Attributes;
 /**
  * Implementation of {@link BatchJobUploadBodyProvider} for Axis requests.
  */
-public class AxisBatchJobUploadBodyProvider implements BatchJobUploadBodyProvider {
+public class AxisBatchJobUploadBodyProvider implements StreamingBatchJobUploadBodyProvider {
   
   private final SortedSet<String> namespaceUris;
   
@@ -43,9 +47,29 @@ public class AxisBatchJobUploadBodyProvider implements BatchJobUploadBodyProvide
   @Override
   public ByteArrayContent getHttpContent(BatchJobMutateRequestInterface request,
       boolean isFirstRequest, boolean isLastRequest) throws BatchJobException {
+    StringWriter writer = new StringWriter();
+    serialize(request, writer);
+    return new ByteArrayContent("application/xml", writer.toString().getBytes(UTF_8));
+  }
+
+  @Override
+  public void writeHttpContent(BatchJobMutateRequestInterface request, OutputStream outputStream)
+      throws BatchJobException {
+    Writer writer = new OutputStreamWriter(outputStream, UTF_8);
+    serialize(request, writer);
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      throw new BatchJobException("Failed to write the request content", e);
+    }
+  }
+
+  /**
+   * Serializes the request to the writer without an XML declaration.
+   */
+  private void serialize(BatchJobMutateRequestInterface request, Writer writer) {
     Preconditions.checkNotNull(request, "Null request");
 
-    StringWriter writer = new StringWriter();
     SerializationContext context = new SerializationContext(writer) {
       /**
        * Override the serialize method called by the Axis serializer and force it to
@@ -72,8 +96,6 @@ public class AxisBatchJobUploadBodyProvider implements BatchJobUploadBodyProvide
     
     AxisSerializer serializer = new AxisSerializer();
     serializer.serialize(request, context);
-
-    return new ByteArrayContent("application/xml", writer.toString().getBytes(UTF_8));
   }
 
 }
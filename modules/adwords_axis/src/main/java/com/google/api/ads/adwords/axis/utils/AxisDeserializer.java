@@ -16,17 +16,28 @@ package com.google.api.ads.adwords.axis.utils;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.api.ads.adwords.lib.utils.BatchJobMutateResultIterator.ResultDeserializer;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
 import com.google.common.io.ByteSource;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import javax.xml.namespace.QName;
 import javax.xml.rpc.encoding.DeserializerFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
@@ -57,8 +68,31 @@ public class AxisDeserializer {
 
   private static final String SOAP_END_BODY = "</soapenv:Body></soapenv:Envelope>";
 
+  private static final String SOAP_ENVELOPE_NAMESPACE =
+      "http://schemas.xmlsoap.org/soap/envelope/";
+  private static final String XSD_NAMESPACE = "http://www.w3.org/2001/XMLSchema";
+  private static final String XSI_NAMESPACE = "http://www.w3.org/2001/XMLSchema-instance";
+
+  private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
   private static final String INDENT_AMOUNT = "4";
 
+  /**
+   * Deserialization registries by the list of service type mappings they were built from. Lists
+   * are compared by identity, so callers that pass the same cached list for each download share a
+   * single registry instead of registering every deserializer again.
+   */
+  private static final LoadingCache<List<TypeMapping>, DeserializationRegistry> REGISTRIES =
+      CacheBuilder.newBuilder()
+          .weakKeys()
+          .build(
+              new CacheLoader<List<TypeMapping>, DeserializationRegistry>() {
+                @Override
+                public DeserializationRegistry load(List<TypeMapping> serviceTypeMappings) {
+                  return new DeserializationRegistry(serviceTypeMappings);
+                }
+              });
+
   public <ResultT> List<ResultT> deserializeBatchJobMutateResults(
       URL url, List<TypeMapping> serviceTypeMappings, Class<ResultT> resultClass, QName resultQName)
       throws Exception {
@@ -68,23 +102,16 @@ public class AxisDeserializer {
     // Build a wrapped input stream from the response.
     InputStream wrappedStream = buildWrappedInputStream(url.openStream());
 
-    // Create a MessageContext with a new TypeMappingRegistry that will only
+    // Create a MessageContext with a TypeMappingRegistry that will only
     // contain deserializers derived from serviceTypeMappings and the
     // result class/QName pair.
-    MessageContext messageContext = new MessageContext(new AxisClient());
-    TypeMappingRegistryImpl typeMappingRegistry = new TypeMappingRegistryImpl(true);
-    messageContext.setTypeMappingRegistry(typeMappingRegistry);
+    MessageContext messageContext = getRegistry(serviceTypeMappings).createMessageContext();
 
     // Construct an Axis deserialization context.
     DeserializationContext deserializationContext =
         new DeserializationContext(
             new InputSource(wrappedStream), messageContext, Message.RESPONSE);
 
-    // Register all type mappings with the new type mapping registry.
-    TypeMapping registryTypeMapping =
-        typeMappingRegistry.getOrMakeTypeMapping(messageContext.getEncodingStyle());
-    registerTypeMappings(registryTypeMapping, serviceTypeMappings);
-    
     // Parse the wrapped input stream.
     deserializationContext.parse();
 
@@ -102,6 +129,26 @@ public class AxisDeserializer {
     return results;
   }
   
+  /**
+   * Returns a deserializer for the result elements of a streaming batch job mutate response, for
+   * use with a {@link com.google.api.ads.adwords.lib.utils.BatchJobMutateResultIterator}. Each
+   * result element is copied into its own small SOAP envelope and deserialized by Axis, so only a
+   * single result is held in memory at a time.
+   */
+  public <ResultT> ResultDeserializer<ResultT> createBatchJobMutateResultDeserializer(
+      List<TypeMapping> serviceTypeMappings, Class<ResultT> resultClass, QName resultQName) {
+    return new AxisResultDeserializer<ResultT>(serviceTypeMappings, resultClass, resultQName);
+  }
+
+  /**
+   * Returns the shared registry for the list of type mappings, building it on first use.
+   */
+  private static DeserializationRegistry getRegistry(List<TypeMapping> serviceTypeMappings) {
+    Preconditions.checkNotNull(serviceTypeMappings, "Null type mappings");
+    Preconditions.checkArgument(!serviceTypeMappings.isEmpty(), "Empty type mappings");
+    return REGISTRIES.getUnchecked(serviceTypeMappings);
+  }
+
   /**
    * Returns a new input stream that wraps the download input stream in a SOAP body so
    * it can be parsed by Axis.
@@ -132,7 +179,7 @@ public class AxisDeserializer {
   /**
    * Adds the type mappings in the list to {@code registryTypeMapping}.
    */
-  private void registerTypeMappings(
+  private static void registerTypeMappings(
       TypeMapping registryTypeMapping, List<TypeMapping> typeMappings) {
     Preconditions.checkNotNull(registryTypeMapping, "Null registry type mapping");
     Preconditions.checkNotNull(typeMappings, "Null type mappings");
@@ -148,4 +195,138 @@ public class AxisDeserializer {
       }
     }
   }
+
+  /**
+   * An Axis engine and a type mapping registry that only contains the deserializers of a list of
+   * service type mappings. The registry is never modified after construction, so it is shared by
+   * all deserializations of the same type mappings.
+   */
+  private static final class DeserializationRegistry {
+    private final AxisClient axisClient;
+    private final TypeMappingRegistryImpl typeMappingRegistry;
+
+    private DeserializationRegistry(List<TypeMapping> serviceTypeMappings) {
+      this.axisClient = new AxisClient();
+      this.typeMappingRegistry = new TypeMappingRegistryImpl(true);
+      TypeMapping registryTypeMapping =
+          typeMappingRegistry.getOrMakeTypeMapping(
+              new MessageContext(axisClient).getEncodingStyle());
+      registerTypeMappings(registryTypeMapping, serviceTypeMappings);
+    }
+
+    /** Returns a new message context that uses the shared registry. */
+    MessageContext createMessageContext() {
+      MessageContext messageContext = new MessageContext(axisClient);
+      messageContext.setTypeMappingRegistry(typeMappingRegistry);
+      return messageContext;
+    }
+  }
+
+  /**
+   * Deserializes one result element at a time, using the shared registry for every result.
+   */
+  private static final class AxisResultDeserializer<ResultT>
+      implements ResultDeserializer<ResultT> {
+    private final Class<ResultT> resultClass;
+    private final QName resultQName;
+    private final DeserializationRegistry registry;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private AxisResultDeserializer(
+        List<TypeMapping> serviceTypeMappings, Class<ResultT> resultClass, QName resultQName) {
+      this.resultClass = Preconditions.checkNotNull(resultClass, "Null result class");
+      this.resultQName = Preconditions.checkNotNull(resultQName, "Null result QName");
+      this.registry = getRegistry(serviceTypeMappings);
+    }
+
+    @Override
+    public ResultT deserialize(XMLStreamReader reader, Map<String, String> rootNamespaces)
+        throws Exception {
+      // Wrap the result element in a SOAP body and a copy of the root element, so that it is
+      // parsed exactly like the results of a whole response.
+      buffer.reset();
+      XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(buffer, UTF_8.name());
+      writer.writeStartElement("soapenv", "Envelope", SOAP_ENVELOPE_NAMESPACE);
+      writer.writeNamespace("soapenv", SOAP_ENVELOPE_NAMESPACE);
+      writer.writeNamespace("xsd", XSD_NAMESPACE);
+      writer.writeNamespace("xsi", XSI_NAMESPACE);
+      writer.writeStartElement("soapenv", "Body", SOAP_ENVELOPE_NAMESPACE);
+      writer.writeStartElement("mutateResponse");
+      for (Map.Entry<String, String> namespace : rootNamespaces.entrySet()) {
+        if (namespace.getKey().isEmpty()) {
+          writer.writeDefaultNamespace(namespace.getValue());
+        } else {
+          writer.writeNamespace(namespace.getKey(), namespace.getValue());
+        }
+      }
+      copyElement(reader, writer);
+      writer.writeEndDocument();
+      writer.close();
+
+      MessageContext messageContext = registry.createMessageContext();
+      DeserializationContext deserializationContext =
+          new DeserializationContext(
+              new InputSource(new ByteArrayInputStream(buffer.toByteArray())),
+              messageContext,
+              Message.RESPONSE);
+      deserializationContext.parse();
+      MessageElement body = deserializationContext.getEnvelope().getFirstBody();
+      MessageElement resultElement = (MessageElement) body.getChildElements().next();
+      return resultClass.cast(resultElement.getValueAsType(resultQName, resultClass));
+    }
+
+    /**
+     * Copies the element that the reader is positioned at to the writer, and leaves the reader
+     * positioned after the end of the element.
+     */
+    private void copyElement(XMLStreamReader reader, XMLStreamWriter writer)
+        throws XMLStreamException {
+      int depth = 0;
+      do {
+        switch (reader.getEventType()) {
+          case XMLStreamConstants.START_ELEMENT:
+            depth++;
+            String prefix = reader.getPrefix();
+            if (prefix == null || prefix.isEmpty()) {
+              writer.writeStartElement(reader.getLocalName());
+            } else {
+              writer.writeStartElement(prefix, reader.getLocalName(), reader.getNamespaceURI());
+            }
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+              String namespacePrefix = reader.getNamespacePrefix(i);
+              if (namespacePrefix == null || namespacePrefix.isEmpty()) {
+                writer.writeDefaultNamespace(reader.getNamespaceURI(i));
+              } else {
+                writer.writeNamespace(namespacePrefix, reader.getNamespaceURI(i));
+              }
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+              String attributePrefix = reader.getAttributePrefix(i);
+              if (attributePrefix == null || attributePrefix.isEmpty()) {
+                writer.writeAttribute(
+                    reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+              } else {
+                writer.writeAttribute(attributePrefix, reader.getAttributeNamespace(i),
+                    reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+              }
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            depth--;
+            writer.writeEndElement();
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            writer.writeCharacters(
+                reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            break;
+          default:
+            // Comments and processing instructions are not part of the result.
+            break;
+        }
+        reader.next();
+      } while (depth > 0);
+    }
+  }
 }
@@ -0,0 +1,97 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.adwords.axis.utils.v201702.batchjob;
+
+import com.google.api.ads.adwords.axis.utils.v201702.SelectorBuilder;
+import com.google.api.ads.adwords.axis.v201702.cm.BatchJob;
+import com.google.api.ads.adwords.axis.v201702.cm.BatchJobPage;
+import com.google.api.ads.adwords.axis.v201702.cm.BatchJobServiceInterface;
+import com.google.api.ads.adwords.axis.v201702.cm.BatchJobStatus;
+import com.google.api.ads.adwords.axis.v201702.cm.Selector;
+import com.google.api.ads.adwords.lib.selectorfields.v201702.cm.BatchJobField;
+import com.google.api.ads.adwords.lib.utils.BatchJobMonitor;
+import com.google.api.ads.adwords.lib.utils.BatchJobMonitor.BatchJobState;
+import com.google.api.ads.adwords.lib.utils.BatchJobMonitor.BatchJobStatusCheck;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementation of {@link BatchJobStatusCheck} for Axis v201702 that fetches the batch jobs of a
+ * {@link BatchJobMonitor} poll cycle with a single {@code BatchJobService.get} request.
+ *
+ * <p>This class does not override {@link Object#equals(Object)}, so the monitor only groups the
+ * batch jobs of status checks that are the same instance. Create one instance per
+ * {@link BatchJobServiceInterface} and use it for every batch job of that service, so the batch
+ * jobs of a customer share requests.
+ */
+public class BatchJobServiceStatusCheck implements BatchJobStatusCheck<BatchJob> {
+
+  private final BatchJobServiceInterface batchJobService;
+
+  public BatchJobServiceStatusCheck(BatchJobServiceInterface batchJobService) {
+    this.batchJobService = Preconditions.checkNotNull(batchJobService, "Null batch job service");
+  }
+
+  @Override
+  public List<BatchJob> getBatchJobs(Collection<Long> batchJobIds) throws Exception {
+    String[] ids = new String[batchJobIds.size()];
+    int i = 0;
+    for (Long batchJobId : batchJobIds) {
+      ids[i++] = String.valueOf(batchJobId);
+    }
+    Selector selector =
+        new SelectorBuilder()
+            .fields(
+                BatchJobField.Id,
+                BatchJobField.Status,
+                BatchJobField.ProgressStats,
+                BatchJobField.DownloadUrl,
+                BatchJobField.ProcessingErrors)
+            .in(BatchJobField.Id, ids)
+            .offset(0)
+            .limit(ids.length)
+            .build();
+    BatchJobPage page = batchJobService.get(selector);
+    if (page.getEntries() == null) {
+      return ImmutableList.of();
+    }
+    return ImmutableList.copyOf(page.getEntries());
+  }
+
+  @Override
+  public long getId(BatchJob batchJob) {
+    return batchJob.getId();
+  }
+
+  @Override
+  public BatchJobState getState(BatchJob batchJob) {
+    if (BatchJobStatus.DONE.equals(batchJob.getStatus())) {
+      return BatchJobState.DONE;
+    }
+    if (BatchJobStatus.CANCELED.equals(batchJob.getStatus())) {
+      return BatchJobState.CANCELED;
+    }
+    return BatchJobState.IN_PROGRESS;
+  }
+
+  @Override
+  public Integer getEstimatedPercentExecuted(BatchJob batchJob) {
+    return batchJob.getProgressStats() == null
+        ? null
+        : batchJob.getProgressStats().getEstimatedPercentExecuted();
+  }
+}
@@ -22,10 +22,18 @@ import com.google.api.ads.adwords.axis.v201708.cm.Operand;
 import com.google.api.ads.adwords.axis.v201708.cm.Operation;
 import com.google.api.ads.adwords.lib.utils.BatchJobException;
 import com.google.api.ads.adwords.lib.utils.BatchJobHelperInterface;
+import com.google.api.ads.adwords.lib.utils.BatchJobMutateRequestInterface;
+import com.google.api.ads.adwords.lib.utils.BatchJobMutateResultIterator;
+import com.google.api.ads.adwords.lib.utils.BatchJobMutateResultIterator.ResultDeserializer;
+import com.google.api.ads.adwords.lib.utils.BatchJobUploadPipeline;
 import com.google.api.ads.adwords.lib.utils.BatchJobUploadResponse;
 import com.google.api.ads.adwords.lib.utils.BatchJobUploadStatus;
 import com.google.api.ads.adwords.lib.utils.BatchJobUploader;
+import com.google.api.ads.adwords.lib.utils.StreamingBatchJobUploader;
+import com.google.api.ads.adwords.lib.utils.StreamingBatchJobUploader.RequestFactory;
 import com.google.api.ads.adwords.lib.utils.logging.BatchJobLogger;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
@@ -33,8 +41,10 @@ import java.net.URI;
 import java.net.URL;
 import java.rmi.RemoteException;
 import java.util.List;
+import java.util.Map;
 import javax.xml.namespace.QName;
 import javax.xml.rpc.ServiceException;
+import javax.xml.stream.XMLStreamReader;
 import org.apache.axis.client.Call;
 import org.apache.axis.encoding.TypeMapping;
 
@@ -42,6 +52,19 @@ import org.apache.axis.encoding.TypeMapping;
 class BatchJobHelperImpl
     implements BatchJobHelperInterface<
         Operation, Operand, ApiError, MutateResult, BatchJobMutateResponse> {
+  /**
+   * Creating the type mappings requires creating a service stub, and the same type mappings are
+   * used for every upload and download, so they are only created once.
+   */
+  private static final Supplier<List<TypeMapping>> SERVICE_TYPE_MAPPINGS =
+      Suppliers.memoize(
+          new Supplier<List<TypeMapping>>() {
+            @Override
+            public List<TypeMapping> get() {
+              return createServiceTypeMappings();
+            }
+          });
+
   private final BatchJobUploader uploader;
   private final BatchJobLogger batchJobLogger;
   private final QName resultQName;
@@ -71,6 +94,32 @@ class BatchJobHelperImpl
         request, isLastRequest, batchJobUploadStatus);
   }
   
+  @Override
+  public StreamingBatchJobUploader<Operation> createStreamingUploader(
+      BatchJobUploadStatus batchJobUploadStatus) {
+    return uploader.createStreamingUploader(createRequestFactory(), batchJobUploadStatus);
+  }
+
+  @Override
+  public BatchJobUploadPipeline.Builder<Operation> createUploadPipelineBuilder() {
+    return uploader.createUploadPipelineBuilder(createRequestFactory());
+  }
+
+  /**
+   * Returns a factory for the mutate requests of this version.
+   */
+  private static RequestFactory<Operation> createRequestFactory() {
+    return new RequestFactory<Operation>() {
+      @Override
+      public BatchJobMutateRequestInterface createRequest(
+          Iterable<? extends Operation> operations) {
+        BatchJobMutateRequest request = new BatchJobMutateRequest();
+        request.addOperations(operations);
+        return request;
+      }
+    };
+  }
+
   @Override
   public BatchJobMutateResponse downloadBatchJobMutateResponse(String downloadUrl)
       throws BatchJobException {
@@ -104,16 +153,7 @@ class BatchJobHelperImpl
     BatchJobMutateResponse response = new BatchJobMutateResponse();
     List<MutateResult> mutateResults = Lists.newArrayList();
     for (com.google.api.ads.adwords.axis.v201708.cm.MutateResult cmMutateResult : cmMutateResults) {
-      MutateResult mutateResult = new MutateResult();
-      mutateResult.setIndex(cmMutateResult.getIndex());
-      mutateResult.setOperand(cmMutateResult.getResult());
-      if (cmMutateResult.getErrorList() != null) {
-        mutateResult.setErrorList(new ErrorList());
-        if (cmMutateResult.getErrorList().getErrors() != null) {
-          mutateResult.getErrorList().setErrors(cmMutateResult.getErrorList().getErrors());
-        }
-      }
-      mutateResults.add(mutateResult);
+      mutateResults.add(toBatchJobMutateResult(cmMutateResult));
     }
     response.setMutateResults(mutateResults.toArray(new MutateResult[mutateResults.size()]));
 
@@ -121,10 +161,54 @@ class BatchJobHelperImpl
     return response;
   }
 
+  @Override
+  public BatchJobMutateResultIterator<MutateResult> downloadBatchJobMutateResults(
+      String downloadUrl) throws BatchJobException {
+    // Deserializes cm.MutateResults for the same reason as downloadBatchJobMutateResponse.
+    final ResultDeserializer<com.google.api.ads.adwords.axis.v201708.cm.MutateResult>
+        cmDeserializer =
+            new AxisDeserializer().createBatchJobMutateResultDeserializer(
+                getServiceTypeMappings(),
+                com.google.api.ads.adwords.axis.v201708.cm.MutateResult.class,
+                resultQName);
+    return BatchJobMutateResultIterator.open(
+        downloadUrl,
+        new ResultDeserializer<MutateResult>() {
+          @Override
+          public MutateResult deserialize(
+              XMLStreamReader reader, Map<String, String> rootNamespaces) throws Exception {
+            return toBatchJobMutateResult(cmDeserializer.deserialize(reader, rootNamespaces));
+          }
+        },
+        batchJobLogger);
+  }
+
+  /**
+   * Translates a cm.MutateResult into a batchjob.MutateResult.
+   */
+  private static MutateResult toBatchJobMutateResult(
+      com.google.api.ads.adwords.axis.v201708.cm.MutateResult cmMutateResult) {
+    MutateResult mutateResult = new MutateResult();
+    mutateResult.setIndex(cmMutateResult.getIndex());
+    mutateResult.setOperand(cmMutateResult.getResult());
+    if (cmMutateResult.getErrorList() != null) {
+      mutateResult.setErrorList(new ErrorList());
+      if (cmMutateResult.getErrorList().getErrors() != null) {
+        mutateResult.getErrorList().setErrors(cmMutateResult.getErrorList().getErrors());
+      }
+    }
+    return mutateResult;
+  }
+
   /**
-   * Returns all of the service type mappings required to serialize/deserialize Axis objects.
+   * Returns all of the service type mappings required to serialize/deserialize Axis objects. The
+   * type mappings are created on first use and then shared, so they must not be modified.
    */
   static List<TypeMapping> getServiceTypeMappings() {
+    return SERVICE_TYPE_MAPPINGS.get();
+  }
+
+  private static List<TypeMapping> createServiceTypeMappings() {
     // Build the list of type mappings based on BatchJobOpsService for this version of the API.
     ImmutableList.Builder<TypeMapping> mappings = ImmutableList.builder();
 
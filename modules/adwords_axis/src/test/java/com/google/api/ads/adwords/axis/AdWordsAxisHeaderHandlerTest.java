@@ -18,8 +18,10 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -32,6 +34,7 @@ import com.google.api.ads.common.lib.soap.axis.AxisHandler;
 import com.google.api.ads.common.lib.soap.axis.AxisSoapHeaderFactory;
 import com.google.api.ads.common.lib.useragent.UserAgentCombiner;
 import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.http.HttpTransport;
 import com.google.common.collect.Maps;
 import java.util.List;
 import java.util.Map;
@@ -73,6 +76,8 @@ public class AdWordsAxisHeaderHandlerTest {
   private Credential oAuth2Credential;
   @Mock
   private AdWordsServiceDescriptor adWordsServiceDescriptor;
+  @Mock
+  private HttpTransport httpTransport;
 
   @Before
   public void setUp() throws Exception {
@@ -83,7 +88,8 @@ public class AdWordsAxisHeaderHandlerTest {
         adsLibConfiguration,
         authorizationHeaderHandler,
         userAgentCombiner,
-        soapHeaderFactory);
+        soapHeaderFactory,
+        httpTransport);
 
     adWordsSession = new AdWordsSession.Builder()
         .withClientCustomerId("123-456-7890")
@@ -125,6 +131,8 @@ public class AdWordsAxisHeaderHandlerTest {
     // Call the actual method being tested.
     headerHandler.setHeaders(soapClient, adWordsSession, adWordsServiceDescriptor);
 
+    verify(soapClientHandler).setHttpTransport(soapClient, httpTransport);
+
     // Verify that setHeaderChild was invoked on each expected name/value pair.
     ArgumentCaptor<String> nameCaptor = ArgumentCaptor.forClass(String.class);
     ArgumentCaptor<Object> valueCaptor = ArgumentCaptor.forClass(Object.class);
@@ -146,4 +154,35 @@ public class AdWordsAxisHeaderHandlerTest {
     }
   }
 
+  /**
+   * Tests that the request header is built once and shared while the session's header values are
+   * unchanged, and rebuilt when they change.
+   */
+  @Test
+  public void testSetHeaders_reusesRequestHeader() throws Exception {
+    when(soapClientHandler.getHeader(eq(soapClient), anyString())).thenReturn(Maps.newHashMap());
+    Object firstHeader = Maps.newHashMap();
+    Object secondHeader = Maps.newHashMap();
+    when(soapHeaderFactory.createSoapHeader(adWordsServiceDescriptor))
+        .thenReturn(firstHeader, secondHeader);
+    when(userAgentCombiner.getUserAgent(anyString())).thenReturn("libSig");
+
+    headerHandler.setHeaders(soapClient, adWordsSession, adWordsServiceDescriptor);
+    headerHandler.setHeaders(soapClient, adWordsSession, adWordsServiceDescriptor);
+
+    verify(soapHeaderFactory, times(1)).createSoapHeader(adWordsServiceDescriptor);
+    verify(soapClientHandler, times(2))
+        .setHeader(eq(soapClient), anyString(), anyString(), same(firstHeader));
+    verify(soapClientHandler, times(5))
+        .setHeaderChild(eq(soapClient), anyString(), anyString(), any());
+
+    adWordsSession.setClientCustomerId("987-654-3210");
+    headerHandler.setHeaders(soapClient, adWordsSession, adWordsServiceDescriptor);
+
+    verify(soapHeaderFactory, times(2)).createSoapHeader(adWordsServiceDescriptor);
+    verify(soapClientHandler).setHeader(eq(soapClient), anyString(), anyString(),
+        same(secondHeader));
+    verify(soapClientHandler).setHeaderChild(soapClient,
+        AdWordsAxisHeaderHandler.REQUEST_HEADER_LOCAL_PART, "clientCustomerId", "987-654-3210");
+  }
 }
@@ -17,6 +17,7 @@ package com.google.api.ads.adwords.axis.utils;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
 
 import com.google.api.ads.adwords.axis.v201708.cm.AdGroupCriterionServiceSoapBindingStub;
 import com.google.api.ads.adwords.axis.v201708.cm.AdGroupServiceSoapBindingStub;
@@ -24,6 +25,8 @@ import com.google.api.ads.adwords.axis.v201708.cm.BiddableAdGroupCriterion;
 import com.google.api.ads.adwords.axis.v201708.cm.CampaignServiceSoapBindingStub;
 import com.google.api.ads.adwords.axis.v201708.cm.CriterionError;
 import com.google.api.ads.adwords.axis.v201708.cm.MutateResult;
+import com.google.api.ads.adwords.lib.utils.BatchJobMutateResultIterator;
+import com.google.api.ads.adwords.lib.utils.logging.BatchJobLogger;
 import com.google.common.collect.Lists;
 import java.io.File;
 import java.net.URL;
@@ -107,6 +110,59 @@ public class AxisDeserializerTest {
         Matchers.instanceOf(BiddableAdGroupCriterion.class));
   }
 
+  /**
+   * Tests that streaming deserialization of a response with errors returns the same results as
+   * deserializing the whole response.
+   */
+  @Test
+  public void testDeserializeBatchJobResponseStreaming() throws Exception {
+    URL responseXmlUrl =
+        AxisDeserializerTest.class.getResource("resources/BatchJobMutate.responseWithErrors.xml");
+    List<MutateResult> expectedResults = testDeserializeBatchJobResponse(responseXmlUrl);
+
+    BatchJobMutateResultIterator<MutateResult> results =
+        BatchJobMutateResultIterator.open(
+            responseXmlUrl.toString(),
+            new AxisDeserializer().createBatchJobMutateResultDeserializer(
+                getTypeMappings(), MutateResult.class, getMutateResultQName()),
+            mock(BatchJobLogger.class));
+    List<MutateResult> mutateResults = Lists.newArrayList();
+    try {
+      while (results.hasNext()) {
+        mutateResults.add(results.next());
+      }
+    } finally {
+      results.close();
+    }
+    assertEquals(expectedResults, mutateResults);
+    assertThat(
+        mutateResults.get(2).getResult().getAdGroupCriterion(),
+        Matchers.instanceOf(BiddableAdGroupCriterion.class));
+    assertThat(
+        mutateResults.get(6).getErrorList().getErrors()[0],
+        Matchers.instanceOf(CriterionError.class));
+  }
+
+  /**
+   * Tests that deserializing several responses with the same type mappings, which share a single
+   * deserialization registry, returns the same results each time.
+   */
+  @Test
+  public void testDeserializeBatchJobResponse_sharedTypeMappings() throws Exception {
+    URL responseXmlUrl =
+        AxisDeserializerTest.class.getResource("resources/BatchJobMutate.responseWithErrors.xml");
+    List<TypeMapping> typeMappings = getTypeMappings();
+    AxisDeserializer deserializer = new AxisDeserializer();
+    List<MutateResult> firstResults =
+        deserializer.deserializeBatchJobMutateResults(
+            responseXmlUrl, typeMappings, MutateResult.class, getMutateResultQName());
+    List<MutateResult> secondResults =
+        new AxisDeserializer().deserializeBatchJobMutateResults(
+            responseXmlUrl, typeMappings, MutateResult.class, getMutateResultQName());
+    assertEquals(firstResults, secondResults);
+    assertEquals(testDeserializeBatchJobResponse(responseXmlUrl), secondResults);
+  }
+
   /**
    * Tests that an empty file will fail to parse.
    */
@@ -120,9 +176,17 @@ public class AxisDeserializerTest {
 
   private List<MutateResult> testDeserializeBatchJobResponse(URL responseXmlUrl)
       throws Exception {
-    QName mutateResultQName =
-        new QName("https://adwords.google.com/api/adwords/cm/v201708", "MutateResult");
+    List<MutateResult> mutateResults =
+        new AxisDeserializer().deserializeBatchJobMutateResults(responseXmlUrl, getTypeMappings(),
+            MutateResult.class, getMutateResultQName());
+    return mutateResults;
+  }
+
+  private static QName getMutateResultQName() {
+    return new QName("https://adwords.google.com/api/adwords/cm/v201708", "MutateResult");
+  }
 
+  private static List<TypeMapping> getTypeMappings() throws Exception {
     TypeMapping agcMapping = new AdGroupCriterionServiceSoapBindingStub() {
       @Override
       public Call _createCall() throws ServiceException {
@@ -156,12 +220,6 @@ public class AxisDeserializerTest {
       }
     }._createCall().getTypeMapping();
 
-    List<TypeMapping> typeMappings = 
-        Lists.newArrayList(campaignMapping, agcMapping, adGroupMapping);
-
-    List<MutateResult> mutateResults =
-        new AxisDeserializer().deserializeBatchJobMutateResults(responseXmlUrl, typeMappings,
-            MutateResult.class, mutateResultQName);
-    return mutateResults;
+    return Lists.newArrayList(campaignMapping, agcMapping, adGroupMapping);
   }
 }
@@ -16,6 +16,7 @@ package com.google.api.ads.adwords.axis.utils.v201710.batchjob;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 import com.google.api.ads.adwords.axis.factory.AdWordsServices;
 import com.google.api.ads.adwords.axis.v201710.cm.ApiError;
@@ -51,6 +52,18 @@ public class BatchJobHelperTest
     assertNotNull("Helper from session-based constructor is null", helper);
   }
   
+  /**
+   * Tests that the service type mappings are only created once, so that the deserialization
+   * registry built from them can be shared.
+   */
+  @Test
+  public void testGetServiceTypeMappings_cached() {
+    assertSame(
+        "Service type mappings should be cached",
+        BatchJobHelperImpl.getServiceTypeMappings(),
+        BatchJobHelperImpl.getServiceTypeMappings());
+  }
+
   @Override
   protected BatchJobHelperInterface<
           Operation, Operand, ApiError, MutateResult, BatchJobMutateResponse>
@@ -22,11 +22,16 @@ import com.google.api.ads.dfp.jaxws.v201708.ReportDownloadOptions;
 import com.google.api.ads.dfp.jaxws.v201708.ReportJobStatus;
 import com.google.api.ads.dfp.jaxws.v201708.ReportServiceInterface;
 import com.google.api.ads.dfp.lib.utils.ReportCallback;
+import com.google.api.ads.dfp.lib.utils.ReportJobPoller;
+import com.google.api.ads.dfp.lib.utils.ReportJobPoller.ReportJobState;
+import com.google.api.ads.dfp.lib.utils.ReportJobPoller.ReportJobStatusCheck;
+import com.google.api.ads.dfp.lib.utils.ReportRowReader;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.ByteSource;
 import com.google.common.io.CharSource;
 import com.google.common.io.Resources;
+import com.google.common.util.concurrent.ListenableFuture;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
@@ -47,7 +52,8 @@ import java.util.zip.GZIPInputStream;
  * {@code ReportUtils} also provides the method
  * {@link #whenReportReady(ReportCallback)} to wait for a scheduled report to
  * finish processing before taking an action on the report through the supplied
- * {@link ReportCallback}.
+ * {@link ReportCallback}, and {@link #whenReportReady(ReportJobPoller)} to wait for many
+ * reports without a thread per report.
  */
 public class ReportDownloader {
 
@@ -61,6 +67,9 @@ public class ReportDownloader {
 
   private static final ImmutableSet<ExportFormat> SUPPORTED_CHARSOUCE_EXPORT_FORMATS =
       ImmutableSet.of(ExportFormat.CSV_DUMP, ExportFormat.TSV, ExportFormat.XML);
+
+  private static final ImmutableSet<ExportFormat> SUPPORTED_ROW_READER_EXPORT_FORMATS =
+      ImmutableSet.of(ExportFormat.CSV_DUMP, ExportFormat.TSV);
   
   private static class GZippedByteSource extends ByteSource {
 
@@ -133,6 +142,21 @@ public class ReportDownloader {
     return waitThread;
   }
 
+  /**
+   * Waits for the report to be ready using a shared {@link ReportJobPoller}, without creating a
+   * thread for the report. Waiting for the same report job more than once with the same poller
+   * and report service returns the same future.
+   *
+   * @param reportJobPoller the poller that checks the status of the report job
+   * @return a future that is set to {@code true} if the report was successful, or {@code false}
+   *     if the report failed. The future fails with the exception of a status check if one fails.
+   * @throws NullPointerException if {@code reportJobPoller == null}
+   */
+  public ListenableFuture<Boolean> whenReportReady(ReportJobPoller reportJobPoller) {
+    Preconditions.checkNotNull(reportJobPoller, "Report job poller cannot be null.");
+    return reportJobPoller.poll(new ReportServiceStatusCheck(reportService), reportJobId);
+  }
+
   /**
    * Blocks and waits for a report to be ready. When a {@link ReportJobStatus}
    * is received that is not {@code ReportJobStatus#Pending} or {@code
@@ -200,4 +224,65 @@ public class ReportDownloader {
     return (options.isUseGzipCompression() ? new GZippedByteSource(byteSource) : byteSource)
         .asCharSource(REPORT_CHARSET);
   }
+
+  /**
+   * Returns a reader of the rows of a {@link ExportFormat#CSV_DUMP} or {@link ExportFormat#TSV}
+   * report. The report is downloaded and, if compressed, decompressed as the rows are read, and
+   * only the values of the selected columns are kept.
+   *
+   * @param options the options to download the report with
+   * @param columns the names of the columns to keep, such as {@code Dimension.ORDER_ID}, or none
+   *     to keep all columns
+   * @return a new reader of the report rows, which must be closed
+   * @throws IOException if there was an error performing any I/O action, including any SOAP calls
+   * @throws ApiException_Exception if there was any problem making the SOAP
+   *     call
+   * @throws IllegalStateException if the report is not ready to be downloaded
+   * @throws IllegalArgumentException if the {@link ExportFormat} is not a delimited format, or if
+   *     the report lacks a selected column
+   */
+  public ReportRowReader getReportAsRowReader(ReportDownloadOptions options, String... columns)
+      throws IOException, ApiException_Exception {
+    Preconditions.checkArgument(
+        SUPPORTED_ROW_READER_EXPORT_FORMATS.contains(options.getExportFormat()),
+        "ExportFormat " + options.getExportFormat() + " cannot be read as rows");
+    ReportRowReader.Builder builder = new ReportRowReader.Builder()
+        .delimiter(options.getExportFormat() == ExportFormat.TSV ? '\t' : ',');
+    if (columns.length > 0) {
+      builder.columns(columns);
+    }
+    return builder.build(getReportAsCharSource(options).openBufferedStream());
+  }
+
+  /**
+   * Checks the status of report jobs using a report service. Status checks using the same report
+   * service are equal, so that the {@link ReportJobPoller} coalesces them.
+   */
+  private static class ReportServiceStatusCheck implements ReportJobStatusCheck {
+    private final ReportServiceInterface reportService;
+
+    private ReportServiceStatusCheck(ReportServiceInterface reportService) {
+      this.reportService = reportService;
+    }
+
+    @Override
+    public ReportJobState getStatus(long reportJobId) throws Exception {
+      ReportJobStatus status = reportService.getReportJobStatus(reportJobId);
+      if (status == ReportJobStatus.IN_PROGRESS) {
+        return ReportJobState.IN_PROGRESS;
+      }
+      return status == ReportJobStatus.COMPLETED ? ReportJobState.COMPLETED : ReportJobState.FAILED;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof ReportServiceStatusCheck
+          && ((ReportServiceStatusCheck) obj).reportService == reportService;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(reportService);
+    }
+  }
 }
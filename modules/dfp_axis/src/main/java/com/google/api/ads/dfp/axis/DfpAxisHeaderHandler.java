@@ -25,12 +25,17 @@ import com.google.api.ads.dfp.lib.client.DfpServiceDescriptor;
 import com.google.api.ads.dfp.lib.client.DfpSession;
 import com.google.api.ads.dfp.lib.conf.DfpApiConfiguration;
 import com.google.api.ads.dfp.lib.soap.DfpHttpHeaderHandler;
+import com.google.api.client.http.HttpTransport;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import org.apache.axis.client.Stub;
 import org.apache.commons.beanutils.BeanUtils;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.inject.Inject;
 
@@ -39,12 +44,24 @@ import javax.inject.Inject;
  */
 public class DfpAxisHeaderHandler implements HeaderHandler<DfpSession, DfpServiceDescriptor> {
 
+  /** The maximum number of request headers kept in {@link #requestHeaders}. */
+  static final int MAX_CACHED_REQUEST_HEADERS = 1000;
+
+  /**
+   * Request headers that have already been built, keyed by the service and the values of the
+   * header's fields. A request header is never modified once it is cached, so it can be shared by
+   * all SOAP clients whose headers have the same values.
+   */
+  private final Cache<List<Object>, Object> requestHeaders =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_REQUEST_HEADERS).build();
+
   private final AxisHandler soapClientHandler;
   private final DfpApiConfiguration dfpApiConfiguration;
   private final AuthorizationHeaderHandler authorizationHeaderHandler;
   private final DfpHttpHeaderHandler dfpHttpHeaderHandler;
   private final UserAgentCombiner userAgentCombiner;
   private final AdsLibConfiguration adsLibConfiguration;
+  private final HttpTransport httpTransport;
 
   /**
    * Constructor.
@@ -54,6 +71,7 @@ public class DfpAxisHeaderHandler implements HeaderHandler<DfpSession, DfpServic
    * @param authorizationHeaderHandler the authorization header handler
    * @param dfpHttpHeaderHandler the DFP HTTP header handler
    * @param userAgentCombiner the full user agent provider
+   * @param httpTransport the HTTP transport shared by all requests
    */
   @Inject
   public DfpAxisHeaderHandler(
@@ -62,13 +80,15 @@ public class DfpAxisHeaderHandler implements HeaderHandler<DfpSession, DfpServic
       AdsLibConfiguration adsLibConfiguration,
       AuthorizationHeaderHandler authorizationHeaderHandler,
       DfpHttpHeaderHandler dfpHttpHeaderHandler,
-      UserAgentCombiner userAgentCombiner) {
+      UserAgentCombiner userAgentCombiner,
+      HttpTransport httpTransport) {
     this.soapClientHandler = soapClientHandler;
     this.dfpApiConfiguration = dfpApiConfiguration;
     this.adsLibConfiguration = adsLibConfiguration;
     this.authorizationHeaderHandler = authorizationHeaderHandler;
     this.dfpHttpHeaderHandler = dfpHttpHeaderHandler;
     this.userAgentCombiner = userAgentCombiner;
+    this.httpTransport = httpTransport;
   }
 
   /**
@@ -87,12 +107,18 @@ public class DfpAxisHeaderHandler implements HeaderHandler<DfpSession, DfpServic
       
       dfpHttpHeaderHandler.setHttpHeaders(soapClient, dfpSession);
 
-      Object soapHeader = createSoapHeader(dfpServiceDescriptor);
+      String applicationName = userAgentCombiner.getUserAgent(dfpSession.getApplicationName());
+      List<Object> requestHeaderKey = Arrays.<Object>asList(
+          dfpServiceDescriptor.getInterfaceClass(), applicationName, dfpSession.getNetworkCode());
+      Object soapHeader = requestHeaders.getIfPresent(requestHeaderKey);
+      if (soapHeader == null) {
+        soapHeader = createSoapHeader(dfpServiceDescriptor);
 
-      BeanUtils.setProperty(soapHeader, "applicationName",
-          userAgentCombiner.getUserAgent(dfpSession.getApplicationName()));
-      if (dfpSession.getNetworkCode() != null) {
-        BeanUtils.setProperty(soapHeader, "networkCode", dfpSession.getNetworkCode());
+        BeanUtils.setProperty(soapHeader, "applicationName", applicationName);
+        if (dfpSession.getNetworkCode() != null) {
+          BeanUtils.setProperty(soapHeader, "networkCode", dfpSession.getNetworkCode());
+        }
+        requestHeaders.put(requestHeaderKey, soapHeader);
       }
 
       setAuthenticationHeaders(soapClient, dfpSession);
@@ -102,7 +128,9 @@ public class DfpAxisHeaderHandler implements HeaderHandler<DfpSession, DfpServic
               + dfpServiceDescriptor.getVersion();
       soapClientHandler.setHeader(stub, namespace, "RequestHeader", soapHeader);
       soapClientHandler.setCompression(stub, adsLibConfiguration.isCompressionEnabled());
+      soapClientHandler.setRequestStreaming(stub, adsLibConfiguration.isRequestStreamingEnabled());
       soapClientHandler.setRequestTimeout(stub, adsLibConfiguration.getSoapRequestTimeout());
+      soapClientHandler.setHttpTransport(stub, httpTransport);
     } catch (InstantiationException e) {
       throw new ServiceException("Unexpected exception.", e);
     } catch (IllegalAccessException e) {
@@ -0,0 +1,132 @@
+// Copyright 2017 Google Inc. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.ads.dfp.axis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.api.ads.common.lib.conf.AdsLibConfiguration;
+import com.google.api.ads.common.lib.soap.AuthorizationHeaderHandler;
+import com.google.api.ads.common.lib.soap.axis.AxisHandler;
+import com.google.api.ads.common.lib.useragent.UserAgentCombiner;
+import com.google.api.ads.dfp.axis.v201711.NetworkServiceInterface;
+import com.google.api.ads.dfp.axis.v201711.SoapRequestHeader;
+import com.google.api.ads.dfp.lib.client.DfpServiceDescriptor;
+import com.google.api.ads.dfp.lib.client.DfpSession;
+import com.google.api.ads.dfp.lib.conf.DfpApiConfiguration;
+import com.google.api.ads.dfp.lib.soap.DfpHttpHeaderHandler;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.http.HttpTransport;
+import java.util.List;
+import org.apache.axis.client.Stub;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Tests for the {@link DfpAxisHeaderHandler} class.
+ */
+@RunWith(JUnit4.class)
+public class DfpAxisHeaderHandlerTest {
+
+  private DfpAxisHeaderHandler headerHandler;
+
+  private DfpSession dfpSession;
+
+  private DfpServiceDescriptor dfpServiceDescriptor;
+
+  @Mock
+  private AxisHandler soapClientHandler;
+  @Mock
+  private Stub soapClient;
+  @Mock
+  private DfpApiConfiguration dfpApiConfiguration;
+  @Mock
+  private AdsLibConfiguration adsLibConfiguration;
+  @Mock
+  private AuthorizationHeaderHandler authorizationHeaderHandler;
+  @Mock
+  private DfpHttpHeaderHandler dfpHttpHeaderHandler;
+  @Mock
+  private UserAgentCombiner userAgentCombiner;
+  @Mock
+  private Credential oAuth2Credential;
+  @Mock
+  private HttpTransport httpTransport;
+
+  @Before
+  public void setUp() throws Exception {
+    MockitoAnnotations.initMocks(this);
+
+    headerHandler = new DfpAxisHeaderHandler(soapClientHandler,
+        dfpApiConfiguration,
+        adsLibConfiguration,
+        authorizationHeaderHandler,
+        dfpHttpHeaderHandler,
+        userAgentCombiner,
+        httpTransport);
+
+    dfpSession = new DfpSession.Builder()
+        .withApplicationName("Test Application")
+        .withNetworkCode("12345")
+        .withEndpoint("http://www.example.com")
+        .withOAuth2Credential(oAuth2Credential)
+        .build();
+
+    dfpServiceDescriptor = new DfpServiceDescriptor(NetworkServiceInterface.class, "v201711");
+
+    when(dfpApiConfiguration.getNamespacePrefix()).thenReturn("https://www.example.com/apis");
+    when(userAgentCombiner.getUserAgent(anyString())).thenReturn("libSig");
+  }
+
+  /**
+   * Tests that the request header is built once and shared while the session's header values are
+   * unchanged, and rebuilt when they change.
+   */
+  @Test
+  public void testSetHeaders_reusesRequestHeader() throws Exception {
+    headerHandler.setHeaders(soapClient, dfpSession, dfpServiceDescriptor);
+    headerHandler.setHeaders(soapClient, dfpSession, dfpServiceDescriptor);
+
+    dfpSession.setNetworkCode("67890");
+    headerHandler.setHeaders(soapClient, dfpSession, dfpServiceDescriptor);
+
+    ArgumentCaptor<Object> headerCaptor = ArgumentCaptor.forClass(Object.class);
+    verify(soapClientHandler, times(3)).setHeader(eq(soapClient),
+        eq("https://www.example.com/apis/v201711"), eq("RequestHeader"), headerCaptor.capture());
+    List<Object> headers = headerCaptor.getAllValues();
+
+    SoapRequestHeader firstHeader = (SoapRequestHeader) headers.get(0);
+    assertEquals("libSig", firstHeader.getApplicationName());
+    assertEquals("12345", firstHeader.getNetworkCode());
+    assertSame(firstHeader, headers.get(1));
+
+    SoapRequestHeader changedHeader = (SoapRequestHeader) headers.get(2);
+    assertNotSame(firstHeader, changedHeader);
+    assertEquals("67890", changedHeader.getNetworkCode());
+    // The cached header must not be modified by the change.
+    assertEquals("12345", firstHeader.getNetworkCode());
+  }
+}
@@ -27,16 +27,26 @@ import com.google.api.ads.dfp.axis.v201711.ReportDownloadOptions;
 import com.google.api.ads.dfp.axis.v201711.ReportJobStatus;
 import com.google.api.ads.dfp.axis.v201711.ReportServiceInterface;
 import com.google.api.ads.dfp.lib.utils.ReportCallback;
+import com.google.api.ads.dfp.lib.utils.ReportJobPoller;
+import com.google.api.ads.dfp.lib.utils.ReportRowReader;
 import com.google.api.client.util.Sleeper;
 import com.google.common.io.CharSource;
 import com.google.common.io.Resources;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.rmi.RemoteException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.mockito.Matchers;
@@ -50,6 +60,8 @@ import org.mockito.MockitoAnnotations;
 @RunWith(JUnit4.class)
 public class ReportDownloaderTest {
 
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Mock private ReportServiceInterface reportService;
   
   public ReportDownloaderTest() {}
@@ -149,5 +161,51 @@ public class ReportDownloaderTest {
     ReportCallback callback = mock(ReportCallback.class);
     downloader.whenReportReady(callback).join();
     Mockito.verify(callback).onException(e);
-  } 
+  }
+
+  @Test
+  public void testWhenReportReady_poller() throws Exception {
+    ReportJobPoller poller = new ReportJobPoller.Builder().build();
+    try {
+      when(reportService.getReportJobStatus(1L)).thenReturn(ReportJobStatus.COMPLETED);
+      when(reportService.getReportJobStatus(2L)).thenReturn(ReportJobStatus.FAILED);
+
+      assertTrue(new ReportDownloader(reportService, 1).whenReportReady(poller)
+          .get(5, TimeUnit.SECONDS));
+      assertFalse(new ReportDownloader(reportService, 2).whenReportReady(poller)
+          .get(5, TimeUnit.SECONDS));
+    } finally {
+      poller.shutdown();
+    }
+  }
+
+  @Test
+  public void testGetReportAsRowReader() throws IOException {
+    File reportFile = temporaryFolder.newFile("report.csv.gz");
+    OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(reportFile));
+    try {
+      outputStream.write(
+          "Dimension.ORDER_ID,Column.AD_SERVER_IMPRESSIONS\n123,1000\n".getBytes(StandardCharsets.UTF_8));
+    } finally {
+      outputStream.close();
+    }
+    when(reportService.getReportJobStatus(Matchers.anyLong()))
+        .thenReturn(ReportJobStatus.COMPLETED);
+    when(reportService.getReportDownloadUrlWithOptions(Matchers.anyLong(),
+        Matchers.any(ReportDownloadOptions.class)))
+        .thenReturn(reportFile.toURI().toURL().toString());
+
+    ReportDownloadOptions options = new ReportDownloadOptions();
+    options.setExportFormat(ExportFormat.CSV_DUMP);
+    options.setUseGzipCompression(true);
+    ReportRowReader reader = new ReportDownloader(reportService, 1)
+        .getReportAsRowReader(options, "Column.AD_SERVER_IMPRESSIONS");
+    try {
+      assertTrue(reader.next());
+      assertEquals(1000L, reader.getLong(0));
+      assertFalse(reader.next());
+    } finally {
+      reader.close();
+    }
+  }
 }